@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.lang.reflect.Method;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link org.springframework.core.task.TaskExecutor} implementation that
+ * fires up a new virtual thread for each task, on a JDK that provides
+ * virtual threads ({@code Thread.ofVirtual()}), and otherwise falls back
+ * on a new platform thread per task, just like {@link SimpleAsyncTaskExecutor}.
+ *
+ * <p>Virtual threads are cheap to create and to block, so this executor is
+ * suitable for a large number of concurrent, mostly blocking tasks, e.g.
+ * controller method invocations in Spring MVC. As with
+ * {@code SimpleAsyncTaskExecutor}, a "concurrencyLimit" may be set in order
+ * to protect downstream resources; the thread-related "daemon" and
+ * "threadPriority" settings do not apply to virtual threads.
+ *
+ * @author Juergen Hoeller
+ * @since 5.2
+ * @see #isVirtualThreadsSupported()
+ */
+@SuppressWarnings("serial")
+public class VirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor {
+
+	/** Default thread name prefix: "virtual-". */
+	public static final String DEFAULT_THREAD_NAME_PREFIX = "virtual-";
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method unstartedMethod;
+
+	static {
+		Method ofVirtual = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+		Method name = null;
+		Method unstarted = null;
+		if (ofVirtual != null) {
+			try {
+				Class<?> builderClass = ClassUtils.forName(
+						"java.lang.Thread$Builder", VirtualThreadTaskExecutor.class.getClassLoader());
+				name = builderClass.getMethod("name", String.class);
+				unstarted = builderClass.getMethod("unstarted", Runnable.class);
+			}
+			catch (Throwable ex) {
+				// Virtual threads not available on this JDK...
+				ofVirtual = null;
+			}
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		unstartedMethod = unstarted;
+	}
+
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with the default thread name prefix.
+	 */
+	public VirtualThreadTaskExecutor() {
+		super(DEFAULT_THREAD_NAME_PREFIX);
+	}
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with the given thread name prefix.
+	 * @param threadNamePrefix the prefix to use for the names of newly created threads
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		super(threadNamePrefix);
+	}
+
+
+	/**
+	 * Whether the current JDK provides virtual threads. If not, this executor
+	 * creates a platform thread per task instead.
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	/**
+	 * Create a new virtual thread for the given task, if supported, or
+	 * otherwise fall back on a platform thread.
+	 */
+	@Override
+	public Thread createThread(Runnable runnable) {
+		if (ofVirtualMethod == null || nameMethod == null || unstartedMethod == null) {
+			return super.createThread(runnable);
+		}
+		Object builder = ReflectionUtils.invokeMethod(ofVirtualMethod, null);
+		builder = ReflectionUtils.invokeMethod(nameMethod, builder, nextThreadName());
+		Thread thread = (Thread) ReflectionUtils.invokeMethod(unstartedMethod, builder, runnable);
+		if (thread == null) {
+			throw new IllegalStateException("Failed to create virtual thread");
+		}
+		return thread;
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link VirtualThreadTaskExecutor}.
+ *
+ * @author Juergen Hoeller
+ */
+public class VirtualThreadTaskExecutorTests {
+
+	private final VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+
+
+	@Test
+	public void submitCallable() throws Exception {
+		Future<String> future = this.executor.submit(() -> Thread.currentThread().getName());
+		assertThat(future.get(1000, TimeUnit.MILLISECONDS)).startsWith("test-");
+	}
+
+	@Test
+	public void submitFailingCallable() throws Exception {
+		Future<String> future = this.executor.submit(() -> {
+			throw new IllegalStateException("expected");
+		});
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() ->
+				future.get(1000, TimeUnit.MILLISECONDS))
+				.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(future.isDone()).isTrue();
+	}
+
+	@Test
+	public void createThread() {
+		Thread thread = this.executor.createThread(() -> {});
+		assertThat(thread.getName()).startsWith("test-");
+		assertThat(thread.isAlive()).isFalse();
+
+		Method isVirtual = ClassUtils.getMethodIfAvailable(Thread.class, "isVirtual");
+		boolean virtual = (isVirtual != null && Boolean.TRUE.equals(ReflectionUtils.invokeMethod(isVirtual, thread)));
+		assertThat(virtual).isEqualTo(VirtualThreadTaskExecutor.isVirtualThreadsSupported());
+	}
+
+	@Test
+	public void defaultThreadNamePrefix() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		Future<String> future = executor.submit(() -> Thread.currentThread().getName());
+		assertThat(future.get(1000, TimeUnit.MILLISECONDS))
+				.startsWith(VirtualThreadTaskExecutor.DEFAULT_THREAD_NAME_PREFIX);
+	}
+
+}
@@ -16,9 +16,6 @@
 
 package org.springframework.core.codec;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -28,16 +25,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.IntPredicate;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.lang.Nullable;
@@ -97,12 +92,12 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
 			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delimiterBytes);
+			List<DataBuffer> chunks = new ArrayList<>();
 			return Flux.from(input)
-					.concatMapIterable(buffer -> endFrameAfterDelimiter(buffer, matcher))
-					.bufferUntil(buffer -> buffer instanceof EndFrameBuffer)
-					.map(buffers -> joinAndStrip(buffers, this.stripDelimiter))
+					.concatMapIterable(buffer -> splitOnDelimiter(buffer, matcher, chunks))
+					.concatWith(Mono.defer(() -> joinChunks(chunks)))
+					.doFinally(signalType -> releaseChunks(chunks))
 					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
-
 		});
 
 		return super.decode(inputFlux, elementType, mimeType, hints);
@@ -143,67 +138,62 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 	/**
-	 * Finds the first match and longest delimiter, {@link EndFrameBuffer} just after it.
-	 *
+	 * Split the given buffer after each delimiter. Frames that are contained in
+	 * the buffer are returned as slices, frames that span multiple buffers are
+	 * composed from the slice and the chunks of previous buffers.
 	 * @param dataBuffer the buffer to find delimiters in
-	 * @param matcher used to find the first delimiters
-	 * @return a flux of buffers, containing {@link EndFrameBuffer} after each delimiter that was
-	 * found in {@code dataBuffer}. Returns  Flux, because returning List (w/ flatMapIterable)
-	 * results in memory leaks due to pre-fetching.
+	 * @param matcher used to find the first, longest delimiter
+	 * @param chunks the chunks of the current, incomplete frame
+	 * @return the complete frames found in {@code dataBuffer}
 	 */
-	private static List<DataBuffer> endFrameAfterDelimiter(DataBuffer dataBuffer, DataBufferUtils.Matcher matcher) {
-		List<DataBuffer> result = new ArrayList<>();
-		do {
-			int endIdx = matcher.match(dataBuffer);
-			if (endIdx != -1) {
+	private List<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, DataBufferUtils.Matcher matcher,
+			List<DataBuffer> chunks) {
+
+		List<DataBuffer> frames = new ArrayList<>();
+		try {
+			do {
+				int endIdx = matcher.match(dataBuffer);
+				if (endIdx == -1) {
+					chunks.add(DataBufferUtils.retain(dataBuffer));
+					break;
+				}
 				int readPosition = dataBuffer.readPosition();
-				int length = endIdx - readPosition + 1;
-				result.add(dataBuffer.retainedSlice(readPosition, length));
-				result.add(new EndFrameBuffer(matcher.delimiter()));
+				DataBuffer frame = dataBuffer.retainedSlice(readPosition, endIdx - readPosition + 1);
 				dataBuffer.readPosition(endIdx + 1);
+				if (!chunks.isEmpty()) {
+					chunks.add(frame);
+					frame = DataBufferUtils.compose(chunks);
+					chunks.clear();
+				}
+				if (this.stripDelimiter) {
+					frame.writePosition(frame.writePosition() - matcher.delimiter().length);
+				}
+				frames.add(frame);
 			}
-			else {
-				result.add(DataBufferUtils.retain(dataBuffer));
-				break;
-			}
+			while (dataBuffer.readableByteCount() > 0);
 		}
-		while (dataBuffer.readableByteCount() > 0);
-
-		DataBufferUtils.release(dataBuffer);
-		return result;
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+		return frames;
 	}
 
 	/**
-	 * Joins the given list of buffers. If the list ends with a {@link EndFrameBuffer}, it is
-	 * removed. If {@code stripDelimiter} is {@code true} and the resulting buffer ends with
-	 * a delimiter, it is removed.
-	 * @param dataBuffers the data buffers to join
-	 * @param stripDelimiter whether to strip the delimiter
-	 * @return the joined buffer
+	 * Compose the chunks left over after the last delimiter into a frame.
 	 */
-	private static DataBuffer joinAndStrip(List<DataBuffer> dataBuffers,
-			boolean stripDelimiter) {
-
-		Assert.state(!dataBuffers.isEmpty(), "DataBuffers should not be empty");
-
-		byte[] matchingDelimiter = null;
-
-		int lastIdx = dataBuffers.size() - 1;
-		DataBuffer lastBuffer = dataBuffers.get(lastIdx);
-		if (lastBuffer instanceof EndFrameBuffer) {
-			matchingDelimiter = ((EndFrameBuffer) lastBuffer).delimiter();
-			dataBuffers.remove(lastIdx);
-		}
-
-		DataBuffer result = dataBuffers.get(0).factory().join(dataBuffers);
-
-		if (stripDelimiter && matchingDelimiter != null) {
-			result.writePosition(result.writePosition() - matchingDelimiter.length);
+	private static Mono<DataBuffer> joinChunks(List<DataBuffer> chunks) {
+		if (chunks.isEmpty()) {
+			return Mono.empty();
 		}
-		return result;
+		DataBuffer result = DataBufferUtils.compose(chunks);
+		chunks.clear();
+		return Mono.just(result);
 	}
 
-
+	private static void releaseChunks(List<DataBuffer> chunks) {
+		chunks.forEach(DataBufferUtils::release);
+		chunks.clear();
+	}
 
 
 	/**
@@ -263,167 +253,4 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				new MimeType("text", "plain", DEFAULT_CHARSET), MimeTypeUtils.ALL);
 	}
 
-
-	private static class EndFrameBuffer implements DataBuffer {
-
-		private static final DataBuffer BUFFER = new DefaultDataBufferFactory().wrap(new byte[0]);
-
-		private byte[] delimiter;
-
-
-		public EndFrameBuffer(byte[] delimiter) {
-			this.delimiter = delimiter;
-		}
-
-		public byte[] delimiter() {
-			return this.delimiter;
-		}
-
-		@Override
-		public DataBufferFactory factory() {
-			return BUFFER.factory();
-		}
-
-		@Override
-		public int indexOf(IntPredicate predicate, int fromIndex) {
-			return BUFFER.indexOf(predicate, fromIndex);
-		}
-
-		@Override
-		public int lastIndexOf(IntPredicate predicate, int fromIndex) {
-			return BUFFER.lastIndexOf(predicate, fromIndex);
-		}
-
-		@Override
-		public int readableByteCount() {
-			return BUFFER.readableByteCount();
-		}
-
-		@Override
-		public int writableByteCount() {
-			return BUFFER.writableByteCount();
-		}
-
-		@Override
-		public int capacity() {
-			return BUFFER.capacity();
-		}
-
-		@Override
-		public DataBuffer capacity(int capacity) {
-			return BUFFER.capacity(capacity);
-		}
-
-		@Override
-		public DataBuffer ensureCapacity(int capacity) {
-			return BUFFER.ensureCapacity(capacity);
-		}
-
-		@Override
-		public int readPosition() {
-			return BUFFER.readPosition();
-		}
-
-		@Override
-		public DataBuffer readPosition(int readPosition) {
-			return BUFFER.readPosition(readPosition);
-		}
-
-		@Override
-		public int writePosition() {
-			return BUFFER.writePosition();
-		}
-
-		@Override
-		public DataBuffer writePosition(int writePosition) {
-			return BUFFER.writePosition(writePosition);
-		}
-
-		@Override
-		public byte getByte(int index) {
-			return BUFFER.getByte(index);
-		}
-
-		@Override
-		public byte read() {
-			return BUFFER.read();
-		}
-
-		@Override
-		public DataBuffer read(byte[] destination) {
-			return BUFFER.read(destination);
-		}
-
-		@Override
-		public DataBuffer read(byte[] destination, int offset, int length) {
-			return BUFFER.read(destination, offset, length);
-		}
-
-		@Override
-		public DataBuffer write(byte b) {
-			return BUFFER.write(b);
-		}
-
-		@Override
-		public DataBuffer write(byte[] source) {
-			return BUFFER.write(source);
-		}
-
-		@Override
-		public DataBuffer write(byte[] source, int offset, int length) {
-			return BUFFER.write(source, offset, length);
-		}
-
-		@Override
-		public DataBuffer write(DataBuffer... buffers) {
-			return BUFFER.write(buffers);
-		}
-
-		@Override
-		public DataBuffer write(ByteBuffer... buffers) {
-			return BUFFER.write(buffers);
-		}
-
-		@Override
-		public DataBuffer write(CharSequence charSequence, Charset charset) {
-			return BUFFER.write(charSequence, charset);
-		}
-
-		@Override
-		public DataBuffer slice(int index, int length) {
-			return BUFFER.slice(index, length);
-		}
-
-		@Override
-		public DataBuffer retainedSlice(int index, int length) {
-			return BUFFER.retainedSlice(index, length);
-		}
-
-		@Override
-		public ByteBuffer asByteBuffer() {
-			return BUFFER.asByteBuffer();
-		}
-
-		@Override
-		public ByteBuffer asByteBuffer(int index, int length) {
-			return BUFFER.asByteBuffer(index, length);
-		}
-
-		@Override
-		public InputStream asInputStream() {
-			return BUFFER.asInputStream();
-		}
-
-		@Override
-		public InputStream asInputStream(boolean releaseOnClose) {
-			return BUFFER.asInputStream(releaseOnClose);
-		}
-
-		@Override
-		public OutputStream asOutputStream() {
-			return BUFFER.asOutputStream();
-		}
-	}
-
-
 }
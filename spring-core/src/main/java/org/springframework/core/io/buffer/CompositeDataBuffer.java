@@ -0,0 +1,550 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that is composed of other data buffers, without copying
+ * their content. The readable bytes of each component make up the content of
+ * the composite, in order. Similar to Netty's {@code CompositeByteBuf}, and
+ * used to {@linkplain DataBufferUtils#compose(List) compose}
+ * {@link DefaultDataBuffer DefaultDataBuffers}.
+ *
+ * <p>Like the {@code DefaultDataBuffer}, this buffer is not pooled, and only
+ * accepts components that are not {@link PooledDataBuffer pooled} either.
+ * Pooled buffers are best joined through their own
+ * {@linkplain DataBufferFactory#join(List) factory}. Writing beyond the
+ * capacity of the composite adds a new component allocated from the
+ * {@linkplain #factory() factory}.
+ *
+ * <p>Note that {@link #asByteBuffer()} can only share data with this buffer if
+ * the requested range lies within a single component, and otherwise returns a
+ * read-only copy. Use {@link #asByteBuffers()} for scatter/gather I/O on all
+ * components.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ * @see DataBufferUtils#compose(List)
+ */
+public class CompositeDataBuffer implements DataBuffer {
+
+	private static final int MIN_COMPONENT_CAPACITY = 256;
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	private final List<DataBuffer> components;
+
+	// Views on the content of each component, with position 0
+	private final List<ByteBuffer> views;
+
+	// Index of the first byte of each component in this buffer
+	private int[] offsets;
+
+	// Index of the first byte of each view in its component
+	private int[] starts;
+
+	private int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+
+	/**
+	 * Create a new {@code CompositeDataBuffer} with the given components.
+	 * @param dataBufferFactory the factory to allocate additional components with
+	 * @param components the buffers whose readable bytes make up the content of
+	 * the composite; these must not be {@link PooledDataBuffer pooled}
+	 */
+	public CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> components) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notNull(components, "Components must not be null");
+		for (DataBuffer component : components) {
+			Assert.isTrue(!(component instanceof PooledDataBuffer), "Pooled components are not supported");
+		}
+		this.dataBufferFactory = dataBufferFactory;
+		this.components = new ArrayList<>(components.size() + 1);
+		this.views = new ArrayList<>(components.size() + 1);
+		this.offsets = new int[components.size() + 1];
+		this.starts = new int[components.size() + 1];
+		for (DataBuffer component : components) {
+			addComponent(component, component.readPosition(), component.asByteBuffer());
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private void addComponent(DataBuffer component, int start, ByteBuffer view) {
+		int index = this.components.size();
+		if (index == this.offsets.length) {
+			this.offsets = Arrays.copyOf(this.offsets, index * 2);
+			this.starts = Arrays.copyOf(this.starts, index * 2);
+		}
+		this.offsets[index] = this.capacity;
+		this.starts[index] = start;
+		this.components.add(component);
+		this.views.add(view);
+		this.capacity += view.remaining();
+	}
+
+
+	/**
+	 * Return the number of components in this buffer.
+	 */
+	public int componentCount() {
+		return this.components.size();
+	}
+
+	/**
+	 * Expose the readable bytes of this buffer as {@link ByteBuffer ByteBuffers},
+	 * one for each component, that share their data with this buffer. Suitable
+	 * for use with {@link java.nio.channels.GatheringByteChannel}.
+	 * @return the byte buffers with the readable bytes of this buffer
+	 */
+	public ByteBuffer[] asByteBuffers() {
+		return asByteBuffers(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * Expose a range of this buffer as {@link ByteBuffer ByteBuffers}, one for
+	 * each component in the range, that share their data with this buffer.
+	 * @param index the index at which to start the byte buffers
+	 * @param length the length of the range
+	 * @return the byte buffers covering the given range of this buffer
+	 */
+	public ByteBuffer[] asByteBuffers(int index, int length) {
+		checkIndex(index, length);
+		List<ByteBuffer> result = new ArrayList<>();
+		int end = index + length;
+		int i = componentIndex(index);
+		while (index < end) {
+			int start = index - this.offsets[i];
+			int count = Math.min(end - index, this.views.get(i).remaining() - start);
+			if (count > 0) {
+				result.add(viewSlice(i, start, count));
+			}
+			index += count;
+			i++;
+		}
+		return result.toArray(new ByteBuffer[0]);
+	}
+
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		int i = componentIndex(fromIndex);
+		int index = fromIndex;
+		while (index < this.writePosition) {
+			ByteBuffer view = this.views.get(i);
+			int offset = this.offsets[i];
+			int end = Math.min(view.remaining(), this.writePosition - offset);
+			for (int j = index - offset; j < end; j++) {
+				if (predicate.test(view.get(j))) {
+					return offset + j;
+				}
+			}
+			index = offset + end;
+			i++;
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int i = componentIndex(index); i >= 0; i--) {
+			ByteBuffer view = this.views.get(i);
+			int offset = this.offsets[i];
+			for (int j = Math.min(index - offset, view.remaining() - 1); j >= 0; j--) {
+				if (predicate.test(view.get(j))) {
+					return offset + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.capacity - this.writePosition;
+	}
+
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		if (newCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		}
+		if (newCapacity > this.capacity) {
+			DataBuffer component = this.dataBufferFactory.allocateBuffer(newCapacity - this.capacity);
+			addComponent(component, 0, component.asByteBuffer(0, newCapacity - this.capacity));
+		}
+		else if (newCapacity < this.capacity) {
+			int i = componentIndex(newCapacity - 1);
+			int length = newCapacity - this.offsets[i];
+			this.views.set(i, viewSlice(i, 0, length));
+			for (int j = this.components.size() - 1; j > i; j--) {
+				this.components.remove(j);
+				this.views.remove(j);
+			}
+			this.capacity = newCapacity;
+			this.writePosition = Math.min(this.writePosition, newCapacity);
+			this.readPosition = Math.min(this.readPosition, this.writePosition);
+		}
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int length) {
+		int writable = writableByteCount();
+		if (length > writable) {
+			capacity(this.capacity + Math.max(length - writable, MIN_COMPONENT_CAPACITY));
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		return this.views.get(i).get(index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		for (ByteBuffer byteBuffer : asByteBuffers(this.readPosition, length)) {
+			int count = byteBuffer.remaining();
+			byteBuffer.get(destination, offset, count);
+			offset += count;
+		}
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int i = componentIndex(this.writePosition);
+		this.views.get(i).put(this.writePosition - this.offsets[i], b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "Byte array must not be null");
+		ensureCapacity(length);
+		for (ByteBuffer byteBuffer : asByteBuffers(this.writePosition, length)) {
+			int count = byteBuffer.remaining();
+			byteBuffer.put(source, offset, count);
+			offset += count;
+		}
+		this.writePosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			write(Arrays.stream(buffers).map(DataBuffer::asByteBuffer).toArray(ByteBuffer[]::new));
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			int length = Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum();
+			ensureCapacity(length);
+			ByteBuffer[] targets = asByteBuffers(this.writePosition, length);
+			int t = 0;
+			for (ByteBuffer source : buffers) {
+				while (source.hasRemaining()) {
+					ByteBuffer target = targets[t];
+					if (!target.hasRemaining()) {
+						t++;
+						continue;
+					}
+					int count = Math.min(source.remaining(), target.remaining());
+					ByteBuffer chunk = source.duplicate();
+					((Buffer) chunk).limit(chunk.position() + count);
+					target.put(chunk);
+					((Buffer) source).position(source.position() + count);
+				}
+			}
+			this.writePosition += length;
+		}
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>If the slice lies within a single component, this implementation
+	 * returns a slice of that component. Otherwise it returns a composite of
+	 * slices of the components involved, sharing their data with this buffer.
+	 */
+	@Override
+	public DataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		int i = componentIndex(index);
+		int start = index - this.offsets[i];
+		if (start + length <= this.views.get(i).remaining()) {
+			return this.components.get(i).slice(this.starts[i] + start, length);
+		}
+		List<DataBuffer> slices = new ArrayList<>();
+		int end = index + length;
+		while (index < end) {
+			int count = Math.min(end - index, this.views.get(i).remaining() - start);
+			if (count > 0) {
+				slices.add(this.components.get(i).slice(this.starts[i] + start, count));
+			}
+			index += count;
+			start = 0;
+			i++;
+		}
+		return new CompositeDataBuffer(this.dataBufferFactory, slices);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p><strong>Note:</strong> data is only shared when the readable bytes lie
+	 * within a single component. Otherwise they are copied into a new, read-only
+	 * heap {@code ByteBuffer}, so that the copy cannot be mistaken for a view.
+	 * @see #asByteBuffers()
+	 */
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p><strong>Note:</strong> data is only shared when the given range lies
+	 * within a single component. Otherwise it is copied into a new, read-only
+	 * heap {@code ByteBuffer}: changes to the content of this buffer are not
+	 * reflected in the copy, and writing to the copy is rejected with a
+	 * {@link java.nio.ReadOnlyBufferException}.
+	 * @see #asByteBuffers(int, int)
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		ByteBuffer[] byteBuffers = asByteBuffers(index, length);
+		if (byteBuffers.length == 1) {
+			return byteBuffers[0];
+		}
+		ByteBuffer result = ByteBuffer.allocate(length);
+		for (ByteBuffer byteBuffer : byteBuffers) {
+			result.put(byteBuffer);
+		}
+		((Buffer) result).flip();
+		return result.asReadOnlyBuffer();
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream();
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream();
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+
+	private int componentIndex(int index) {
+		// Last component starting at or before the given index
+		int low = 0;
+		int high = this.components.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private ByteBuffer viewSlice(int i, int start, int length) {
+		ByteBuffer duplicate = this.views.get(i).duplicate();
+		((Buffer) duplicate).position(start).limit(start + length);
+		return duplicate.slice();
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= this.capacity, "index %d + length %d must be <= %d",
+				index, length, this.capacity);
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, this.capacity, this.components.size());
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
@@ -32,12 +32,14 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscription;
@@ -536,6 +538,61 @@ public abstract class DataBufferUtils {
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	/**
+	 * Compose the given data buffers into a single buffer, without copying
+	 * their content where possible. Unlike {@link #join(Publisher)}, this is
+	 * meant for callers that consume the result through its read and stream
+	 * methods, since a {@link CompositeDataBuffer} is not backed by contiguous
+	 * memory: its {@link DataBuffer#asByteBuffer(int, int) asByteBuffer} views
+	 * are read-only copies when they span more than one component.
+	 * <p>A single buffer is returned as is, and buffers that are all non-pooled
+	 * and from a {@link DefaultDataBufferFactory} are composed into a
+	 * {@link CompositeDataBuffer}. Buffers that share any other factory are
+	 * {@linkplain DataBufferFactory#join(List) joined} by it, and buffers from
+	 * different factories are copied into a new buffer from the factory of the
+	 * first one.
+	 * <p>Note that the given data buffers do <strong>not</strong> have to be
+	 * released. They will be released as part of the returned buffer.
+	 * @param dataBuffers the data buffers that are to be composed
+	 * @return a buffer that is composed from the {@code dataBuffers} argument
+	 * @since 5.2
+	 */
+	public static DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		DataBufferFactory bufferFactory = dataBuffers.get(0).factory();
+		boolean sameFactory = true;
+		boolean pooled = false;
+		int length = 0;
+		for (DataBuffer dataBuffer : dataBuffers) {
+			sameFactory &= (dataBuffer.factory() == bufferFactory);
+			pooled |= (dataBuffer instanceof PooledDataBuffer);
+			length += dataBuffer.readableByteCount();
+		}
+		if (sameFactory) {
+			if (bufferFactory instanceof DefaultDataBufferFactory && !pooled) {
+				return new CompositeDataBuffer(bufferFactory, dataBuffers);
+			}
+			return bufferFactory.join(dataBuffers);
+		}
+		DataBuffer result = bufferFactory.allocateBuffer(length);
+		try {
+			for (DataBuffer dataBuffer : dataBuffers) {
+				result.write(dataBuffer);
+			}
+		}
+		catch (Throwable ex) {
+			release(result);
+			throw ex;
+		}
+		finally {
+			dataBuffers.forEach(DataBufferUtils::release);
+		}
+		return result;
+	}
+
 	/**
 	 * Return a {@link Matcher} for the given delimiter. The matcher can be used to find the
 	 * delimiters in data buffers.
@@ -560,11 +617,10 @@ public abstract class DataBufferUtils {
 			return matcher(delimiters[0]);
 		}
 		else {
-			Matcher[] matchers = new Matcher[delimiters.length];
-			for (int i = 0; i < delimiters.length; i++) {
-				matchers[i] = matcher(delimiters[i]);
+			for (byte[] delimiter : delimiters) {
+				Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
 			}
-			return new CompositeMatcher(matchers);
+			return new CompositeMatcher(delimiters);
 		}
 	}
 
@@ -843,6 +899,7 @@ public abstract class DataBufferUtils {
 
 	/**
 	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
+	 * Input that cannot start a match is skipped with {@link DataBuffer#indexOf}.
 	 *
 	 * @see <a href="https://www.nayuki.io/page/knuth-morris-pratt-string-matching">Knuth-Morris-Pratt string matching</a>
 	 */
@@ -852,15 +909,19 @@ public abstract class DataBufferUtils {
 
 		private final int[] table;
 
+		private final IntPredicate firstByte;
+
 		private int matches = 0;
 
 
 		public KnuthMorrisPrattMatcher(byte[] delimiter) {
 			this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
 			this.table = longestSuffixPrefixTable(delimiter);
+			byte first = delimiter[0];
+			this.firstByte = b -> b == first;
 		}
 
-		private static int[] longestSuffixPrefixTable(byte[] delimiter) {
+		static int[] longestSuffixPrefixTable(byte[] delimiter) {
 			int[] result = new int[delimiter.length];
 			result[0] = 0;
 			for (int i = 1; i < delimiter.length; i++) {
@@ -878,7 +939,14 @@ public abstract class DataBufferUtils {
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
+			int end = dataBuffer.writePosition();
+			for (int i = dataBuffer.readPosition(); i < end; i++) {
+				if (this.matches == 0) {
+					i = dataBuffer.indexOf(this.firstByte, i);
+					if (i == -1) {
+						return -1;
+					}
+				}
 				byte b = dataBuffer.getByte(i);
 
 				while (this.matches > 0 && b != this.delimiter[this.matches]) {
@@ -908,57 +976,95 @@ public abstract class DataBufferUtils {
 	}
 
 	/**
-	 * Implementation of {@link Matcher} that wraps several other matchers.
+	 * Implementation of {@link Matcher} that finds several delimiters in a single
+	 * pass, by keeping Knuth-Morris-Pratt state for each of them. If multiple
+	 * delimiters end at the same position, the longest one is matched.
 	 */
 	private static class CompositeMatcher implements Matcher {
 
-		private static final byte[] NO_DELIMITER = new byte[0];
+		private final byte[][] delimiters;
+
+		private final int[][] tables;
+
+		private final int[] matches;
 
-		private final Matcher[] matchers;
+		private final IntPredicate firstByte;
 
-		byte[] longestDelimiter = NO_DELIMITER;
+		private int partialMatches = 0;
 
+		private int matchingDelimiter = -1;
 
-		public CompositeMatcher(Matcher[] matchers) {
-			this.matchers = matchers;
+
+		public CompositeMatcher(byte[][] delimiters) {
+			this.delimiters = new byte[delimiters.length][];
+			this.tables = new int[delimiters.length][];
+			this.matches = new int[delimiters.length];
+			boolean[] firstBytes = new boolean[256];
+			for (int i = 0; i < delimiters.length; i++) {
+				this.delimiters[i] = Arrays.copyOf(delimiters[i], delimiters[i].length);
+				this.tables[i] = KnuthMorrisPrattMatcher.longestSuffixPrefixTable(delimiters[i]);
+				firstBytes[delimiters[i][0] & 0xFF] = true;
+			}
+			this.firstByte = b -> firstBytes[b & 0xFF];
 		}
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			this.longestDelimiter = NO_DELIMITER;
-			int bestEndIdx = Integer.MAX_VALUE;
-
-
-			for (Matcher matcher : this.matchers) {
-				int endIdx = matcher.match(dataBuffer);
-				if (endIdx != -1 &&
-						endIdx <= bestEndIdx &&
-						matcher.delimiter().length > this.longestDelimiter.length) {
-					bestEndIdx = endIdx;
-					this.longestDelimiter = matcher.delimiter();
+			this.matchingDelimiter = -1;
+			int end = dataBuffer.writePosition();
+			for (int i = dataBuffer.readPosition(); i < end; i++) {
+				if (this.partialMatches == 0) {
+					i = dataBuffer.indexOf(this.firstByte, i);
+					if (i == -1) {
+						return -1;
+					}
+				}
+				if (match(dataBuffer.getByte(i))) {
+					reset();
+					return i;
 				}
 			}
-			if (bestEndIdx == Integer.MAX_VALUE) {
-				this.longestDelimiter = NO_DELIMITER;
-				return -1;
-			}
-			else {
-				reset();
-				return bestEndIdx;
+			return -1;
+		}
+
+		private boolean match(byte b) {
+			int partialMatches = 0;
+			for (int i = 0; i < this.delimiters.length; i++) {
+				byte[] delimiter = this.delimiters[i];
+				int matches = this.matches[i];
+				while (matches > 0 && b != delimiter[matches]) {
+					matches = this.tables[i][matches - 1];
+				}
+				if (b == delimiter[matches]) {
+					matches++;
+					if (matches == delimiter.length) {
+						if (this.matchingDelimiter == -1 ||
+								delimiter.length > this.delimiters[this.matchingDelimiter].length) {
+							this.matchingDelimiter = i;
+						}
+						matches = 0;
+					}
+				}
+				this.matches[i] = matches;
+				if (matches > 0) {
+					partialMatches++;
+				}
 			}
+			this.partialMatches = partialMatches;
+			return (this.matchingDelimiter != -1);
 		}
 
 		@Override
 		public byte[] delimiter() {
-			Assert.state(this.longestDelimiter != NO_DELIMITER, "Illegal state!");
-			return this.longestDelimiter;
+			Assert.state(this.matchingDelimiter != -1, "No delimiter matched");
+			byte[] delimiter = this.delimiters[this.matchingDelimiter];
+			return Arrays.copyOf(delimiter, delimiter.length);
 		}
 
 		@Override
 		public void reset() {
-			for (Matcher matcher : this.matchers) {
-				matcher.reset();
-			}
+			Arrays.fill(this.matches, 0);
+			this.partialMatches = 0;
 		}
 	}
 
@@ -60,7 +60,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -92,7 +92,11 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this.byteBuffer;
 	}
 
-	private void setNativeBuffer(ByteBuffer byteBuffer) {
+	/**
+	 * Replace the native buffer. Used by {@link PooledDataBufferFactory} to let
+	 * go of memory that has been returned to the pool.
+	 */
+	void setNativeBuffer(ByteBuffer byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		this.capacity = byteBuffer.remaining();
 	}
@@ -227,7 +231,11 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this;
 	}
 
-	private static ByteBuffer allocate(int capacity, boolean direct) {
+	/**
+	 * Allocate the native buffer used when the capacity of this buffer changes.
+	 * Overridden by {@link PooledDataBufferFactory} to obtain it from a pool.
+	 */
+	ByteBuffer allocate(int capacity, boolean direct) {
 		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
 	}
 
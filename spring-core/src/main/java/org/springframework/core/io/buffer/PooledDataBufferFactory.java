@@ -0,0 +1,696 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of {@link DefaultDataBufferFactory} that reuses the memory of
+ * released buffers. Intended for runtimes without Netty (i.e. Servlet and
+ * Undertow), where every allocated buffer is otherwise left to the garbage
+ * collector.
+ *
+ * <p>Allocated buffers implement {@link PooledDataBuffer}: their memory is
+ * returned to the pool when the reference count drops to zero, after which
+ * accessing their content results in an {@link IllegalStateException}.
+ * Slices share the reference count of the buffer they were created from.
+ * When the capacity of a buffer that has been sliced is changed, its previous
+ * memory is left to the garbage collector rather than pooled, since slices
+ * may still refer to it.
+ *
+ * <p>Memory is pooled in power-of-two size classes, from
+ * {@value #MIN_POOLED_CAPACITY} bytes up to the
+ * {@linkplain #setMaxPooledCapacity maximum pooled capacity}. Each size class
+ * has a shared arena, fronted by a small cache per thread for the smaller
+ * size classes. Larger buffers are allocated and left to the garbage collector
+ * as usual. Buffers that are never released are reclaimed by the garbage
+ * collector as well; {@linkplain #setLeakDetection leak detection} can be
+ * enabled to log where such buffers were allocated.
+ *
+ * <p>Call {@link #close()} once the factory is no longer used, in order to
+ * release the pooled memory, including the buffers cached by each thread.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The capacity of the smallest size class.
+	 */
+	public static final int MIN_POOLED_CAPACITY = 256;
+
+	/**
+	 * The default value for {@link #setMaxPooledCapacity}.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	private static final int MAX_THREAD_CACHED_CAPACITY = 8 * 1024;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private int maxPooledCapacity = DEFAULT_MAX_POOLED_CAPACITY;
+
+	private int maxPooledBuffersPerSizeClass = 256;
+
+	private int threadCacheSize = 8;
+
+	private boolean leakDetection;
+
+	@Nullable
+	private volatile Arena[] arenas;
+
+	private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(this::createThreadCache);
+
+	// Weakly referenced, so that caches of terminated threads can be collected
+	private final Map<ThreadCache, Boolean> threadCaches = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private volatile boolean closed;
+
+	private final ReferenceQueue<PooledDefaultDataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final Map<LeakTracker, Boolean> leakTrackers = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled, and what the capacity is to be used for
+	 * {@link #allocateBuffer()}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		this.preferDirect = preferDirect;
+	}
+
+
+	/**
+	 * Set the capacity of the largest size class. Buffers with a larger
+	 * capacity are not pooled.
+	 * <p>By default this is set to 64K. Must be set before the first allocation.
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers
+	 */
+	public void setMaxPooledCapacity(int maxPooledCapacity) {
+		Assert.isTrue(maxPooledCapacity >= MIN_POOLED_CAPACITY,
+				"'maxPooledCapacity' must be >= " + MIN_POOLED_CAPACITY);
+		Assert.state(this.arenas == null, "Buffers have already been allocated");
+		this.maxPooledCapacity = maxPooledCapacity;
+	}
+
+	/**
+	 * Return the configured maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Set the maximum number of released buffers to keep in the shared arena
+	 * of each size class.
+	 * <p>By default this is set to 256.
+	 * @param maxPooledBuffersPerSizeClass the maximum number of buffers per arena
+	 */
+	public void setMaxPooledBuffersPerSizeClass(int maxPooledBuffersPerSizeClass) {
+		Assert.isTrue(maxPooledBuffersPerSizeClass >= 0, "'maxPooledBuffersPerSizeClass' must be >= 0");
+		this.maxPooledBuffersPerSizeClass = maxPooledBuffersPerSizeClass;
+	}
+
+	/**
+	 * Return the configured maximum number of buffers per arena.
+	 */
+	public int getMaxPooledBuffersPerSizeClass() {
+		return this.maxPooledBuffersPerSizeClass;
+	}
+
+	/**
+	 * Set the maximum number of released buffers each thread keeps for reuse,
+	 * per size class, without going through the shared arena. Only size
+	 * classes up to 8K are cached per thread.
+	 * <p>By default this is set to 8. Set to 0 to disable thread caches.
+	 * Must be set before the first allocation.
+	 * @param threadCacheSize the number of buffers cached per thread
+	 */
+	public void setThreadCacheSize(int threadCacheSize) {
+		Assert.isTrue(threadCacheSize >= 0, "'threadCacheSize' must be >= 0");
+		Assert.state(this.arenas == null, "Buffers have already been allocated");
+		this.threadCacheSize = threadCacheSize;
+	}
+
+	/**
+	 * Return the configured thread cache size.
+	 */
+	public int getThreadCacheSize() {
+		return this.threadCacheSize;
+	}
+
+	/**
+	 * Enable or disable leak detection. When enabled, the allocation site of
+	 * each buffer is recorded, and logged at error level when the buffer is
+	 * garbage collected without having been released.
+	 * <p>By default this is set to {@code false}, since recording the
+	 * allocation site is costly.
+	 * @param leakDetection whether to detect leaked buffers
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetection = leakDetection;
+	}
+
+	/**
+	 * Whether leak detection is enabled.
+	 */
+	public boolean isLeakDetection() {
+		return this.leakDetection;
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must be >= 0");
+		if (this.leakDetection) {
+			reportLeaks();
+		}
+		PooledDefaultDataBuffer dataBuffer = new PooledDefaultDataBuffer(this, acquire(initialCapacity));
+		if (this.leakDetection) {
+			dataBuffer.leakTracker = new LeakTracker(dataBuffer, initialCapacity, this.leakQueue);
+			this.leakTrackers.put(dataBuffer.leakTracker, Boolean.TRUE);
+		}
+		return dataBuffer;
+	}
+
+	/**
+	 * Release the pooled memory held in the shared arenas and in the caches of
+	 * all threads. Buffers that are allocated or released afterwards are not
+	 * pooled anymore.
+	 */
+	public void close() {
+		this.closed = true;
+		this.threadCache.remove();
+		List<ThreadCache> caches;
+		synchronized (this.threadCaches) {
+			caches = new ArrayList<>(this.threadCaches.keySet());
+			this.threadCaches.clear();
+		}
+		caches.forEach(ThreadCache::clear);
+		Arena[] arenas = this.arenas;
+		if (arenas != null) {
+			for (Arena arena : arenas) {
+				arena.clear();
+			}
+		}
+	}
+
+	/**
+	 * Return the number of released buffers currently held in the shared
+	 * arenas, excluding thread caches.
+	 */
+	int getPooledBufferCount() {
+		Arena[] arenas = this.arenas;
+		int count = 0;
+		if (arenas != null) {
+			for (Arena arena : arenas) {
+				count += arena.size.get();
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Obtain a native buffer with the given capacity, either from the thread
+	 * cache, from the shared arena, or newly allocated.
+	 */
+	private ByteBuffer acquire(int capacity) {
+		int sizeClass = sizeClass(capacity);
+		ByteBuffer byteBuffer = null;
+		if (sizeClass != -1 && !this.closed) {
+			ThreadCache cache = (this.threadCacheSize > 0 && sizeClass < threadCachedSizeClasses() ?
+					this.threadCache.get() : null);
+			if (cache != null) {
+				byteBuffer = cache.poll(sizeClass);
+			}
+			if (byteBuffer == null) {
+				byteBuffer = getArenas()[sizeClass].poll();
+			}
+			if (byteBuffer == null) {
+				byteBuffer = allocate(MIN_POOLED_CAPACITY << sizeClass);
+			}
+		}
+		else {
+			byteBuffer = allocate(sizeClass != -1 ? MIN_POOLED_CAPACITY << sizeClass : capacity);
+		}
+		((Buffer) byteBuffer).clear().limit(capacity);
+		return byteBuffer;
+	}
+
+	/**
+	 * Return the given native buffer to the pool, unless its size class is
+	 * full or its capacity is not pooled.
+	 */
+	private void release(ByteBuffer byteBuffer) {
+		int sizeClass = sizeClass(byteBuffer.capacity());
+		if (sizeClass == -1 || byteBuffer.capacity() != MIN_POOLED_CAPACITY << sizeClass || this.closed) {
+			return;
+		}
+		if (this.threadCacheSize > 0 && sizeClass < threadCachedSizeClasses() &&
+				this.threadCache.get().offer(sizeClass, byteBuffer)) {
+			return;
+		}
+		getArenas()[sizeClass].offer(byteBuffer, this.maxPooledBuffersPerSizeClass);
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	/**
+	 * Return the index of the size class for the given capacity,
+	 * or -1 if the capacity is not pooled.
+	 */
+	private int sizeClass(int capacity) {
+		if (capacity > this.maxPooledCapacity) {
+			return -1;
+		}
+		int sizeClass = 0;
+		while ((MIN_POOLED_CAPACITY << sizeClass) < capacity) {
+			sizeClass++;
+		}
+		return ((MIN_POOLED_CAPACITY << sizeClass) <= this.maxPooledCapacity ? sizeClass : -1);
+	}
+
+	private ThreadCache createThreadCache() {
+		ThreadCache cache = new ThreadCache();
+		this.threadCaches.put(cache, Boolean.TRUE);
+		return cache;
+	}
+
+	private int threadCachedSizeClasses() {
+		return sizeClass(Math.min(MAX_THREAD_CACHED_CAPACITY, this.maxPooledCapacity)) + 1;
+	}
+
+	private Arena[] getArenas() {
+		Arena[] arenas = this.arenas;
+		if (arenas == null) {
+			synchronized (this) {
+				arenas = this.arenas;
+				if (arenas == null) {
+					arenas = new Arena[sizeClass(this.maxPooledCapacity) + 1];
+					for (int i = 0; i < arenas.length; i++) {
+						arenas[i] = new Arena();
+					}
+					this.arenas = arenas;
+				}
+			}
+		}
+		return arenas;
+	}
+
+	private void reportLeaks() {
+		Reference<? extends PooledDefaultDataBuffer> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			LeakTracker tracker = (LeakTracker) reference;
+			if (this.leakTrackers.remove(tracker) != null) {
+				logger.error("DataBuffer leak detected: buffer of " + tracker.capacity + " bytes was " +
+						"garbage collected without having been released. Allocation site follows:",
+						tracker.allocationSite);
+			}
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	/**
+	 * Shared pool of released buffers of a single size class.
+	 */
+	private static class Arena {
+
+		private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		@Nullable
+		ByteBuffer poll() {
+			ByteBuffer byteBuffer = this.buffers.poll();
+			if (byteBuffer != null) {
+				this.size.decrementAndGet();
+			}
+			return byteBuffer;
+		}
+
+		void offer(ByteBuffer byteBuffer, int maxSize) {
+			if (this.size.incrementAndGet() <= maxSize) {
+				this.buffers.offer(byteBuffer);
+			}
+			else {
+				this.size.decrementAndGet();
+			}
+		}
+
+		void clear() {
+			while (poll() != null) {
+				// drop the buffer
+			}
+		}
+	}
+
+
+	/**
+	 * Per-thread stacks of released buffers, one for each thread-cached size class.
+	 */
+	private class ThreadCache {
+
+		private final ByteBuffer[][] buffers = new ByteBuffer[threadCachedSizeClasses()][threadCacheSize];
+
+		private final int[] counts = new int[this.buffers.length];
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			int count = this.counts[sizeClass];
+			if (count == 0) {
+				return null;
+			}
+			count--;
+			ByteBuffer byteBuffer = this.buffers[sizeClass][count];
+			this.buffers[sizeClass][count] = null;
+			this.counts[sizeClass] = count;
+			return byteBuffer;
+		}
+
+		boolean offer(int sizeClass, ByteBuffer byteBuffer) {
+			int count = this.counts[sizeClass];
+			if (count == this.buffers[sizeClass].length) {
+				return false;
+			}
+			this.buffers[sizeClass][count] = byteBuffer;
+			this.counts[sizeClass] = count + 1;
+			return true;
+		}
+
+		void clear() {
+			for (int i = 0; i < this.buffers.length; i++) {
+				Arrays.fill(this.buffers[i], null);
+				this.counts[i] = 0;
+			}
+		}
+	}
+
+
+	/**
+	 * Weak reference to an allocated buffer, recording where it was allocated.
+	 */
+	private static class LeakTracker extends WeakReference<PooledDefaultDataBuffer> {
+
+		private final int capacity;
+
+		private final Throwable allocationSite = new Throwable("DataBuffer allocation site");
+
+		LeakTracker(PooledDefaultDataBuffer dataBuffer, int capacity,
+				ReferenceQueue<PooledDefaultDataBuffer> queue) {
+
+			super(dataBuffer, queue);
+			this.capacity = capacity;
+		}
+	}
+
+
+	/**
+	 * Base class for pooled buffers that rejects access to their content
+	 * once it has been returned to the pool, where it may already be in use
+	 * by another buffer.
+	 */
+	private abstract static class AbstractPooledDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		AbstractPooledDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+			super(dataBufferFactory, byteBuffer);
+		}
+
+		@Override
+		public ByteBuffer getNativeBuffer() {
+			assertAllocated();
+			return super.getNativeBuffer();
+		}
+
+		@Override
+		public int indexOf(IntPredicate predicate, int fromIndex) {
+			assertAllocated();
+			return super.indexOf(predicate, fromIndex);
+		}
+
+		@Override
+		public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+			assertAllocated();
+			return super.lastIndexOf(predicate, fromIndex);
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			assertAllocated();
+			return super.capacity(newCapacity);
+		}
+
+		@Override
+		public byte getByte(int index) {
+			assertAllocated();
+			return super.getByte(index);
+		}
+
+		@Override
+		public byte read() {
+			assertAllocated();
+			return super.read();
+		}
+
+		@Override
+		public DefaultDataBuffer read(byte[] destination, int offset, int length) {
+			assertAllocated();
+			return super.read(destination, offset, length);
+		}
+
+		@Override
+		public DefaultDataBuffer write(byte b) {
+			assertAllocated();
+			return super.write(b);
+		}
+
+		@Override
+		public DefaultDataBuffer write(byte[] source, int offset, int length) {
+			assertAllocated();
+			return super.write(source, offset, length);
+		}
+
+		@Override
+		public DefaultDataBuffer write(ByteBuffer... buffers) {
+			assertAllocated();
+			return super.write(buffers);
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer(int index, int length) {
+			assertAllocated();
+			return super.asByteBuffer(index, length);
+		}
+
+		private void assertAllocated() {
+			if (!isAllocated()) {
+				throw new IllegalStateException("Buffer has been released: " + this);
+			}
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} whose native buffers are obtained from,
+	 * and returned to, the pool.
+	 */
+	private static class PooledDefaultDataBuffer extends AbstractPooledDataBuffer {
+
+		private final PooledDataBufferFactory dataBufferFactory;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		private ByteBuffer pooledBuffer;
+
+		// Whether slices may refer to the current pooled buffer
+		private boolean sliced;
+
+		@Nullable
+		private LeakTracker leakTracker;
+
+		PooledDefaultDataBuffer(PooledDataBufferFactory dataBufferFactory, ByteBuffer pooledBuffer) {
+			super(dataBufferFactory, pooledBuffer);
+			this.dataBufferFactory = dataBufferFactory;
+			this.pooledBuffer = pooledBuffer;
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			ByteBuffer oldBuffer = this.pooledBuffer;
+			super.capacity(newCapacity);
+			if (this.pooledBuffer != oldBuffer) {
+				// Slices keep referring to the old buffer, so only pool it if there are none
+				if (!this.sliced) {
+					this.dataBufferFactory.release(oldBuffer);
+				}
+				this.sliced = false;
+			}
+			return this;
+		}
+
+		@Override
+		ByteBuffer allocate(int capacity, boolean direct) {
+			this.pooledBuffer = this.dataBufferFactory.acquire(capacity);
+			return this.pooledBuffer.slice();
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.refCount.get() > 0;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int count = this.refCount.getAndUpdate(value -> (value > 0 ? value + 1 : value));
+			if (count <= 0) {
+				throw new IllegalStateException("Cannot retain released buffer");
+			}
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int count = this.refCount.getAndUpdate(value -> (value > 0 ? value - 1 : value));
+			if (count <= 0) {
+				throw new IllegalStateException("Buffer has already been released");
+			}
+			if (count == 1) {
+				if (this.leakTracker != null) {
+					this.dataBufferFactory.leakTrackers.remove(this.leakTracker);
+					this.leakTracker.clear();
+				}
+				ByteBuffer pooledBuffer = this.pooledBuffer;
+				this.pooledBuffer = EMPTY_BUFFER;
+				setNativeBuffer(EMPTY_BUFFER);
+				this.dataBufferFactory.release(pooledBuffer);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			this.sliced = true;
+			return new SlicedPooledDataBuffer(this, asByteBuffer(index, length));
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PooledDataBuffer (r: %d, w: %d, c: %d)",
+					readPosition(), writePosition(), capacity());
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its reference count.
+	 */
+	private static class SlicedPooledDataBuffer extends AbstractPooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		SlicedPooledDataBuffer(PooledDefaultDataBuffer parent, ByteBuffer byteBuffer) {
+			super(parent.dataBufferFactory, byteBuffer);
+			this.parent = parent;
+			writePosition(byteBuffer.remaining());
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new SlicedPooledDataBuffer(this.parent, asByteBuffer(index, length));
+		}
+	}
+
+}
@@ -127,6 +127,14 @@ public class AntPathMatcher implements PathMatcher {
 		this.pathSeparatorPatternCache = new PathSeparatorPatternCache(this.pathSeparator);
 	}
 
+	/**
+	 * Return the path separator used for pattern parsing.
+	 * @since 5.2
+	 */
+	public String getPathSeparator() {
+		return this.pathSeparator;
+	}
+
 	/**
 	 * Specify whether to perform pattern matching in a case-sensitive fashion.
 	 * <p>Default is {@code true}. Switch this to {@code false} for case-insensitive matching.
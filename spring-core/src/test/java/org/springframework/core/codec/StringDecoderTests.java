@@ -154,6 +154,41 @@ public class StringDecoderTests extends AbstractDecoderTestCase<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	public void decodeDelimiterAcrossBuffers() {
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\r"),
+				stringBuffer("\n"),
+				stringBuffer("ghi")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("def")
+				.expectNext("ghi")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	public void decodeCustomDelimiters() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("--", "|"), true);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("a-b--c|d-"),
+				stringBuffer("-e|")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("a-b")
+				.expectNext("c")
+				.expectNext("d")
+				.expectNext("e")
+				.expectComplete()
+				.verify());
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> input = Flux.empty();
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author Arjen Poutsma
+ */
+public class CompositeDataBufferTests {
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	@Test
+	public void read() {
+		CompositeDataBuffer composite = composite("ab", "", "cde", "f");
+
+		assertThat(composite.componentCount()).isEqualTo(4);
+		assertThat(composite.readableByteCount()).isEqualTo(6);
+		assertThat(composite.capacity()).isEqualTo(6);
+		assertThat(composite.getByte(2)).isEqualTo((byte) 'c');
+		assertThat(composite.read()).isEqualTo((byte) 'a');
+
+		byte[] result = new byte[4];
+		composite.read(result);
+		assertThat(new String(result, StandardCharsets.UTF_8)).isEqualTo("bcde");
+		assertThat(composite.readableByteCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void componentReadPosition() {
+		DataBuffer first = stringBuffer("xxab");
+		first.readPosition(2);
+		CompositeDataBuffer composite = new CompositeDataBuffer(this.bufferFactory,
+				Arrays.asList(first, stringBuffer("cd")));
+
+		assertThat(asString(composite)).isEqualTo("abcd");
+	}
+
+	@Test
+	public void indexOf() {
+		CompositeDataBuffer composite = composite("ab", "cd", "ec");
+
+		assertThat(composite.indexOf(b -> b == 'c', 0)).isEqualTo(2);
+		assertThat(composite.indexOf(b -> b == 'c', 3)).isEqualTo(5);
+		assertThat(composite.indexOf(b -> b == 'z', 0)).isEqualTo(-1);
+		assertThat(composite.lastIndexOf(b -> b == 'c', 5)).isEqualTo(5);
+		assertThat(composite.lastIndexOf(b -> b == 'c', 4)).isEqualTo(2);
+		assertThat(composite.lastIndexOf(b -> b == 'z', 5)).isEqualTo(-1);
+	}
+
+	@Test
+	public void write() {
+		CompositeDataBuffer composite = composite("ab", "cd");
+		composite.write((byte) 'e');
+		composite.write("fgh".getBytes(StandardCharsets.UTF_8));
+		composite.write(stringBuffer("ij"));
+
+		assertThat(composite.componentCount()).isEqualTo(3);
+		assertThat(asString(composite)).isEqualTo("abcdefghij");
+	}
+
+	@Test
+	public void overwriteAfterWritePositionChange() {
+		CompositeDataBuffer composite = composite("ab", "cd");
+		composite.writePosition(1);
+		composite.write("xyz".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(composite.componentCount()).isEqualTo(2);
+		assertThat(asString(composite)).isEqualTo("axyz");
+	}
+
+	@Test
+	public void slice() {
+		CompositeDataBuffer composite = composite("ab", "cd", "ef");
+
+		DataBuffer single = composite.slice(2, 2);
+		assertThat(single).isNotInstanceOf(CompositeDataBuffer.class);
+		assertThat(asString(single)).isEqualTo("cd");
+
+		DataBuffer multiple = composite.slice(1, 4);
+		assertThat(multiple).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(asString(multiple)).isEqualTo("bcde");
+	}
+
+	@Test
+	public void asByteBuffers() {
+		CompositeDataBuffer composite = composite("ab", "cd", "ef");
+		composite.readPosition(1);
+
+		ByteBuffer[] byteBuffers = composite.asByteBuffers();
+		assertThat(byteBuffers).hasSize(3);
+		assertThat(byteBuffers[0].remaining()).isEqualTo(1);
+
+		ByteBuffer byteBuffer = composite.asByteBuffer(2, 2);
+		assertThat(StandardCharsets.UTF_8.decode(byteBuffer).toString()).isEqualTo("cd");
+
+		byteBuffer = composite.asByteBuffer();
+		assertThat(byteBuffer.isReadOnly()).isTrue();
+		assertThat(StandardCharsets.UTF_8.decode(byteBuffer).toString()).isEqualTo("bcdef");
+	}
+
+	@Test
+	public void capacity() {
+		CompositeDataBuffer composite = composite("ab", "cd", "ef");
+		composite.capacity(3);
+
+		assertThat(composite.componentCount()).isEqualTo(2);
+		assertThat(asString(composite)).isEqualTo("abc");
+
+		composite.capacity(10);
+		assertThat(composite.writableByteCount()).isEqualTo(7);
+	}
+
+	@Test
+	public void inputStream() throws IOException {
+		CompositeDataBuffer composite = composite("ab", "cd");
+
+		InputStream inputStream = composite.asInputStream();
+		assertThat(inputStream.available()).isEqualTo(4);
+		assertThat(inputStream.read()).isEqualTo('a');
+		byte[] result = new byte[5];
+		assertThat(inputStream.read(result)).isEqualTo(3);
+		assertThat(inputStream.read()).isEqualTo(-1);
+	}
+
+	@Test
+	public void readBeyondWritePosition() {
+		CompositeDataBuffer composite = composite("ab", "cd");
+
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() ->
+				composite.read(new byte[5]));
+	}
+
+	@Test
+	public void pooledComponentsRejected() {
+		LeakAwareDataBufferFactory leakAwareFactory = new LeakAwareDataBufferFactory();
+		DataBuffer pooled = leakAwareFactory.allocateBuffer(2).write((byte) 'a');
+
+		assertThatIllegalArgumentException().isThrownBy(() ->
+				new CompositeDataBuffer(this.bufferFactory, Arrays.asList(stringBuffer("b"), pooled)));
+		DataBufferUtils.release(pooled);
+		leakAwareFactory.checkForLeaks();
+	}
+
+	@Test
+	public void composeDefaultDataBuffers() {
+		DataBuffer result = DataBufferUtils.compose(Arrays.asList(stringBuffer("ab"), stringBuffer("cd")));
+
+		assertThat(result).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(result).isNotInstanceOf(PooledDataBuffer.class);
+		assertThat(asString(result)).isEqualTo("abcd");
+
+		DataBuffer single = stringBuffer("ab");
+		assertThat(DataBufferUtils.compose(Arrays.asList(single))).isSameAs(single);
+	}
+
+
+	@Test
+	public void composeMixedFactories() {
+		LeakAwareDataBufferFactory leakAwareFactory = new LeakAwareDataBufferFactory();
+		DataBuffer pooled = leakAwareFactory.allocateBuffer(2).write("cd".getBytes(StandardCharsets.UTF_8));
+
+		DataBuffer result = DataBufferUtils.compose(Arrays.asList(stringBuffer("ab"), pooled));
+
+		assertThat(result).isNotInstanceOf(CompositeDataBuffer.class);
+		assertThat(asString(result)).isEqualTo("abcd");
+		leakAwareFactory.checkForLeaks();
+	}
+
+
+	private CompositeDataBuffer composite(String... values) {
+		DataBuffer[] buffers = Arrays.stream(values).map(this::stringBuffer).toArray(DataBuffer[]::new);
+		return new CompositeDataBuffer(this.bufferFactory, Arrays.asList(buffers));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		return this.bufferFactory.wrap(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String asString(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
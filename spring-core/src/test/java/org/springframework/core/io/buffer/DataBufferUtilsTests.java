@@ -743,6 +743,7 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 
 		StepVerifier.create(result)
 				.consumeNextWith(dataBuffer -> {
+					assertThat(dataBuffer).isNotInstanceOf(CompositeDataBuffer.class);
 					assertThat(DataBufferTestUtils.dumpString(dataBuffer, StandardCharsets.UTF_8)).isEqualTo("foobarbaz");
 					release(dataBuffer);
 				})
@@ -809,6 +810,26 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 		release(foo);
 	}
 
+	@Test
+	public void matcherMultipleDelimiters() {
+		DataBuffer foo = stringBuffer("foo|bar\r");
+		DataBuffer bar = stringBuffer("\nbaz");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"\r\n".getBytes(StandardCharsets.UTF_8), "|".getBytes(StandardCharsets.UTF_8));
+		int result = matcher.match(foo);
+		assertThat(result).isEqualTo(3);
+		assertThat(matcher.delimiter()).isEqualTo("|".getBytes(StandardCharsets.UTF_8));
+		foo.readPosition(4);
+		result = matcher.match(foo);
+		assertThat(result).isEqualTo(-1);
+		result = matcher.match(bar);
+		assertThat(result).isEqualTo(0);
+		assertThat(matcher.delimiter()).isEqualTo("\r\n".getBytes(StandardCharsets.UTF_8));
+
+		release(foo, bar);
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @author Arjen Poutsma
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Before
+	public void setup() {
+		this.bufferFactory.setThreadCacheSize(0);
+	}
+
+
+	@Test
+	public void releasedBufferIsReused() {
+		PooledDataBuffer buffer = allocate(300);
+		assertThat(buffer.capacity()).isEqualTo(300);
+		assertThat(buffer.release()).isTrue();
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(1);
+
+		buffer = allocate(500);
+		assertThat(buffer.capacity()).isEqualTo(500);
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(0);
+		buffer.release();
+	}
+
+	@Test
+	public void capacityIncrease() {
+		PooledDataBuffer buffer = allocate(256);
+		byte[] bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		buffer.write(bytes);
+
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(1);
+		byte[] result = new byte[bytes.length];
+		buffer.read(result);
+		assertThat(result).isEqualTo(bytes);
+
+		buffer.release();
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		PooledDataBuffer buffer = allocate(16);
+		buffer.write("abcdef".getBytes(StandardCharsets.UTF_8));
+
+		PooledDataBuffer slice = (PooledDataBuffer) buffer.slice(1, 3);
+		assertThat(slice.getByte(0)).isEqualTo((byte) 'b');
+		slice.retain();
+
+		assertThat(buffer.release()).isFalse();
+		assertThat(slice.isAllocated()).isTrue();
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(0);
+
+		assertThat(slice.release()).isTrue();
+		assertThat(buffer.isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void sliceKeepsMemoryOnCapacityIncrease() {
+		PooledDataBuffer buffer = allocate(256);
+		buffer.write("abcdef".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(1, 3);
+
+		buffer.capacity(1000);
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(0);
+
+		PooledDataBuffer other = allocate(256);
+		other.write(new byte[] {'x', 'x', 'x', 'x'});
+		assertThat(slice.getByte(0)).isEqualTo((byte) 'b');
+
+		other.release();
+		buffer.release();
+	}
+
+	@Test
+	public void largeBufferIsNotPooled() {
+		PooledDataBuffer buffer = allocate(PooledDataBufferFactory.DEFAULT_MAX_POOLED_CAPACITY + 1);
+		assertThat(buffer.release()).isTrue();
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void maxPooledBuffersPerSizeClass() {
+		this.bufferFactory.setMaxPooledBuffersPerSizeClass(1);
+		PooledDataBuffer first = allocate(10);
+		PooledDataBuffer second = allocate(10);
+		first.release();
+		second.release();
+
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void threadCache() {
+		PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+		PooledDataBuffer buffer = (PooledDataBuffer) bufferFactory.allocateBuffer(10);
+		buffer.release();
+
+		assertThat(bufferFactory.getPooledBufferCount()).isEqualTo(0);
+		assertThatIllegalStateException().isThrownBy(() -> bufferFactory.setThreadCacheSize(1));
+	}
+
+	@Test
+	public void close() {
+		PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+		PooledDataBuffer first = (PooledDataBuffer) bufferFactory.allocateBuffer(10);
+		PooledDataBuffer second = (PooledDataBuffer) bufferFactory.allocateBuffer(10000);
+		first.release();
+		second.release();
+		assertThat(bufferFactory.getPooledBufferCount()).isEqualTo(1);
+
+		bufferFactory.close();
+		assertThat(bufferFactory.getPooledBufferCount()).isEqualTo(0);
+
+		PooledDataBuffer buffer = (PooledDataBuffer) bufferFactory.allocateBuffer(10000);
+		buffer.write(new byte[] {'a'});
+		assertThat(buffer.read()).isEqualTo((byte) 'a');
+		buffer.release();
+		assertThat(bufferFactory.getPooledBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void releaseWithLeakDetection() {
+		this.bufferFactory.setLeakDetection(true);
+		PooledDataBuffer buffer = allocate(10);
+		buffer.release();
+
+		assertThat(buffer.isAllocated()).isFalse();
+		assertThatIllegalStateException().isThrownBy(buffer::release);
+	}
+
+
+	@Test
+	public void accessAfterRelease() {
+		PooledDataBuffer buffer = allocate(16);
+		buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(0, 2);
+		buffer.release();
+
+		assertThatIllegalStateException().isThrownBy(() -> buffer.getByte(0));
+		assertThatIllegalStateException().isThrownBy(buffer::read);
+		assertThatIllegalStateException().isThrownBy(() -> buffer.read(new byte[1]));
+		assertThatIllegalStateException().isThrownBy(() -> buffer.write((byte) 'd'));
+		assertThatIllegalStateException().isThrownBy(() -> buffer.write(new byte[] {'d'}));
+		assertThatIllegalStateException().isThrownBy(buffer::asByteBuffer);
+		assertThatIllegalStateException().isThrownBy(() -> buffer.slice(0, 1));
+		assertThatIllegalStateException().isThrownBy(() -> slice.getByte(0));
+		assertThatIllegalStateException().isThrownBy(slice::asByteBuffer);
+		assertThat(this.bufferFactory.getPooledBufferCount()).isEqualTo(1);
+	}
+
+
+	private PooledDataBuffer allocate(int capacity) {
+		return (PooledDataBuffer) this.bufferFactory.allocateBuffer(capacity);
+	}
+
+}
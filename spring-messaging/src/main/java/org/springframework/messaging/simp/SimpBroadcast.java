@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+
+/**
+ * State shared by the messages that a broker sends to each subscriber of a
+ * destination, as copies of the same message. It is exposed through the
+ * {@link SimpMessageHeaderAccessor#BROADCAST_HEADER} of those messages, and
+ * allows handlers of outbound messages to do work once per broadcast rather
+ * than once per subscriber, e.g. encoding the message for the wire.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ */
+public final class SimpBroadcast {
+
+	private final Map<Object, Object> attributes = new ConcurrentHashMap<>(4);
+
+
+	/**
+	 * Return the attribute for the given key, computing it with the given
+	 * function if not present yet. The function is invoked at most once per
+	 * key, even with concurrent callers.
+	 * @param key the attribute key
+	 * @param mappingFunction the function to compute the attribute
+	 * @return the attribute value
+	 */
+	@SuppressWarnings("unchecked")
+	public <K, V> V computeAttributeIfAbsent(K key, Function<K, V> mappingFunction) {
+		return (V) this.attributes.computeIfAbsent(key, k -> mappingFunction.apply((K) k));
+	}
+
+
+	@Override
+	public String toString() {
+		return "SimpBroadcast";
+	}
+
+
+	/**
+	 * Return the broadcast the given message is part of, if any.
+	 * @param message the message
+	 * @return the broadcast, or {@code null}
+	 */
+	@Nullable
+	public static SimpBroadcast from(Message<?> message) {
+		Object value = message.getHeaders().get(SimpMessageHeaderAccessor.BROADCAST_HEADER);
+		return (value instanceof SimpBroadcast ? (SimpBroadcast) value : null);
+	}
+
+}
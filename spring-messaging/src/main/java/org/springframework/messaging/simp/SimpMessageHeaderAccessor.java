@@ -84,6 +84,13 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 	 */
 	public static final String IGNORE_ERROR = "simpIgnoreError";
 
+	/**
+	 * A header with the {@link SimpBroadcast} shared by the messages that a
+	 * broker sends to the subscribers of a destination for the same message.
+	 * @since 5.2
+	 */
+	public static final String BROADCAST_HEADER = "simpBroadcast";
+
 
 	@Nullable
 	private Consumer<Principal> userCallback;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.InterceptableChannel;
+import org.springframework.messaging.support.PartitionedExecutorSubscribableChannel;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
@@ -138,6 +139,9 @@ public abstract class AbstractBrokerMessageHandler
 	 * will be sent to the {@code "clientOutboundChannel"} one at a time in
 	 * order to preserve the order of publication. Enable this only if needed
 	 * since there is some performance overhead to keep messages in order.
+	 * <p>If the {@code "clientOutboundChannel"} is a
+	 * {@link PartitionedExecutorSubscribableChannel}, it already handles the
+	 * messages of each session in order, and no further ordering is applied.
 	 * @param preservePublishOrder whether to publish in order
 	 * @since 5.1
 	 */
@@ -297,8 +301,8 @@ public abstract class AbstractBrokerMessageHandler
 	 * @since 5.1
 	 */
 	protected MessageChannel getClientOutboundChannelForSession(String sessionId) {
-		return this.preservePublishOrder ?
-				new OrderedMessageSender(getClientOutboundChannel(), logger) : getClientOutboundChannel();
+		return (this.preservePublishOrder && !OrderedMessageSender.isOrderedPerSession(getClientOutboundChannel()) ?
+				new OrderedMessageSender(getClientOutboundChannel(), logger) : getClientOutboundChannel());
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,20 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
@@ -55,6 +60,13 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 5.2, when the {@code PathMatcher} is an {@link AntPathMatcher}, the
+ * destination patterns of subscriptions are indexed by their segments, including
+ * {@code "*"} and {@code "**"} wildcards, so that looking up the subscriptions
+ * for a destination only visits the patterns that may match it. The index is
+ * updated incrementally as subscriptions are added and removed. For other
+ * {@code PathMatcher} implementations, resolved destinations are cached instead.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -83,6 +95,10 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final DestinationCache destinationCache = new DestinationCache();
 
+	@Nullable
+	private DestinationIndex destinationIndex =
+			new DestinationIndex(this.pathMatcher, AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
 
@@ -91,6 +107,18 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		DestinationIndex index = null;
+		// Subclasses may match differently from the segments the index is built on
+		if (pathMatcher.getClass() == AntPathMatcher.class) {
+			index = new DestinationIndex(pathMatcher, ((AntPathMatcher) pathMatcher).getPathSeparator());
+			for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+				for (String destination : info.getDestinations()) {
+					index.updateAfterNewSubscription(destination, info);
+				}
+			}
+		}
+		this.destinationIndex = index;
+		this.destinationCache.clear();
 	}
 
 	/**
@@ -103,6 +131,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/**
 	 * Specify the maximum number of entries for the resolved destination cache.
 	 * Default is 1024.
+	 * <p>The cache is only used if the configured {@link PathMatcher} is not
+	 * an {@link AntPathMatcher}, since subscriptions are indexed otherwise.
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
@@ -148,8 +178,15 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			String sessionId, String subsId, String destination, Message<?> message) {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
-		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
-		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		SessionSubscriptionInfo info =
+				this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		DestinationIndex index = this.destinationIndex;
+		if (index != null) {
+			index.updateAfterNewSubscription(destination, info);
+		}
+		else {
+			this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		}
 	}
 
 	@Nullable
@@ -181,7 +218,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
-				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
+				DestinationIndex index = this.destinationIndex;
+				if (index != null) {
+					index.updateAfterRemovedSubscription(destination, info);
+				}
+				else {
+					this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
+				}
 			}
 		}
 	}
@@ -190,16 +233,42 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
-			this.destinationCache.updateAfterRemovedSession(info);
+			DestinationIndex index = this.destinationIndex;
+			if (index != null) {
+				index.updateAfterRemovedSession(info);
+			}
+			else {
+				this.destinationCache.updateAfterRemovedSession(info);
+			}
 		}
 	}
 
 	@Override
 	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
-		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination, message);
+		DestinationIndex index = this.destinationIndex;
+		MultiValueMap<String, String> result = (index != null ? index.getSubscriptions(destination) :
+				this.destinationCache.getSubscriptions(destination, message));
 		return filterSubscriptions(result, message);
 	}
 
+	/**
+	 * Find the subscriptions for the given destination by matching it against
+	 * the destination patterns of all sessions.
+	 */
+	private LinkedMultiValueMap<String, String> findAllSubscriptions(String destination) {
+		LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+		for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+			for (String destinationPattern : info.getDestinations()) {
+				if (getPathMatcher().match(destinationPattern, destination)) {
+					for (Subscription sub : info.getSubscriptions(destinationPattern)) {
+						result.add(info.sessionId, sub.getId());
+					}
+				}
+			}
+		}
+		return result;
+	}
+
 	private MultiValueMap<String, String> filterSubscriptions(
 			MultiValueMap<String, String> allMatches, Message<?> message) {
 
@@ -242,7 +311,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
+		Object destinations = (this.destinationIndex != null ? this.destinationIndex : this.destinationCache);
+		return "DefaultSubscriptionRegistry[" + destinations + ", " + this.subscriptionRegistry + "]";
 	}
 
 
@@ -277,16 +347,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
 				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
-						}
-					}
+					result = findAllSubscriptions(destination);
 					if (!result.isEmpty()) {
 						this.updateCache.put(destination, result.deepCopy());
 						this.accessCache.put(destination, result);
@@ -356,6 +417,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			}
 		}
 
+		public void clear() {
+			synchronized (this.updateCache) {
+				this.updateCache.clear();
+				this.accessCache.clear();
+			}
+		}
+
 		@Override
 		public String toString() {
 			return "cache[" + this.accessCache.size() + " destination(s)]";
@@ -363,6 +431,288 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * An index of the destination patterns of subscriptions by their segments,
+	 * as tokenized by an {@link AntPathMatcher}. Look-ups only visit the nodes
+	 * for segments that may match a destination, and each pattern found is then
+	 * matched with the {@code PathMatcher}, so that the index only needs to find
+	 * a superset of the matching patterns. To that end, literal segments are
+	 * indexed trimmed and in lower case, segments with wildcards other than
+	 * {@code "**"} as matching any single segment, and patterns with
+	 * whitespace-only segments, which may or may not be ignored depending on
+	 * the {@code AntPathMatcher} settings, are matched against every destination.
+	 */
+	private class DestinationIndex {
+
+		private final PathMatcher pathMatcher;
+
+		private final String pathSeparator;
+
+		private final DestinationNode root = new DestinationNode();
+
+		/** Patterns that cannot be indexed, to {@link SessionSubscriptionInfo}'s. */
+		private final Map<String, Set<SessionSubscriptionInfo>> unindexedPatterns = new ConcurrentHashMap<>();
+
+		public DestinationIndex(PathMatcher pathMatcher, String pathSeparator) {
+			this.pathMatcher = pathMatcher;
+			this.pathSeparator = pathSeparator;
+		}
+
+		public LinkedMultiValueMap<String, String> getSubscriptions(String destination) {
+			String[] segments = tokenize(destination);
+			if (segments == null) {
+				return findAllSubscriptions(destination);
+			}
+			for (int i = 0; i < segments.length; i++) {
+				segments[i] = DestinationNode.normalize(segments[i]);
+			}
+			Set<DestinationNode> nodes = new LinkedHashSet<>();
+			collectNodes(this.root, segments, 0, destination.endsWith(this.pathSeparator), nodes);
+			Map<String, List<Subscription>> matches = new LinkedHashMap<>();
+			for (DestinationNode node : nodes) {
+				collectSubscriptions(node.patterns, destination, matches);
+			}
+			collectSubscriptions(this.unindexedPatterns, destination, matches);
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>(matches.size());
+			matches.forEach((sessionId, subs) -> {
+				if (subs.size() > 1) {
+					// Keep the order in which the session subscribed
+					subs.sort(Comparator.comparingLong(Subscription::getSequence));
+				}
+				for (Subscription sub : subs) {
+					result.add(sessionId, sub.getId());
+				}
+			});
+			return result;
+		}
+
+		private void collectNodes(DestinationNode node, String[] segments, int index,
+				boolean trailingSeparator, Set<DestinationNode> result) {
+
+			DestinationNode anySegments = node.anySegments;
+			if (anySegments != null) {
+				for (int i = index; i <= segments.length; i++) {
+					collectNodes(anySegments, segments, i, trailingSeparator, result);
+				}
+			}
+			DestinationNode anySegment = node.anySegment;
+			if (index == segments.length) {
+				result.add(node);
+				// AntPathMatcher lets a trailing "*" match the end of a path with a trailing separator
+				if (anySegment != null && trailingSeparator) {
+					result.add(anySegment);
+				}
+				return;
+			}
+			if (anySegment != null) {
+				collectNodes(anySegment, segments, index + 1, trailingSeparator, result);
+			}
+			DestinationNode child = node.children.get(segments[index]);
+			if (child != null) {
+				collectNodes(child, segments, index + 1, trailingSeparator, result);
+			}
+		}
+
+		private void collectSubscriptions(Map<String, Set<SessionSubscriptionInfo>> patterns,
+				String destination, Map<String, List<Subscription>> result) {
+
+			patterns.forEach((pattern, infos) -> {
+				if (this.pathMatcher.match(pattern, destination)) {
+					for (SessionSubscriptionInfo info : infos) {
+						Set<Subscription> subs = info.getSubscriptions(pattern);
+						if (subs != null) {
+							result.computeIfAbsent(info.getSessionId(), id -> new ArrayList<>(2)).addAll(subs);
+						}
+					}
+				}
+			});
+		}
+
+		public void updateAfterNewSubscription(String pattern, SessionSubscriptionInfo info) {
+			String[] segments = tokenize(pattern);
+			synchronized (this.root) {
+				Map<String, Set<SessionSubscriptionInfo>> patterns = this.unindexedPatterns;
+				if (segments != null) {
+					DestinationNode node = this.root;
+					for (String segment : segments) {
+						node = node.getOrCreateChild(segment);
+					}
+					patterns = node.patterns;
+				}
+				patterns.computeIfAbsent(pattern, p -> new CopyOnWriteArraySet<>()).add(info);
+			}
+		}
+
+		public void updateAfterRemovedSubscription(String pattern, SessionSubscriptionInfo info) {
+			synchronized (this.root) {
+				// The session may have other subscriptions to the same pattern
+				if (info.getSubscriptions(pattern) == null) {
+					removePattern(pattern, info);
+				}
+			}
+		}
+
+		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
+			synchronized (this.root) {
+				for (String pattern : info.getDestinations()) {
+					removePattern(pattern, info);
+				}
+			}
+		}
+
+		private void removePattern(String pattern, SessionSubscriptionInfo info) {
+			String[] segments = tokenize(pattern);
+			if (segments != null) {
+				removePattern(this.root, segments, 0, pattern, info);
+			}
+			else {
+				removePattern(this.unindexedPatterns, pattern, info);
+			}
+		}
+
+		/**
+		 * Remove the pattern for the given session below the given node, and
+		 * return whether the node is empty and can be removed from its parent.
+		 */
+		private boolean removePattern(DestinationNode node, String[] segments, int index,
+				String pattern, SessionSubscriptionInfo info) {
+
+			if (index == segments.length) {
+				removePattern(node.patterns, pattern, info);
+			}
+			else {
+				DestinationNode child = node.getChild(segments[index]);
+				if (child != null && removePattern(child, segments, index + 1, pattern, info)) {
+					node.removeChild(segments[index]);
+				}
+			}
+			return node.isEmpty();
+		}
+
+		private void removePattern(Map<String, Set<SessionSubscriptionInfo>> patterns,
+				String pattern, SessionSubscriptionInfo info) {
+
+			Set<SessionSubscriptionInfo> infos = patterns.get(pattern);
+			if (infos != null) {
+				infos.remove(info);
+				if (infos.isEmpty()) {
+					patterns.remove(pattern);
+				}
+			}
+		}
+
+		/**
+		 * Tokenize the given destination or pattern like an {@link AntPathMatcher}
+		 * that does not trim tokens, or return {@code null} if it has a
+		 * whitespace-only segment.
+		 */
+		@Nullable
+		private String[] tokenize(String destination) {
+			String[] segments = StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true);
+			for (String segment : segments) {
+				if (!StringUtils.hasText(segment)) {
+					return null;
+				}
+			}
+			return segments;
+		}
+
+		@Override
+		public String toString() {
+			return "index[" + this.root.children.size() + " top-level segment(s)]";
+		}
+	}
+
+
+	/**
+	 * A node of the {@link DestinationIndex}, holding the patterns that end
+	 * with the segment it represents. Updated while holding the lock on the
+	 * root node, and read without locking.
+	 */
+	private static class DestinationNode {
+
+		private static final char[] WILDCARD_CHARS = {'*', '?', '{'};
+
+		// normalized literal segment -> node
+		private final Map<String, DestinationNode> children = new ConcurrentHashMap<>(4);
+
+		@Nullable
+		private volatile DestinationNode anySegment;
+
+		@Nullable
+		private volatile DestinationNode anySegments;
+
+		// pattern -> sessions subscribed to it
+		private final Map<String, Set<SessionSubscriptionInfo>> patterns = new ConcurrentHashMap<>(2);
+
+		@Nullable
+		public DestinationNode getChild(String segment) {
+			if (isAnySegments(segment)) {
+				return this.anySegments;
+			}
+			else if (isAnySegment(segment)) {
+				return this.anySegment;
+			}
+			return this.children.get(normalize(segment));
+		}
+
+		public DestinationNode getOrCreateChild(String segment) {
+			DestinationNode child = getChild(segment);
+			if (child == null) {
+				child = new DestinationNode();
+				if (isAnySegments(segment)) {
+					this.anySegments = child;
+				}
+				else if (isAnySegment(segment)) {
+					this.anySegment = child;
+				}
+				else {
+					this.children.put(normalize(segment), child);
+				}
+			}
+			return child;
+		}
+
+		public void removeChild(String segment) {
+			if (isAnySegments(segment)) {
+				this.anySegments = null;
+			}
+			else if (isAnySegment(segment)) {
+				this.anySegment = null;
+			}
+			else {
+				this.children.remove(normalize(segment));
+			}
+		}
+
+		public boolean isEmpty() {
+			return (this.patterns.isEmpty() && this.children.isEmpty() &&
+					this.anySegment == null && this.anySegments == null);
+		}
+
+		private static boolean isAnySegments(String segment) {
+			return segment.trim().equals("**");
+		}
+
+		private static boolean isAnySegment(String segment) {
+			for (char wildcard : WILDCARD_CHARS) {
+				if (segment.indexOf(wildcard) != -1) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Normalize a literal segment so that it is equal to the segments
+		 * it may match, whether tokens are trimmed and case-sensitive or not.
+		 */
+		public static String normalize(String segment) {
+			return segment.trim().toLowerCase(Locale.ROOT);
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
@@ -417,6 +767,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		// destination -> subscriptions
 		private final Map<String, Set<Subscription>> destinationLookup = new ConcurrentHashMap<>(4);
 
+		private final AtomicLong subscriptionSequence = new AtomicLong();
+
 		public SessionSubscriptionInfo(String sessionId) {
 			Assert.notNull(sessionId, "'sessionId' must not be null");
 			this.sessionId = sessionId;
@@ -458,7 +810,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					}
 				}
 			}
-			subs.add(new Subscription(subscriptionId, selectorExpression));
+			subs.add(new Subscription(subscriptionId, selectorExpression, this.subscriptionSequence.incrementAndGet()));
 		}
 
 		@Nullable
@@ -496,16 +848,26 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		@Nullable
 		private final Expression selectorExpression;
 
-		public Subscription(String id, @Nullable Expression selector) {
+		private final long sequence;
+
+		public Subscription(String id, @Nullable Expression selector, long sequence) {
 			Assert.notNull(id, "Subscription id must not be null");
 			this.id = id;
 			this.selectorExpression = selector;
+			this.sequence = sequence;
 		}
 
 		public String getId() {
 			return this.id;
 		}
 
+		/**
+		 * Return the position of the subscription among those of its session.
+		 */
+		public long getSequence() {
+			return this.sequence;
+		}
+
 		@Nullable
 		public Expression getSelectorExpression() {
 			return this.selectorExpression;
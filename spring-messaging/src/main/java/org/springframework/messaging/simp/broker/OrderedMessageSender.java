@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.ExecutorChannelInterceptor;
 import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.PartitionedExecutorSubscribableChannel;
 import org.springframework.util.Assert;
 
 /**
@@ -121,6 +122,9 @@ class OrderedMessageSender implements MessageChannel {
 	 * which an interceptor is either added or removed.
 	 */
 	static void configureOutboundChannel(MessageChannel channel, boolean preservePublishOrder) {
+		if (preservePublishOrder && isOrderedPerSession(channel)) {
+			return;
+		}
 		if (preservePublishOrder) {
 			Assert.isInstanceOf(ExecutorSubscribableChannel.class, channel,
 					"An ExecutorSubscribableChannel is required for `preservePublishOrder`");
@@ -139,6 +143,17 @@ class OrderedMessageSender implements MessageChannel {
 	}
 
 
+	/**
+	 * Whether the given channel already handles the messages of each session
+	 * one at a time and in order, in which case no {@code OrderedMessageSender}
+	 * is needed.
+	 * @since 5.2
+	 */
+	static boolean isOrderedPerSession(MessageChannel channel) {
+		return (channel instanceof PartitionedExecutorSubscribableChannel);
+	}
+
+
 	private static class CallbackInterceptor implements ExecutorChannelInterceptor {
 
 		@Override
@@ -28,6 +28,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpBroadcast;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
@@ -385,30 +386,34 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
 		long now = System.currentTimeMillis();
+		// Allows outbound handlers to share work, e.g. encoding, across subscribers
+		SimpBroadcast broadcast = new SimpBroadcast();
 		subscriptions.forEach((sessionId, subscriptionIds) -> {
+			SessionInfo info = this.sessions.get(sessionId);
+			if (info == null) {
+				return;
+			}
 			for (String subscriptionId : subscriptionIds) {
 				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				initHeaders(headerAccessor);
 				headerAccessor.setSessionId(sessionId);
 				headerAccessor.setSubscriptionId(subscriptionId);
+				headerAccessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_HEADER, broadcast);
 				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
 				headerAccessor.setLeaveMutable(true);
 				Object payload = message.getPayload();
 				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
-				SessionInfo info = this.sessions.get(sessionId);
-				if (info != null) {
-					try {
-						info.getClientOutboundChannel().send(reply);
-					}
-					catch (Throwable ex) {
-						if (logger.isErrorEnabled()) {
-							logger.error("Failed to send " + message, ex);
-						}
-					}
-					finally {
-						info.setLastWriteTime(now);
+				try {
+					info.getClientOutboundChannel().send(reply);
+				}
+				catch (Throwable ex) {
+					if (logger.isErrorEnabled()) {
+						logger.error("Failed to send " + message, ex);
 					}
 				}
+				finally {
+					info.setLastWriteTime(now);
+				}
 			}
 		});
 	}
@@ -40,6 +40,7 @@ import org.springframework.messaging.converter.StringMessageConverter;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
 import org.springframework.messaging.simp.SimpLogging;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
 import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
@@ -54,6 +55,7 @@ import org.springframework.messaging.simp.user.UserRegistryMessageHandler;
 import org.springframework.messaging.support.AbstractSubscribableChannel;
 import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.ImmutableMessageChannelInterceptor;
+import org.springframework.messaging.support.PartitionedExecutorSubscribableChannel;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
@@ -130,9 +132,9 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 
 	@Bean
 	public AbstractSubscribableChannel clientInboundChannel() {
-		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(clientInboundChannelExecutor());
-		channel.setLogger(SimpLogging.forLog(channel.getLogger()));
 		ChannelRegistration reg = getClientInboundChannelRegistration();
+		ExecutorSubscribableChannel channel = createClientChannel(reg, clientInboundChannelExecutor());
+		channel.setLogger(SimpLogging.forLog(channel.getLogger()));
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
@@ -166,9 +168,9 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 
 	@Bean
 	public AbstractSubscribableChannel clientOutboundChannel() {
-		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(clientOutboundChannelExecutor());
-		channel.setLogger(SimpLogging.forLog(channel.getLogger()));
 		ChannelRegistration reg = getClientOutboundChannelRegistration();
+		ExecutorSubscribableChannel channel = createClientChannel(reg, clientOutboundChannelExecutor());
+		channel.setLogger(SimpLogging.forLog(channel.getLogger()));
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
@@ -200,6 +202,15 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 	protected void configureClientOutboundChannel(ChannelRegistration registration) {
 	}
 
+	private ExecutorSubscribableChannel createClientChannel(ChannelRegistration registration, TaskExecutor executor) {
+		Integer partitionCount = registration.getPartitionCount();
+		if (partitionCount != null) {
+			return new PartitionedExecutorSubscribableChannel(executor,
+					message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()), partitionCount);
+		}
+		return new ExecutorSubscribableChannel(executor);
+	}
+
 	@Bean
 	public AbstractSubscribableChannel brokerChannel() {
 		ChannelRegistration reg = getBrokerRegistry().getBrokerChannelRegistration();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,9 @@ import java.util.List;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.PartitionedExecutorSubscribableChannel;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
 
 /**
  * A registration class for customizing the configuration for a
@@ -38,6 +40,9 @@ public class ChannelRegistration {
 
 	private final List<ChannelInterceptor> interceptors = new ArrayList<>();
 
+	@Nullable
+	private Integer partitionCount;
+
 
 	/**
 	 * Configure the thread pool backing this message channel.
@@ -69,6 +74,38 @@ public class ChannelRegistration {
 		return this;
 	}
 
+	/**
+	 * Handle the messages of each session in the order they were sent, while
+	 * messages of different sessions are handled in parallel, using the
+	 * {@linkplain PartitionedExecutorSubscribableChannel#DEFAULT_PARTITION_COUNT
+	 * default number of partitions}.
+	 * @since 5.2
+	 * @see PartitionedExecutorSubscribableChannel
+	 */
+	public ChannelRegistration partitionBySession() {
+		return partitionBySession(PartitionedExecutorSubscribableChannel.DEFAULT_PARTITION_COUNT);
+	}
+
+	/**
+	 * Handle the messages of each session in the order they were sent, while
+	 * messages of different sessions are handled in parallel. Sessions are
+	 * assigned to one of the given number of partitions by the hash of their
+	 * id, so a higher count reduces the chance that a busy session delays
+	 * the messages of others.
+	 * <p>For the outbound channel, this also preserves the order in which the
+	 * broker publishes messages to each session, without the per-session
+	 * queueing that {@link MessageBrokerRegistry#setPreservePublishOrder}
+	 * otherwise uses.
+	 * @param partitionCount the number of partitions
+	 * @since 5.2
+	 * @see PartitionedExecutorSubscribableChannel
+	 */
+	public ChannelRegistration partitionBySession(int partitionCount) {
+		Assert.isTrue(partitionCount > 0, "Partition count must be greater than 0");
+		this.partitionCount = partitionCount;
+		return this;
+	}
+
 	/**
 	 * Configure interceptors for the message channel.
 	 * @deprecated as of 4.3.12, in favor of {@link #interceptors(ChannelInterceptor...)}
@@ -94,4 +131,9 @@ public class ChannelRegistration {
 		return this.interceptors;
 	}
 
+	@Nullable
+	protected Integer getPartitionCount() {
+		return this.partitionCount;
+	}
+
 }
@@ -49,6 +49,8 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private Long systemHeartbeatReceiveInterval;
 
+	private int multiplexedConnectionCount;
+
 	@Nullable
 	private String virtualHost;
 
@@ -157,6 +159,20 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		return this;
 	}
 
+	/**
+	 * Set the number of shared TCP connections to multiplex client sessions
+	 * over, rather than opening one TCP connection per client session.
+	 * <p>All client sessions then use the client login, and the client
+	 * sessions on a shared connection share its fate when it is lost.
+	 * <p>By default this is 0, i.e. one connection per client session.
+	 * @since 5.2
+	 * @see StompBrokerRelayMessageHandler#setMultiplexedConnectionCount(int)
+	 */
+	public StompBrokerRelayRegistration setMultiplexedConnectionCount(int multiplexedConnectionCount) {
+		this.multiplexedConnectionCount = multiplexedConnectionCount;
+		return this;
+	}
+
 	/**
 	 * Set the value of the "host" header to use in STOMP CONNECT frames. When this
 	 * property is configured, a "host" header will be added to every STOMP frame sent to
@@ -252,6 +268,8 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		if (this.systemHeartbeatReceiveInterval != null) {
 			handler.setSystemHeartbeatReceiveInterval(this.systemHeartbeatReceiveInterval);
 		}
+		handler.setMultiplexedConnectionCount(this.multiplexedConnectionCount);
+
 		if (this.virtualHost != null) {
 			handler.setVirtualHost(this.virtualHost);
 		}
@@ -20,10 +20,13 @@ import java.security.Principal;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -75,6 +78,13 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * <li>{@link #setSystemHeartbeatReceiveInterval}</li>
  * </ul>
  *
+ * <p>Alternatively, client sessions can be multiplexed over a fixed number of
+ * shared TCP connections, see {@link #setMultiplexedConnectionCount(int)}.
+ * In that case the CONNECT and DISCONNECT frames of clients are handled by the
+ * relay, subscription, receipt, and transaction ids are prefixed with a key for
+ * the client session, and messages from the broker are routed back to the
+ * client session by that key.
+ *
  * @author Rossen Stoyanchev
  * @author Andy Wilkinson
  * @since 4.0
@@ -86,6 +96,12 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	 */
 	public static final String SYSTEM_SESSION_ID = "_system_";
 
+	/**
+	 * The prefix for the session ids of shared, multiplexed connections.
+	 * @since 5.2
+	 */
+	public static final String MULTIPLEXED_SESSION_ID_PREFIX = "_multiplexed_";
+
 	/** STOMP recommended error of margin for receiving heartbeats. */
 	private static final long HEARTBEAT_MULTIPLIER = 3;
 
@@ -97,6 +113,10 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 	private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
+	private static final String STOMP_TRANSACTION_HEADER = "transaction";
+
+	private static final char MULTIPLEXED_ID_SEPARATOR = ':';
+
 	private static final ListenableFutureTask<Void> EMPTY_TASK = new ListenableFutureTask<>(new VoidCallable());
 
 	private static final Message<byte[]> HEARTBEAT_MESSAGE;
@@ -127,6 +147,11 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 	private final Map<String, MessageHandler> systemSubscriptions = new HashMap<>(4);
 
+	private int multiplexedConnectionCount;
+
+	@Nullable
+	private MultiplexedStompConnectionHandler[] multiplexedConnections;
+
 	@Nullable
 	private String virtualHost;
 
@@ -321,6 +346,53 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		return this.systemSubscriptions;
 	}
 
+	/**
+	 * Set the number of shared TCP connections to multiplex client sessions over,
+	 * rather than opening one TCP connection per client session. The shared
+	 * connections are opened on startup with the configured
+	 * {@link #setClientLogin client login} and {@link #setClientPasscode passcode},
+	 * use the "system" heartbeat settings, and reconnect when lost, and each
+	 * client session is assigned to one of them by the hash of its session id.
+	 * <p>Client CONNECT frames are answered by the relay once the shared
+	 * connection is established, without heartbeats, and a client DISCONNECT
+	 * removes the subscriptions of the client session.
+	 * <p>All client sessions share the credentials, and therefore the broker
+	 * permissions, of the client login: the login and passcode of client
+	 * CONNECT frames are not passed to the broker, so any authorization per
+	 * user must be enforced by the application, e.g. with a
+	 * {@link org.springframework.messaging.support.ChannelInterceptor
+	 * ChannelInterceptor} on the client inbound channel.
+	 * <p>Client sessions on the same shared connection also share its fate.
+	 * An ERROR frame from the broker is sent only to the client session whose
+	 * frame caused it, which is then closed, provided the frame carried a
+	 * receipt. To that end, the relay requests a receipt for SUBSCRIBE and
+	 * UNSUBSCRIBE frames, which are the most likely to be rejected, e.g. for
+	 * lack of permissions, and passes on the receipts that clients request.
+	 * This costs an extra RECEIPT frame from the broker per subscription
+	 * change, rather than one per frame. An ERROR frame in response to any
+	 * other frame cannot be attributed, and is sent to all client sessions on
+	 * the shared connection. Brokers typically close the connection after an
+	 * ERROR frame anyway, and when a shared connection is lost, all of its
+	 * client sessions receive an ERROR frame, as they would if their own
+	 * connection was lost. Multiplexing is therefore best suited to
+	 * well-behaved clients, which rarely cause broker errors.
+	 * <p>By default this is 0, i.e. one TCP connection per client session.
+	 * @since 5.2
+	 */
+	public void setMultiplexedConnectionCount(int multiplexedConnectionCount) {
+		Assert.isTrue(multiplexedConnectionCount >= 0, "multiplexedConnectionCount must not be negative");
+		this.multiplexedConnectionCount = multiplexedConnectionCount;
+	}
+
+	/**
+	 * Return the number of shared TCP connections client sessions are
+	 * multiplexed over, or 0 if each client session has its own connection.
+	 * @since 5.2
+	 */
+	public int getMultiplexedConnectionCount() {
+		return this.multiplexedConnectionCount;
+	}
+
 	/**
 	 * Set the value of the "host" header to use in STOMP CONNECT frames. When this
 	 * property is configured, a "host" header will be added to every STOMP frame sent to
@@ -415,25 +487,46 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			logger.info("Starting \"system\" session, " + toString());
 		}
 
+		StompHeaderAccessor accessor = createConnectHeaders(SYSTEM_SESSION_ID, this.systemLogin, this.systemPasscode);
+		SystemStompConnectionHandler handler = new SystemStompConnectionHandler(accessor);
+		this.connectionHandlers.put(handler.getSessionId(), handler);
+
+		this.stats.incrementConnectCount();
+		this.tcpClient.connect(handler, new FixedIntervalReconnectStrategy(5000));
+
+		if (this.multiplexedConnectionCount > 0) {
+			MultiplexedStompConnectionHandler[] connections =
+					new MultiplexedStompConnectionHandler[this.multiplexedConnectionCount];
+			for (int i = 0; i < connections.length; i++) {
+				String sessionId = MULTIPLEXED_SESSION_ID_PREFIX + i;
+				accessor = createConnectHeaders(sessionId, this.clientLogin, this.clientPasscode);
+				connections[i] = new MultiplexedStompConnectionHandler(sessionId, accessor);
+			}
+			this.multiplexedConnections = connections;
+			for (MultiplexedStompConnectionHandler connection : connections) {
+				this.tcpClient.connect(connection, new FixedIntervalReconnectStrategy(5000));
+			}
+		}
+		else {
+			this.multiplexedConnections = null;
+		}
+	}
+
+	private StompHeaderAccessor createConnectHeaders(String sessionId, String login, String passcode) {
 		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
 		accessor.setAcceptVersion("1.1,1.2");
-		accessor.setLogin(this.systemLogin);
-		accessor.setPasscode(this.systemPasscode);
+		accessor.setLogin(login);
+		accessor.setPasscode(passcode);
 		accessor.setHeartbeat(this.systemHeartbeatSendInterval, this.systemHeartbeatReceiveInterval);
 		String virtualHost = getVirtualHost();
 		if (virtualHost != null) {
 			accessor.setHost(virtualHost);
 		}
-		accessor.setSessionId(SYSTEM_SESSION_ID);
+		accessor.setSessionId(sessionId);
 		if (logger.isDebugEnabled()) {
 			logger.debug("Forwarding " + accessor.getShortLogMessage(EMPTY_PAYLOAD));
 		}
-
-		SystemStompConnectionHandler handler = new SystemStompConnectionHandler(accessor);
-		this.connectionHandlers.put(handler.getSessionId(), handler);
-
-		this.stats.incrementConnectCount();
-		this.tcpClient.connect(handler, new FixedIntervalReconnectStrategy(5000));
+		return accessor;
 	}
 
 	private ReactorNettyTcpClient<byte[]> initTcpClient() {
@@ -535,6 +628,16 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			if (logger.isDebugEnabled()) {
 				logger.debug(stompAccessor.getShortLogMessage(EMPTY_PAYLOAD));
 			}
+			MultiplexedStompConnectionHandler[] connections = this.multiplexedConnections;
+			if (connections != null) {
+				MultiplexedStompConnectionHandler connection =
+						connections[Math.floorMod(sessionId.hashCode(), connections.length)];
+				MultiplexedSessionHandler handler = new MultiplexedSessionHandler(sessionId, stompAccessor, connection);
+				this.connectionHandlers.put(sessionId, handler);
+				this.stats.incrementConnectCount();
+				connection.addSession(handler);
+				return;
+			}
 			stompAccessor = (stompAccessor.isMutable() ? stompAccessor : StompHeaderAccessor.wrap(message));
 			stompAccessor.setLogin(this.clientLogin);
 			stompAccessor.setPasscode(this.clientPasscode);
@@ -661,7 +764,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			}
 		}
 
-		private void sendStompErrorFrameToClient(String errorText) {
+		protected void sendStompErrorFrameToClient(String errorText) {
 			if (this.isRemoteClientSession) {
 				StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
 				if (getHeaderInitializer() != null) {
@@ -718,10 +821,17 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		 */
 		protected void afterStompConnected(StompHeaderAccessor connectedHeaders) {
 			this.isStompConnected = true;
-			stats.incrementConnectedCount();
+			countConnected();
 			initHeartbeats(connectedHeaders);
 		}
 
+		/**
+		 * Record the CONNECTED frame for this connection in the stats.
+		 */
+		protected void countConnected() {
+			stats.incrementConnectedCount();
+		}
+
 		private void initHeartbeats(StompHeaderAccessor connectedHeaders) {
 			if (this.isRemoteClientSession) {
 				return;
@@ -1008,6 +1118,310 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	}
 
 
+	/**
+	 * A shared TCP connection that the sessions of several clients are
+	 * multiplexed over.
+	 */
+	private class MultiplexedStompConnectionHandler extends StompConnectionHandler {
+
+		private final Map<String, MultiplexedSessionHandler> sessions = new ConcurrentHashMap<>();
+
+		private final AtomicLong sessionKeyCounter = new AtomicLong();
+
+		@Nullable
+		private volatile StompHeaderAccessor connectedHeaders;
+
+		public MultiplexedStompConnectionHandler(String sessionId, StompHeaderAccessor connectHeaders) {
+			super(sessionId, connectHeaders, false);
+		}
+
+		public String nextSessionKey() {
+			return Long.toString(this.sessionKeyCounter.incrementAndGet(), Character.MAX_RADIX);
+		}
+
+		public void addSession(MultiplexedSessionHandler session) {
+			this.sessions.put(session.getKey(), session);
+			StompHeaderAccessor headers = this.connectedHeaders;
+			if (headers != null) {
+				session.afterSessionConnected(headers);
+			}
+		}
+
+		public boolean removeSession(MultiplexedSessionHandler session) {
+			return this.sessions.remove(session.getKey(), session);
+		}
+
+		@Override
+		protected void afterStompConnected(StompHeaderAccessor connectedHeaders) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Multiplexed session " + getSessionId() + " connected.");
+			}
+			super.afterStompConnected(connectedHeaders);
+			this.connectedHeaders = connectedHeaders;
+			for (MultiplexedSessionHandler session : this.sessions.values()) {
+				session.afterSessionConnected(connectedHeaders);
+			}
+		}
+
+		@Override
+		protected void countConnected() {
+			// Counted for each client session instead, along with its CONNECT frame
+		}
+
+		@Override
+		protected void handleInboundMessage(Message<?> message) {
+			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+			if (accessor == null) {
+				return;
+			}
+			StompCommand command = accessor.getCommand();
+			if (StompCommand.MESSAGE.equals(command)) {
+				String subscriptionId = accessor.getSubscriptionId();
+				MultiplexedSessionHandler session = getSession(subscriptionId);
+				if (session != null) {
+					accessor.setSubscriptionId(getClientId(subscriptionId));
+					session.sendToClient(message, accessor);
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("No session for " + accessor.getShortLogMessage(message.getPayload()));
+				}
+			}
+			else if (StompCommand.RECEIPT.equals(command) || StompCommand.ERROR.equals(command)) {
+				String receiptId = accessor.getReceiptId();
+				MultiplexedSessionHandler session = getSession(receiptId);
+				if (session != null) {
+					session.handleReceipt(message, accessor, getClientId(receiptId));
+				}
+				else if (StompCommand.ERROR.equals(command)) {
+					for (MultiplexedSessionHandler other : this.sessions.values()) {
+						StompHeaderAccessor copy = StompHeaderAccessor.wrap(message);
+						MessageHeaders headers = copy.getMessageHeaders();
+						other.sendToClient(MessageBuilder.createMessage(message.getPayload(), headers), copy);
+					}
+				}
+			}
+		}
+
+		@Nullable
+		private MultiplexedSessionHandler getSession(@Nullable String multiplexedId) {
+			if (multiplexedId == null) {
+				return null;
+			}
+			int index = multiplexedId.indexOf(MULTIPLEXED_ID_SEPARATOR);
+			return this.sessions.get(index != -1 ? multiplexedId.substring(0, index) : multiplexedId);
+		}
+
+		/**
+		 * Return the id of the client for the given multiplexed id, or
+		 * {@code null} for a receipt that was requested by the relay.
+		 */
+		@Nullable
+		private String getClientId(String multiplexedId) {
+			int index = multiplexedId.indexOf(MULTIPLEXED_ID_SEPARATOR);
+			return (index != -1 ? multiplexedId.substring(index + 1) : null);
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			if (this.connectedHeaders != null) {
+				try {
+					return super.forward(message, accessor);
+				}
+				catch (IllegalStateException ex) {
+					// Connection lost concurrently
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Multiplexed session " + getSessionId() + " not connected, ignoring " +
+						accessor.getShortLogMessage(message.getPayload()));
+			}
+			return EMPTY_TASK;
+		}
+
+		@Override
+		public void clearConnection() {
+			this.connectedHeaders = null;
+			try {
+				super.clearConnection();
+			}
+			finally {
+				for (MultiplexedSessionHandler session : this.sessions.values()) {
+					session.handleTcpConnectionFailure("Connection to broker closed.", null);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedStompConnectionHandler[sessionId=" + getSessionId() +
+					", clientSessions=" + this.sessions.size() + "]";
+		}
+	}
+
+
+	/**
+	 * A client session multiplexed over a shared TCP connection. Ids that are
+	 * scoped to a STOMP connection are prefixed with the key of the session,
+	 * and receipts requested by the relay consist of the key only.
+	 */
+	private class MultiplexedSessionHandler extends StompConnectionHandler {
+
+		private final MultiplexedStompConnectionHandler connection;
+
+		private final String key;
+
+		private final Set<String> subscriptionIds = ConcurrentHashMap.newKeySet();
+
+		@Nullable
+		private final Principal user;
+
+		private final AtomicBoolean connected = new AtomicBoolean();
+
+		public MultiplexedSessionHandler(String sessionId, StompHeaderAccessor connectHeaders,
+				MultiplexedStompConnectionHandler connection) {
+
+			super(sessionId, connectHeaders);
+			this.connection = connection;
+			this.key = connection.nextSessionKey();
+			this.user = connectHeaders.getUser();
+		}
+
+		public String getKey() {
+			return this.key;
+		}
+
+		/**
+		 * Send the CONNECTED frame to the client, once the shared connection
+		 * is established.
+		 */
+		public void afterSessionConnected(StompHeaderAccessor connectedHeaders) {
+			if (!this.connected.compareAndSet(false, true)) {
+				return;
+			}
+			StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+			if (getHeaderInitializer() != null) {
+				getHeaderInitializer().initHeaders(accessor);
+			}
+			String version = connectedHeaders.getVersion();
+			if (version != null) {
+				accessor.setVersion(version);
+			}
+			accessor.setHeartbeat(0, 0);
+			accessor.setLeaveMutable(true);
+			stats.incrementConnectedCount();
+			sendToClient(MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders()), accessor);
+		}
+
+		/**
+		 * Handle a RECEIPT or ERROR frame for a frame of this session. An
+		 * ERROR frame closes the session, while a RECEIPT that was requested
+		 * by the relay rather than by the client is dropped.
+		 */
+		public void handleReceipt(Message<?> message, StompHeaderAccessor accessor, @Nullable String receiptId) {
+			boolean isError = StompCommand.ERROR.equals(accessor.getCommand());
+			if (receiptId == null && !isError) {
+				return;
+			}
+			accessor.setReceiptId(receiptId);
+			sendToClient(message, accessor);
+			if (isError) {
+				clearConnection();
+			}
+		}
+
+		public void sendToClient(Message<?> message, StompHeaderAccessor accessor) {
+			accessor.setSessionId(getSessionId());
+			if (this.user != null) {
+				accessor.setUser(this.user);
+			}
+			handleInboundMessage(message);
+		}
+
+		@Override
+		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
+			StompCommand command = accessor.getCommand();
+			if (command == null) {
+				// Heartbeats are not exchanged with multiplexed clients
+				return EMPTY_TASK;
+			}
+			if (StompCommand.DISCONNECT.equals(command)) {
+				String receipt = accessor.getReceipt();
+				clearConnection();
+				if (receipt != null) {
+					StompHeaderAccessor receiptAccessor = StompHeaderAccessor.create(StompCommand.RECEIPT);
+					receiptAccessor.setReceiptId(receipt);
+					receiptAccessor.setLeaveMutable(true);
+					MessageHeaders headers = receiptAccessor.getMessageHeaders();
+					sendToClient(MessageBuilder.createMessage(EMPTY_PAYLOAD, headers), receiptAccessor);
+				}
+				return EMPTY_TASK;
+			}
+
+			StompHeaderAccessor relayAccessor = (accessor.isMutable() ? accessor : StompHeaderAccessor.wrap(message));
+			String subscriptionId = relayAccessor.getSubscriptionId();
+			if (subscriptionId != null) {
+				if (StompCommand.SUBSCRIBE.equals(command)) {
+					this.subscriptionIds.add(subscriptionId);
+					relayAccessor.setSubscriptionId(toMultiplexedId(subscriptionId));
+				}
+				else if (StompCommand.UNSUBSCRIBE.equals(command)) {
+					this.subscriptionIds.remove(subscriptionId);
+					relayAccessor.setSubscriptionId(toMultiplexedId(subscriptionId));
+				}
+			}
+			String value = relayAccessor.getFirstNativeHeader(STOMP_SUBSCRIPTION_HEADER);
+			if (value != null && (StompCommand.ACK.equals(command) || StompCommand.NACK.equals(command))) {
+				relayAccessor.setNativeHeader(STOMP_SUBSCRIPTION_HEADER, toMultiplexedId(value));
+			}
+			// Request a receipt for subscription changes, so that an ERROR is attributed to this session
+			value = relayAccessor.getReceipt();
+			if (value != null) {
+				relayAccessor.setReceipt(toMultiplexedId(value));
+			}
+			else if (StompCommand.SUBSCRIBE.equals(command) || StompCommand.UNSUBSCRIBE.equals(command)) {
+				relayAccessor.setReceipt(this.key);
+			}
+			value = relayAccessor.getFirstNativeHeader(STOMP_TRANSACTION_HEADER);
+			if (value != null) {
+				relayAccessor.setNativeHeader(STOMP_TRANSACTION_HEADER, toMultiplexedId(value));
+			}
+			return this.connection.forward(message, relayAccessor);
+		}
+
+		private String toMultiplexedId(String id) {
+			return this.key + MULTIPLEXED_ID_SEPARATOR + id;
+		}
+
+		/**
+		 * Remove the session from the shared connection, and unsubscribe from
+		 * its remaining subscriptions.
+		 */
+		@Override
+		public void clearConnection() {
+			try {
+				if (this.connection.removeSession(this)) {
+					for (String subscriptionId : this.subscriptionIds) {
+						StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+						accessor.setSubscriptionId(toMultiplexedId(subscriptionId));
+						accessor.setSessionId(this.connection.getSessionId());
+						MessageHeaders headers = accessor.getMessageHeaders();
+						this.connection.forward(MessageBuilder.createMessage(EMPTY_PAYLOAD, headers), accessor);
+					}
+					this.subscriptionIds.clear();
+				}
+			}
+			finally {
+				super.clearConnection();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "MultiplexedSessionHandler[sessionId=" + getSessionId() + ", key=" + this.key + "]";
+		}
+	}
+
+
 	private static class VoidCallable implements Callable<Void> {
 
 		@Override
@@ -123,6 +123,58 @@ public class StompEncoder  {
 		}
 	}
 
+	/**
+	 * Add the given headers to a frame previously encoded by this encoder.
+	 * This allows to encode a frame once, and to send it with different
+	 * values for some headers, e.g. to each subscriber of a broadcast message.
+	 * The headers must not be present in the encoded frame already.
+	 * @param frame the encoded frame, which must not be a heartbeat
+	 * @param headers the headers to add, with their values
+	 * @return the encoded frame with the given headers
+	 * @since 5.2
+	 */
+	public byte[] addHeaders(byte[] frame, Map<String, String> headers) {
+		Assert.notNull(frame, "'frame' is required");
+		Assert.notNull(headers, "'headers' is required");
+		int commandEnd = -1;
+		for (int i = 0; i < frame.length; i++) {
+			if (frame[i] == LF) {
+				commandEnd = i + 1;
+				break;
+			}
+		}
+		Assert.isTrue(commandEnd > 1, "Not an encoded STOMP frame");
+		String command = new String(frame, 0, commandEnd - 1, StandardCharsets.UTF_8);
+		boolean shouldEscape = !(command.equals(StompCommand.CONNECT.name()) ||
+				command.equals(StompCommand.STOMP.name()) || command.equals(StompCommand.CONNECTED.name()));
+
+		// Encode the headers first, then copy them and the encoded frame once into a presized array
+		byte[][] encoded = new byte[headers.size() * 2][];
+		int length = frame.length;
+		int index = 0;
+		for (Entry<String, String> entry : headers.entrySet()) {
+			byte[] key = encodeHeaderKey(entry.getKey(), shouldEscape);
+			byte[] value = encodeHeaderValue(entry.getValue(), shouldEscape);
+			encoded[index++] = key;
+			encoded[index++] = value;
+			length += key.length + value.length + 2;
+		}
+
+		byte[] result = new byte[length];
+		System.arraycopy(frame, 0, result, 0, commandEnd);
+		int offset = commandEnd;
+		for (int i = 0; i < encoded.length; i += 2) {
+			System.arraycopy(encoded[i], 0, result, offset, encoded[i].length);
+			offset += encoded[i].length;
+			result[offset++] = COLON;
+			System.arraycopy(encoded[i + 1], 0, result, offset, encoded[i + 1].length);
+			offset += encoded[i + 1].length;
+			result[offset++] = LF;
+		}
+		System.arraycopy(frame, commandEnd, result, offset, frame.length - commandEnd);
+		return result;
+	}
+
 	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
 			DataOutputStream output) throws IOException {
 
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ExecutorSubscribableChannel} that handles messages with the same
+ * partition key, e.g. a session id, one at a time and in the order they were
+ * sent, while messages with different keys are handled in parallel.
+ *
+ * <p>Messages are assigned to one of a fixed number of partitions by the hash
+ * of their key. Each partition queues its messages and drains them with a
+ * single task on the executor at a time, without locking, and gives up its
+ * thread after a batch of messages so that other partitions get a turn.
+ * Messages without a partition key are handled in parallel, as with
+ * {@link ExecutorSubscribableChannel}.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ */
+public class PartitionedExecutorSubscribableChannel extends ExecutorSubscribableChannel {
+
+	/**
+	 * The default number of partitions.
+	 */
+	public static final int DEFAULT_PARTITION_COUNT = 128;
+
+
+	private final Executor targetExecutor;
+
+	private final int partitionCount;
+
+
+	/**
+	 * Create a new {@code PartitionedExecutorSubscribableChannel} with the
+	 * {@linkplain #DEFAULT_PARTITION_COUNT default number of partitions}.
+	 * @param executor the executor used to handle messages
+	 * @param partitionKeyFunction function to obtain the partition key of a
+	 * message, which may return {@code null} for messages that need no ordering
+	 */
+	public PartitionedExecutorSubscribableChannel(
+			Executor executor, Function<Message<?>, Object> partitionKeyFunction) {
+
+		this(executor, partitionKeyFunction, DEFAULT_PARTITION_COUNT);
+	}
+
+	/**
+	 * Create a new {@code PartitionedExecutorSubscribableChannel}.
+	 * @param executor the executor used to handle messages
+	 * @param partitionKeyFunction function to obtain the partition key of a
+	 * message, which may return {@code null} for messages that need no ordering
+	 * @param partitionCount the number of partitions
+	 */
+	public PartitionedExecutorSubscribableChannel(
+			Executor executor, Function<Message<?>, Object> partitionKeyFunction, int partitionCount) {
+
+		super(new PartitioningExecutor(executor, partitionKeyFunction, partitionCount));
+		this.targetExecutor = executor;
+		this.partitionCount = partitionCount;
+	}
+
+
+	/**
+	 * Return the executor that messages are handled with.
+	 */
+	@Override
+	public Executor getExecutor() {
+		return this.targetExecutor;
+	}
+
+	/**
+	 * Return the number of partitions.
+	 */
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+
+	/**
+	 * Executor that dispatches the tasks of a message to the partition of the
+	 * message, or to the target executor if the message has no partition key.
+	 */
+	private static class PartitioningExecutor implements Executor {
+
+		private final Executor executor;
+
+		private final Function<Message<?>, Object> partitionKeyFunction;
+
+		private final Partition[] partitions;
+
+		public PartitioningExecutor(
+				Executor executor, Function<Message<?>, Object> partitionKeyFunction, int partitionCount) {
+
+			Assert.notNull(executor, "Executor must not be null");
+			Assert.notNull(partitionKeyFunction, "Partition key function must not be null");
+			Assert.isTrue(partitionCount > 0, "Partition count must be greater than 0");
+			this.executor = executor;
+			this.partitionKeyFunction = partitionKeyFunction;
+			this.partitions = new Partition[partitionCount];
+			for (int i = 0; i < partitionCount; i++) {
+				this.partitions[i] = new Partition(executor);
+			}
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			Object key = (task instanceof MessageHandlingRunnable ?
+					this.partitionKeyFunction.apply(((MessageHandlingRunnable) task).getMessage()) : null);
+			if (key == null) {
+				this.executor.execute(task);
+			}
+			else {
+				this.partitions[Math.floorMod(key.hashCode(), this.partitions.length)].execute(task);
+			}
+		}
+	}
+
+
+	/**
+	 * The queue of tasks for one partition, drained by at most one task on the
+	 * target executor at a time.
+	 */
+	private static class Partition implements Runnable {
+
+		private static final int MAX_BATCH_SIZE = 64;
+
+		private static final Log logger = LogFactory.getLog(PartitionedExecutorSubscribableChannel.class);
+
+
+		private final Executor executor;
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		public Partition(Executor executor) {
+			this.executor = executor;
+		}
+
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+			try {
+				trySchedule();
+			}
+			catch (RuntimeException ex) {
+				// Rejected: leave any other queued tasks for the next attempt
+				this.tasks.remove(task);
+				throw ex;
+			}
+		}
+
+		private void trySchedule() {
+			// Take the scheduled flag only if the queue is not empty
+			if (this.tasks.isEmpty()) {
+				return;
+			}
+			if (this.scheduled.compareAndSet(false, true)) {
+				try {
+					this.executor.execute(this);
+				}
+				catch (RuntimeException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+				Runnable task = this.tasks.poll();
+				if (task == null) {
+					break;
+				}
+				try {
+					task.run();
+				}
+				catch (Throwable ex) {
+					logger.error("Failed to handle message", ex);
+				}
+			}
+			this.scheduled.set(false);
+			try {
+				trySchedule();
+			}
+			catch (RuntimeException ex) {
+				logger.error("Failed to schedule remaining messages", ex);
+			}
+		}
+	}
+
+}
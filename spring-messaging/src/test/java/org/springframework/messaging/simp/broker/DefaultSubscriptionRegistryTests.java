@@ -28,6 +28,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -438,6 +439,82 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(this.registry.findSubscriptions(createMessage("/bar")).size()).isEqualTo(2);
 	}
 
+	@Test
+	public void findSubscriptionsWithWildcards() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/topic/**/ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "2", "/topic/price*/ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess3", "1", "/queue/**"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic")).get("sess1")).containsExactly("2");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/")).get("sess1"))
+				.containsExactlyInAnyOrder("1", "2");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/ibm")).get("sess1"))
+				.containsExactlyInAnyOrder("1", "2");
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/price/ibm"));
+		assertThat(actual.keySet()).containsExactlyInAnyOrder("sess1", "sess2");
+		assertThat(actual.get("sess1")).containsExactly("2");
+		assertThat(actual.get("sess2")).containsExactlyInAnyOrder("1", "2");
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/a/b/ibm"));
+		assertThat(actual.get("sess1")).containsExactly("2");
+		assertThat(actual.get("sess2")).containsExactly("1");
+		assertThat(actual.get("sess3")).isNull();
+	}
+
+	@Test
+	public void findSubscriptionsAfterPartialUnsubscribe() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "2", "/topic/foo"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		this.registry.unregisterSubscription(unsubscribeMessage("sess2", "2"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/foo"));
+		assertThat(actual.get("sess1")).containsExactly("2");
+		assertThat(actual.get("sess2")).containsExactly("1");
+
+		this.registry.unregisterAllSubscriptions("sess1");
+		this.registry.unregisterSubscription(unsubscribeMessage("sess2", "1"));
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/foo"))).isEmpty();
+	}
+
+	@Test
+	public void findSubscriptionsWithCustomPathSeparator() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "price.stock.*"));
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "price.**"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("price.stock.ibm")).get("sess1"))
+				.containsExactlyInAnyOrder("1", "2");
+		assertThat(this.registry.findSubscriptions(createMessage("price.bond.ibm")).get("sess1"))
+				.containsExactly("2");
+	}
+
+	@Test
+	public void findSubscriptionsWithCaseInsensitivePathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/Topic/IBM"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/ibm")).get("sess1")).containsExactly("1");
+	}
+
+	@Test
+	public void findSubscriptionsWithCustomPathMatcher() {
+		this.registry.setPathMatcher(new AntPathMatcher() {});
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/*"));
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/ibm")).get("sess1")).containsExactly("1");
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/ibm"))).isEmpty();
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
@@ -67,6 +67,7 @@ import org.springframework.messaging.support.AbstractSubscribableChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.PartitionedExecutorSubscribableChannel;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.AntPathMatcher;
@@ -208,6 +209,27 @@ public class MessageBrokerConfigurationTests {
 		assertThat(broker.isPreservePublishOrder()).isTrue();
 	}
 
+	@Test
+	public void clientChannelsPartitionedBySession() {
+		ApplicationContext context = loadConfig(PartitionedChannelsConfig.class);
+
+		PartitionedExecutorSubscribableChannel inboundChannel = context.getBean(
+				"clientInboundChannel", PartitionedExecutorSubscribableChannel.class);
+		assertThat(inboundChannel.getPartitionCount()).isEqualTo(16);
+		assertThat((Object) inboundChannel.getExecutor()).isSameAs(context.getBean("clientInboundChannelExecutor"));
+
+		PartitionedExecutorSubscribableChannel outboundChannel = context.getBean(
+				"clientOutboundChannel", PartitionedExecutorSubscribableChannel.class);
+		assertThat(outboundChannel.getPartitionCount())
+				.isEqualTo(PartitionedExecutorSubscribableChannel.DEFAULT_PARTITION_COUNT);
+		// No interceptor for publish order, since the channel preserves it already
+		assertThat(outboundChannel.getInterceptors().size()).isEqualTo(1);
+
+		SimpleBrokerMessageHandler broker =
+				context.getBean("simpleBrokerMessageHandler", SimpleBrokerMessageHandler.class);
+		assertThat(broker.isPreservePublishOrder()).isTrue();
+	}
+
 	@Test
 	public void brokerChannel() {
 		ApplicationContext context = loadConfig(SimpleBrokerConfig.class);
@@ -670,6 +692,27 @@ public class MessageBrokerConfigurationTests {
 	}
 
 
+	@Configuration
+	static class PartitionedChannelsConfig extends BaseTestMessageBrokerConfig {
+
+		@Override
+		protected void configureClientInboundChannel(ChannelRegistration registration) {
+			registration.partitionBySession(16);
+		}
+
+		@Override
+		protected void configureClientOutboundChannel(ChannelRegistration registration) {
+			registration.partitionBySession();
+		}
+
+		@Override
+		protected void configureMessageBroker(MessageBrokerRegistry registry) {
+			registry.enableSimpleBroker("/topic");
+			registry.setPreservePublishOrder(true);
+		}
+	}
+
+
 	@Configuration
 	static abstract class BaseDotSeparatorConfig extends BaseTestMessageBrokerConfig {
 
@@ -221,6 +221,153 @@ public class StompBrokerRelayMessageHandlerTests {
 		assertThat(captor.getValue()).isSameAs(message);
 	}
 
+	@Test
+	public void multiplexedSessions() throws Exception {
+
+		this.brokerRelay.setClientLogin("clientlogin");
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(2);
+		StompHeaderAccessor headers = this.tcpClient.getSentHeaders(1);
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.CONNECT);
+		assertThat(headers.getSessionId()).isEqualTo(StompBrokerRelayMessageHandler.MULTIPLEXED_SESSION_ID_PREFIX + 0);
+		assertThat(headers.getLogin()).isEqualTo("clientlogin");
+
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(2);
+		assertThat(this.outboundChannel.getMessages()).isEmpty();
+
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "sam"));
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(2);
+		assertThat(this.outboundChannel.getMessages()).hasSize(2);
+		assertThat(getOutboundHeaders(0).getCommand()).isEqualTo(StompCommand.CONNECTED);
+		assertThat(getOutboundHeaders(0).getSessionId()).isEqualTo("sess1");
+		assertThat(getOutboundHeaders(1).getCommand()).isEqualTo(StompCommand.CONNECTED);
+		assertThat(getOutboundHeaders(1).getSessionId()).isEqualTo("sess2");
+		assertThat(this.brokerRelay.getStats().getTotalConnect()).isEqualTo(3);
+		assertThat(this.brokerRelay.getStats().getTotalConnected()).isEqualTo(2);
+
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "sub1", "/topic/foo"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess2", "sub1", "/topic/foo"));
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		String subscriptionId1 = this.tcpClient.getSentHeaders(2).getFirstNativeHeader("id");
+		String subscriptionId2 = this.tcpClient.getSentHeaders(3).getFirstNativeHeader("id");
+		assertThat(subscriptionId1).endsWith(":sub1");
+		assertThat(subscriptionId2).endsWith(":sub1");
+		assertThat(subscriptionId1).isNotEqualTo(subscriptionId2);
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		accessor.setSubscriptionId(subscriptionId2);
+		accessor.setDestination("/topic/foo");
+		accessor.setLeaveMutable(true);
+		this.tcpClient.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(3);
+		headers = getOutboundHeaders(2);
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.MESSAGE);
+		assertThat(headers.getSessionId()).isEqualTo("sess2");
+		assertThat(headers.getUser().getName()).isEqualTo("sam");
+		assertThat(headers.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER)).isEqualTo("sub1");
+	}
+
+	@Test
+	public void multiplexedSessionDisconnect() throws Exception {
+
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess1", "sub1", "/topic/foo"));
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(2);
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+		accessor.setSessionId("sess1");
+		accessor.setReceipt("r1");
+		this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(1);
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(4);
+		StompHeaderAccessor headers = this.tcpClient.getSentHeaders(3);
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.UNSUBSCRIBE);
+		assertThat(headers.getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER))
+				.isEqualTo(this.tcpClient.getSentHeaders(2).getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(2);
+		headers = getOutboundHeaders(1);
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.RECEIPT);
+		assertThat(headers.getSessionId()).isEqualTo("sess1");
+		assertThat(headers.getReceiptId()).isEqualTo("r1");
+	}
+
+	@Test
+	public void multiplexedSessionError() throws Exception {
+
+		this.brokerRelay.setMultiplexedConnectionCount(1);
+		this.brokerRelay.start();
+		this.tcpClient.handleMessage(message(StompCommand.CONNECTED, null, null, null));
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		this.brokerRelay.handleMessage(connectMessage("sess2", "sam"));
+		this.brokerRelay.handleMessage(subscribeMessage("sess2", "sub1", "/topic/foo"));
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		Message<byte[]> send = message(StompCommand.SEND, "sess1", "joe", "/topic/foo");
+		StompHeaderAccessor.getAccessor(send, StompHeaderAccessor.class).setReceipt("r1");
+		this.brokerRelay.handleMessage(send);
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(3);
+		assertThat(this.outboundChannel.getMessages()).hasSize(2);
+
+		assertThat(this.tcpClient.getSentMessages().size()).isEqualTo(5);
+		String subscribeReceipt = this.tcpClient.getSentHeaders(2).getReceipt();
+		String sendReceipt = this.tcpClient.getSentHeaders(4).getReceipt();
+		assertThat(subscribeReceipt).isNotNull();
+		assertThat(this.tcpClient.getSentHeaders(3).getReceipt()).isNull();
+		assertThat(sendReceipt).isNotNull().endsWith(":r1");
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.RECEIPT);
+		accessor.setReceiptId(subscribeReceipt);
+		accessor.setLeaveMutable(true);
+		this.tcpClient.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+		assertThat(this.outboundChannel.getMessages()).hasSize(2);
+
+		accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+		accessor.setReceiptId(sendReceipt);
+		accessor.setMessage("Access refused");
+		accessor.setLeaveMutable(true);
+		this.tcpClient.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(3);
+		StompHeaderAccessor headers = getOutboundHeaders(2);
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.ERROR);
+		assertThat(headers.getSessionId()).isEqualTo("sess1");
+		assertThat(headers.getReceiptId()).isEqualTo("r1");
+		assertThat(headers.getMessage()).isEqualTo("Access refused");
+		assertThat(this.brokerRelay.getConnectionCount()).isEqualTo(2);
+
+		accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		accessor.setSubscriptionId(this.tcpClient.getSentHeaders(2).getSubscriptionId());
+		accessor.setDestination("/topic/foo");
+		accessor.setLeaveMutable(true);
+		this.tcpClient.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+		assertThat(this.outboundChannel.getMessages()).hasSize(4);
+		assertThat(getOutboundHeaders(3).getCommand()).isEqualTo(StompCommand.MESSAGE);
+		assertThat(getOutboundHeaders(3).getSessionId()).isEqualTo("sess2");
+	}
+
+	private StompHeaderAccessor getOutboundHeaders(int index) {
+		Message<byte[]> message = this.outboundChannel.getMessages().get(index);
+		return StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+	}
+
+	private Message<byte[]> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		headers.setSessionId(sessionId);
+		headers.setSubscriptionId(subscriptionId);
+		headers.setDestination(destination);
+		return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+	}
+
 	private Message<byte[]> connectMessage(String sessionId, String user) {
 		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
 		headers.setSessionId(sessionId);
@@ -16,6 +16,9 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
@@ -83,4 +86,20 @@ public class StompEncoderTests {
 		assertThat(new String(encoder.encode(frame))).isEqualTo("SEND\ncontent-length:12\n\nMessage body\0");
 	}
 
+	@Test
+	public void addHeadersToEncodedFrame() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.addNativeHeader("a", "alpha");
+		Message<byte[]> frame = MessageBuilder.createMessage(
+				"Message body".getBytes(), headers.getMessageHeaders());
+		byte[] encoded = encoder.encode(frame);
+
+		Map<String, String> added = new LinkedHashMap<>();
+		added.put("subscription", "sub:1");
+		added.put("message-id", "m1");
+
+		assertThat(new String(encoder.addHeaders(encoded, added))).isEqualTo(
+				"MESSAGE\nsubscription:sub\\c1\nmessage-id:m1\na:alpha\ncontent-length:12\n\nMessage body\0");
+	}
+
 }
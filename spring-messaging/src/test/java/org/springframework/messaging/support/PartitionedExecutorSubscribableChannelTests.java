@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link PartitionedExecutorSubscribableChannel}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class PartitionedExecutorSubscribableChannelTests {
+
+	private final Executor executor = mock(Executor.class);
+
+	private final PartitionedExecutorSubscribableChannel channel =
+			new PartitionedExecutorSubscribableChannel(this.executor, message -> message.getHeaders().get("key"), 4);
+
+	private final MessageHandler handler = mock(MessageHandler.class);
+
+
+	@Test
+	public void messagesOfPartitionHandledByOneTask() {
+		this.channel.subscribe(this.handler);
+		Message<String> first = createMessage("foo", "a");
+		Message<String> second = createMessage("foo", "b");
+		this.channel.send(first);
+		this.channel.send(second);
+
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.executor).execute(captor.capture());
+		captor.getValue().run();
+
+		InOrder inOrder = inOrder(this.handler);
+		inOrder.verify(this.handler).handleMessage(first);
+		inOrder.verify(this.handler).handleMessage(second);
+	}
+
+	@Test
+	public void messageWithoutPartitionKey() {
+		this.channel.subscribe(this.handler);
+		this.channel.send(createMessage(null, "a"));
+		this.channel.send(createMessage(null, "b"));
+
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.executor, times(2)).execute(captor.capture());
+		assertThat(captor.getAllValues()).allMatch(task -> task instanceof MessageHandlingRunnable);
+		assertThat(this.channel.getExecutor()).isSameAs(this.executor);
+	}
+
+	@Test
+	public void failureDoesNotStopPartition() {
+		this.channel.subscribe(this.handler);
+		Message<String> first = createMessage("foo", "a");
+		Message<String> second = createMessage("foo", "b");
+		willThrow(new IllegalStateException()).given(this.handler).handleMessage(first);
+		this.channel.send(first);
+		this.channel.send(second);
+
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(this.executor).execute(captor.capture());
+		captor.getValue().run();
+
+		verify(this.handler).handleMessage(second);
+	}
+
+	@Test
+	public void messagesOfEachPartitionKeyInOrder() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			PartitionedExecutorSubscribableChannel channel = new PartitionedExecutorSubscribableChannel(
+					executorService, message -> message.getHeaders().get("key"));
+			int keyCount = 20;
+			int messageCount = 500;
+			Map<Object, List<Object>> received = new ConcurrentHashMap<>();
+			CountDownLatch latch = new CountDownLatch(keyCount * messageCount);
+			channel.subscribe(message -> {
+				received.computeIfAbsent(message.getHeaders().get("key"),
+						key -> Collections.synchronizedList(new ArrayList<>())).add(message.getPayload());
+				latch.countDown();
+			});
+
+			for (int i = 0; i < messageCount; i++) {
+				for (int key = 0; key < keyCount; key++) {
+					channel.send(MessageBuilder.withPayload(i).setHeader("key", key).build());
+				}
+			}
+
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+			List<Object> expected = new ArrayList<>();
+			for (int i = 0; i < messageCount; i++) {
+				expected.add(i);
+			}
+			assertThat(received).hasSize(keyCount);
+			received.values().forEach(payloads -> assertThat(payloads).isEqualTo(expected));
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+
+	private static Message<String> createMessage(Object key, String payload) {
+		return MessageBuilder.withPayload(payload).setHeader("key", key).build();
+	}
+
+}
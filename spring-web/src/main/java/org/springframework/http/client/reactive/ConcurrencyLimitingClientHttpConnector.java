@@ -0,0 +1,468 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientHttpConnector} decorator that limits the number of concurrent
+ * exchanges per host, independent of the underlying HTTP client library.
+ *
+ * <p>An exchange holds a permit from the time it is started until the body of
+ * the response has been consumed or cancelled, which corresponds to the time a
+ * pooled HTTP/1.1 connection is in use. Exchanges beyond the configured limit
+ * wait until a permit is released, with the number of waiting exchanges and the
+ * time they wait bounded by {@link #setMaxPendingAcquires} and
+ * {@link #setPendingAcquireTimeout} respectively. As with the connection pools
+ * of the underlying libraries, the response body must always be consumed. A
+ * response whose body is not subscribed to within the
+ * {@link #setBodySubscriptionTimeout body subscription timeout} has its permit
+ * released regardless, so that a dropped response cannot block a host forever.
+ *
+ * <p>Pool sizing, idle eviction, and HTTP/2 options of the underlying library
+ * remain configured on the library itself, e.g. through the
+ * {@code ConnectionProvider} of {@link ReactorResourceFactory} or the
+ * {@code HttpClient} passed to {@link JettyClientHttpConnector}. This class
+ * applies uniform per-host limits on top, and exposes their state through
+ * {@link #getHostMetrics()} for monitoring pool saturation.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+public class ConcurrencyLimitingClientHttpConnector implements ClientHttpConnector {
+
+	/**
+	 * The default value for the {@link #setPendingAcquireTimeout pending acquire timeout}.
+	 */
+	public static final Duration DEFAULT_PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(45);
+
+	/**
+	 * The default value for the {@link #setBodySubscriptionTimeout body subscription timeout}.
+	 */
+	public static final Duration DEFAULT_BODY_SUBSCRIPTION_TIMEOUT = Duration.ofSeconds(45);
+
+
+	private final ClientHttpConnector delegate;
+
+	private final int maxConnectionsPerHost;
+
+	private int maxPendingAcquires = -1;
+
+	private Duration pendingAcquireTimeout = DEFAULT_PENDING_ACQUIRE_TIMEOUT;
+
+	private Duration bodySubscriptionTimeout = DEFAULT_BODY_SUBSCRIPTION_TIMEOUT;
+
+	private final Map<String, HostPool> hostPools = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Create a new {@code ConcurrencyLimitingClientHttpConnector}.
+	 * @param delegate the connector to delegate to
+	 * @param maxConnectionsPerHost the maximum number of concurrent exchanges
+	 * per host
+	 */
+	public ConcurrencyLimitingClientHttpConnector(ClientHttpConnector delegate, int maxConnectionsPerHost) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.isTrue(maxConnectionsPerHost > 0, "'maxConnectionsPerHost' must be greater than 0");
+		this.delegate = delegate;
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+
+	/**
+	 * Return the maximum number of concurrent exchanges per host.
+	 */
+	public int getMaxConnectionsPerHost() {
+		return this.maxConnectionsPerHost;
+	}
+
+	/**
+	 * Configure the maximum number of exchanges per host that may wait for a
+	 * permit. Exchanges beyond this limit fail immediately with an
+	 * {@link IllegalStateException}.
+	 * <p>By default this is set to -1, i.e. unbounded.
+	 */
+	public void setMaxPendingAcquires(int maxPendingAcquires) {
+		this.maxPendingAcquires = maxPendingAcquires;
+	}
+
+	/**
+	 * Return the configured maximum number of pending exchanges per host.
+	 */
+	public int getMaxPendingAcquires() {
+		return this.maxPendingAcquires;
+	}
+
+	/**
+	 * Configure how long an exchange may wait for a permit before failing with
+	 * a {@link java.util.concurrent.TimeoutException}.
+	 * <p>By default this is set to {@link #DEFAULT_PENDING_ACQUIRE_TIMEOUT}.
+	 */
+	public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+		Assert.notNull(pendingAcquireTimeout, "'pendingAcquireTimeout' must not be null");
+		this.pendingAcquireTimeout = pendingAcquireTimeout;
+	}
+
+	/**
+	 * Return the configured pending acquire timeout.
+	 */
+	public Duration getPendingAcquireTimeout() {
+		return this.pendingAcquireTimeout;
+	}
+
+	/**
+	 * Configure how long a response may be left without a subscription to its
+	 * body before its permit is released. This guards against responses that
+	 * are dropped without consuming the body; the underlying connection is not
+	 * affected.
+	 * <p>By default this is set to {@link #DEFAULT_BODY_SUBSCRIPTION_TIMEOUT}.
+	 */
+	public void setBodySubscriptionTimeout(Duration bodySubscriptionTimeout) {
+		Assert.notNull(bodySubscriptionTimeout, "'bodySubscriptionTimeout' must not be null");
+		this.bodySubscriptionTimeout = bodySubscriptionTimeout;
+	}
+
+	/**
+	 * Return the configured body subscription timeout.
+	 */
+	public Duration getBodySubscriptionTimeout() {
+		return this.bodySubscriptionTimeout;
+	}
+
+	/**
+	 * Return the metrics for each host that exchanges have been made with,
+	 * keyed by {@code host:port}. The returned values are live views,
+	 * suitable for registration as gauges in a metrics library.
+	 */
+	public Map<String, HostMetrics> getHostMetrics() {
+		return Collections.unmodifiableMap(this.hostPools);
+	}
+
+
+	@Override
+	public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+			Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+
+		HostPool pool = this.hostPools.computeIfAbsent(getHostKey(uri), HostPool::new);
+		return pool.acquire().flatMap(permit -> this.delegate.connect(method, uri, requestCallback)
+				.map(response -> {
+					permit.handOver(getBodySubscriptionTimeout());
+					return (ClientHttpResponse) new PermitReleasingResponse(response, permit);
+				})
+				.doFinally(signalType -> {
+					if (!permit.isHandedOver()) {
+						permit.release();
+					}
+				}));
+	}
+
+	private static String getHostKey(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+		}
+		return uri.getHost() + ":" + port;
+	}
+
+
+	/**
+	 * Metrics for the exchanges made with a single host.
+	 */
+	public interface HostMetrics {
+
+		/**
+		 * Return the number of exchanges currently in progress.
+		 */
+		int getActiveCount();
+
+		/**
+		 * Return the number of exchanges currently waiting for a permit.
+		 */
+		int getPendingCount();
+
+		/**
+		 * Return the total number of permits acquired so far.
+		 */
+		long getAcquireCount();
+
+		/**
+		 * Return the total time spent waiting for permits so far.
+		 */
+		Duration getTotalAcquireTime();
+
+		/**
+		 * Return the longest time spent waiting for a single permit so far.
+		 */
+		Duration getMaxAcquireTime();
+	}
+
+
+	/**
+	 * Permits and waiting exchanges for a single host.
+	 */
+	private class HostPool implements HostMetrics {
+
+		private final String host;
+
+		private final AtomicInteger activeCount = new AtomicInteger();
+
+		private final Queue<PendingAcquire> pendingAcquires = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger pendingCount = new AtomicInteger();
+
+		private final LongAdder acquireCount = new LongAdder();
+
+		private final LongAdder totalAcquireNanos = new LongAdder();
+
+		private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+
+		HostPool(String host) {
+			this.host = host;
+		}
+
+
+		public Mono<Permit> acquire() {
+			Mono<Permit> result = Mono.create(sink -> {
+				long startTime = System.nanoTime();
+				if (tryIncrementActive()) {
+					recordAcquire(startTime);
+					sink.success(new Permit());
+					return;
+				}
+				int maxPending = getMaxPendingAcquires();
+				if (this.pendingCount.incrementAndGet() > maxPending && maxPending >= 0) {
+					this.pendingCount.decrementAndGet();
+					sink.error(new IllegalStateException("Maximum number of pending acquires (" +
+							maxPending + ") reached for " + this.host));
+					return;
+				}
+				PendingAcquire pending = new PendingAcquire(sink, startTime);
+				sink.onCancel(pending::cancel);
+				this.pendingAcquires.add(pending);
+				// A permit may have been released before the exchange was queued
+				drain();
+			});
+			return result.timeout(getPendingAcquireTimeout());
+		}
+
+		private boolean tryIncrementActive() {
+			while (true) {
+				int active = this.activeCount.get();
+				if (active >= getMaxConnectionsPerHost()) {
+					return false;
+				}
+				if (this.activeCount.compareAndSet(active, active + 1)) {
+					return true;
+				}
+			}
+		}
+
+		private void drain() {
+			while (!this.pendingAcquires.isEmpty() && tryIncrementActive()) {
+				PendingAcquire pending = this.pendingAcquires.poll();
+				if (pending == null) {
+					this.activeCount.decrementAndGet();
+					continue;
+				}
+				this.pendingCount.decrementAndGet();
+				if (!pending.grant()) {
+					this.activeCount.decrementAndGet();
+				}
+			}
+		}
+
+		void releasePermit() {
+			this.activeCount.decrementAndGet();
+			drain();
+		}
+
+		void recordAcquire(long startTime) {
+			long nanos = System.nanoTime() - startTime;
+			this.acquireCount.increment();
+			this.totalAcquireNanos.add(nanos);
+			this.maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		@Override
+		public int getActiveCount() {
+			return this.activeCount.get();
+		}
+
+		@Override
+		public int getPendingCount() {
+			return this.pendingCount.get();
+		}
+
+		@Override
+		public long getAcquireCount() {
+			return this.acquireCount.sum();
+		}
+
+		@Override
+		public Duration getTotalAcquireTime() {
+			return Duration.ofNanos(this.totalAcquireNanos.sum());
+		}
+
+		@Override
+		public Duration getMaxAcquireTime() {
+			return Duration.ofNanos(this.maxAcquireNanos.get());
+		}
+
+		@Override
+		public String toString() {
+			return this.host + " [active=" + getActiveCount() + ", pending=" + getPendingCount() + "]";
+		}
+
+
+		/**
+		 * An exchange waiting for a permit.
+		 */
+		private class PendingAcquire {
+
+			private static final int WAITING = 0;
+
+			private static final int GRANTED = 1;
+
+			private static final int CANCELLED = 2;
+
+			private final MonoSink<Permit> sink;
+
+			private final long startTime;
+
+			private final AtomicInteger state = new AtomicInteger(WAITING);
+
+			@Nullable
+			private volatile Permit permit;
+
+			PendingAcquire(MonoSink<Permit> sink, long startTime) {
+				this.sink = sink;
+				this.startTime = startTime;
+			}
+
+			boolean grant() {
+				Permit permit = new Permit();
+				this.permit = permit;
+				if (!this.state.compareAndSet(WAITING, GRANTED)) {
+					return false;
+				}
+				recordAcquire(this.startTime);
+				this.sink.success(permit);
+				return true;
+			}
+
+			void cancel() {
+				if (this.state.compareAndSet(WAITING, CANCELLED)) {
+					if (pendingAcquires.remove(this)) {
+						pendingCount.decrementAndGet();
+					}
+				}
+				else if (this.state.get() == GRANTED) {
+					// Granted, but the cancellation won the race with success(): the permit is dropped
+					Permit permit = this.permit;
+					if (permit != null) {
+						permit.release();
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * A permit held by a single exchange, released once.
+		 */
+		private class Permit {
+
+			private final AtomicBoolean released = new AtomicBoolean();
+
+			private volatile boolean handedOver;
+
+			@Nullable
+			private volatile Disposable bodySubscriptionTimeout;
+
+			void handOver(Duration timeout) {
+				this.handedOver = true;
+				this.bodySubscriptionTimeout =
+						Schedulers.parallel().schedule(this::release, timeout.toMillis(), TimeUnit.MILLISECONDS);
+			}
+
+			boolean isHandedOver() {
+				return this.handedOver;
+			}
+
+			void bodySubscribed() {
+				Disposable timeout = this.bodySubscriptionTimeout;
+				if (timeout != null) {
+					timeout.dispose();
+				}
+			}
+
+			void release() {
+				if (this.released.compareAndSet(false, true)) {
+					bodySubscribed();
+					releasePermit();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Response that releases its permit once the body has been consumed or
+	 * cancelled, or if the body is not subscribed to in time.
+	 */
+	private static class PermitReleasingResponse extends ClientHttpResponseDecorator {
+
+		private final HostPool.Permit permit;
+
+		PermitReleasingResponse(ClientHttpResponse delegate, HostPool.Permit permit) {
+			super(delegate);
+			this.permit = permit;
+		}
+
+		@Override
+		public Flux<DataBuffer> getBody() {
+			return getDelegate().getBody()
+					.doOnSubscribe(subscription -> this.permit.bodySubscribed())
+					.doFinally(signalType -> this.permit.release());
+		}
+	}
+
+}
@@ -118,8 +118,9 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		JsonEncoding encoding = getJsonEncoding(mimeType);
 
 		if (inputStream instanceof Mono) {
+			ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
 			return Mono.from(inputStream).map(value ->
-					encodeValue(value, bufferFactory, elementType, mimeType, hints, encoding)).flux();
+					encodeValue(value, bufferFactory, writer, hints, encoding)).flux();
 		}
 		else {
 			return this.streamingMediaTypes.stream()
@@ -127,9 +128,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 					.findFirst()
 					.map(mediaType -> {
 						byte[] separator = STREAM_SEPARATORS.getOrDefault(mediaType, NEWLINE_SEPARATOR);
+						// Resolve the writer once, rather than for each element
+						ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
 						return Flux.from(inputStream).map(value -> {
-							DataBuffer buffer = encodeValue(
-									value, bufferFactory, elementType, mimeType, hints, encoding);
+							DataBuffer buffer = encodeValue(value, bufferFactory, writer, hints, encoding);
 							if (separator != null) {
 								buffer.write(separator);
 							}
@@ -138,8 +140,9 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 					})
 					.orElseGet(() -> {
 						ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+						ObjectWriter writer = createObjectWriter(listType, mimeType, hints);
 						return Flux.from(inputStream).collectList().map(list ->
-								encodeValue(list, bufferFactory, listType, mimeType, hints, encoding)).flux();
+								encodeValue(list, bufferFactory, writer, hints, encoding)).flux();
 					});
 		}
 	}
@@ -148,18 +151,12 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
 			ResolvableType valueType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		return encodeValue(value, bufferFactory, valueType, mimeType, hints, getJsonEncoding(mimeType));
+		ObjectWriter writer = createObjectWriter(valueType, mimeType, hints);
+		return encodeValue(value, bufferFactory, writer, hints, getJsonEncoding(mimeType));
 	}
 
-	private DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
-			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints, JsonEncoding encoding) {
-
-		if (!Hints.isLoggingSuppressed(hints)) {
-			LogFormatUtils.traceDebug(logger, traceOn -> {
-				String formatted = LogFormatUtils.formatValue(value, !traceOn);
-				return Hints.getLogPrefix(hints) + "Encoding [" + formatted + "]";
-			});
-		}
+	private ObjectWriter createObjectWriter(ResolvableType valueType, @Nullable MimeType mimeType,
+			@Nullable Map<String, Object> hints) {
 
 		JavaType javaType = getJavaType(valueType.getType(), null);
 		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
@@ -170,14 +167,28 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			writer = writer.forType(javaType);
 		}
 
-		writer = customizeWriter(writer, mimeType, valueType, hints);
+		return customizeWriter(writer, mimeType, valueType, hints);
+	}
+
+	private DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ObjectWriter writer,
+			@Nullable Map<String, Object> hints, JsonEncoding encoding) {
+
+		if (!Hints.isLoggingSuppressed(hints)) {
+			LogFormatUtils.traceDebug(logger, traceOn -> {
+				String formatted = LogFormatUtils.formatValue(value, !traceOn);
+				return Hints.getLogPrefix(hints) + "Encoding [" + formatted + "]";
+			});
+		}
 
+		// Serialize straight into a buffer from the given factory, which may be pooled
 		DataBuffer buffer = bufferFactory.allocateBuffer();
 		boolean release = true;
 		OutputStream outputStream = buffer.asOutputStream();
+		JsonGenerator generator = null;
 
 		try {
-			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
+			generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 			writer.writeValue(generator, value);
 			generator.flush();
 			release = false;
@@ -193,6 +204,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 					ex);
 		}
 		finally {
+			if (generator != null) {
+				// Return the generator's buffers to Jackson's per-thread recycler for reuse
+				closeGenerator(generator, release);
+			}
 			if (release) {
 				DataBufferUtils.release(buffer);
 			}
@@ -201,6 +216,19 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return buffer;
 	}
 
+	private static void closeGenerator(JsonGenerator generator, boolean failed) {
+		if (failed) {
+			// Do not auto-complete partially written content on close
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+		}
+		try {
+			generator.close();
+		}
+		catch (IOException ex) {
+			// ignore, the content has already been flushed
+		}
+	}
+
 	protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
 			ResolvableType elementType, @Nullable Map<String, Object> hints) {
 
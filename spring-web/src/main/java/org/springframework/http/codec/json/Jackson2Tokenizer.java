@@ -16,6 +16,7 @@
 
 package org.springframework.http.codec.json;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,12 +37,18 @@ import reactor.core.publisher.Flux;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link Function} to transform a JSON stream of arbitrary size, byte array
  * chunks into a {@code Flux<TokenBuffer>} where each token buffer is a
  * well-formed JSON object.
  *
+ * <p>Alternatively, {@link #tokenizeDirect} produces a {@code Flux<JsonParser>}
+ * where JSON objects and arrays are not copied token by token, but parsed
+ * directly from the input bytes once fully available.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -65,13 +72,28 @@ final class Jackson2Tokenizer {
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
+	// For direct decoding only...
+
+	@Nullable
+	private final ObjectMapper objectMapper;
+
+	private long inputOffset;
+
+	private long elementStart = -1;
+
+	private int elementArrayDepth;
+
+	@Nullable
+	private ByteArrayOutputStream elementBytes;
 
-	private Jackson2Tokenizer(
-			JsonParser parser, DeserializationContext deserializationContext, boolean tokenizeArrayElements) {
+
+	private Jackson2Tokenizer(JsonParser parser, DeserializationContext deserializationContext,
+			boolean tokenizeArrayElements, @Nullable ObjectMapper objectMapper) {
 
 		this.parser = parser;
 		this.deserializationContext = deserializationContext;
 		this.tokenizeArrayElements = tokenizeArrayElements;
+		this.objectMapper = objectMapper;
 		this.tokenBuffer = new TokenBuffer(parser, deserializationContext);
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 	}
@@ -175,6 +197,123 @@ final class Jackson2Tokenizer {
 	}
 
 
+	private List<JsonParser> tokenizeDirect(DataBuffer dataBuffer) {
+		byte[] bytes = new byte[dataBuffer.readableByteCount()];
+		dataBuffer.read(bytes);
+		DataBufferUtils.release(dataBuffer);
+
+		try {
+			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			List<JsonParser> result = parseElements(bytes);
+			retainElementBytes(bytes);
+			this.inputOffset += bytes.length;
+			return result;
+		}
+		catch (JsonProcessingException ex) {
+			throw new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex);
+		}
+		catch (IOException ex) {
+			throw Exceptions.propagate(ex);
+		}
+	}
+
+	private Flux<JsonParser> endOfInputDirect() {
+		return Flux.defer(() -> {
+			this.inputFeeder.endOfInput();
+			try {
+				return Flux.fromIterable(parseElements(new byte[0]));
+			}
+			catch (JsonProcessingException ex) {
+				throw new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex);
+			}
+			catch (IOException ex) {
+				throw Exceptions.propagate(ex);
+			}
+		});
+	}
+
+	/**
+	 * Parse the tokens available after feeding the given bytes, skipping over
+	 * the tokens of objects and arrays, and creating a parser over their bytes
+	 * once they are complete. Scalar values are copied into a token buffer.
+	 */
+	private List<JsonParser> parseElements(byte[] bytes) throws IOException {
+		List<JsonParser> result = new ArrayList<>();
+
+		while (true) {
+			JsonToken token = this.parser.nextToken();
+			if (token == JsonToken.NOT_AVAILABLE ||
+					(token == null && (token = this.parser.nextToken()) == null)) {
+				break;
+			}
+			if (this.elementStart != -1) {
+				updateDepth(token);
+				if (token.isStructEnd() && this.objectDepth == 0 && this.arrayDepth == this.elementArrayDepth) {
+					result.add(createElementParser(bytes));
+				}
+			}
+			else if (this.tokenizeArrayElements && isTopLevelArrayBoundary(token)) {
+				updateDepth(token);
+			}
+			else if (token.isStructStart()) {
+				// The current location is right after the start character
+				this.elementStart = this.parser.getCurrentLocation().getByteOffset() - 1;
+				this.elementArrayDepth = this.arrayDepth;
+				updateDepth(token);
+			}
+			else if (token.isScalarValue()) {
+				TokenBuffer tokenBuffer = new TokenBuffer(this.parser, this.deserializationContext);
+				tokenBuffer.copyCurrentEvent(this.parser);
+				result.add(tokenBuffer.asParser(this.objectMapper));
+			}
+			else {
+				updateDepth(token);
+			}
+		}
+		return result;
+	}
+
+	private boolean isTopLevelArrayBoundary(JsonToken token) {
+		return this.objectDepth == 0 && ((token == JsonToken.START_ARRAY && this.arrayDepth == 0) ||
+				(token == JsonToken.END_ARRAY && this.arrayDepth == 1));
+	}
+
+	private JsonParser createElementParser(byte[] bytes) throws IOException {
+		Assert.state(this.objectMapper != null, "No ObjectMapper");
+		long elementEnd = this.parser.getCurrentLocation().getByteOffset();
+		JsonParser elementParser;
+		if (this.elementBytes == null) {
+			elementParser = this.objectMapper.getFactory().createParser(bytes,
+					(int) (this.elementStart - this.inputOffset), (int) (elementEnd - this.elementStart));
+		}
+		else {
+			this.elementBytes.write(bytes, 0, (int) (elementEnd - this.inputOffset));
+			elementParser = this.objectMapper.getFactory().createParser(this.elementBytes.toByteArray());
+			this.elementBytes = null;
+		}
+		this.elementStart = -1;
+		return elementParser;
+	}
+
+	/**
+	 * Keep the bytes of an incomplete element, since the input buffer they
+	 * are in is not retained once the next buffer is fed.
+	 */
+	private void retainElementBytes(byte[] bytes) {
+		if (this.elementStart == -1) {
+			return;
+		}
+		if (this.elementBytes == null) {
+			int offset = (int) (this.elementStart - this.inputOffset);
+			this.elementBytes = new ByteArrayOutputStream(Math.max(bytes.length - offset, 256));
+			this.elementBytes.write(bytes, offset, bytes.length - offset);
+		}
+		else {
+			this.elementBytes.write(bytes, 0, bytes.length);
+		}
+	}
+
+
 	/**
 	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<TokenBuffer>}.
 	 * @param dataBuffers the source data buffers
@@ -188,13 +327,7 @@ final class Jackson2Tokenizer {
 			ObjectMapper objectMapper, boolean tokenizeArrayElements) {
 
 		try {
-			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
-			DeserializationContext context = objectMapper.getDeserializationContext();
-			if (context instanceof DefaultDeserializationContext) {
-				context = ((DefaultDeserializationContext) context).createInstance(
-						objectMapper.getDeserializationConfig(), parser, objectMapper.getInjectableValues());
-			}
-			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, context, tokenizeArrayElements);
+			Jackson2Tokenizer tokenizer = create(jsonFactory, objectMapper, tokenizeArrayElements, false);
 			return dataBuffers.concatMapIterable(tokenizer::tokenize).concatWith(tokenizer.endOfInput());
 		}
 		catch (IOException ex) {
@@ -202,4 +335,44 @@ final class Jackson2Tokenizer {
 		}
 	}
 
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<JsonParser>},
+	 * with one parser for each well-formed JSON value. Objects and arrays are
+	 * not buffered as tokens, but parsed again from the input bytes by the
+	 * returned parsers, which saves copying each token for high-volume streams.
+	 * <p>Only applicable to JSON, since other formats, such as Smile, may refer
+	 * back to earlier parts of the input.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param objectMapper the current mapper instance, the factory of which is
+	 * used to create the element parsers
+	 * @param tokenizeArrayElements if {@code true} and the "top level" JSON object is
+	 * an array, each element is returned individually immediately after it is received
+	 * @return the resulting parsers
+	 * @since 5.2
+	 */
+	public static Flux<JsonParser> tokenizeDirect(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			ObjectMapper objectMapper, boolean tokenizeArrayElements) {
+
+		try {
+			Jackson2Tokenizer tokenizer = create(jsonFactory, objectMapper, tokenizeArrayElements, true);
+			return dataBuffers.concatMapIterable(tokenizer::tokenizeDirect).concatWith(tokenizer.endOfInputDirect());
+		}
+		catch (IOException ex) {
+			return Flux.error(ex);
+		}
+	}
+
+	private static Jackson2Tokenizer create(JsonFactory jsonFactory, ObjectMapper objectMapper,
+			boolean tokenizeArrayElements, boolean direct) throws IOException {
+
+		JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
+		DeserializationContext context = objectMapper.getDeserializationContext();
+		if (context instanceof DefaultDeserializationContext) {
+			context = ((DefaultDeserializationContext) context).createInstance(
+					objectMapper.getDeserializationConfig(), parser, objectMapper.getInjectableValues());
+		}
+		return new Jackson2Tokenizer(parser, context, tokenizeArrayElements, (direct ? objectMapper : null));
+	}
+
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}s, without dependencies on third-party
+ * multipart libraries.
+ *
+ * <p>Input buffers are parsed as they arrive, and the content of a part is
+ * passed on as slices of these buffers, rather than copies. Part content is
+ * kept in memory up to {@link #setMaxInMemorySize maxInMemorySize} bytes, and
+ * otherwise written to a temporary file in the
+ * {@link #setFileStorageDirectory file storage directory}. File operations are
+ * performed on a {@link #setBlockingOperationScheduler bounded scheduler}, and
+ * the input is not read further until pending writes have completed.
+ *
+ * <p>Form fields (i.e. parts without a filename and with a {@code text/plain}
+ * or no content type) are always kept in memory, and must not be larger than
+ * {@code maxInMemorySize}.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map. It is not registered by default, and must
+ * be configured explicitly through {@code ServerCodecConfigurer#customCodecs()}.
+ *
+ * <p><strong>Note:</strong> temporary files are not removed automatically.
+ * Applications must call {@link Part#delete()} once a part has been handled,
+ * or configure a {@link #setFileStorageDirectory file storage directory} that
+ * is cleaned up externally.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ * @see SynchronossPartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport
+		implements HttpMessageReader<Part>, DisposableBean {
+
+	private static final String FILE_STORAGE_DIRECTORY_PREFIX = "spring-multipart-";
+
+	private static final int DEFAULT_SCHEDULER_THREADS_PER_PROCESSOR = 10;
+
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = -1;
+
+	@Nullable
+	private volatile Path fileStorageDirectory;
+
+	@Nullable
+	private Scheduler blockingOperationScheduler;
+
+	@Nullable
+	private Scheduler defaultScheduler;
+
+
+	/**
+	 * Configure the maximum number of bytes of a part to keep in memory, after
+	 * which its content is written to a temporary file.
+	 * <p>By default this is set to 256K.
+	 * @param maxInMemorySize the in-memory limit in bytes
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		Assert.isTrue(maxInMemorySize >= 0, "'maxInMemorySize' must be >= 0");
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the configured in-memory limit.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum number of bytes for the headers of a part.
+	 * <p>By default this is set to 8K.
+	 * @param maxHeadersSize the headers size limit in bytes
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		Assert.isTrue(maxHeadersSize > 0, "'maxHeadersSize' must be > 0");
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Return the configured headers size limit.
+	 */
+	public int getMaxHeadersSize() {
+		return this.maxHeadersSize;
+	}
+
+	/**
+	 * Configure the maximum number of bytes of a part to store on disk.
+	 * <p>By default this is set to -1, meaning no limit.
+	 * @param maxDiskUsagePerPart the disk usage limit in bytes, or -1
+	 */
+	public void setMaxDiskUsagePerPart(long maxDiskUsagePerPart) {
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Return the configured disk usage limit per part.
+	 */
+	public long getMaxDiskUsagePerPart() {
+		return this.maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Set the directory to store temporary files of parts in.
+	 * <p>By default a new directory is created in the system temporary
+	 * directory, on first use.
+	 * @param fileStorageDirectory the directory for temporary files
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Set the scheduler to use for file operations, such as writing parts to
+	 * and reading them from disk.
+	 * <p>By default a scheduler is created on first use, with up to ten daemon
+	 * threads per available processor, an unbounded queue of pending tasks so
+	 * that file operations are delayed rather than rejected under load, and idle
+	 * threads released after 60 seconds. That scheduler is disposed in
+	 * {@link #destroy()}, whereas a scheduler set here is not.
+	 * @param blockingOperationScheduler the scheduler for file operations
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "Scheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	/**
+	 * Dispose the default {@link #setBlockingOperationScheduler scheduler},
+	 * if one was created.
+	 */
+	@Override
+	public void destroy() {
+		Scheduler scheduler;
+		synchronized (this) {
+			scheduler = this.defaultScheduler;
+			this.defaultScheduler = null;
+		}
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.toClass()) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			byte[] boundary = getBoundary(message);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						message.getHeaders().getContentType() + "\""));
+			}
+			Flux<MultipartParser.Token> tokens = MultipartParser.parse(
+					message.getBody(), boundary, this.maxHeadersSize, StandardCharsets.UTF_8);
+			return PartGenerator.createParts(tokens, this.maxInMemorySize, this.maxDiskUsagePerPart,
+					this::getFileStorageDirectory, getBlockingOperationScheduler());
+		})
+		.doOnNext(part -> {
+			if (!Hints.isLoggingSuppressed(hints)) {
+				LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+						(isEnableLoggingRequestDetails() ?
+								LogFormatUtils.formatValue(part, !traceOn) :
+								"parts '" + part.name() + "' (content masked)"));
+			}
+		});
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+
+	@Nullable
+	private static byte[] getBoundary(ReactiveHttpInputMessage message) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter("boundary");
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(StandardCharsets.ISO_8859_1);
+			}
+		}
+		return null;
+	}
+
+	private Path getFileStorageDirectory() throws IOException {
+		Path directory = this.fileStorageDirectory;
+		if (directory == null) {
+			synchronized (this) {
+				directory = this.fileStorageDirectory;
+				if (directory == null) {
+					directory = Files.createTempDirectory(FILE_STORAGE_DIRECTORY_PREFIX);
+					directory.toFile().deleteOnExit();
+					this.fileStorageDirectory = directory;
+				}
+			}
+		}
+		else if (!Files.exists(directory)) {
+			Files.createDirectories(directory);
+		}
+		return directory;
+	}
+
+	private Scheduler getBlockingOperationScheduler() {
+		if (this.blockingOperationScheduler != null) {
+			return this.blockingOperationScheduler;
+		}
+		synchronized (this) {
+			Scheduler scheduler = this.defaultScheduler;
+			if (scheduler == null) {
+				CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("multipart-");
+				threadCreator.setDaemon(true);
+				int threads = DEFAULT_SCHEDULER_THREADS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+				ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<>(), threadCreator::createThread);
+				executor.allowCoreThreadTimeOut(true);
+				scheduler = Schedulers.fromExecutorService(executor);
+				this.defaultScheduler = scheduler;
+			}
+			return scheduler;
+		}
+	}
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a buffer stream containing multipart data, and produces a
+ * stream of {@link Token tokens}: a {@link HeadersToken} at the start of each
+ * part, followed by {@link BodyToken BodyTokens} for the content of the part.
+ *
+ * <p>Body tokens are (retained) slices of the input buffers, so part content
+ * is not copied. Only when a boundary straddles two input buffers are the few
+ * bytes that turn out not to belong to the boundary re-created.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+final class MultipartParser {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+	private static final byte[] HEADERS_END = {CR, LF, CR, LF};
+
+
+	private final DelimiterMatcher delimiterMatcher;
+
+	private final DelimiterMatcher headersEndMatcher = new DelimiterMatcher(HEADERS_END);
+
+	private final int maxHeadersSize;
+
+	private final Charset headersCharset;
+
+	private State state = State.PREAMBLE;
+
+	private final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(256);
+
+	private boolean hyphenSeen;
+
+
+	private MultipartParser(byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		byte[] delimiter = new byte[boundary.length + 4];
+		delimiter[0] = CR;
+		delimiter[1] = LF;
+		delimiter[2] = HYPHEN;
+		delimiter[3] = HYPHEN;
+		System.arraycopy(boundary, 0, delimiter, 4, boundary.length);
+		this.delimiterMatcher = new DelimiterMatcher(delimiter);
+		// The first boundary may appear at the very start, without a preceding CRLF
+		this.delimiterMatcher.matches = 2;
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+	}
+
+
+	/**
+	 * Parse the given stream of data buffers into a stream of tokens.
+	 * @param buffers the input buffers
+	 * @param boundary the multipart boundary, as found in the Content-Type header
+	 * @param maxHeadersSize the maximum size in bytes of the headers of a part
+	 * @param headersCharset the charset to decode part headers with
+	 * @return the stream of tokens
+	 */
+	public static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary, int maxHeadersSize,
+			Charset headersCharset) {
+
+		return Flux.defer(() -> {
+			MultipartParser parser = new MultipartParser(boundary, maxHeadersSize, headersCharset);
+			return buffers.concatMapIterable(parser::parse)
+					.concatWith(Mono.defer(parser::complete));
+		});
+	}
+
+
+	private List<Token> parse(DataBuffer buffer) {
+		List<Token> tokens = new ArrayList<>(2);
+		try {
+			while (buffer.readableByteCount() > 0 && this.state != State.EPILOGUE) {
+				switch (this.state) {
+					case PREAMBLE:
+						parseBody(buffer, null);
+						break;
+					case DELIMITER:
+						parseDelimiterEnd(buffer);
+						break;
+					case HEADERS:
+						parseHeaders(buffer, tokens);
+						break;
+					case BODY:
+						parseBody(buffer, tokens);
+						break;
+					default:
+						throw new IllegalStateException("Unexpected state: " + this.state);
+				}
+			}
+			return tokens;
+		}
+		catch (Throwable ex) {
+			for (Token token : tokens) {
+				if (token instanceof BodyToken) {
+					DataBufferUtils.release(token.buffer());
+				}
+			}
+			throw ex;
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	/**
+	 * Scan for the boundary delimiter, adding the content that precedes it to
+	 * the given list of tokens, or discarding it in case of the preamble.
+	 * Bytes that might be the start of a delimiter are held back until it is
+	 * known whether the delimiter follows; since these bytes equal the start of
+	 * the delimiter, they are not kept but re-created when they turn out to be
+	 * content.
+	 */
+	private void parseBody(DataBuffer buffer, @Nullable List<Token> tokens) {
+		DelimiterMatcher matcher = this.delimiterMatcher;
+		int start = buffer.readPosition();
+		int end = buffer.writePosition();
+		int heldBack = matcher.matches;
+		for (int i = start; i < end; i++) {
+			if (matcher.match(buffer.getByte(i))) {
+				int delimiterStart = i - matcher.delimiter.length + 1;
+				if (tokens != null) {
+					if (delimiterStart >= start) {
+						addHeldBack(buffer, heldBack, tokens);
+						addBody(buffer, start, delimiterStart - start, tokens);
+					}
+					else {
+						addHeldBack(buffer, heldBack - (start - delimiterStart), tokens);
+					}
+				}
+				buffer.readPosition(i + 1);
+				this.hyphenSeen = false;
+				this.state = State.DELIMITER;
+				return;
+			}
+		}
+		if (tokens != null) {
+			int count = heldBack + (end - start) - matcher.matches;
+			int heldBackCount = Math.min(heldBack, count);
+			addHeldBack(buffer, heldBackCount, tokens);
+			addBody(buffer, start, count - heldBackCount, tokens);
+		}
+		buffer.readPosition(end);
+	}
+
+	private void addHeldBack(DataBuffer buffer, int count, List<Token> tokens) {
+		if (count > 0) {
+			DataBuffer heldBack = buffer.factory().allocateBuffer(count);
+			heldBack.write(this.delimiterMatcher.delimiter, 0, count);
+			tokens.add(new BodyToken(heldBack));
+		}
+	}
+
+	private void addBody(DataBuffer buffer, int index, int length, List<Token> tokens) {
+		if (length > 0) {
+			tokens.add(new BodyToken(buffer.retainedSlice(index, length)));
+		}
+	}
+
+	/**
+	 * Parse what follows a boundary: either "--" for the close delimiter, or
+	 * optional whitespace followed by the CRLF that starts the part headers.
+	 */
+	private void parseDelimiterEnd(DataBuffer buffer) {
+		while (buffer.readableByteCount() > 0) {
+			byte b = buffer.read();
+			if (this.hyphenSeen) {
+				if (b != HYPHEN) {
+					throw new DecodingException("Invalid multipart boundary: unexpected character after '-'");
+				}
+				this.state = State.EPILOGUE;
+				buffer.readPosition(buffer.writePosition());
+				return;
+			}
+			else if (b == HYPHEN) {
+				this.hyphenSeen = true;
+			}
+			else if (b == CR) {
+				// Headers end with CRLFCRLF, and the CRLF after the boundary counts
+				this.headerBytes.reset();
+				this.headerBytes.write(CR);
+				this.headersEndMatcher.matches = 1;
+				this.state = State.HEADERS;
+				return;
+			}
+			else if (b != ' ' && b != '\t') {
+				throw new DecodingException("Invalid multipart boundary: unexpected character");
+			}
+		}
+	}
+
+	private void parseHeaders(DataBuffer buffer, List<Token> tokens) {
+		int start = buffer.readPosition();
+		int end = buffer.writePosition();
+		for (int i = start; i < end; i++) {
+			byte b = buffer.getByte(i);
+			this.headerBytes.write(b);
+			if (this.headersEndMatcher.match(b)) {
+				buffer.readPosition(i + 1);
+				tokens.add(new HeadersToken(decodeHeaders()));
+				this.delimiterMatcher.matches = 0;
+				this.state = State.BODY;
+				return;
+			}
+			if (this.headerBytes.size() > this.maxHeadersSize) {
+				throw new DecodingException(
+						"Part headers exceeded the memory usage limit of " + this.maxHeadersSize + " bytes");
+			}
+		}
+		buffer.readPosition(end);
+	}
+
+	private HttpHeaders decodeHeaders() {
+		String string = new String(this.headerBytes.toByteArray(), this.headersCharset);
+		this.headerBytes.reset();
+		HttpHeaders headers = new HttpHeaders();
+		String lastName = null;
+		for (String line : string.split("\r\n")) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			if (lastName != null && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+				// Obsolete line folding: continuation of the previous value
+				List<String> values = headers.get(lastName);
+				if (values != null && !values.isEmpty()) {
+					int index = values.size() - 1;
+					values.set(index, values.get(index) + ' ' + line.trim());
+				}
+				continue;
+			}
+			int colon = line.indexOf(':');
+			if (colon <= 0) {
+				throw new DecodingException("Invalid multipart header: " + line);
+			}
+			lastName = line.substring(0, colon).trim();
+			headers.add(lastName, line.substring(colon + 1).trim());
+		}
+		return headers;
+	}
+
+	private Mono<Token> complete() {
+		if (this.state != State.EPILOGUE) {
+			return Mono.error(new DecodingException("Could not find end of multipart body"));
+		}
+		return Mono.empty();
+	}
+
+
+	private enum State {
+
+		PREAMBLE, DELIMITER, HEADERS, BODY, EPILOGUE
+	}
+
+
+	/**
+	 * Knuth-Morris-Pratt matcher for a delimiter, fed one byte at a time, and
+	 * exposing the length of the current partial match.
+	 */
+	private static final class DelimiterMatcher {
+
+		private final byte[] delimiter;
+
+		private final int[] table;
+
+		private int matches;
+
+		DelimiterMatcher(byte[] delimiter) {
+			this.delimiter = delimiter;
+			this.table = new int[delimiter.length];
+			for (int i = 1; i < delimiter.length; i++) {
+				int j = this.table[i - 1];
+				while (j > 0 && delimiter[i] != delimiter[j]) {
+					j = this.table[j - 1];
+				}
+				if (delimiter[i] == delimiter[j]) {
+					j++;
+				}
+				this.table[i] = j;
+			}
+		}
+
+		boolean match(byte b) {
+			while (this.matches > 0 && b != this.delimiter[this.matches]) {
+				this.matches = this.table[this.matches - 1];
+			}
+			if (b == this.delimiter[this.matches]) {
+				this.matches++;
+				if (this.matches == this.delimiter.length) {
+					this.matches = 0;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Represents a token produced by {@link #parse}.
+	 */
+	abstract static class Token {
+
+		public abstract HttpHeaders headers();
+
+		public abstract DataBuffer buffer();
+	}
+
+
+	/**
+	 * Token that contains the headers of a part.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			throw new IllegalStateException("No buffer in headers token");
+		}
+	}
+
+
+	/**
+	 * Token that contains a buffer of part content.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			throw new IllegalStateException("No headers in body token");
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.multipart;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
@@ -57,4 +58,15 @@ public interface Part {
 	 */
 	Flux<DataBuffer> content();
 
+	/**
+	 * Delete any temporary storage held for the content of this part, e.g.
+	 * a file that content was buffered to while parsing.
+	 * <p>The default implementation returns an empty {@code Mono}.
+	 * @return completion {@code Mono} signalling when the storage was deleted
+	 * @since 5.2
+	 */
+	default Mono<Void> delete() {
+		return Mono.empty();
+	}
+
 }
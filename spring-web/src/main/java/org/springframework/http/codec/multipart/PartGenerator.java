@@ -0,0 +1,506 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+/**
+ * Turns a stream of {@link MultipartParser.Token tokens} into a stream of
+ * {@link Part parts}. Content is kept in memory up to a threshold, beyond
+ * which it is written to a temporary file, with blocking file operations
+ * performed on a given {@link Scheduler}. Each token is processed only after
+ * the previous one has been handled, so that writing to disk applies
+ * back-pressure to the input.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+final class PartGenerator {
+
+	private static final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private static final int FILE_READ_BUFFER_SIZE = 8192;
+
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final Callable<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+	@Nullable
+	private HttpHeaders headers;
+
+	private final List<DataBuffer> content = new ArrayList<>();
+
+	private long byteCount;
+
+	@Nullable
+	private Path file;
+
+	@Nullable
+	private FileChannel channel;
+
+
+	private PartGenerator(int maxInMemorySize, long maxDiskUsagePerPart,
+			Callable<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	/**
+	 * Create parts from the given stream of tokens.
+	 * @param tokens the tokens produced by {@link MultipartParser}
+	 * @param maxInMemorySize the maximum number of bytes of a part to keep in memory
+	 * @param maxDiskUsagePerPart the maximum number of bytes of a part to store
+	 * on disk, or -1 for no limit
+	 * @param fileStorageDirectory provides the directory for temporary files
+	 * @param blockingOperationScheduler the scheduler for file operations
+	 * @return the stream of parts
+	 */
+	public static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxInMemorySize,
+			long maxDiskUsagePerPart, Callable<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		return Flux.defer(() -> {
+			PartGenerator generator = new PartGenerator(
+					maxInMemorySize, maxDiskUsagePerPart, fileStorageDirectory, blockingOperationScheduler);
+			return tokens.concatMap(generator::handleToken)
+					.concatWith(Mono.defer(generator::completePart))
+					.doFinally(signalType -> {
+						if (signalType != SignalType.ON_COMPLETE) {
+							generator.discardPart();
+						}
+					});
+		}).doOnDiscard(MultipartParser.BodyToken.class, token -> DataBufferUtils.release(token.buffer()));
+	}
+
+
+	private Mono<Part> handleToken(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			Mono<Part> previous = completePart();
+			this.headers = token.headers();
+			return previous;
+		}
+		else {
+			return handleBody(token.buffer());
+		}
+	}
+
+	private Mono<Part> handleBody(DataBuffer buffer) {
+		HttpHeaders headers = this.headers;
+		if (headers == null) {
+			DataBufferUtils.release(buffer);
+			return Mono.empty();
+		}
+		this.byteCount += buffer.readableByteCount();
+		if (this.file == null) {
+			this.content.add(buffer);
+			if (this.byteCount <= this.maxInMemorySize) {
+				return Mono.empty();
+			}
+			if (isFormField(headers)) {
+				return Mono.error(new DecodingException("Form field value exceeded the memory usage limit of " +
+						this.maxInMemorySize + " bytes"));
+			}
+			if (exceedsDiskUsageLimit()) {
+				return diskUsageLimitError();
+			}
+			List<DataBuffer> buffers = new ArrayList<>(this.content);
+			this.content.clear();
+			return Mono.<Part>fromCallable(() -> {
+				FileChannel channel;
+				try {
+					Path file = Files.createTempFile(this.fileStorageDirectory.call(), "multipart", ".tmp");
+					this.file = file;
+					channel = FileChannel.open(file, StandardOpenOption.WRITE);
+					this.channel = channel;
+				}
+				catch (Throwable ex) {
+					buffers.forEach(DataBufferUtils::release);
+					throw ex;
+				}
+				write(channel, buffers);
+				return null;
+			}).subscribeOn(this.blockingOperationScheduler);
+		}
+		if (exceedsDiskUsageLimit()) {
+			DataBufferUtils.release(buffer);
+			return diskUsageLimitError();
+		}
+		FileChannel channel = this.channel;
+		return Mono.<Part>fromCallable(() -> {
+			write(channel, Collections.singletonList(buffer));
+			return null;
+		}).subscribeOn(this.blockingOperationScheduler);
+	}
+
+	private boolean exceedsDiskUsageLimit() {
+		return (this.maxDiskUsagePerPart >= 0 && this.byteCount > this.maxDiskUsagePerPart);
+	}
+
+	private Mono<Part> diskUsageLimitError() {
+		return Mono.error(new DecodingException("Part exceeded the disk usage limit of " +
+				this.maxDiskUsagePerPart + " bytes"));
+	}
+
+	private static void write(@Nullable FileChannel channel, List<DataBuffer> buffers) throws IOException {
+		try {
+			if (channel == null) {
+				throw new IllegalStateException("No file channel");
+			}
+			for (DataBuffer buffer : buffers) {
+				ByteBuffer byteBuffer = buffer.asByteBuffer();
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+		}
+		finally {
+			buffers.forEach(DataBufferUtils::release);
+		}
+	}
+
+	private Mono<Part> completePart() {
+		HttpHeaders headers = this.headers;
+		if (headers == null) {
+			return Mono.empty();
+		}
+		this.headers = null;
+		this.byteCount = 0;
+		Path file = this.file;
+		FileChannel channel = this.channel;
+		this.file = null;
+		this.channel = null;
+		if (file != null && channel != null) {
+			return Mono.fromCallable(() -> {
+				channel.close();
+				return createPart(headers, new FileContent(file, this.blockingOperationScheduler));
+			}).subscribeOn(this.blockingOperationScheduler);
+		}
+		List<DataBuffer> buffers = new ArrayList<>(this.content);
+		this.content.clear();
+		return Mono.fromCallable(() -> {
+			if (isFormField(headers)) {
+				return new DefaultFormFieldPart(headers, readValue(headers, buffers));
+			}
+			return createPart(headers, new MemoryContent(toUnpooled(buffers)));
+		});
+	}
+
+	private void discardPart() {
+		this.headers = null;
+		this.content.forEach(DataBufferUtils::release);
+		this.content.clear();
+		Path file = this.file;
+		FileChannel channel = this.channel;
+		this.file = null;
+		this.channel = null;
+		if (file != null) {
+			Runnable deleteTask = () -> deleteFile(file, channel);
+			try {
+				this.blockingOperationScheduler.schedule(deleteTask);
+			}
+			catch (RejectedExecutionException ex) {
+				// Do not leak the temporary file if the scheduler is saturated or disposed
+				deleteTask.run();
+			}
+		}
+	}
+
+	private static void deleteFile(Path file, @Nullable FileChannel channel) {
+		try {
+			if (channel != null) {
+				channel.close();
+			}
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+
+	private static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return (headers.getContentDisposition().getFilename() == null &&
+				(contentType == null || MediaType.TEXT_PLAIN.isCompatibleWith(contentType)));
+	}
+
+	private static Part createPart(HttpHeaders headers, Content content) {
+		String filename = headers.getContentDisposition().getFilename();
+		return (filename != null ? new DefaultFilePart(headers, filename, content) : new DefaultPart(headers, content));
+	}
+
+	private static String readValue(HttpHeaders headers, List<DataBuffer> buffers) {
+		int length = 0;
+		for (DataBuffer buffer : buffers) {
+			length += buffer.readableByteCount();
+		}
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		for (DataBuffer buffer : buffers) {
+			int count = buffer.readableByteCount();
+			buffer.read(bytes, offset, count);
+			offset += count;
+			DataBufferUtils.release(buffer);
+		}
+		MediaType contentType = headers.getContentType();
+		Charset charset = (contentType != null && contentType.getCharset() != null ?
+				contentType.getCharset() : StandardCharsets.UTF_8);
+		return new String(bytes, charset);
+	}
+
+	/**
+	 * Keep in-memory content as-is, unless it is backed by pooled buffers,
+	 * which parts should not hold on to for an unknown amount of time.
+	 */
+	private static List<DataBuffer> toUnpooled(List<DataBuffer> buffers) {
+		for (DataBuffer buffer : buffers) {
+			if (buffer instanceof PooledDataBuffer) {
+				List<DataBuffer> result = new ArrayList<>(buffers.size());
+				for (DataBuffer pooled : buffers) {
+					byte[] bytes = new byte[pooled.readableByteCount()];
+					pooled.read(bytes);
+					DataBufferUtils.release(pooled);
+					result.add(bufferFactory.wrap(bytes));
+				}
+				return result;
+			}
+		}
+		return buffers;
+	}
+
+
+	/**
+	 * Storage for the content of a part.
+	 */
+	private interface Content {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+
+		Mono<Void> delete();
+	}
+
+
+	private static final class MemoryContent implements Content {
+
+		private final List<DataBuffer> buffers;
+
+		MemoryContent(List<DataBuffer> buffers) {
+			this.buffers = buffers;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			// Slices with their own read position, so that content can be read more than once
+			return Flux.fromIterable(this.buffers)
+					.map(buffer -> buffer.slice(buffer.readPosition(), buffer.readableByteCount()));
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return DataBufferUtils.write(content(), dest);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.empty();
+		}
+	}
+
+
+	private static final class FileContent implements Content {
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		FileContent(Path file, Scheduler scheduler) {
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.read(this.file, bufferFactory, FILE_READ_BUFFER_SIZE);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.fromCallable(() -> Files.copy(this.file, dest, StandardCopyOption.REPLACE_EXISTING))
+					.subscribeOn(this.scheduler)
+					.then();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.fromCallable(() -> Files.deleteIfExists(this.file))
+					.subscribeOn(this.scheduler)
+					.then();
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		private final String name;
+
+		AbstractPart(HttpHeaders headers) {
+			ContentDisposition contentDisposition = headers.getContentDisposition();
+			String name = contentDisposition.getName();
+			this.headers = headers;
+			this.name = (name != null ? name : "");
+		}
+
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	private static class DefaultPart extends AbstractPart {
+
+		private final Content content;
+
+		DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		Content getContent() {
+			return this.content;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', headers=" + headers();
+		}
+	}
+
+
+	private static final class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		DefaultFilePart(HttpHeaders headers, String filename, Content content) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return getContent().transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+
+	private static final class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		DefaultFormFieldPart(HttpHeaders headers, String value) {
+			super(headers);
+			this.value = value;
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				MediaType contentType = headers().getContentType();
+				Charset charset = (contentType != null && contentType.getCharset() != null ?
+						contentType.getCharset() : StandardCharsets.UTF_8);
+				return Flux.just(bufferFactory.wrap(this.value.getBytes(charset)));
+			});
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "=" + this.value + "'";
+		}
+	}
+
+}
@@ -120,7 +120,7 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 
 		return Flux.from(inputStream)
 				.flatMapIterable(decoderFunction)
-				.doOnTerminate(decoderFunction::discard);
+				.doFinally(signalType -> decoderFunction.discard());
 	}
 
 	@Override
@@ -178,8 +178,9 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 
 		private final int maxMessageSize;
 
-		@Nullable
-		private DataBuffer output;
+		private final List<DataBuffer> chunks = new ArrayList<>();
+
+		private boolean messageSizeRead;
 
 		private int messageBytesToRead;
 
@@ -192,15 +193,17 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 		}
 
 
+		/**
+		 * Parse the messages in the given buffer. Messages that are contained
+		 * in the buffer are parsed directly from its bytes; slices of messages
+		 * that span multiple buffers are retained until the message is complete.
+		 */
 		@Override
 		public Iterable<? extends Message> apply(DataBuffer input) {
 			try {
 				List<Message> messages = new ArrayList<>();
-				int remainingBytesToRead;
-				int chunkBytesToRead;
-
 				do {
-					if (this.output == null) {
+					if (!this.messageSizeRead) {
 						if (!readMessageSize(input)) {
 							return messages;
 						}
@@ -210,28 +213,35 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 											"(" + this.messageBytesToRead + ") exceeds " +
 											"the configured limit (" + this.maxMessageSize + ")");
 						}
-						this.output = input.factory().allocateBuffer(this.messageBytesToRead);
+						this.messageSizeRead = true;
 					}
 
-					chunkBytesToRead = this.messageBytesToRead >= input.readableByteCount() ?
-							input.readableByteCount() : this.messageBytesToRead;
-					remainingBytesToRead = input.readableByteCount() - chunkBytesToRead;
-
-					byte[] bytesToWrite = new byte[chunkBytesToRead];
-					input.read(bytesToWrite, 0, chunkBytesToRead);
-					this.output.write(bytesToWrite);
+					int readPosition = input.readPosition();
+					int chunkBytesToRead = Math.min(this.messageBytesToRead, input.readableByteCount());
+					if (this.chunks.isEmpty() && chunkBytesToRead == this.messageBytesToRead) {
+						messages.add(parseMessage(input.asByteBuffer(readPosition, chunkBytesToRead)));
+					}
+					else if (chunkBytesToRead > 0) {
+						this.chunks.add(input.retainedSlice(readPosition, chunkBytesToRead));
+					}
+					input.readPosition(readPosition + chunkBytesToRead);
 					this.messageBytesToRead -= chunkBytesToRead;
 
 					if (this.messageBytesToRead == 0) {
-						CodedInputStream stream = CodedInputStream.newInstance(this.output.asByteBuffer());
-						DataBufferUtils.release(this.output);
-						this.output = null;
-						Message message = getMessageBuilder(this.elementType.toClass())
-								.mergeFrom(stream, extensionRegistry)
-								.build();
-						messages.add(message);
+						if (!this.chunks.isEmpty()) {
+							DataBuffer message = DataBufferUtils.compose(this.chunks);
+							this.chunks.clear();
+							try {
+								messages.add(parseMessage(message.asByteBuffer()));
+							}
+							finally {
+								DataBufferUtils.release(message);
+							}
+						}
+						this.messageSizeRead = false;
 					}
-				} while (remainingBytesToRead > 0);
+				}
+				while (input.readableByteCount() > 0);
 				return messages;
 			}
 			catch (DecodingException ex) {
@@ -248,6 +258,12 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 			}
 		}
 
+		private Message parseMessage(ByteBuffer byteBuffer) throws Exception {
+			return getMessageBuilder(this.elementType.toClass())
+					.mergeFrom(CodedInputStream.newInstance(byteBuffer), extensionRegistry)
+					.build();
+		}
+
 		/**
 		 * Parse message size as a varint from the input stream, updating {@code messageBytesToRead} and
 		 * {@code offset} fields if needed to allow processing of upcoming chunks.
@@ -300,9 +316,8 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 		}
 
 		public void discard() {
-			if (this.output != null) {
-				DataBufferUtils.release(this.output);
-			}
+			this.chunks.forEach(DataBufferUtils::release);
+			this.chunks.clear();
 		}
 	}
 
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -84,17 +85,23 @@ public class ProtobufEncoder extends ProtobufCodecSupport implements HttpMessage
 		return encodeValue(message, bufferFactory, false);
 	}
 
+	/**
+	 * Serialize the given message into a buffer of its exact size, through a
+	 * {@link CodedOutputStream} writing directly to the memory of the buffer.
+	 */
 	private DataBuffer encodeValue(Message message, DataBufferFactory bufferFactory, boolean delimited) {
-
-		DataBuffer buffer = bufferFactory.allocateBuffer();
+		int messageSize = message.getSerializedSize();
+		int size = (delimited ? CodedOutputStream.computeUInt32SizeNoTag(messageSize) + messageSize : messageSize);
+		DataBuffer buffer = bufferFactory.allocateBuffer(size);
 		boolean release = true;
 		try {
+			CodedOutputStream output = CodedOutputStream.newInstance(buffer.asByteBuffer(0, size));
 			if (delimited) {
-				message.writeDelimitedTo(buffer.asOutputStream());
-			}
-			else {
-				message.writeTo(buffer.asOutputStream());
+				output.writeUInt32NoTag(messageSize);
 			}
+			message.writeTo(output);
+			output.flush();
+			buffer.writePosition(size);
 			release = false;
 			return buffer;
 		}
@@ -21,8 +21,13 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourceRegion;
@@ -40,12 +45,18 @@ import org.springframework.util.StreamUtils;
  * Implementation of {@link HttpMessageConverter} that can write a single {@link ResourceRegion},
  * or Collections of {@link ResourceRegion ResourceRegions}.
  *
+ * <p>Regions of file-based resources are read with positional reads from a
+ * {@link FileChannel}, opened once per resource for multiple regions.
+ *
  * @author Brian Clozel
  * @author Juergen Hoeller
  * @since 4.3
  */
 public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
 
+	private static final int BUFFER_SIZE = 8192;
+
+
 	public ResourceRegionHttpMessageConverter() {
 		super(MediaType.ALL);
 	}
@@ -154,7 +165,14 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		responseHeaders.add("Content-Range", "bytes " + start + '-' + end + '/' + resourceLength);
 		responseHeaders.setContentLength(rangeLength);
 
-		InputStream in = region.getResource().getInputStream();
+		Resource resource = region.getResource();
+		if (resource.isFile()) {
+			try (FileChannel channel = openChannel(resource)) {
+				copyRange(channel, outputMessage.getBody(), start, end, ByteBuffer.allocate(BUFFER_SIZE));
+			}
+			return;
+		}
+		InputStream in = resource.getInputStream();
 		try {
 			StreamUtils.copyRange(in, outputMessage.getBody(), start, end);
 		}
@@ -179,11 +197,15 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		responseHeaders.set(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundaryString);
 		OutputStream out = outputMessage.getBody();
 
-		for (ResourceRegion region : resourceRegions) {
-			long start = region.getPosition();
-			long end = start + region.getCount() - 1;
-			InputStream in = region.getResource().getInputStream();
-			try {
+		// File-based resources: one channel per resource across all regions,
+		// read at the region's position rather than re-opened and skipped
+		Map<Resource, FileChannel> channels = new HashMap<>(2);
+		ByteBuffer buffer = null;
+		try {
+			for (ResourceRegion region : resourceRegions) {
+				long start = region.getPosition();
+				long end = start + region.getCount() - 1;
+				Resource resource = region.getResource();
 				// Writing MIME header.
 				println(out);
 				print(out, "--" + boundaryString);
@@ -192,17 +214,43 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 					print(out, "Content-Type: " + contentType.toString());
 					println(out);
 				}
-				Long resourceLength = region.getResource().contentLength();
+				Long resourceLength = resource.contentLength();
 				end = Math.min(end, resourceLength - 1);
 				print(out, "Content-Range: bytes " + start + '-' + end + '/' + resourceLength);
 				println(out);
 				println(out);
 				// Printing content
-				StreamUtils.copyRange(in, out, start, end);
+				if (resource.isFile()) {
+					FileChannel channel = channels.get(resource);
+					if (channel == null) {
+						channel = openChannel(resource);
+						channels.put(resource, channel);
+					}
+					if (buffer == null) {
+						buffer = ByteBuffer.allocate(BUFFER_SIZE);
+					}
+					copyRange(channel, out, start, end, buffer);
+				}
+				else {
+					InputStream in = resource.getInputStream();
+					try {
+						StreamUtils.copyRange(in, out, start, end);
+					}
+					finally {
+						try {
+							in.close();
+						}
+						catch (IOException ex) {
+							// ignore
+						}
+					}
+				}
 			}
-			finally {
+		}
+		finally {
+			for (FileChannel channel : channels.values()) {
 				try {
-					in.close();
+					channel.close();
 				}
 				catch (IOException ex) {
 					// ignore
@@ -214,6 +262,33 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		print(out, "--" + boundaryString + "--");
 	}
 
+	private static FileChannel openChannel(Resource resource) throws IOException {
+		return FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Copy the range from {@code start} to {@code end} (both inclusive) with
+	 * positional reads from the given channel, reusing the given buffer.
+	 */
+	private static void copyRange(FileChannel channel, OutputStream out, long start, long end,
+			ByteBuffer buffer) throws IOException {
+
+		long position = start;
+		while (position <= end) {
+			buffer.clear();
+			long remaining = end - position + 1;
+			if (remaining < buffer.capacity()) {
+				buffer.limit((int) remaining);
+			}
+			int read = channel.read(buffer, position);
+			if (read == -1) {
+				break;
+			}
+			out.write(buffer.array(), 0, read);
+			position += read;
+		}
+	}
+
 	private static void println(OutputStream os) throws IOException {
 		os.write('\r');
 		os.write('\n');
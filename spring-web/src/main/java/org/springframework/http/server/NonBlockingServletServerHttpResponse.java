@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * {@link ServletServerHttpResponse} that buffers the body written through
+ * {@link #getBody()} and then, on {@link #writeBody()}, hands it to the Servlet
+ * container via a Servlet 3.1 {@link WriteListener}, so that a slow client
+ * does not hold on to a container thread while the body is being sent.
+ *
+ * <p>{@link #writeBody()} puts the request in async mode through the
+ * {@link WebAsyncManager} of the request, so that its async timeout, error
+ * and completion handling apply, and therefore this class is only suitable
+ * where the caller owns request processing, e.g. when writing the result of
+ * an async dispatch in Spring MVC. Note that headers are written on the first
+ * call to {@link #getBody()}, as for the superclass.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ */
+public class NonBlockingServletServerHttpResponse extends ServletServerHttpResponse {
+
+	private static final Log logger = LogFactory.getLog(NonBlockingServletServerHttpResponse.class);
+
+	private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+
+	private final HttpServletRequest servletRequest;
+
+	private final FastByteArrayOutputStream body = new FastByteArrayOutputStream(DEFAULT_CHUNK_SIZE);
+
+	private boolean bodyUsed = false;
+
+	private boolean bodyWritten = false;
+
+
+	/**
+	 * Create an instance for the given request and response pair.
+	 * @param servletRequest the servlet request, used to start async processing
+	 * @param servletResponse the servlet response
+	 */
+	public NonBlockingServletServerHttpResponse(
+			HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+
+		super(servletResponse);
+		Assert.notNull(servletRequest, "HttpServletRequest must not be null");
+		this.servletRequest = servletRequest;
+	}
+
+
+	/**
+	 * Whether non-blocking writing can be used for the given request and
+	 * response, i.e. async processing is supported and the response is not
+	 * wrapped by a filter that would need to observe the body as it is written.
+	 * @param request the current request
+	 * @param response the current response
+	 */
+	public static boolean isSupported(HttpServletRequest request, HttpServletResponse response) {
+		return (request.isAsyncSupported() && !request.isAsyncStarted() &&
+				!(response instanceof ServletResponseWrapper));
+	}
+
+
+	/**
+	 * Return a buffer for the response body. The buffered content is sent to
+	 * the client only once {@link #writeBody()} is called.
+	 */
+	@Override
+	public OutputStream getBody() throws IOException {
+		this.bodyUsed = true;
+		super.flush();
+		return this.body;
+	}
+
+	/**
+	 * Start async processing and write the buffered body with non-blocking I/O,
+	 * completing the async request once all content has been written.
+	 * <p>Async processing is started through the {@link AsyncWebRequest} of the
+	 * request's {@link WebAsyncManager}, which is then reported as handling the
+	 * request concurrently, so that the dispatch ends like for other async
+	 * results, and the configured async timeout applies to the write.
+	 * <p>This method has no effect if the body was not used, or if it has
+	 * already been called.
+	 * @throws IOException if the response output stream cannot be obtained
+	 */
+	public void writeBody() throws IOException {
+		if (!this.bodyUsed || this.bodyWritten) {
+			return;
+		}
+		this.bodyWritten = true;
+		HttpServletResponse response = getServletResponse();
+		response.setContentLength(this.body.size());
+
+		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(this.servletRequest);
+		AsyncWebRequest asyncWebRequest = asyncManager.getAsyncWebRequest();
+		if (asyncWebRequest == null) {
+			asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(this.servletRequest, response);
+			asyncManager.setAsyncWebRequest(asyncWebRequest);
+		}
+		BodyWriteListener listener = new BodyWriteListener(
+				this.servletRequest, response.getOutputStream(), this.body.getInputStream());
+		asyncWebRequest.addTimeoutHandler(listener::onTimeout);
+		asyncWebRequest.addErrorHandler(listener::onError);
+		asyncWebRequest.addCompletionHandler(listener::onComplete);
+		asyncWebRequest.startAsync();
+		listener.outputStream.setWriteListener(listener);
+	}
+
+
+	/**
+	 * Writes buffered content for as long as the container reports the output
+	 * stream as ready, and completes the async request at the end or on error.
+	 */
+	private static class BodyWriteListener implements WriteListener {
+
+		private final HttpServletRequest request;
+
+		private final ServletOutputStream outputStream;
+
+		private final InputStream content;
+
+		private final byte[] buffer = new byte[DEFAULT_CHUNK_SIZE];
+
+		private volatile boolean completed;
+
+		BodyWriteListener(HttpServletRequest request, ServletOutputStream outputStream, InputStream content) {
+			this.request = request;
+			this.outputStream = outputStream;
+			this.content = content;
+		}
+
+		@Override
+		public void onWritePossible() throws IOException {
+			while (!this.completed && this.outputStream.isReady()) {
+				int read = this.content.read(this.buffer);
+				if (read == -1) {
+					complete();
+					return;
+				}
+				this.outputStream.write(this.buffer, 0, read);
+			}
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write response body: " + ex.getMessage());
+			}
+			complete();
+		}
+
+		public void onTimeout() {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Timeout while writing response body");
+			}
+			complete();
+		}
+
+		public void onComplete() {
+			this.completed = true;
+		}
+
+		private void complete() {
+			if (!this.completed) {
+				this.completed = true;
+				AsyncContext asyncContext = this.request.getAsyncContext();
+				asyncContext.complete();
+			}
+		}
+	}
+
+}
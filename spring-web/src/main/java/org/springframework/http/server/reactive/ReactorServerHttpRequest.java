@@ -62,13 +62,20 @@ class ReactorServerHttpRequest extends AbstractServerHttpRequest {
 
 	private static URI initUri(HttpServerRequest request) throws URISyntaxException {
 		Assert.notNull(request, "HttpServerRequest must not be null");
-		return new URI(resolveBaseUrl(request).toString() + resolveRequestUri(request));
+		// Build the full URI as a String, so that it is only parsed once
+		return new URI(resolveBaseUrl(request) + resolveRequestUri(request));
 	}
 
-	private static URI resolveBaseUrl(HttpServerRequest request) throws URISyntaxException {
+	private static String resolveBaseUrl(HttpServerRequest request) throws URISyntaxException {
 		String scheme = getScheme(request);
 		String header = request.requestHeaders().get(HttpHeaderNames.HOST);
 		if (header != null) {
+			for (int i = 0; i < header.length(); i++) {
+				char c = header.charAt(i);
+				if (c == '/' || c == '?' || c == '#' || c == '@') {
+					throw new URISyntaxException(header, "Illegal character in Host header", i);
+				}
+			}
 			final int portIndex;
 			if (header.startsWith("[")) {
 				portIndex = header.indexOf(':', header.indexOf(']'));
@@ -77,22 +84,24 @@ class ReactorServerHttpRequest extends AbstractServerHttpRequest {
 				portIndex = header.indexOf(':');
 			}
 			if (portIndex != -1) {
-				try {
-					return new URI(scheme, null, header.substring(0, portIndex),
-							Integer.parseInt(header.substring(portIndex + 1)), null, null, null);
-				}
-				catch (NumberFormatException ex) {
+				if (portIndex == header.length() - 1) {
 					throw new URISyntaxException(header, "Unable to parse port", portIndex);
 				}
+				for (int i = portIndex + 1; i < header.length(); i++) {
+					if (!Character.isDigit(header.charAt(i))) {
+						throw new URISyntaxException(header, "Unable to parse port", portIndex);
+					}
+				}
 			}
-			else {
-				return new URI(scheme, header, null, null);
-			}
+			return scheme + "://" + header;
 		}
 		else {
 			InetSocketAddress localAddress = request.hostAddress();
-			return new URI(scheme, null, localAddress.getHostString(),
-					localAddress.getPort(), null, null, null);
+			String host = localAddress.getHostString();
+			if (host.indexOf(':') != -1 && !host.startsWith("[")) {
+				host = "[" + host + "]";
+			}
+			return scheme + "://" + host + ":" + localAddress.getPort();
 		}
 	}
 
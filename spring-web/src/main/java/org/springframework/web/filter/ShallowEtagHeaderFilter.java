@@ -18,18 +18,24 @@ package org.springframework.web.filter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 import org.springframework.web.util.WebUtils;
 
@@ -43,6 +49,13 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>By default the entire response body is buffered in order to compute the
+ * ETag. A {@link #setContentCacheLimit content cache limit} may be set to bound
+ * the memory used per request: responses that outgrow the limit are streamed
+ * to the client as they are written, without an ETag. Requests that carry an
+ * {@code If-None-Match} header are always fully buffered, since they may be
+ * answered with a {@code 304 "Not Modified"}.
+ *
  * <p><b>NOTE:</b> As of Spring Framework 5.0, this filter uses request/response
  * decorators built on the Servlet 3.1 API.
  *
@@ -58,9 +71,18 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private static final String STREAMING_ATTRIBUTE = ShallowEtagHeaderFilter.class.getName() + ".STREAMING";
 
+	private static final String MD5_ALGORITHM_NAME = "MD5";
+
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
 
 	private boolean writeWeakETag = false;
 
+	private int contentCacheLimit = -1;
+
+	private String digestAlgorithm = MD5_ALGORITHM_NAME;
+
 
 	/**
 	 * Set whether the ETag value written to the response should be weak, as per RFC 7232.
@@ -81,6 +103,55 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return this.writeWeakETag;
 	}
 
+	/**
+	 * Set the maximum number of bytes of response content to buffer for
+	 * requests without an {@code If-None-Match} header. Once a response
+	 * exceeds the limit, buffered content is written out, the remaining
+	 * content is streamed to the client, and no ETag is generated.
+	 * <p>By default this is set to -1, in which case the entire response
+	 * content is always buffered.
+	 * @since 5.2
+	 */
+	public void setContentCacheLimit(int contentCacheLimit) {
+		this.contentCacheLimit = contentCacheLimit;
+	}
+
+	/**
+	 * Return the configured content cache limit.
+	 * @since 5.2
+	 */
+	public int getContentCacheLimit() {
+		return this.contentCacheLimit;
+	}
+
+	/**
+	 * Set the name of the {@link MessageDigest} algorithm to use for hashing
+	 * the response content, e.g. "SHA-1", or a faster, non-cryptographic hash
+	 * made available through a registered security provider.
+	 * <p>By default this is set to "MD5".
+	 * @since 5.2
+	 * @see #generateETagHeaderValue(InputStream, boolean)
+	 */
+	public void setDigestAlgorithm(String digestAlgorithm) {
+		Assert.hasText(digestAlgorithm, "'digestAlgorithm' must not be empty");
+		try {
+			MessageDigest.getInstance(digestAlgorithm);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalArgumentException("Could not find MessageDigest with algorithm \"" +
+					digestAlgorithm + "\"", ex);
+		}
+		this.digestAlgorithm = digestAlgorithm;
+	}
+
+	/**
+	 * Return the configured digest algorithm.
+	 * @since 5.2
+	 */
+	public String getDigestAlgorithm() {
+		return this.digestAlgorithm;
+	}
+
 
 	/**
 	 * The default value is {@code false} so that the filter may delay the generation
@@ -97,7 +168,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request) && !(response instanceof ContentCachingResponseWrapper)) {
-			responseToUse = new HttpStreamingAwareContentCachingResponseWrapper(response, request);
+			int limit = (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null ? this.contentCacheLimit : -1);
+			responseToUse = new HttpStreamingAwareContentCachingResponseWrapper(response, request, limit);
 		}
 
 		filterChain.doFilter(request, responseToUse);
@@ -111,10 +183,13 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		ContentCachingResponseWrapper responseWrapper =
 				WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
 		Assert.notNull(responseWrapper, "ContentCachingResponseWrapper not found");
+		if (responseWrapper instanceof HttpStreamingAwareContentCachingResponseWrapper) {
+			((HttpStreamingAwareContentCachingResponseWrapper) responseWrapper).flushWriter();
+		}
 		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
 		int statusCode = responseWrapper.getStatusCode();
 
-		if (rawResponse.isCommitted()) {
+		if (rawResponse.isCommitted() || isContentCacheLimitExceeded(responseWrapper)) {
 			responseWrapper.copyBodyToResponse();
 		}
 		else if (isEligibleForEtag(request, responseWrapper, statusCode, responseWrapper.getContentInputStream())) {
@@ -160,7 +235,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	/**
 	 * Generate the ETag header value from the given response body byte array.
-	 * <p>The default implementation generates an MD5 hash.
+	 * <p>The default implementation generates a hash with the configured
+	 * {@link #setDigestAlgorithm digest algorithm}, MD5 by default.
 	 * @param inputStream the response body as an InputStream
 	 * @param isWeak whether the generated ETag should be weak
 	 * @return the ETag header value
@@ -173,11 +249,35 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			builder.append("W/");
 		}
 		builder.append("\"0");
-		DigestUtils.appendMd5DigestAsHex(inputStream, builder);
+		if (MD5_ALGORITHM_NAME.equals(this.digestAlgorithm)) {
+			DigestUtils.appendMd5DigestAsHex(inputStream, builder);
+		}
+		else {
+			appendDigestAsHex(inputStream, builder);
+		}
 		builder.append('"');
 		return builder.toString();
 	}
 
+	private void appendDigestAsHex(InputStream inputStream, StringBuilder builder) throws IOException {
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance(this.digestAlgorithm);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"" +
+					this.digestAlgorithm + "\"", ex);
+		}
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			messageDigest.update(buffer, 0, bytesRead);
+		}
+		for (byte b : messageDigest.digest()) {
+			builder.append(HEX_CHARS[(b >>> 4) & 0xf]).append(HEX_CHARS[b & 0xf]);
+		}
+	}
+
 	private boolean compareETagHeaderValue(String requestETag, String responseETag) {
 		if (requestETag.startsWith("W/")) {
 			requestETag = requestETag.substring(2);
@@ -205,29 +305,161 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return (request.getAttribute(STREAMING_ATTRIBUTE) != null);
 	}
 
+	private static boolean isContentCacheLimitExceeded(ContentCachingResponseWrapper responseWrapper) {
+		return (responseWrapper instanceof HttpStreamingAwareContentCachingResponseWrapper &&
+				((HttpStreamingAwareContentCachingResponseWrapper) responseWrapper).contentCacheLimitExceeded);
+	}
+
 
 	private static class HttpStreamingAwareContentCachingResponseWrapper extends ContentCachingResponseWrapper {
 
 		private final HttpServletRequest request;
 
-		public HttpStreamingAwareContentCachingResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+		private final int contentCacheLimit;
+
+		private boolean contentCacheLimitExceeded;
+
+		@Nullable
+		private ServletOutputStream outputStream;
+
+		@Nullable
+		private PrintWriter writer;
+
+		public HttpStreamingAwareContentCachingResponseWrapper(
+				HttpServletResponse response, HttpServletRequest request, int contentCacheLimit) {
+
 			super(response);
 			this.request = request;
+			this.contentCacheLimit = contentCacheLimit;
 		}
 
 		@Override
 		public ServletOutputStream getOutputStream() throws IOException {
-			return (useRawResponse() ? getResponse().getOutputStream() : super.getOutputStream());
+			if (useRawResponse()) {
+				return getResponse().getOutputStream();
+			}
+			if (this.contentCacheLimit < 0) {
+				return super.getOutputStream();
+			}
+			if (this.outputStream == null) {
+				this.outputStream = new LimitedContentCachingOutputStream(super.getOutputStream());
+			}
+			return this.outputStream;
 		}
 
 		@Override
 		public PrintWriter getWriter() throws IOException {
-			return (useRawResponse() ? getResponse().getWriter() : super.getWriter());
+			if (useRawResponse()) {
+				return getResponse().getWriter();
+			}
+			if (this.contentCacheLimit < 0) {
+				return super.getWriter();
+			}
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				this.writer = new PrintWriter(new OutputStreamWriter(getOutputStream(),
+						characterEncoding != null ? characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING));
+			}
+			return this.writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			flushWriter();
+			super.flushBuffer();
+		}
+
+		/**
+		 * Flush characters still buffered in the writer into the output stream,
+		 * so that they are either cached or, once the limit is exceeded, passed on.
+		 */
+		void flushWriter() {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
 		}
 
 		private boolean useRawResponse() {
 			return isContentCachingDisabled(this.request);
 		}
+
+
+		/**
+		 * Caches content up to the content cache limit, then writes out the
+		 * cached content and passes any further content through.
+		 */
+		private class LimitedContentCachingOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream cachingStream;
+
+			LimitedContentCachingOutputStream(ServletOutputStream cachingStream) {
+				this.cachingStream = cachingStream;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				if (contentCacheLimitExceeded) {
+					getResponse().getOutputStream().write(b);
+				}
+				else {
+					this.cachingStream.write(b);
+					checkContentCacheLimit();
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (contentCacheLimitExceeded) {
+					getResponse().getOutputStream().write(b, off, len);
+				}
+				else {
+					this.cachingStream.write(b, off, len);
+					checkContentCacheLimit();
+				}
+			}
+
+			private void checkContentCacheLimit() throws IOException {
+				if (getContentSize() > contentCacheLimit) {
+					contentCacheLimitExceeded = true;
+					copyBodyToResponse(false);
+				}
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (contentCacheLimitExceeded) {
+					getResponse().getOutputStream().flush();
+				}
+			}
+
+			@Override
+			public boolean isReady() {
+				if (contentCacheLimitExceeded) {
+					try {
+						return getResponse().getOutputStream().isReady();
+					}
+					catch (IOException ex) {
+						throw new IllegalStateException("Could not access response OutputStream", ex);
+					}
+				}
+				return this.cachingStream.isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				if (contentCacheLimitExceeded) {
+					try {
+						getResponse().getOutputStream().setWriteListener(writeListener);
+					}
+					catch (IOException ex) {
+						throw new IllegalStateException("Could not access response OutputStream", ex);
+					}
+				}
+				else {
+					this.cachingStream.setWriteListener(writeListener);
+				}
+			}
+		}
 	}
 
 }
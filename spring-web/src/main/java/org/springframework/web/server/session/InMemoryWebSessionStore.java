@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,16 +20,17 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 import reactor.core.publisher.Mono;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.IdGenerator;
 import org.springframework.util.JdkIdGenerator;
@@ -38,6 +39,12 @@ import org.springframework.web.server.WebSession;
 /**
  * Simple Map-based storage for {@link WebSession} instances.
  *
+ * <p>Stored sessions are indexed by their expiration time, so that expired
+ * sessions can be removed without scanning all sessions. Once the
+ * {@linkplain #setMaxSessions maximum number of sessions} is reached, saving
+ * a new session is rejected, or, if {@linkplain #setEvictOnMaxSessions
+ * configured}, causes the session closest to expiration to be evicted.
+ *
  * @author Rossen Stoyanchev
  * @author Rob Winch
  * @since 5.0
@@ -55,11 +62,18 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 	private final ExpiredSessionChecker expiredSessionChecker = new ExpiredSessionChecker();
 
+	private boolean evictOnMaxSessions = false;
+
+	private final LongAdder expiredSessionCount = new LongAdder();
+
+	private final LongAdder evictedSessionCount = new LongAdder();
+
 
 	/**
 	 * Set the maximum number of sessions that can be stored. Once the limit is
 	 * reached, any attempt to store an additional session will result in an
-	 * {@link IllegalStateException}.
+	 * {@link IllegalStateException}, unless {@link #setEvictOnMaxSessions
+	 * eviction} is enabled.
 	 * <p>By default set to 10000.
 	 * @param maxSessions the maximum number of sessions
 	 * @since 5.0.8
@@ -76,6 +90,26 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		return this.maxSessions;
 	}
 
+	/**
+	 * Configure whether to evict the session closest to expiration, rather
+	 * than to reject a new session, once the maximum number of sessions is
+	 * reached. Sessions that never expire are not evicted.
+	 * <p>By default this is set to {@code false}.
+	 * @param evictOnMaxSessions whether to evict sessions when the limit is reached
+	 * @since 5.2
+	 */
+	public void setEvictOnMaxSessions(boolean evictOnMaxSessions) {
+		this.evictOnMaxSessions = evictOnMaxSessions;
+	}
+
+	/**
+	 * Return whether sessions are evicted when the limit is reached.
+	 * @since 5.2
+	 */
+	public boolean isEvictOnMaxSessions() {
+		return this.evictOnMaxSessions;
+	}
+
 	/**
 	 * Configure the {@link Clock} to use to set lastAccessTime on every created
 	 * session and to calculate if it is expired.
@@ -108,6 +142,24 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		return Collections.unmodifiableMap(this.sessions);
 	}
 
+	/**
+	 * Return the number of sessions that were removed because they expired.
+	 * @since 5.2
+	 */
+	public long getExpiredSessionCount() {
+		return this.expiredSessionCount.sum();
+	}
+
+	/**
+	 * Return the number of sessions that were evicted to make room for new
+	 * sessions.
+	 * @since 5.2
+	 * @see #setEvictOnMaxSessions
+	 */
+	public long getEvictedSessionCount() {
+		return this.evictedSessionCount.sum();
+	}
+
 
 	@Override
 	public Mono<WebSession> createWebSession() {
@@ -151,8 +203,9 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 	/**
 	 * Check for expired sessions and remove them. Typically such checks are
 	 * kicked off lazily during calls to {@link #createWebSession() create} or
-	 * {@link #retrieveSession retrieve}, no less than 60 seconds apart.
-	 * This method can be called to force a check at a specific time.
+	 * {@link #retrieveSession retrieve}, when the earliest scheduled
+	 * expiration has passed. This method can be called to force a check at a
+	 * specific time.
 	 * @since 5.0.8
 	 */
 	public void removeExpiredSessions() {
@@ -174,6 +227,10 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 		private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
 
+		/** The current entry in the expiration queue, guarded by the checker's lock. */
+		@Nullable
+		private Expiration expiration;
+
 
 		public InMemoryWebSession(Instant creationTime) {
 			this.creationTime = creationTime;
@@ -241,7 +298,9 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		@Override
 		public Mono<Void> save() {
 
-			checkMaxSessionsLimit();
+			if (!InMemoryWebSessionStore.this.sessions.containsKey(this.getId())) {
+				checkMaxSessionsLimit();
+			}
 
 			// Implicitly started session..
 			if (!getAttributes().isEmpty()) {
@@ -257,6 +316,8 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 					InMemoryWebSessionStore.this.sessions.remove(this.getId());
 					return Mono.error(new IllegalStateException("Session was invalidated"));
 				}
+
+				expiredSessionChecker.schedule(this);
 			}
 
 			return Mono.empty();
@@ -265,8 +326,10 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		private void checkMaxSessionsLimit() {
 			if (sessions.size() >= maxSessions) {
 				expiredSessionChecker.removeExpiredSessions(clock.instant());
-				if (sessions.size() >= maxSessions) {
-					throw new IllegalStateException("Max sessions limit reached: " + sessions.size());
+				while (sessions.size() >= maxSessions) {
+					if (!evictOnMaxSessions || !expiredSessionChecker.evictSession()) {
+						throw new IllegalStateException("Max sessions limit reached: " + sessions.size());
+					}
 				}
 			}
 		}
@@ -295,47 +358,173 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		private void updateLastAccessTime(Instant currentTime) {
 			this.lastAccessTime = currentTime;
 		}
+
+		/**
+		 * Return the time after which this session expires, or {@code null}
+		 * if it does not expire.
+		 */
+		@Nullable
+		private Instant getExpirationTime() {
+			Duration maxIdleTime = this.maxIdleTime;
+			return (!maxIdleTime.isNegative() ? this.lastAccessTime.plus(maxIdleTime) : null);
+		}
 	}
 
 
+	/**
+	 * Index of stored sessions by expiration time. Since the last access time
+	 * of a session is updated without touching the index, the scheduled
+	 * expiration of a session may be earlier than its actual expiration: such
+	 * sessions are rescheduled once their scheduled expiration has passed.
+	 * Entries for removed sessions are discarded in the same way.
+	 */
 	private class ExpiredSessionChecker {
 
-		/** Max time between expiration checks. */
-		private static final int CHECK_PERIOD = 60 * 1000;
-
+		private final PriorityQueue<Expiration> queue = new PriorityQueue<>();
 
 		private final ReentrantLock lock = new ReentrantLock();
 
-		private Instant checkTime = clock.instant().plus(CHECK_PERIOD, ChronoUnit.MILLIS);
+		private volatile Instant nextExpiration = Instant.MAX;
+
 
+		public void schedule(InMemoryWebSession session) {
+			Instant time = session.getExpirationTime();
+			if (time == null) {
+				return;
+			}
+			this.lock.lock();
+			try {
+				// An earlier entry is rescheduled when it passes, so only move the expiration forward
+				if (session.expiration == null || time.isBefore(session.expiration.time)) {
+					enqueue(session, time);
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
 
 		public void checkIfNecessary(Instant now) {
-			if (this.checkTime.isBefore(now)) {
+			if (this.nextExpiration.isBefore(now)) {
 				removeExpiredSessions(now);
 			}
 		}
 
 		public void removeExpiredSessions(Instant now) {
-			if (sessions.isEmpty()) {
-				return;
-			}
 			if (this.lock.tryLock()) {
 				try {
-					Iterator<InMemoryWebSession> iterator = sessions.values().iterator();
-					while (iterator.hasNext()) {
-						InMemoryWebSession session = iterator.next();
-						if (session.isExpired(now)) {
-							iterator.remove();
-							session.invalidate();
+					Expiration head = this.queue.peek();
+					while (head != null && head.time.isBefore(now)) {
+						this.queue.poll();
+						InMemoryWebSession session = pollSession(head);
+						if (session != null) {
+							if (session.isExpired(now)) {
+								sessions.remove(session.getId());
+								session.invalidate();
+								expiredSessionCount.increment();
+							}
+							else {
+								reschedule(session);
+							}
 						}
+						head = this.queue.peek();
 					}
 				}
 				finally {
-					this.checkTime = now.plus(CHECK_PERIOD, ChronoUnit.MILLIS);
+					updateNextExpiration();
 					this.lock.unlock();
 				}
 			}
 		}
+
+		/**
+		 * Evict the stored session that is closest to expiration.
+		 * @return {@code true} if a session was evicted, or {@code false} if
+		 * there were no sessions to evict
+		 */
+		public boolean evictSession() {
+			this.lock.lock();
+			try {
+				Expiration head;
+				while ((head = this.queue.poll()) != null) {
+					InMemoryWebSession session = pollSession(head);
+					if (session != null) {
+						Instant time = session.getExpirationTime();
+						if (time != null && time.equals(head.time)) {
+							sessions.remove(session.getId(), session);
+							session.invalidate();
+							evictedSessionCount.increment();
+							return true;
+						}
+						else if (time != null) {
+							// Accessed since scheduled: try again with its actual expiration
+							enqueue(session, time);
+						}
+					}
+				}
+				return false;
+			}
+			finally {
+				updateNextExpiration();
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * Return the stored session for the given polled entry, or
+		 * {@code null} if the entry is stale.
+		 */
+		@Nullable
+		private InMemoryWebSession pollSession(Expiration expiration) {
+			InMemoryWebSession session = expiration.session;
+			if (session.expiration != expiration) {
+				return null;
+			}
+			session.expiration = null;
+			return (sessions.get(session.getId()) == session ? session : null);
+		}
+
+		private void reschedule(InMemoryWebSession session) {
+			Instant time = session.getExpirationTime();
+			if (time != null) {
+				enqueue(session, time);
+			}
+		}
+
+		private void enqueue(InMemoryWebSession session, Instant time) {
+			Expiration expiration = new Expiration(time, session);
+			session.expiration = expiration;
+			this.queue.add(expiration);
+			if (time.isBefore(this.nextExpiration)) {
+				this.nextExpiration = time;
+			}
+		}
+
+		private void updateNextExpiration() {
+			Expiration head = this.queue.peek();
+			this.nextExpiration = (head != null ? head.time : Instant.MAX);
+		}
+	}
+
+
+	/**
+	 * Entry in the expiration queue.
+	 */
+	private static class Expiration implements Comparable<Expiration> {
+
+		private final Instant time;
+
+		private final InMemoryWebSession session;
+
+		Expiration(Instant time, InMemoryWebSession session) {
+			this.time = time;
+			this.session = session;
+		}
+
+		@Override
+		public int compareTo(Expiration other) {
+			return this.time.compareTo(other.time);
+		}
 	}
 
 
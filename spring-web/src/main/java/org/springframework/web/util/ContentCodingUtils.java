@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility methods for content codings, as negotiated through the
+ * {@code "Accept-Encoding"} request header.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ */
+public abstract class ContentCodingUtils {
+
+	private static final String WILDCARD = "*";
+
+
+	/**
+	 * Whether the given {@code "Accept-Encoding"} header value accepts the
+	 * given content coding, i.e. lists it, or else the {@code "*"} wildcard,
+	 * with a quality value greater than 0, as defined in RFC 7231, section 5.3.4.
+	 * @param acceptEncoding the header value, or {@code null} if not present
+	 * @param coding the content coding, e.g. {@code "gzip"}
+	 * @return {@code true} if the coding is acceptable, {@code false} otherwise,
+	 * including when the header is not present
+	 */
+	public static boolean isAccepted(@Nullable String acceptEncoding, String coding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Boolean wildcard = null;
+		for (String value : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			int index = value.indexOf(';');
+			String name = (index != -1 ? value.substring(0, index) : value).trim();
+			boolean accepted = (index == -1 || getQuality(value.substring(index + 1)) > 0);
+			if (coding.equalsIgnoreCase(name)) {
+				return accepted;
+			}
+			if (WILDCARD.equals(name)) {
+				wildcard = accepted;
+			}
+		}
+		return (wildcard != null && wildcard);
+	}
+
+	private static double getQuality(String parameters) {
+		for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+			int index = parameter.indexOf('=');
+			if (index != -1 && "q".equalsIgnoreCase(parameter.substring(0, index).trim())) {
+				try {
+					return Double.parseDouble(parameter.substring(index + 1).trim());
+				}
+				catch (NumberFormatException ex) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitingClientHttpConnector}.
+ *
+ * @author Arjen Poutsma
+ */
+public class ConcurrencyLimitingClientHttpConnectorTests {
+
+	private static final URI URL = URI.create("http://example.com/resource");
+
+
+	private final ConcurrencyLimitingClientHttpConnector connector = new ConcurrencyLimitingClientHttpConnector(
+			(method, uri, requestCallback) -> {
+				MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+				response.setBody("foo");
+				return Mono.just(response);
+			}, 1);
+
+
+	@Test
+	public void pendingUntilBodyConsumed() {
+		ClientHttpResponse first = connect().block(Duration.ofSeconds(5));
+		assertThat(metrics().getActiveCount()).isEqualTo(1);
+
+		MonoProcessor<ClientHttpResponse> second = connect().toProcessor();
+		assertThat(second.isTerminated()).isFalse();
+		assertThat(metrics().getPendingCount()).isEqualTo(1);
+
+		StepVerifier.create(first.getBody()).expectNextCount(1).verifyComplete();
+		assertThat(second.isSuccess()).isTrue();
+		assertThat(metrics().getActiveCount()).isEqualTo(1);
+		assertThat(metrics().getPendingCount()).isEqualTo(0);
+
+		StepVerifier.create(second.peek().getBody()).expectNextCount(1).verifyComplete();
+		assertThat(metrics().getActiveCount()).isEqualTo(0);
+		assertThat(metrics().getAcquireCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void maxPendingAcquires() {
+		this.connector.setMaxPendingAcquires(0);
+		connect().block(Duration.ofSeconds(5));
+
+		StepVerifier.create(connect()).verifyError(IllegalStateException.class);
+		assertThat(metrics().getPendingCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void pendingAcquireTimeout() {
+		this.connector.setPendingAcquireTimeout(Duration.ofMillis(50));
+		ClientHttpResponse first = connect().block(Duration.ofSeconds(5));
+
+		StepVerifier.create(connect()).verifyError(TimeoutException.class);
+		assertThat(metrics().getPendingCount()).isEqualTo(0);
+
+		first.getBody().blockLast(Duration.ofSeconds(5));
+		assertThat(metrics().getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void releaseWhenBodyNotConsumed() {
+		this.connector.setBodySubscriptionTimeout(Duration.ofMillis(50));
+		connect().block(Duration.ofSeconds(5));
+		assertThat(metrics().getActiveCount()).isEqualTo(1);
+
+		StepVerifier.create(connect()).expectNextCount(1).verifyComplete();
+		assertThat(metrics().getAcquireCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void noReleaseWhileBodySubscribed() {
+		this.connector.setBodySubscriptionTimeout(Duration.ofMillis(50));
+		ClientHttpResponse response = connect().block(Duration.ofSeconds(5));
+
+		StepVerifier.create(response.getBody(), 0)
+				.thenAwait(Duration.ofMillis(100))
+				.then(() -> assertThat(metrics().getActiveCount()).isEqualTo(1))
+				.thenRequest(1)
+				.expectNextCount(1)
+				.verifyComplete();
+		assertThat(metrics().getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void hostsAreLimitedSeparately() {
+		connect().block(Duration.ofSeconds(5));
+		StepVerifier.create(this.connector.connect(HttpMethod.GET, URI.create("http://example.org"),
+				request -> Mono.empty())).expectNextCount(1).verifyComplete();
+
+		assertThat(this.connector.getHostMetrics()).containsOnlyKeys("example.com:80", "example.org:80");
+	}
+
+
+	private Mono<ClientHttpResponse> connect() {
+		return this.connector.connect(HttpMethod.GET, URL, request -> Mono.empty());
+	}
+
+	private ConcurrencyLimitingClientHttpConnector.HostMetrics metrics() {
+		return this.connector.getHostMetrics().get("example.com:80");
+	}
+
+}
@@ -136,6 +136,38 @@ public class Jackson2JsonDecoderTests extends AbstractDecoderTestCase<Jackson2Js
 		testDecode(input, Pojo.class, step -> step.verifyComplete());
 	}
 
+	@Test
+	public void decodeDirect() {
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"},{\"bar\":"),
+				stringBuffer("\"b2\",\"foo\":"),
+				stringBuffer("\"f2\"}, null]"));
+
+		Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+		decoder.setDirectDecoding(true);
+		Flux<Object> result = decoder.decode(input, forClass(Pojo.class), null, emptyMap());
+
+		StepVerifier.create(result)
+				.expectNext(pojo1)
+				.expectNext(pojo2)
+				.verifyComplete();
+	}
+
+	@Test
+	public void decodeDirectInvalidData() {
+		Flux<DataBuffer> input = Flux.concat(
+				stringBuffer("[{\"bar\":\"b1\",\"foo\":\"f1\"},"),
+				stringBuffer("{\"bar\": {\"foo\": \"f2\"}}]"));
+
+		Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+		decoder.setDirectDecoding(true);
+		Flux<Object> result = decoder.decode(input, forClass(Pojo.class), null, emptyMap());
+
+		StepVerifier.create(result)
+				.expectNext(pojo1)
+				.verifyError(DecodingException.class);
+	}
+
 	@Test
 	public void fieldLevelJsonView() {
 		Flux<DataBuffer> input = Flux.from(
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -35,6 +36,8 @@ import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.AbstractEncoderTestCase;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.Pojo;
 import org.springframework.http.codec.ServerSentEvent;
@@ -218,6 +221,27 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTestCase<Jackson2Js
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@Test
+	public void encodeStreamWithPooledBuffers() {
+		NettyDataBufferFactory pooledFactory = new NettyDataBufferFactory(new PooledByteBufAllocator());
+		Flux<Pojo> input = Flux.just(new Pojo("foo", "bar"), new Pojo("foofoo", "barbar"));
+
+		Flux<DataBuffer> result = this.encoder.encode(input, pooledFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, Collections.emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(buffer -> {
+					assertThat(buffer).isInstanceOf(NettyDataBuffer.class);
+					expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n").accept(buffer);
+				})
+				.consumeNextWith(buffer -> {
+					assertThat(buffer).isInstanceOf(NettyDataBuffer.class);
+					expectString("{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n").accept(buffer);
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 
 	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 	private static class ParentClass {
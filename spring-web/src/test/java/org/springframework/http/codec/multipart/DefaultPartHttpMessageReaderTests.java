@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.LeakAwareDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.core.ResolvableType.forClassWithGenerics;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ *
+ * @author Arjen Poutsma
+ */
+public class DefaultPartHttpMessageReaderTests {
+
+	private static final ResolvableType ELEMENT_TYPE =
+			forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+	private final MultipartHttpMessageReader reader = new MultipartHttpMessageReader(this.partReader);
+
+
+	@Test
+	public void canRead() {
+		assertThat(this.partReader.canRead(ResolvableType.forClass(Part.class), MULTIPART_FORM_DATA)).isTrue();
+		assertThat(this.partReader.canRead(ResolvableType.forClass(Part.class), null)).isTrue();
+		assertThat(this.partReader.canRead(ResolvableType.forClass(String.class), MULTIPART_FORM_DATA)).isFalse();
+		assertThat(this.partReader.canRead(ResolvableType.forClass(Part.class),
+				MediaType.APPLICATION_FORM_URLENCODED)).isFalse();
+	}
+
+	@Test
+	public void resolveParts() {
+		MultiValueMap<String, Part> parts = this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap())
+				.block(Duration.ofSeconds(5));
+
+		assertThat(parts).isNotNull();
+		assertThat(parts.size()).isEqualTo(2);
+		assertFooPart(parts.getFirst("fooPart"));
+		assertBarPart(parts.getFirst("barPart"));
+	}
+
+	@Test
+	public void resolvePartsFromSmallBuffers() {
+		ServerHttpRequest request = generateMultipartRequest();
+		byte[] body = DataBufferUtils.join(request.getBody()).map(buffer -> {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			DataBufferUtils.release(buffer);
+			return bytes;
+		}).block(Duration.ofSeconds(5));
+
+		for (int chunkSize : new int[] {1, 2, 3, 7, 64}) {
+			List<DataBuffer> buffers = new ArrayList<>();
+			for (int i = 0; i < body.length; i += chunkSize) {
+				int length = Math.min(chunkSize, body.length - i);
+				buffers.add(new DefaultDataBufferFactory().wrap(Arrays.copyOfRange(body, i, i + length)));
+			}
+			ServerHttpRequest chunkedRequest = MockServerHttpRequest.post("/")
+					.contentType(request.getHeaders().getContentType())
+					.body(Flux.fromIterable(buffers));
+
+			MultiValueMap<String, Part> parts = this.reader.readMono(ELEMENT_TYPE, chunkedRequest, emptyMap())
+					.block(Duration.ofSeconds(5));
+
+			assertThat(parts).isNotNull();
+			assertThat(parts.size()).isEqualTo(2);
+			assertFooPart(parts.getFirst("fooPart"));
+			assertBarPart(parts.getFirst("barPart"));
+		}
+	}
+
+	@Test
+	public void transferTo() throws Exception {
+		MultiValueMap<String, Part> parts = this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap())
+				.block(Duration.ofSeconds(5));
+
+		assertThat(parts).isNotNull();
+		FilePart part = (FilePart) parts.getFirst("fooPart");
+		assertThat(part).isNotNull();
+
+		File dest = this.tempFolder.newFile(part.filename());
+		part.transferTo(dest).block(Duration.ofSeconds(5));
+
+		assertThat(dest.exists()).isTrue();
+		assertThat(dest.length()).isEqualTo(12);
+	}
+
+	@Test
+	public void fileStoredOnDisk() throws Exception {
+		Path directory = this.tempFolder.newFolder().toPath();
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(directory);
+
+		MultiValueMap<String, Part> parts = this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap())
+				.block(Duration.ofSeconds(5));
+
+		assertThat(parts).isNotNull();
+		Part part = parts.getFirst("fooPart");
+		assertFooPart(part);
+		assertFooPart(part);
+		assertThat(directory.toFile().list()).hasSize(1);
+
+		part.delete().block(Duration.ofSeconds(5));
+		assertThat(directory.toFile().list()).hasSize(0);
+	}
+
+	@Test
+	public void maxDiskUsageExceeded() throws Exception {
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setMaxDiskUsagePerPart(10);
+		this.partReader.setFileStorageDirectory(this.tempFolder.newFolder().toPath());
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void fileStorageFailureReleasesBuffers() throws Exception {
+		LeakAwareDataBufferFactory bufferFactory = new LeakAwareDataBufferFactory();
+		ServerHttpRequest request = generateMultipartRequest();
+		byte[] body = DataBufferUtils.join(request.getBody()).map(buffer -> {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			DataBufferUtils.release(buffer);
+			return bytes;
+		}).block(Duration.ofSeconds(5));
+		ServerHttpRequest pooledRequest = MockServerHttpRequest.post("/")
+				.contentType(request.getHeaders().getContentType())
+				.body(Flux.defer(() -> Flux.just(bufferFactory.allocateBuffer(body.length).write(body))));
+
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(this.tempFolder.newFile().toPath());
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, pooledRequest, emptyMap()))
+				.expectError()
+				.verify(Duration.ofSeconds(5));
+		bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void formFieldTooLarge() {
+		this.partReader.setMaxInMemorySize(2);
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void headersTooLarge() {
+		this.partReader.setMaxHeadersSize(10);
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, generateMultipartRequest(), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void noEndBoundary() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, "multipart/form-data; boundary=boundary")
+				.body("--boundary\r\nContent-Disposition: form-data; name=\"foo\"\r\n\r\nbar");
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void bodyError() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, MULTIPART_FORM_DATA.toString())
+				.body(Flux.just(new DefaultDataBufferFactory().wrap("invalid content".getBytes())));
+
+		StepVerifier.create(this.reader.readMono(ELEMENT_TYPE, request, emptyMap())).verifyError();
+	}
+
+
+	private static void assertFooPart(Part part) {
+		assertThat(part).isInstanceOf(FilePart.class);
+		assertThat(part.name()).isEqualTo("fooPart");
+		assertThat(((FilePart) part).filename()).isEqualTo("foo.txt");
+		DataBuffer buffer = DataBufferUtils.join(part.content()).block(Duration.ofSeconds(5));
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("Lorem Ipsum.");
+	}
+
+	private static void assertBarPart(Part part) {
+		assertThat(part).isInstanceOf(FormFieldPart.class);
+		assertThat(part.name()).isEqualTo("barPart");
+		assertThat(((FormFieldPart) part).value()).isEqualTo("bar");
+	}
+
+	private static ServerHttpRequest generateMultipartRequest() {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("barPart", "bar");
+
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+
+		return MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(outputMessage.getBody());
+	}
+
+}
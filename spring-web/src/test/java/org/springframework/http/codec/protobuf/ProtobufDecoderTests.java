@@ -16,6 +16,7 @@
 
 package org.springframework.http.codec.protobuf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -215,6 +216,28 @@ public class ProtobufDecoderTests extends AbstractDecoderTestCase<ProtobufDecode
 				.verifyComplete();
 	}
 
+	@Test
+	public void decodeSmallChunks() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		this.testMsg1.writeDelimitedTo(bos);
+		this.testMsg2.writeDelimitedTo(bos);
+		byte[] bytes = bos.toByteArray();
+
+		Flux<DataBuffer> input = Flux.range(0, (bytes.length + 2) / 3)
+				.map(i -> {
+					int offset = i * 3;
+					int length = Math.min(3, bytes.length - offset);
+					DataBuffer buffer = this.bufferFactory.allocateBuffer(length);
+					buffer.write(bytes, offset, length);
+					return buffer;
+				});
+
+		testDecode(input, Msg.class, step -> step
+				.expectNext(this.testMsg1)
+				.expectNext(this.testMsg2)
+				.verifyComplete());
+	}
+
 	@Test
 	public void exceedMaxSize() {
 		this.decoder.setMaxMessageSize(1);
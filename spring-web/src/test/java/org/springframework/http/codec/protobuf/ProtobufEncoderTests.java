@@ -97,6 +97,23 @@ public class ProtobufEncoderTests extends AbstractEncoderTestCase<ProtobufEncode
 				.verifyComplete());
 	}
 
+	@Test
+	public void encodeExactSize() {
+		Flux<Message> input = Flux.just(this.msg1, Msg.getDefaultInstance());
+		int size = this.msg1.getSerializedSize();
+
+		testEncode(input, Msg.class, step -> step
+				.consumeNextWith(dataBuffer -> {
+					assertThat(dataBuffer.readableByteCount()).isEqualTo(size + 1);
+					expect(this.msg1).accept(dataBuffer);
+				})
+				.consumeNextWith(dataBuffer -> {
+					assertThat(dataBuffer.readableByteCount()).isEqualTo(1);
+					expect(Msg.getDefaultInstance()).accept(dataBuffer);
+				})
+				.verifyComplete());
+	}
+
 	protected final Consumer<DataBuffer> expect(Msg msg) {
 		return dataBuffer -> {
 			try {
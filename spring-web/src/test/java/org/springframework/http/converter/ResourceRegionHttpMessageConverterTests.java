@@ -28,6 +28,7 @@ import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourceRegion;
@@ -144,6 +145,27 @@ public class ResourceRegionHttpMessageConverterTests {
 		assertThat(ranges[15]).isEqualTo("resource content.");
 	}
 
+	@Test
+	public void partialContentMultipleByteRangesNonFileResource() throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		Resource body = new ByteArrayResource("Spring Framework test resource content.".getBytes(StandardCharsets.UTF_8));
+		List<HttpRange> rangeList = HttpRange.parseRanges("bytes=0-5,22-38");
+		List<ResourceRegion> regions = new ArrayList<>();
+		for (HttpRange range : rangeList) {
+			regions.add(range.toResourceRegion(body));
+		}
+
+		converter.write(regions, MediaType.TEXT_PLAIN, outputMessage);
+
+		String content = outputMessage.getBodyAsString(StandardCharsets.UTF_8);
+		String[] ranges = StringUtils.tokenizeToStringArray(content, "\r\n", false, true);
+
+		assertThat(ranges[2]).isEqualTo("Content-Range: bytes 0-5/39");
+		assertThat(ranges[3]).isEqualTo("Spring");
+		assertThat(ranges[6]).isEqualTo("Content-Range: bytes 22-38/39");
+		assertThat(ranges[7]).isEqualTo("resource content.");
+	}
+
 	@Test // SPR-15041
 	public void applicationOctetStreamDefaultContentType() throws Exception {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
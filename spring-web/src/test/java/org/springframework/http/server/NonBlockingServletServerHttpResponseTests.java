@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.mock.web.test.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link NonBlockingServletServerHttpResponse}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class NonBlockingServletServerHttpResponseTests {
+
+	private MockHttpServletRequest servletRequest;
+
+	private ListenerServletResponse servletResponse;
+
+	private NonBlockingServletServerHttpResponse response;
+
+
+	@Before
+	public void setup() {
+		this.servletRequest = new MockHttpServletRequest();
+		this.servletRequest.setAsyncSupported(true);
+		this.servletResponse = new ListenerServletResponse();
+		this.response = new NonBlockingServletServerHttpResponse(this.servletRequest, this.servletResponse);
+	}
+
+
+	@Test
+	public void bodyIsBufferedUntilWriteBody() throws Exception {
+		this.response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+		this.response.getBody().write("Hello World".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(this.servletResponse.content.size()).isEqualTo(0);
+		assertThat(this.servletResponse.getContentType()).isEqualTo("text/plain");
+		assertThat(this.servletRequest.isAsyncStarted()).isFalse();
+
+		this.response.writeBody();
+
+		assertThat(this.servletResponse.content.toString("UTF-8")).isEqualTo("Hello World");
+		assertThat(this.servletResponse.getContentLength()).isEqualTo(11);
+		assertThat(this.servletRequest.isAsyncStarted()).as("Async request not completed").isFalse();
+	}
+
+	@Test
+	public void writeBodyResumesWhenOutputStreamIsReady() throws Exception {
+		byte[] content = new byte[20000];
+		this.response.getBody().write(content);
+		this.servletResponse.readyWrites = 1;
+		this.response.writeBody();
+
+		assertThat(this.servletResponse.content.size()).isEqualTo(8192);
+		assertThat(this.servletRequest.isAsyncStarted()).isTrue();
+
+		this.servletResponse.readyWrites = Integer.MAX_VALUE;
+		this.servletResponse.writeListener.onWritePossible();
+
+		assertThat(this.servletResponse.content.size()).isEqualTo(20000);
+		assertThat(this.servletRequest.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void writeBodyWithoutContent() throws Exception {
+		this.response.writeBody();
+
+		assertThat(this.servletResponse.writeListener).isNull();
+		assertThat(this.servletRequest.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void isSupported() {
+		assertThat(NonBlockingServletServerHttpResponse.isSupported(
+				this.servletRequest, this.servletResponse)).isTrue();
+		assertThat(NonBlockingServletServerHttpResponse.isSupported(
+				this.servletRequest, new HttpServletResponseWrapper(this.servletResponse))).isFalse();
+
+		this.servletRequest.setAsyncSupported(false);
+		assertThat(NonBlockingServletServerHttpResponse.isSupported(
+				this.servletRequest, this.servletResponse)).isFalse();
+	}
+
+
+	private static class ListenerServletResponse extends MockHttpServletResponse {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private int readyWrites = Integer.MAX_VALUE;
+
+		private WriteListener writeListener;
+
+		private final ServletOutputStream outputStream = new ServletOutputStream() {
+
+			@Override
+			public boolean isReady() {
+				return (readyWrites-- > 0);
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+				writeListener = listener;
+				try {
+					listener.onWritePossible();
+				}
+				catch (IOException ex) {
+					listener.onError(ex);
+				}
+			}
+
+			@Override
+			public void write(int b) {
+				content.write(b);
+			}
+		};
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+	}
+
+}
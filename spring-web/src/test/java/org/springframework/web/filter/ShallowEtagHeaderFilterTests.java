@@ -27,6 +27,7 @@ import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StreamUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
  * @author Arjen Poutsma
@@ -265,4 +266,139 @@ public class ShallowEtagHeaderFilterTests {
 		assertThat(response.getContentAsByteArray()).as("Invalid content").isEqualTo(responseBody);
 	}
 
+	@Test
+	public void filterContentCacheLimitExceeded() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		final byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			filterResponse.getOutputStream().write(responseBody, 0, 6);
+			assertThat(response.getContentAsByteArray()).isEmpty();
+			filterResponse.getOutputStream().write(responseBody, 6, 5);
+			assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+		};
+		this.filter.setContentCacheLimit(10);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("ETag")).isNull();
+		assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+	}
+
+	@Test
+	public void filterWriterContentCacheLimitExceeded() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			filterResponse.setContentType("text/plain");
+			filterResponse.getWriter().write("Hello World");
+		};
+		this.filter.setContentCacheLimit(10);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("ETag")).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void filterWriterContentCacheLimitExceededDoesNotFlushPerWrite() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			filterResponse.setContentType("text/plain");
+			for (char c : "Hello World".toCharArray()) {
+				filterResponse.getWriter().write(c);
+			}
+			assertThat(response.isCommitted()).isFalse();
+			filterResponse.getWriter().flush();
+			assertThat(response.isCommitted()).isTrue();
+		};
+		this.filter.setContentCacheLimit(10);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getHeader("ETag")).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void filterWriterContentCacheLimitNotExceeded() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			filterResponse.setContentType("text/plain");
+			filterResponse.getWriter().write("Hello World");
+		};
+		this.filter.setContentCacheLimit(11);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getHeader("ETag")).isEqualTo("\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		assertThat(response.getContentAsString()).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void filterContentCacheLimitNotExceeded() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		final byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+		};
+		this.filter.setContentCacheLimit(11);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("ETag")).isEqualTo("\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+	}
+
+	@Test
+	public void filterMatchIgnoresContentCacheLimit() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			byte[] responseBody = "Hello World".getBytes("UTF-8");
+			FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+		};
+		this.filter.setContentCacheLimit(10);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	public void filterNoMatchWithDigestAlgorithm() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		final byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_OK);
+			FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+		};
+		this.filter.setDigestAlgorithm("SHA-1");
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getHeader("ETag")).isEqualTo("\"00a4d55a8d778e5022fab701977c5d840bbc486d0\"");
+		assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+	}
+
+	@Test
+	public void invalidDigestAlgorithm() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.filter.setDigestAlgorithm("NOPE"));
+	}
+
 }
@@ -16,14 +16,19 @@
 
 package org.springframework.web.server.adapter;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
+import reactor.core.publisher.Mono;
 
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
 import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
 import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.WebSessionManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -56,6 +61,32 @@ public class DefaultServerWebExchangeTests {
 		assertThat(exchange.transformUrl("/foo")).isEqualTo("/foo;p=abc?q=123");
 	}
 
+	@Test
+	public void sessionInitializedLazily() {
+		AtomicInteger invocations = new AtomicInteger();
+		WebSessionManager sessionManager = exchange -> {
+			invocations.incrementAndGet();
+			return Mono.empty();
+		};
+		MockServerHttpRequest request = MockServerHttpRequest.get("https://example.com").build();
+		ServerWebExchange exchange = new DefaultServerWebExchange(request, new MockServerHttpResponse(),
+				sessionManager, ServerCodecConfigurer.create(), new AcceptHeaderLocaleContextResolver());
+		assertThat(invocations.get()).isEqualTo(0);
+
+		Mono<WebSession> session = exchange.getSession();
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(exchange.getSession()).isSameAs(session);
+		assertThat(invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void formDataInitializedLazily() {
+		ServerWebExchange exchange = createExchange();
+		assertThat(exchange.getFormData()).isSameAs(exchange.getFormData());
+		assertThat(exchange.getMultipartData()).isSameAs(exchange.getMultipartData());
+		assertThat(exchange.getFormData().block()).isEmpty();
+	}
+
 
 	private DefaultServerWebExchange createExchange() {
 		MockServerHttpRequest request = MockServerHttpRequest.get("https://example.com").build();
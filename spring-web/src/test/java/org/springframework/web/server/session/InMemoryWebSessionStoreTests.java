@@ -150,6 +150,38 @@ public class InMemoryWebSessionStoreTests {
 			.withMessage("Max sessions limit reached: 10000");
 	}
 
+	@Test
+	public void maxSessionsWithEviction() {
+		this.store.setMaxSessions(2);
+		this.store.setEvictOnMaxSessions(true);
+
+		WebSession session1 = insertSession();
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(1)));
+		WebSession session2 = insertSession();
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(1)));
+		assertThat(this.store.retrieveSession(session1.getId()).block()).isSameAs(session1);
+
+		WebSession session3 = insertSession();
+		assertThat(this.store.getSessions()).containsOnlyKeys(session1.getId(), session3.getId());
+		assertThat(session2.isExpired()).isTrue();
+		assertThat(this.store.getEvictedSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void expirationRescheduledAfterAccess() {
+		WebSession session = insertSession();
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(20)));
+		assertThat(this.store.retrieveSession(session.getId()).block()).isSameAs(session);
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(20)));
+		assertThat(this.store.getSessions()).containsOnlyKeys(session.getId());
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(20)));
+		assertThat(this.store.getSessions()).isEmpty();
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(1);
+	}
+
 	private WebSession insertSession() {
 		WebSession session = this.store.createWebSession().block();
 		assertThat(session).isNotNull();
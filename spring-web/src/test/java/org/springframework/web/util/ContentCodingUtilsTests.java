@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ContentCodingUtils}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class ContentCodingUtilsTests {
+
+	@Test
+	public void isAccepted() {
+		assertThat(ContentCodingUtils.isAccepted("gzip", "gzip")).isTrue();
+		assertThat(ContentCodingUtils.isAccepted("deflate, GZIP", "gzip")).isTrue();
+		assertThat(ContentCodingUtils.isAccepted("gzip;q=0.5", "gzip")).isTrue();
+		assertThat(ContentCodingUtils.isAccepted("deflate", "gzip")).isFalse();
+		assertThat(ContentCodingUtils.isAccepted(null, "gzip")).isFalse();
+	}
+
+	@Test
+	public void isAcceptedWithZeroQuality() {
+		assertThat(ContentCodingUtils.isAccepted("gzip;q=0, deflate", "gzip")).isFalse();
+		assertThat(ContentCodingUtils.isAccepted("gzip; Q=0.0", "gzip")).isFalse();
+		assertThat(ContentCodingUtils.isAccepted("gzip;q=invalid", "gzip")).isFalse();
+	}
+
+	@Test
+	public void isAcceptedWithWildcard() {
+		assertThat(ContentCodingUtils.isAccepted("deflate, *;q=0.1", "gzip")).isTrue();
+		assertThat(ContentCodingUtils.isAccepted("*;q=0", "gzip")).isFalse();
+		assertThat(ContentCodingUtils.isAccepted("*;q=0.5, gzip;q=0", "gzip")).isFalse();
+		assertThat(ContentCodingUtils.isAccepted("*;q=0, gzip", "gzip")).isTrue();
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.lang.Nullable;
+
+/**
+ * Aggregates a response body into a byte array, as long as it does not exceed
+ * a given size. The size is checked as buffers arrive, so that a larger body
+ * is never held in memory as a whole: once the limit is exceeded, aggregation
+ * stops and the body is passed on unchanged instead, starting with the buffers
+ * read so far and continuing with the rest of the stream, with back-pressure.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+final class BoundedBodyAggregator {
+
+	private BoundedBodyAggregator() {
+	}
+
+
+	/**
+	 * Aggregate the given body, up to the given number of bytes.
+	 * @param body the body to aggregate
+	 * @param maxSize the maximum number of bytes to aggregate
+	 * @return the aggregated body
+	 */
+	public static Mono<AggregatedBody> aggregate(Flux<DataBuffer> body, int maxSize) {
+		return Mono.create(sink -> {
+			AggregatingSubscriber subscriber = new AggregatingSubscriber(sink, maxSize);
+			sink.onCancel(subscriber);
+			body.subscribe(subscriber);
+		});
+	}
+
+
+	/**
+	 * The result of aggregating a body: either its content, if within the
+	 * limit, or the unchanged body otherwise.
+	 */
+	public static final class AggregatedBody {
+
+		@Nullable
+		private final byte[] content;
+
+		@Nullable
+		private final Flux<DataBuffer> body;
+
+		private AggregatedBody(@Nullable byte[] content, @Nullable Flux<DataBuffer> body) {
+			this.content = content;
+			this.body = body;
+		}
+
+		/**
+		 * Return the aggregated content, or {@code null} if the body exceeded
+		 * the limit.
+		 */
+		@Nullable
+		public byte[] getContent() {
+			return this.content;
+		}
+
+		/**
+		 * Return the unchanged body, if it exceeded the limit, or {@code null}
+		 * otherwise. The returned body can be subscribed to only once.
+		 */
+		@Nullable
+		public Flux<DataBuffer> getBody() {
+			return this.body;
+		}
+	}
+
+
+	private static final class AggregatingSubscriber extends BaseSubscriber<DataBuffer> {
+
+		private final MonoSink<AggregatedBody> sink;
+
+		private final int maxSize;
+
+		private final List<DataBuffer> buffers = new ArrayList<>();
+
+		private long size;
+
+		@Nullable
+		private UnicastProcessor<DataBuffer> overflow;
+
+		AggregatingSubscriber(MonoSink<AggregatedBody> sink, int maxSize) {
+			this.sink = sink;
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			subscription.request(1);
+		}
+
+		@Override
+		protected void hookOnNext(DataBuffer buffer) {
+			UnicastProcessor<DataBuffer> overflow = this.overflow;
+			if (overflow != null) {
+				overflow.onNext(buffer);
+				return;
+			}
+			this.buffers.add(buffer);
+			this.size += buffer.readableByteCount();
+			if (this.size <= this.maxSize) {
+				request(1);
+				return;
+			}
+			// Over the limit: pass the buffers read so far, and further ones on demand
+			overflow = UnicastProcessor.create();
+			this.overflow = overflow;
+			this.buffers.forEach(overflow::onNext);
+			this.buffers.clear();
+			this.sink.success(new AggregatedBody(null, overflow
+					.doOnRequest(this::request)
+					.doOnCancel(this::cancel)
+					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)));
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			UnicastProcessor<DataBuffer> overflow = this.overflow;
+			if (overflow != null) {
+				overflow.onComplete();
+				return;
+			}
+			byte[] content = new byte[(int) this.size];
+			int offset = 0;
+			for (DataBuffer buffer : this.buffers) {
+				int count = buffer.readableByteCount();
+				buffer.read(content, offset, count);
+				offset += count;
+				DataBufferUtils.release(buffer);
+			}
+			this.buffers.clear();
+			this.sink.success(new AggregatedBody(content, null));
+		}
+
+		@Override
+		protected void hookOnError(Throwable ex) {
+			UnicastProcessor<DataBuffer> overflow = this.overflow;
+			if (overflow != null) {
+				overflow.onError(ex);
+				return;
+			}
+			releaseBuffers();
+			this.sink.error(ex);
+		}
+
+		@Override
+		protected void hookOnCancel() {
+			releaseBuffers();
+		}
+
+		private void releaseBuffers() {
+			this.buffers.forEach(DataBufferUtils::release);
+			this.buffers.clear();
+		}
+	}
+
+}
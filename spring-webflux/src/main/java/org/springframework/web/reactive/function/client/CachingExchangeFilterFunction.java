@@ -0,0 +1,548 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyExtractors;
+
+/**
+ * {@link ExchangeFilterFunction} that caches responses to {@code GET} requests
+ * according to the {@code Cache-Control}, {@code Expires}, and {@code Vary}
+ * response headers.
+ *
+ * <p>Fresh responses are served from the {@link ClientResponseCache} without
+ * an exchange. Stale responses with an {@code ETag} or {@code Last-Modified}
+ * validator are revalidated through a conditional request with
+ * {@code If-None-Match} or {@code If-Modified-Since}, and served from the cache
+ * on a {@code 304 Not Modified} response. Within the
+ * {@code stale-while-revalidate} window of a response, the stale response is
+ * served immediately while it is revalidated in the background.
+ *
+ * <p>Concurrent requests for the same resource are coalesced into a single
+ * exchange, the result of which is shared between them. Successful responses
+ * to unsafe requests invalidate the entry for their URL.
+ *
+ * <p>By default, the filter acts as a private cache, i.e. it stores responses
+ * marked as {@code private} and those to requests with an
+ * {@code Authorization} header. Since a {@link WebClient} may be used on behalf
+ * of multiple users, such a cache keeps responses apart by the
+ * {@code Authorization} and {@code Cookie} headers of the request in addition
+ * to its URL, both for lookups and for coalescing concurrent requests. Use
+ * {@link #setSharedCache(boolean)} when the cached responses are meant to be
+ * served to multiple users, for instance when proxying.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ * @see ClientResponseCache
+ */
+public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
+
+	/**
+	 * The default maximum size of a cached response body, in bytes.
+	 */
+	public static final int DEFAULT_MAX_BODY_SIZE = 256 * 1024;
+
+	private static final Set<HttpStatus> CACHEABLE_STATUS_CODES = Collections.unmodifiableSet(EnumSet.of(
+			HttpStatus.OK, HttpStatus.NON_AUTHORITATIVE_INFORMATION, HttpStatus.NO_CONTENT,
+			HttpStatus.MULTIPLE_CHOICES, HttpStatus.MOVED_PERMANENTLY, HttpStatus.NOT_FOUND,
+			HttpStatus.METHOD_NOT_ALLOWED, HttpStatus.GONE, HttpStatus.URI_TOO_LONG,
+			HttpStatus.NOT_IMPLEMENTED));
+
+	private static final Set<HttpMethod> SAFE_METHODS = Collections.unmodifiableSet(EnumSet.of(
+			HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE));
+
+	private static final List<String> NOT_MODIFIED_IGNORED_HEADERS = Arrays.asList(
+			HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING, HttpHeaders.TRANSFER_ENCODING);
+
+	private static final Log logger = LogFactory.getLog(CachingExchangeFilterFunction.class);
+
+
+	private final ClientResponseCache cache;
+
+	private final Map<String, MonoProcessor<ClientResponseCache.CachedResponse>> inFlight =
+			new ConcurrentHashMap<>();
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+
+	private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+	private boolean sharedCache = false;
+
+	private Clock clock = Clock.systemUTC();
+
+
+	/**
+	 * Create a new {@code CachingExchangeFilterFunction} with an
+	 * {@link InMemoryClientResponseCache} with default limits.
+	 */
+	public CachingExchangeFilterFunction() {
+		this(new InMemoryClientResponseCache());
+	}
+
+	/**
+	 * Create a new {@code CachingExchangeFilterFunction} with the given cache.
+	 * @param cache the cache to store responses in
+	 */
+	public CachingExchangeFilterFunction(ClientResponseCache cache) {
+		Assert.notNull(cache, "ClientResponseCache must not be null");
+		this.cache = cache;
+	}
+
+
+	/**
+	 * Return the cache that responses are stored in.
+	 */
+	public ClientResponseCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Configure the strategies used to read the body of responses served from
+	 * the cache. This should match the strategies of the {@link WebClient}
+	 * this filter is registered with.
+	 * <p>By default this is set to {@link ExchangeStrategies#withDefaults()}.
+	 */
+	public void setExchangeStrategies(ExchangeStrategies strategies) {
+		Assert.notNull(strategies, "ExchangeStrategies must not be null");
+		this.strategies = strategies;
+	}
+
+	/**
+	 * Configure the maximum size of a response body that is cached, in bytes.
+	 * Larger responses are passed through without being buffered or stored.
+	 * <p>By default this is set to {@link #DEFAULT_MAX_BODY_SIZE}.
+	 */
+	public void setMaxBodySize(int maxBodySize) {
+		Assert.isTrue(maxBodySize >= 0, "'maxBodySize' must not be negative");
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * Return the configured maximum body size.
+	 */
+	public int getMaxBodySize() {
+		return this.maxBodySize;
+	}
+
+	/**
+	 * Configure whether the cache is shared between users. A shared cache does
+	 * not store {@code private} responses, nor responses to requests with an
+	 * {@code Authorization} header unless explicitly allowed by the response,
+	 * and honors {@code s-maxage}. Its entries are keyed by URL only.
+	 * <p>By default this is set to {@code false}, in which case entries are
+	 * also keyed by the credentials of the request.
+	 */
+	public void setSharedCache(boolean sharedCache) {
+		this.sharedCache = sharedCache;
+	}
+
+	/**
+	 * Return whether the cache is shared between users.
+	 */
+	public boolean isSharedCache() {
+		return this.sharedCache;
+	}
+
+	/**
+	 * Configure the {@link Clock} to use to determine the age of responses.
+	 * <p>By default this is {@code Clock.systemUTC()}.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Return the configured clock.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (!HttpMethod.GET.equals(request.method())) {
+			if (SAFE_METHODS.contains(request.method())) {
+				return next.exchange(request);
+			}
+			return next.exchange(request).doOnNext(response -> {
+				if (response.rawStatusCode() < 400) {
+					String key = getCacheKey(request);
+					this.cache.evict(key);
+					if (!key.equals(request.url().toString())) {
+						this.cache.evict(request.url().toString());
+					}
+				}
+			});
+		}
+
+		HttpHeaders requestHeaders = request.headers();
+		CacheDirectives requestDirectives = CacheDirectives.parse(requestHeaders);
+		if (requestDirectives.contains("no-store") ||
+				requestHeaders.getIfNoneMatch().size() > 0 ||
+				requestHeaders.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+			return next.exchange(request);
+		}
+
+		String key = getCacheKey(request);
+		ClientResponseCache.CachedResponse cached = this.cache.get(key);
+		if (cached != null && !cached.matches(requestHeaders)) {
+			cached = null;
+		}
+		if (cached != null) {
+			CacheDirectives responseDirectives = CacheDirectives.parse(cached.getHeaders());
+			long age = getAge(cached);
+			long freshness = getFreshnessLifetime(cached, responseDirectives);
+			boolean revalidate = requestDirectives.contains("no-cache") || responseDirectives.contains("no-cache");
+			long maxAge = requestDirectives.getSeconds("max-age");
+			if (!revalidate && age < freshness && (maxAge == -1 || age < maxAge * 1000)) {
+				return Mono.just(createResponse(cached, age));
+			}
+			long staleWhileRevalidate = responseDirectives.getSeconds("stale-while-revalidate");
+			if (!revalidate && staleWhileRevalidate > 0 && age < freshness + staleWhileRevalidate * 1000 &&
+					maxAge == -1 && !responseDirectives.contains("must-revalidate")) {
+				revalidateInBackground(key, request, cached, next);
+				return Mono.just(createResponse(cached, age));
+			}
+			if (!hasValidator(cached.getHeaders())) {
+				cached = null;
+			}
+		}
+		return exchange(key, request, cached, next);
+	}
+
+	/**
+	 * Return the key for the given request: its URL, followed by a digest of
+	 * its credentials for a private cache.
+	 */
+	private String getCacheKey(ClientRequest request) {
+		String url = request.url().toString();
+		if (this.sharedCache) {
+			return url;
+		}
+		HttpHeaders headers = request.headers();
+		List<String> authorization = headers.get(HttpHeaders.AUTHORIZATION);
+		List<String> cookieHeaders = headers.get(HttpHeaders.COOKIE);
+		if (authorization == null && cookieHeaders == null && request.cookies().isEmpty()) {
+			return url;
+		}
+		String credentials = authorization + "\n" + cookieHeaders + "\n" + request.cookies();
+		return url + " " + DigestUtils.md5DigestAsHex(credentials.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void revalidateInBackground(String key, ClientRequest request,
+			ClientResponseCache.CachedResponse cached, ExchangeFunction next) {
+
+		if (this.inFlight.containsKey(key)) {
+			return;
+		}
+		exchange(key, request, cached, next)
+				.flatMap(response -> response.bodyToMono(Void.class))
+				.subscribe(null, ex -> {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Background revalidation of " + request.url() + " failed", ex);
+					}
+				});
+	}
+
+	/**
+	 * Perform the exchange for the given request, revalidating the given
+	 * cached response if any, and sharing the result with concurrent requests
+	 * for the same key.
+	 */
+	private Mono<ClientResponse> exchange(String key, ClientRequest request,
+			@Nullable ClientResponseCache.CachedResponse cached, ExchangeFunction next) {
+
+		return Mono.defer(() -> {
+			MonoProcessor<ClientResponseCache.CachedResponse> processor = MonoProcessor.create();
+			MonoProcessor<ClientResponseCache.CachedResponse> existing = this.inFlight.putIfAbsent(key, processor);
+			if (existing != null) {
+				return existing
+						.filter(result -> result.matches(request.headers()))
+						.map(result -> createResponse(result, getAge(result)))
+						.switchIfEmpty(Mono.defer(() -> next.exchange(request)));
+			}
+			long requestTime = this.clock.millis();
+			return next.exchange(cached != null ? createConditionalRequest(request, cached) : request)
+					.flatMap(response -> handleResponse(key, request, cached, response, requestTime, processor))
+					.doOnError(ex -> {
+						if (!processor.isTerminated()) {
+							processor.onError(ex);
+						}
+					})
+					.doFinally(signalType -> {
+						this.inFlight.remove(key, processor);
+						if (!processor.isTerminated()) {
+							processor.onComplete();
+						}
+					});
+		});
+	}
+
+	private ClientRequest createConditionalRequest(ClientRequest request,
+			ClientResponseCache.CachedResponse cached) {
+
+		HttpHeaders cachedHeaders = cached.getHeaders();
+		return ClientRequest.from(request)
+				.headers(headers -> {
+					String eTag = cachedHeaders.getETag();
+					if (eTag != null) {
+						headers.setIfNoneMatch(eTag);
+					}
+					String lastModified = cachedHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+					if (lastModified != null) {
+						headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+					}
+				})
+				.build();
+	}
+
+	private Mono<ClientResponse> handleResponse(String key, ClientRequest request,
+			@Nullable ClientResponseCache.CachedResponse cached, ClientResponse response,
+			long requestTime, MonoProcessor<ClientResponseCache.CachedResponse> processor) {
+
+		if (cached != null && response.rawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+			ClientResponseCache.CachedResponse updated = revalidated(cached, response.headers().asHttpHeaders());
+			this.cache.put(key, updated);
+			processor.onNext(updated);
+			return response.bodyToMono(Void.class).thenReturn(createResponse(updated, 0));
+		}
+		if (!isStorable(request, response)) {
+			if (response.rawStatusCode() < 500) {
+				this.cache.evict(key);
+			}
+			processor.onComplete();
+			return Mono.just(response);
+		}
+		Flux<DataBuffer> body = response.body(BodyExtractors.toDataBuffers());
+		return BoundedBodyAggregator.aggregate(body, this.maxBodySize)
+				.map(aggregated -> {
+					byte[] bytes = aggregated.getContent();
+					if (bytes == null) {
+						// Over the limit: not cached, and the body is passed through as it is read
+						processor.onComplete();
+						return ClientResponse.from(response).body(aggregated.getBody()).build();
+					}
+					HttpHeaders headers = response.headers().asHttpHeaders();
+					ClientResponseCache.CachedResponse result = new ClientResponseCache.CachedResponse(
+							response.statusCode(), headers, bytes, Instant.ofEpochMilli(requestTime),
+							getVaryHeaders(request, headers));
+					this.cache.put(key, result);
+					processor.onNext(result);
+					return createResponse(result, getAge(result));
+				});
+	}
+
+	private boolean isStorable(ClientRequest request, ClientResponse response) {
+		HttpStatus status = HttpStatus.resolve(response.rawStatusCode());
+		if (status == null || !CACHEABLE_STATUS_CODES.contains(status)) {
+			return false;
+		}
+		HttpHeaders headers = response.headers().asHttpHeaders();
+		CacheDirectives directives = CacheDirectives.parse(headers);
+		if (directives.contains("no-store")) {
+			return false;
+		}
+		if (this.sharedCache) {
+			if (directives.contains("private")) {
+				return false;
+			}
+			if (request.headers().containsKey(HttpHeaders.AUTHORIZATION) && !directives.contains("public") &&
+					!directives.contains("s-maxage") && !directives.contains("must-revalidate")) {
+				return false;
+			}
+		}
+		if (headers.getVary().contains("*")) {
+			return false;
+		}
+		long contentLength = headers.getContentLength();
+		if (contentLength > this.maxBodySize) {
+			return false;
+		}
+		return (directives.contains("max-age") || directives.contains("s-maxage") ||
+				headers.containsKey(HttpHeaders.EXPIRES) || hasValidator(headers));
+	}
+
+	private static boolean hasValidator(HttpHeaders headers) {
+		return (headers.getETag() != null || headers.containsKey(HttpHeaders.LAST_MODIFIED));
+	}
+
+	private static Map<String, List<String>> getVaryHeaders(ClientRequest request, HttpHeaders responseHeaders) {
+		List<String> vary = responseHeaders.getVary();
+		if (vary.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<String>> result = new LinkedHashMap<>(vary.size());
+		for (String name : vary) {
+			List<String> values = request.headers().get(name);
+			result.put(name.toLowerCase(Locale.ENGLISH), values != null ? values : Collections.emptyList());
+		}
+		return result;
+	}
+
+	private ClientResponseCache.CachedResponse revalidated(ClientResponseCache.CachedResponse cached,
+			HttpHeaders notModifiedHeaders) {
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(cached.getHeaders());
+		notModifiedHeaders.forEach((name, values) -> {
+			if (!NOT_MODIFIED_IGNORED_HEADERS.contains(name)) {
+				headers.put(name, values);
+			}
+		});
+		return new ClientResponseCache.CachedResponse(cached.getStatusCode(), headers, cached.getBody(),
+				this.clock.instant(), cached.getVaryHeaders());
+	}
+
+	/**
+	 * Return the current age of the given response, in milliseconds.
+	 */
+	private long getAge(ClientResponseCache.CachedResponse cached) {
+		long age = Math.max(0, this.clock.millis() - cached.getResponseTime().toEpochMilli());
+		String ageHeader = cached.getHeaders().getFirst(HttpHeaders.AGE);
+		if (ageHeader != null) {
+			try {
+				age += Math.max(0, Long.parseLong(ageHeader.trim())) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				// ignore invalid Age header
+			}
+		}
+		return age;
+	}
+
+	/**
+	 * Return the freshness lifetime of the given response, in milliseconds.
+	 */
+	private long getFreshnessLifetime(ClientResponseCache.CachedResponse cached, CacheDirectives directives) {
+		if (this.sharedCache && directives.getSeconds("s-maxage") != -1) {
+			return directives.getSeconds("s-maxage") * 1000;
+		}
+		if (directives.getSeconds("max-age") != -1) {
+			return directives.getSeconds("max-age") * 1000;
+		}
+		HttpHeaders headers = cached.getHeaders();
+		if (headers.containsKey(HttpHeaders.EXPIRES)) {
+			long expires = headers.getExpires();
+			long date = headers.getDate();
+			if (date == -1) {
+				date = cached.getResponseTime().toEpochMilli();
+			}
+			return Math.max(0, expires - date);
+		}
+		return 0;
+	}
+
+	private ClientResponse createResponse(ClientResponseCache.CachedResponse cached, long age) {
+		return ClientResponse.create(cached.getStatusCode(), this.strategies)
+				.headers(headers -> {
+					headers.addAll(cached.getHeaders());
+					headers.set(HttpHeaders.AGE, Long.toString(Duration.ofMillis(age).getSeconds()));
+				})
+				.body(Flux.defer(() -> Flux.just(this.bufferFactory.wrap(cached.getBody()))))
+				.build();
+	}
+
+
+	/**
+	 * The directives of a {@code Cache-Control} header, keyed by lower case name.
+	 */
+	private static final class CacheDirectives {
+
+		private static final CacheDirectives EMPTY = new CacheDirectives(Collections.emptyMap());
+
+		private final Map<String, String> directives;
+
+		private CacheDirectives(Map<String, String> directives) {
+			this.directives = directives;
+		}
+
+		public boolean contains(String name) {
+			return this.directives.containsKey(name);
+		}
+
+		/**
+		 * Return the value of the given directive in seconds, or -1 if absent or invalid.
+		 */
+		public long getSeconds(String name) {
+			String value = this.directives.get(name);
+			if (value == null) {
+				return -1;
+			}
+			try {
+				return Math.max(0, Long.parseLong(value));
+			}
+			catch (NumberFormatException ex) {
+				return -1;
+			}
+		}
+
+		public static CacheDirectives parse(HttpHeaders headers) {
+			List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+			if (values == null || values.isEmpty()) {
+				return EMPTY;
+			}
+			Map<String, String> directives = new LinkedHashMap<>();
+			for (String value : values) {
+				for (String token : StringUtils.tokenizeToStringArray(value, ",")) {
+					int index = token.indexOf('=');
+					if (index == -1) {
+						directives.put(token.toLowerCase(Locale.ENGLISH), "");
+					}
+					else {
+						String name = token.substring(0, index).trim().toLowerCase(Locale.ENGLISH);
+						directives.put(name, StringUtils.trimTrailingCharacter(
+								StringUtils.trimLeadingCharacter(token.substring(index + 1).trim(), '"'), '"'));
+					}
+				}
+			}
+			return new CacheDirectives(directives);
+		}
+	}
+
+}
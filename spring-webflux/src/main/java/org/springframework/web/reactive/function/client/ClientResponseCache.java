@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Strategy for storing the responses cached by a
+ * {@link CachingExchangeFilterFunction}.
+ *
+ * <p>Implementations must be thread-safe, and are expected to bound the
+ * number of entries they hold. {@link InMemoryClientResponseCache} is the
+ * default implementation.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ * @see CachingExchangeFilterFunction
+ */
+public interface ClientResponseCache {
+
+	/**
+	 * Return the response stored under the given key.
+	 * @param key the cache key
+	 * @return the stored response, or {@code null} if none
+	 */
+	@Nullable
+	CachedResponse get(String key);
+
+	/**
+	 * Store the given response under the given key, replacing any existing entry.
+	 * @param key the cache key
+	 * @param response the response to store
+	 */
+	void put(String key, CachedResponse response);
+
+	/**
+	 * Remove the response stored under the given key, if any.
+	 * @param key the cache key
+	 */
+	void evict(String key);
+
+
+	/**
+	 * A fully buffered response, together with the time it was received and the
+	 * values of the request headers it {@linkplain HttpHeaders#VARY varies} on.
+	 */
+	final class CachedResponse {
+
+		private final HttpStatus statusCode;
+
+		private final HttpHeaders headers;
+
+		private final byte[] body;
+
+		private final Instant responseTime;
+
+		private final Map<String, List<String>> varyHeaders;
+
+
+		/**
+		 * Create a new {@code CachedResponse}.
+		 * @param statusCode the response status
+		 * @param headers the response headers
+		 * @param body the response body
+		 * @param responseTime the time at which the response was received
+		 * @param varyHeaders the request headers selected by the {@code Vary}
+		 * response header, keyed by lower case name
+		 */
+		public CachedResponse(HttpStatus statusCode, HttpHeaders headers, byte[] body,
+				Instant responseTime, Map<String, List<String>> varyHeaders) {
+
+			Assert.notNull(statusCode, "HttpStatus must not be null");
+			Assert.notNull(headers, "HttpHeaders must not be null");
+			Assert.notNull(body, "Body must not be null");
+			Assert.notNull(responseTime, "Response time must not be null");
+			Assert.notNull(varyHeaders, "Vary headers must not be null");
+			this.statusCode = statusCode;
+			this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+			this.body = body;
+			this.responseTime = responseTime;
+			this.varyHeaders = Collections.unmodifiableMap(varyHeaders);
+		}
+
+
+		/**
+		 * Return the status of the response.
+		 */
+		public HttpStatus getStatusCode() {
+			return this.statusCode;
+		}
+
+		/**
+		 * Return the headers of the response.
+		 */
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		/**
+		 * Return the body of the response. The returned array must not be modified.
+		 */
+		public byte[] getBody() {
+			return this.body;
+		}
+
+		/**
+		 * Return the time at which the response was received or last revalidated.
+		 */
+		public Instant getResponseTime() {
+			return this.responseTime;
+		}
+
+		/**
+		 * Return the request headers selected by the {@code Vary} response header.
+		 */
+		public Map<String, List<String>> getVaryHeaders() {
+			return this.varyHeaders;
+		}
+
+		/**
+		 * Indicate whether this response may be used for a request with the
+		 * given headers, i.e. whether the headers it varies on match.
+		 * @param requestHeaders the headers of the request
+		 */
+		public boolean matches(HttpHeaders requestHeaders) {
+			for (Map.Entry<String, List<String>> entry : this.varyHeaders.entrySet()) {
+				List<String> values = requestHeaders.get(entry.getKey());
+				if (!Objects.equals(values != null ? values : Collections.emptyList(), entry.getValue())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "CachedResponse [" + this.statusCode + ", " + this.body.length + " bytes, received " +
+					this.responseTime + "]";
+		}
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyExtractors;
+
+/**
+ * {@link ExchangeFilterFunction} that deduplicates concurrent identical
+ * requests into a single exchange. Requests are identical when they have the
+ * same method, URL, headers, and cookies; only {@code GET}, {@code HEAD}, and
+ * {@code OPTIONS} requests are coalesced.
+ *
+ * <p>The body of the shared response is buffered, and each request receives
+ * its own {@link ClientResponse} over the buffered content. Responses with a
+ * body larger than the {@linkplain #setMaxBodySize maximum body size} are
+ * handed to one of the requests only, with the others performing their own
+ * exchange. The shared exchange is cancelled once all requests that wait for
+ * it have been cancelled.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+public class CoalescingExchangeFilterFunction implements ExchangeFilterFunction {
+
+	/**
+	 * The default maximum size of a shared response body, in bytes.
+	 */
+	public static final int DEFAULT_MAX_BODY_SIZE = 256 * 1024;
+
+	private static final Set<HttpMethod> COALESCED_METHODS =
+			Collections.unmodifiableSet(EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS));
+
+
+	private final Map<List<Object>, Mono<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+	private final LongAdder requestCount = new LongAdder();
+
+	private final LongAdder coalescedCount = new LongAdder();
+
+
+	/**
+	 * Configure the maximum size of a response body that is shared, in bytes.
+	 * <p>By default this is set to {@link #DEFAULT_MAX_BODY_SIZE}.
+	 */
+	public void setMaxBodySize(int maxBodySize) {
+		Assert.isTrue(maxBodySize >= 0, "'maxBodySize' must not be negative");
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * Return the configured maximum body size.
+	 */
+	public int getMaxBodySize() {
+		return this.maxBodySize;
+	}
+
+	/**
+	 * Return the number of requests that were eligible for coalescing.
+	 */
+	public long getRequestCount() {
+		return this.requestCount.sum();
+	}
+
+	/**
+	 * Return the number of requests that joined an exchange already in flight.
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.sum();
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (!COALESCED_METHODS.contains(request.method())) {
+			return next.exchange(request);
+		}
+		List<Object> key = Arrays.asList(request.method(), request.url(), request.headers(), request.cookies());
+		return Mono.defer(() -> {
+			this.requestCount.increment();
+			Mono<SharedResponse> shared = this.inFlight.get(key);
+			if (shared == null) {
+				Mono<SharedResponse> created = share(key, request, next);
+				shared = this.inFlight.putIfAbsent(key, created);
+				if (shared == null) {
+					shared = created;
+				}
+				else {
+					this.coalescedCount.increment();
+				}
+			}
+			else {
+				this.coalescedCount.increment();
+			}
+			// A request that joins after the shared exchange completed gets no
+			// signal from it, and performs its own exchange instead
+			return shared
+					.flatMap(response -> {
+						ClientResponse result = response.createResponse();
+						return (result != null ? Mono.just(result) : next.exchange(request));
+					})
+					.switchIfEmpty(Mono.defer(() -> next.exchange(request)));
+		});
+	}
+
+	private Mono<SharedResponse> share(List<Object> key, ClientRequest request, ExchangeFunction next) {
+		AtomicReference<Mono<SharedResponse>> self = new AtomicReference<>();
+		Mono<SharedResponse> shared = next.exchange(request)
+				.flatMap(this::toSharedResponse)
+				.doFinally(signalType -> this.inFlight.remove(key, self.get()))
+				.flux()
+				.publish()
+				.refCount()
+				.singleOrEmpty();
+		self.set(shared);
+		return shared;
+	}
+
+	private Mono<SharedResponse> toSharedResponse(ClientResponse response) {
+		HttpStatus status = HttpStatus.resolve(response.rawStatusCode());
+		if (status == null || response.headers().contentLength().orElse(0) > this.maxBodySize) {
+			return Mono.just(new SharedResponse(response));
+		}
+		return BoundedBodyAggregator.aggregate(response.body(BodyExtractors.toDataBuffers()), this.maxBodySize)
+				.map(aggregated -> {
+					byte[] bytes = aggregated.getContent();
+					if (bytes == null) {
+						return new SharedResponse(ClientResponse.from(response).body(aggregated.getBody()).build());
+					}
+					return new SharedResponse(status, response, bytes);
+				});
+	}
+
+
+	/**
+	 * The outcome of a shared exchange: either a buffered response, or a
+	 * response that can be handed to a single request only.
+	 */
+	private class SharedResponse {
+
+		@Nullable
+		private final HttpStatus status;
+
+		@Nullable
+		private final HttpHeaders headers;
+
+		@Nullable
+		private final MultiValueMap<String, ResponseCookie> cookies;
+
+		@Nullable
+		private final ExchangeStrategies strategies;
+
+		@Nullable
+		private final byte[] body;
+
+		@Nullable
+		private final ClientResponse unshared;
+
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		SharedResponse(HttpStatus status, ClientResponse response, byte[] body) {
+			this.status = status;
+			this.headers = response.headers().asHttpHeaders();
+			this.cookies = response.cookies();
+			this.strategies = response.strategies();
+			this.body = body;
+			this.unshared = null;
+		}
+
+		SharedResponse(ClientResponse unshared) {
+			this.status = null;
+			this.headers = null;
+			this.cookies = null;
+			this.strategies = null;
+			this.body = null;
+			this.unshared = unshared;
+		}
+
+		/**
+		 * Create a response for a single request, or return {@code null} if
+		 * the response cannot be shared and was already handed out.
+		 */
+		@Nullable
+		public ClientResponse createResponse() {
+			if (this.unshared != null) {
+				return (this.claimed.compareAndSet(false, true) ? this.unshared : null);
+			}
+			Assert.state(this.status != null && this.strategies != null, "No buffered response");
+			byte[] content = this.body;
+			return ClientResponse.create(this.status, this.strategies)
+					.headers(headers -> headers.addAll(this.headers))
+					.cookies(cookies -> cookies.addAll(this.cookies))
+					.body(Flux.defer(() -> Flux.just(bufferFactory.wrap(content))))
+					.build();
+		}
+	}
+
+}
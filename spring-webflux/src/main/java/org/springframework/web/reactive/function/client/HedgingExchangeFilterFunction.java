@@ -0,0 +1,378 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ExchangeFilterFunction} that issues a hedged duplicate of a request
+ * when no response has been received after a given percentile of recently
+ * observed latencies. The first response wins, and the other exchange is
+ * cancelled. Only {@code GET}, {@code HEAD}, and {@code OPTIONS} requests are
+ * hedged.
+ *
+ * <p>Latencies are measured from the start of a request up to the reception
+ * of the first response headers, including any time spent before a hedge was
+ * issued, and kept in a window of the most recent samples. Hedging starts once
+ * {@linkplain #setMinSamples enough samples} have been collected.
+ *
+ * <p>The effect of hedging can be monitored through the
+ * {@linkplain #getHedgeCount() number of hedged requests}, the
+ * {@linkplain #getHedgeWinCount() number of times the hedge won}, and the
+ * {@linkplain #getEstimatedSavedTime() estimated time saved}.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+public class HedgingExchangeFilterFunction implements ExchangeFilterFunction {
+
+	/**
+	 * The default number of latency samples to keep.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+	private static final Set<HttpMethod> HEDGED_METHODS =
+			Collections.unmodifiableSet(EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS));
+
+
+	private final double percentile;
+
+	private final long[] samples;
+
+	private int sampleIndex;
+
+	private int sampleCount;
+
+	private int samplesSinceUpdate;
+
+	private volatile long hedgeDelay = -1;
+
+	private int minSamples = 100;
+
+	private Duration minHedgeDelay = Duration.ZERO;
+
+	private Scheduler scheduler = Schedulers.parallel();
+
+	private final LongAdder requestCount = new LongAdder();
+
+	private final LongAdder hedgeCount = new LongAdder();
+
+	private final LongAdder hedgeWinCount = new LongAdder();
+
+	private final LongAdder savedNanos = new LongAdder();
+
+
+	/**
+	 * Create a new {@code HedgingExchangeFilterFunction} with the default window size.
+	 * @param percentile the latency percentile after which to hedge, e.g. 0.95
+	 */
+	public HedgingExchangeFilterFunction(double percentile) {
+		this(percentile, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Create a new {@code HedgingExchangeFilterFunction}.
+	 * @param percentile the latency percentile after which to hedge, e.g. 0.95
+	 * @param windowSize the number of latency samples to keep
+	 */
+	public HedgingExchangeFilterFunction(double percentile, int windowSize) {
+		Assert.isTrue(percentile > 0 && percentile < 1, "'percentile' must be between 0 and 1");
+		Assert.isTrue(windowSize > 0, "'windowSize' must be greater than 0");
+		this.percentile = percentile;
+		this.samples = new long[windowSize];
+	}
+
+
+	/**
+	 * Configure the number of latency samples required before requests are hedged.
+	 * <p>By default this is set to 100.
+	 */
+	public void setMinSamples(int minSamples) {
+		Assert.isTrue(minSamples > 0, "'minSamples' must be greater than 0");
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * Return the configured minimum number of samples.
+	 */
+	public int getMinSamples() {
+		return this.minSamples;
+	}
+
+	/**
+	 * Configure a lower bound for the hedge delay, to avoid duplicating
+	 * requests to a backend that is uniformly fast.
+	 * <p>By default this is set to {@link Duration#ZERO}.
+	 */
+	public void setMinHedgeDelay(Duration minHedgeDelay) {
+		Assert.notNull(minHedgeDelay, "'minHedgeDelay' must not be null");
+		this.minHedgeDelay = minHedgeDelay;
+	}
+
+	/**
+	 * Return the configured minimum hedge delay.
+	 */
+	public Duration getMinHedgeDelay() {
+		return this.minHedgeDelay;
+	}
+
+	/**
+	 * Configure the scheduler used to time hedged requests.
+	 * <p>By default this is {@link Schedulers#parallel()}.
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Return the current delay after which requests are hedged, or
+	 * {@code null} if not enough latency samples have been collected yet.
+	 */
+	@Nullable
+	public Duration getHedgeDelay() {
+		long delay = this.hedgeDelay;
+		return (delay != -1 ? Duration.ofNanos(delay) : null);
+	}
+
+	/**
+	 * Return the number of requests that were eligible for hedging.
+	 */
+	public long getRequestCount() {
+		return this.requestCount.sum();
+	}
+
+	/**
+	 * Return the number of requests for which a hedge was issued.
+	 */
+	public long getHedgeCount() {
+		return this.hedgeCount.sum();
+	}
+
+	/**
+	 * Return the number of hedges that received a response before the
+	 * original request.
+	 */
+	public long getHedgeWinCount() {
+		return this.hedgeWinCount.sum();
+	}
+
+	/**
+	 * Return the fraction of eligible requests for which a hedge was issued.
+	 */
+	public double getHedgeRate() {
+		long requests = getRequestCount();
+		return (requests > 0 ? (double) getHedgeCount() / requests : 0);
+	}
+
+	/**
+	 * Return the estimated total time saved by hedges that won. For each win,
+	 * the remaining latency of the cancelled request is estimated as the mean
+	 * of the recorded latencies beyond the time it had been waiting.
+	 */
+	public Duration getEstimatedSavedTime() {
+		return Duration.ofNanos(this.savedNanos.sum());
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (!HEDGED_METHODS.contains(request.method())) {
+			return next.exchange(request);
+		}
+		return Mono.defer(() -> {
+			this.requestCount.increment();
+			long delay = this.hedgeDelay;
+			if (delay == -1) {
+				long startTime = System.nanoTime();
+				return next.exchange(request).doOnNext(response -> recordLatency(System.nanoTime() - startTime));
+			}
+			return Mono.create(sink -> new HedgedExchange(request, next, sink).start(delay));
+		});
+	}
+
+	private void recordLatency(long nanos) {
+		synchronized (this.samples) {
+			this.samples[this.sampleIndex] = nanos;
+			this.sampleIndex = (this.sampleIndex + 1) % this.samples.length;
+			this.sampleCount = Math.min(this.sampleCount + 1, this.samples.length);
+			this.samplesSinceUpdate++;
+			// Sorting the window is relatively expensive, so only do so for every tenth of it
+			if (this.sampleCount >= this.minSamples &&
+					(this.hedgeDelay == -1 || this.samplesSinceUpdate >= Math.max(1, this.samples.length / 10))) {
+				long[] sorted = Arrays.copyOf(this.samples, this.sampleCount);
+				Arrays.sort(sorted);
+				int index = Math.max(0, (int) Math.ceil(this.percentile * sorted.length) - 1);
+				this.hedgeDelay = Math.max(this.minHedgeDelay.toNanos(), sorted[index]);
+				this.samplesSinceUpdate = 0;
+			}
+		}
+	}
+
+	/**
+	 * Estimate the remaining latency of a request that has been waiting for
+	 * the given time, based on the recorded latencies.
+	 */
+	private long estimateRemainingLatency(long elapsed) {
+		long total = 0;
+		int count = 0;
+		synchronized (this.samples) {
+			for (int i = 0; i < this.sampleCount; i++) {
+				if (this.samples[i] > elapsed) {
+					total += this.samples[i] - elapsed;
+					count++;
+				}
+			}
+		}
+		return (count > 0 ? total / count : 0);
+	}
+
+
+	/**
+	 * A single request, with its hedge.
+	 */
+	private class HedgedExchange {
+
+		private final ClientRequest request;
+
+		private final ExchangeFunction next;
+
+		private final MonoSink<ClientResponse> sink;
+
+		private final AtomicBoolean done = new AtomicBoolean();
+
+		private final AtomicInteger outstanding = new AtomicInteger(1);
+
+		private final Disposable.Swap primary = Disposables.swap();
+
+		private final Disposable.Swap hedge = Disposables.swap();
+
+		private final Disposable.Swap timer = Disposables.swap();
+
+		@Nullable
+		private volatile Disposable winner;
+
+		@Nullable
+		private volatile Throwable error;
+
+		private long startTime;
+
+		HedgedExchange(ClientRequest request, ExchangeFunction next, MonoSink<ClientResponse> sink) {
+			this.request = request;
+			this.next = next;
+			this.sink = sink;
+		}
+
+		public void start(long delay) {
+			this.startTime = System.nanoTime();
+			this.sink.onCancel(() -> this.done.set(true));
+			// On success, error, or cancellation: stop the timer and any exchange that did not win
+			this.sink.onDispose(() -> {
+				Disposable winner = this.winner;
+				this.timer.dispose();
+				if (winner != this.primary) {
+					this.primary.dispose();
+				}
+				if (winner != this.hedge) {
+					this.hedge.dispose();
+				}
+			});
+			this.timer.update(Mono.delay(Duration.ofNanos(delay), scheduler).subscribe(l -> startHedge()));
+			this.primary.update(exchange(false));
+		}
+
+		private Disposable exchange(boolean isHedge) {
+			return this.next.exchange(this.request)
+					.subscriberContext(this.sink.currentContext())
+					.subscribe(response -> onResponse(response, isHedge), this::onError, this::onComplete);
+		}
+
+		private void startHedge() {
+			while (true) {
+				int count = this.outstanding.get();
+				if (count == 0 || this.done.get()) {
+					return;
+				}
+				if (this.outstanding.compareAndSet(count, count + 1)) {
+					break;
+				}
+			}
+			hedgeCount.increment();
+			this.hedge.update(exchange(true));
+		}
+
+		private void onResponse(ClientResponse response, boolean isHedge) {
+			if (this.done.compareAndSet(false, true)) {
+				// Record the latency of the request as a whole, rather than that of the winning
+				// attempt alone, which would skew the samples towards hedges that started late
+				long now = System.nanoTime();
+				recordLatency(now - this.startTime);
+				if (isHedge) {
+					hedgeWinCount.increment();
+					savedNanos.add(estimateRemainingLatency(now - this.startTime));
+				}
+				this.winner = (isHedge ? this.hedge : this.primary);
+				this.sink.success(response);
+			}
+			else {
+				// Lost the race: consume and release the body
+				response.bodyToMono(Void.class).subscribe(null, ex -> {});
+			}
+		}
+
+		private void onError(Throwable ex) {
+			this.error = ex;
+			onAttemptFailed();
+		}
+
+		private void onComplete() {
+			// Also called after a response, in which case this exchange is already done
+			onAttemptFailed();
+		}
+
+		private void onAttemptFailed() {
+			if (this.outstanding.decrementAndGet() == 0 && this.done.compareAndSet(false, true)) {
+				Throwable ex = this.error;
+				if (ex != null) {
+					this.sink.error(ex);
+				}
+				else {
+					this.sink.success();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientResponseCache} that holds responses in memory, bounded both by
+ * the number of entries and by the total size of their bodies. When either
+ * limit is exceeded, the least recently used entries are evicted.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+public class InMemoryClientResponseCache implements ClientResponseCache {
+
+	/**
+	 * The default maximum number of entries.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/**
+	 * The default maximum total body size in bytes.
+	 */
+	public static final long DEFAULT_MAX_TOTAL_SIZE = 16 * 1024 * 1024;
+
+
+	private final int maxEntries;
+
+	private final long maxTotalSize;
+
+	private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long totalSize;
+
+
+	/**
+	 * Create a new {@code InMemoryClientResponseCache} with the default limits.
+	 */
+	public InMemoryClientResponseCache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TOTAL_SIZE);
+	}
+
+	/**
+	 * Create a new {@code InMemoryClientResponseCache} with the given limits.
+	 * @param maxEntries the maximum number of entries
+	 * @param maxTotalSize the maximum total body size in bytes
+	 */
+	public InMemoryClientResponseCache(int maxEntries, long maxTotalSize) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be greater than 0");
+		Assert.isTrue(maxTotalSize > 0, "'maxTotalSize' must be greater than 0");
+		this.maxEntries = maxEntries;
+		this.maxTotalSize = maxTotalSize;
+	}
+
+
+	@Override
+	@Nullable
+	public CachedResponse get(String key) {
+		synchronized (this.entries) {
+			return this.entries.get(key);
+		}
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		if (response.getBody().length > this.maxTotalSize) {
+			evict(key);
+			return;
+		}
+		synchronized (this.entries) {
+			CachedResponse previous = this.entries.put(key, response);
+			if (previous != null) {
+				this.totalSize -= previous.getBody().length;
+			}
+			this.totalSize += response.getBody().length;
+			Iterator<CachedResponse> iterator = this.entries.values().iterator();
+			while (this.entries.size() > this.maxEntries || this.totalSize > this.maxTotalSize) {
+				this.totalSize -= iterator.next().getBody().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	@Override
+	public void evict(String key) {
+		synchronized (this.entries) {
+			CachedResponse previous = this.entries.remove(key);
+			if (previous != null) {
+				this.totalSize -= previous.getBody().length;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of entries currently held.
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * Return the total body size of the entries currently held, in bytes.
+	 */
+	public long getTotalSize() {
+		synchronized (this.entries) {
+			return this.totalSize;
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.totalSize = 0;
+		}
+	}
+
+}
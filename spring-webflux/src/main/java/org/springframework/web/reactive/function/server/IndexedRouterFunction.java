@@ -0,0 +1,435 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Router function that composes a list of router functions, like
+ * {@link RouterFunction#and(RouterFunction)} does, but only invokes the ones
+ * that can match a given request.
+ *
+ * <p>On creation, the {@linkplain RequestPredicates.Visitor structure} of each
+ * router function is analyzed to determine the HTTP methods it requires, and
+ * the leading literal path segments of the patterns it matches. Router
+ * functions are then indexed by method and first path segment, so that a
+ * request is only tested against candidates that satisfy both. Candidates
+ * are invoked in their original order, preserving the semantics of
+ * {@code and}.
+ *
+ * @author Arjen Poutsma
+ * @since 5.2
+ */
+final class IndexedRouterFunction implements RouterFunction<ServerResponse> {
+
+	private static final int[] NO_CANDIDATES = new int[0];
+
+
+	private final List<RouterFunction<ServerResponse>> routerFunctions;
+
+	private final RouteConditions[] conditions;
+
+	private final Map<HttpMethod, Index> methodIndexes = new EnumMap<>(HttpMethod.class);
+
+	private final Index unknownMethodIndex;
+
+
+	public IndexedRouterFunction(List<RouterFunction<ServerResponse>> routerFunctions) {
+		Assert.notEmpty(routerFunctions, "RouterFunctions must not be empty");
+		this.routerFunctions = new ArrayList<>(routerFunctions);
+		this.conditions = new RouteConditions[routerFunctions.size()];
+		for (int i = 0; i < this.conditions.length; i++) {
+			ConditionsVisitor visitor = new ConditionsVisitor();
+			routerFunctions.get(i).accept(visitor);
+			this.conditions[i] = visitor.getConditions();
+		}
+		for (HttpMethod method : HttpMethod.values()) {
+			this.methodIndexes.put(method, new Index(method));
+		}
+		this.unknownMethodIndex = new Index(null);
+	}
+
+
+	@Override
+	public Mono<HandlerFunction<ServerResponse>> route(ServerRequest request) {
+		HttpMethod method = request.method();
+		Index index = (method != null ? this.methodIndexes.get(method) : this.unknownMethodIndex);
+		List<String> segments = null;
+		int[] candidates = index.defaultCandidates;
+		if (!index.segmentCandidates.isEmpty()) {
+			segments = getSegments(request.pathContainer());
+			if (!segments.isEmpty()) {
+				candidates = index.segmentCandidates.getOrDefault(segments.get(0), index.defaultCandidates);
+			}
+		}
+		return route(request, candidates, 0, segments);
+	}
+
+	private Mono<HandlerFunction<ServerResponse>> route(ServerRequest request, int[] candidates, int offset,
+			@Nullable List<String> segments) {
+
+		for (int i = offset; i < candidates.length; i++) {
+			int candidate = candidates[i];
+			if (segments == null || this.conditions[candidate].matchesSegments(segments)) {
+				int next = i + 1;
+				return this.routerFunctions.get(candidate).route(request)
+						.switchIfEmpty(Mono.defer(() -> route(request, candidates, next, segments)));
+			}
+		}
+		return Mono.empty();
+	}
+
+	@Override
+	public void accept(RouterFunctions.Visitor visitor) {
+		for (RouterFunction<ServerResponse> routerFunction : this.routerFunctions) {
+			routerFunction.accept(visitor);
+		}
+	}
+
+	@Override
+	public String toString() {
+		ToStringVisitor visitor = new ToStringVisitor();
+		accept(visitor);
+		return visitor.toString();
+	}
+
+
+	/**
+	 * Return the decoded, lower case, non-empty path segments of the given path.
+	 */
+	private static List<String> getSegments(PathContainer path) {
+		List<String> result = new ArrayList<>();
+		for (PathContainer.Element element : path.elements()) {
+			if (element instanceof PathContainer.PathSegment) {
+				String value = ((PathContainer.PathSegment) element).valueToMatch();
+				if (!value.isEmpty()) {
+					result.add(value.toLowerCase(Locale.ENGLISH));
+				}
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Candidate router functions for a single HTTP method, keyed by first
+	 * path segment.
+	 */
+	private final class Index {
+
+		private final int[] defaultCandidates;
+
+		private final Map<String, int[]> segmentCandidates = new HashMap<>();
+
+		Index(@Nullable HttpMethod method) {
+			List<Integer> defaults = new ArrayList<>();
+			Map<String, List<Integer>> bySegment = new HashMap<>();
+			for (int i = 0; i < conditions.length; i++) {
+				RouteConditions condition = conditions[i];
+				if (!condition.matchesMethod(method)) {
+					continue;
+				}
+				Integer candidate = i;
+				if (condition.segments.isEmpty()) {
+					defaults.add(candidate);
+					bySegment.values().forEach(list -> list.add(candidate));
+				}
+				else {
+					String segment = condition.segments.get(0);
+					bySegment.computeIfAbsent(segment, s -> new ArrayList<>(defaults)).add(candidate);
+				}
+			}
+			this.defaultCandidates = toArray(defaults);
+			bySegment.forEach((segment, list) -> this.segmentCandidates.put(segment, toArray(list)));
+		}
+
+		private int[] toArray(List<Integer> list) {
+			return (list.isEmpty() ? NO_CANDIDATES : list.stream().mapToInt(Integer::intValue).toArray());
+		}
+	}
+
+
+	/**
+	 * Necessary conditions for a router function to match: the HTTP methods
+	 * it accepts ({@code null} for any), and the lower case literal path
+	 * segments that the request path must start with.
+	 */
+	static final class RouteConditions {
+
+		static final RouteConditions ANY = new RouteConditions(null, Collections.emptyList());
+
+		@Nullable
+		final Set<HttpMethod> methods;
+
+		final List<String> segments;
+
+		RouteConditions(@Nullable Set<HttpMethod> methods, List<String> segments) {
+			this.methods = methods;
+			this.segments = segments;
+		}
+
+		boolean matchesMethod(@Nullable HttpMethod method) {
+			return (this.methods == null || (method != null && this.methods.contains(method)));
+		}
+
+		boolean matchesSegments(List<String> requestSegments) {
+			if (requestSegments.size() < this.segments.size()) {
+				return false;
+			}
+			for (int i = 0; i < this.segments.size(); i++) {
+				if (!this.segments.get(i).equals(requestSegments.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Conditions that hold when both the given conditions hold.
+		 */
+		RouteConditions and(RouteConditions other) {
+			Set<HttpMethod> methods = this.methods;
+			if (methods == null) {
+				methods = other.methods;
+			}
+			else if (other.methods != null) {
+				methods = EnumSet.noneOf(HttpMethod.class);
+				methods.addAll(this.methods);
+				methods.retainAll(other.methods);
+			}
+			List<String> segments = this.segments;
+			if (other.segments.size() > segments.size()) {
+				segments = other.segments;
+			}
+			// Keep only the longest consistent prefix, to remain conservative
+			List<String> shorter = (segments == this.segments ? other.segments : this.segments);
+			if (!segments.subList(0, shorter.size()).equals(shorter)) {
+				segments = Collections.emptyList();
+			}
+			return new RouteConditions(methods, segments);
+		}
+
+		/**
+		 * Conditions that hold when either of the given conditions holds.
+		 */
+		RouteConditions or(RouteConditions other) {
+			Set<HttpMethod> methods = null;
+			if (this.methods != null && other.methods != null) {
+				methods = EnumSet.noneOf(HttpMethod.class);
+				methods.addAll(this.methods);
+				methods.addAll(other.methods);
+			}
+			int common = 0;
+			while (common < this.segments.size() && common < other.segments.size() &&
+					this.segments.get(common).equals(other.segments.get(common))) {
+				common++;
+			}
+			return new RouteConditions(methods, this.segments.subList(0, common));
+		}
+
+		/**
+		 * Return the lower case literal segments at the start of the given pattern.
+		 */
+		static List<String> literalSegments(String pattern) {
+			List<String> result = new ArrayList<>();
+			for (String segment : pattern.split("/")) {
+				if (segment.isEmpty()) {
+					continue;
+				}
+				if (!isLiteral(segment)) {
+					break;
+				}
+				result.add(segment.toLowerCase(Locale.ENGLISH));
+			}
+			return result;
+		}
+
+		private static boolean isLiteral(String segment) {
+			for (int i = 0; i < segment.length(); i++) {
+				char c = segment.charAt(i);
+				if (c == '{' || c == '}' || c == '*' || c == '?' || c == '%' || c == ';') {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Determines the {@link RouteConditions} of a router function, by
+	 * evaluating the structure of its predicates. Predicates that cannot be
+	 * indexed are treated as matching any request.
+	 */
+	private static final class ConditionsVisitor implements RouterFunctions.Visitor, RequestPredicates.Visitor {
+
+		@Nullable
+		private RouteConditions result;
+
+		private final Deque<RouteConditions> stack = new ArrayDeque<>();
+
+		private int nestingLevel;
+
+		RouteConditions getConditions() {
+			return (this.result != null ? this.result : RouteConditions.ANY);
+		}
+
+		private void addRoute(RouteConditions conditions) {
+			this.result = (this.result != null ? this.result.or(conditions) : conditions);
+		}
+
+		private RouteConditions evaluate(RequestPredicate predicate) {
+			this.stack.clear();
+			predicate.accept(this);
+			return (this.stack.size() == 1 ? this.stack.pop() : RouteConditions.ANY);
+		}
+
+		// RouterFunctions.Visitor
+
+		@Override
+		public void startNested(RequestPredicate predicate) {
+			if (this.nestingLevel++ == 0) {
+				addRoute(evaluate(predicate));
+			}
+		}
+
+		@Override
+		public void endNested(RequestPredicate predicate) {
+			this.nestingLevel--;
+		}
+
+		@Override
+		public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+			if (this.nestingLevel == 0) {
+				addRoute(evaluate(predicate));
+			}
+		}
+
+		@Override
+		public void resources(Function<ServerRequest, Mono<Resource>> lookupFunction) {
+			if (this.nestingLevel == 0) {
+				addRoute(RouteConditions.ANY);
+			}
+		}
+
+		@Override
+		public void unknown(RouterFunction<?> routerFunction) {
+			if (this.nestingLevel == 0) {
+				addRoute(RouteConditions.ANY);
+			}
+		}
+
+		// RequestPredicates.Visitor
+
+		@Override
+		public void method(Set<HttpMethod> methods) {
+			this.stack.push(new RouteConditions(new LinkedHashSet<>(methods), Collections.emptyList()));
+		}
+
+		@Override
+		public void path(String pattern) {
+			this.stack.push(new RouteConditions(null, RouteConditions.literalSegments(pattern)));
+		}
+
+		@Override
+		public void pathExtension(String extension) {
+			this.stack.push(RouteConditions.ANY);
+		}
+
+		@Override
+		public void header(String name, String value) {
+			this.stack.push(RouteConditions.ANY);
+		}
+
+		@Override
+		public void queryParam(String name, String value) {
+			this.stack.push(RouteConditions.ANY);
+		}
+
+		@Override
+		public void startAnd() {
+		}
+
+		@Override
+		public void and() {
+		}
+
+		@Override
+		public void endAnd() {
+			if (this.stack.size() >= 2) {
+				RouteConditions right = this.stack.pop();
+				RouteConditions left = this.stack.pop();
+				this.stack.push(left.and(right));
+			}
+		}
+
+		@Override
+		public void startOr() {
+		}
+
+		@Override
+		public void or() {
+		}
+
+		@Override
+		public void endOr() {
+			if (this.stack.size() >= 2) {
+				RouteConditions right = this.stack.pop();
+				RouteConditions left = this.stack.pop();
+				this.stack.push(left.or(right));
+			}
+		}
+
+		@Override
+		public void startNegate() {
+		}
+
+		@Override
+		public void endNegate() {
+			if (!this.stack.isEmpty()) {
+				this.stack.pop();
+			}
+			this.stack.push(RouteConditions.ANY);
+		}
+
+		@Override
+		public void unknown(RequestPredicate predicate) {
+			this.stack.push(RouteConditions.ANY);
+		}
+	}
+
+}
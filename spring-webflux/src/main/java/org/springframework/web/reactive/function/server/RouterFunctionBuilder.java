@@ -241,9 +241,11 @@ class RouterFunctionBuilder implements RouterFunctions.Builder {
 
 	@Override
 	public RouterFunction<ServerResponse> build() {
-		RouterFunction<ServerResponse> result = this.routerFunctions.stream()
-				.reduce(RouterFunction::and)
-				.orElseThrow(IllegalStateException::new);
+		if (this.routerFunctions.isEmpty()) {
+			throw new IllegalStateException("No routes registered");
+		}
+		RouterFunction<ServerResponse> result = (this.routerFunctions.size() == 1 ?
+				this.routerFunctions.get(0) : new IndexedRouterFunction(this.routerFunctions));
 
 		if (this.filterFunctions.isEmpty()) {
 			return result;
@@ -27,6 +27,8 @@ import java.util.function.Supplier;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.core.io.Resource;
 import org.springframework.http.codec.HttpMessageWriter;
@@ -183,6 +185,44 @@ public abstract class RouterFunctions {
 		return new ResourcesRouterFunction(lookupFunction);
 	}
 
+	/**
+	 * Declare the given {@linkplain HandlerFunction handler function} as
+	 * blocking, so that it is invoked on {@link Schedulers#elastic()} rather
+	 * than on a thread that handles non-blocking I/O. For instance
+	 * <pre class="code">
+	 * RouterFunction&lt;ServerResponse&gt; route = RouterFunctions.route()
+	 *   .GET("/people/{id}", RouterFunctions.blocking(repository::findPerson))
+	 *   .build();
+	 * </pre>
+	 * @param handlerFunction the handler function that blocks
+	 * @param <T> the type of response returned by the handler function
+	 * @return a handler function that invokes {@code handlerFunction} on a
+	 * scheduler that allows blocking
+	 * @since 5.2
+	 */
+	public static <T extends ServerResponse> HandlerFunction<T> blocking(HandlerFunction<T> handlerFunction) {
+		return blocking(handlerFunction, Schedulers.elastic());
+	}
+
+	/**
+	 * Declare the given {@linkplain HandlerFunction handler function} as
+	 * blocking, so that it is invoked on the given scheduler rather than on a
+	 * thread that handles non-blocking I/O.
+	 * @param handlerFunction the handler function that blocks
+	 * @param scheduler the scheduler to invoke the handler function on
+	 * @param <T> the type of response returned by the handler function
+	 * @return a handler function that invokes {@code handlerFunction} on
+	 * {@code scheduler}
+	 * @since 5.2
+	 */
+	public static <T extends ServerResponse> HandlerFunction<T> blocking(
+			HandlerFunction<T> handlerFunction, Scheduler scheduler) {
+
+		Assert.notNull(handlerFunction, "HandlerFunction must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		return request -> Mono.defer(() -> handlerFunction.handle(request)).subscribeOn(scheduler);
+	}
+
 	/**
 	 * Convert the given {@linkplain RouterFunction router function} into a {@link HttpHandler}.
 	 * This conversion uses {@linkplain HandlerStrategies#builder() default strategies}.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,15 +17,20 @@
 package org.springframework.web.reactive.function.server.support;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.HandlerAdapter;
 import org.springframework.web.reactive.HandlerResult;
 import org.springframework.web.reactive.function.server.HandlerFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ServerWebExchange;
 
 /**
@@ -36,6 +41,8 @@ import org.springframework.web.server.ServerWebExchange;
  */
 public class HandlerFunctionAdapter implements HandlerAdapter {
 
+	private static final Log logger = LogFactory.getLog(HandlerFunctionAdapter.class);
+
 	private static final MethodParameter HANDLER_FUNCTION_RETURN_TYPE;
 
 	static {
@@ -49,6 +56,32 @@ public class HandlerFunctionAdapter implements HandlerAdapter {
 	}
 
 
+	@Nullable
+	private Duration blockingDetectionThreshold;
+
+
+	/**
+	 * Configure a threshold for the time spent in a handler function before it
+	 * returns, beyond which a warning is logged with the handler function and
+	 * the thread it blocked. This helps to find handler functions that should
+	 * be declared {@linkplain RouterFunctions#blocking(HandlerFunction) blocking}.
+	 * <p>By default this is not set, and the time is not measured.
+	 * @since 5.2
+	 */
+	public void setBlockingDetectionThreshold(@Nullable Duration threshold) {
+		this.blockingDetectionThreshold = threshold;
+	}
+
+	/**
+	 * Return the configured blocking detection threshold, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Duration getBlockingDetectionThreshold() {
+		return this.blockingDetectionThreshold;
+	}
+
+
 	@Override
 	public boolean supports(Object handler) {
 		return handler instanceof HandlerFunction;
@@ -58,7 +91,23 @@ public class HandlerFunctionAdapter implements HandlerAdapter {
 	public Mono<HandlerResult> handle(ServerWebExchange exchange, Object handler) {
 		HandlerFunction<?> handlerFunction = (HandlerFunction<?>) handler;
 		ServerRequest request = exchange.getRequiredAttribute(RouterFunctions.REQUEST_ATTRIBUTE);
-		return handlerFunction.handle(request)
+		Duration threshold = this.blockingDetectionThreshold;
+		Mono<? extends ServerResponse> responseMono;
+		if (threshold != null && logger.isWarnEnabled()) {
+			long startTime = System.nanoTime();
+			responseMono = handlerFunction.handle(request);
+			long elapsed = System.nanoTime() - startTime;
+			if (elapsed > threshold.toNanos()) {
+				logger.warn(exchange.getLogPrefix() + "HandlerFunction " + handlerFunction +
+						" blocked thread \"" + Thread.currentThread().getName() + "\" for " +
+						Duration.ofNanos(elapsed).toMillis() + " ms");
+			}
+		}
+		else {
+			responseMono = handlerFunction.handle(request);
+		}
+		return responseMono
 				.map(response -> new HandlerResult(handlerFunction, response, HANDLER_FUNCTION_RETURN_TYPE));
 	}
+
 }
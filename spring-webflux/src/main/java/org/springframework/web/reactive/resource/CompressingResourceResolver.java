@@ -0,0 +1,432 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.ContentCodingUtils;
+
+/**
+ * Resolver that delegates to the chain, and if a resource is found and the
+ * "Accept-Encoding" request header allows gzip, returns a gzip-compressed
+ * variant of it that is compressed on first access and then kept in memory,
+ * outside of the Java heap.
+ *
+ * <p>This is an alternative to {@link EncodedResourceResolver} for resources
+ * that are not pre-encoded on disk. Compressed content is cached per resource,
+ * and re-created when the resource's last-modified date changes. The cache is
+ * bounded by the total size of compressed content, with the least recently
+ * used entries evicted first.
+ *
+ * <p>Each compressed variant also exposes a strong ETag based on an MD5 hash
+ * of the original content, which {@link ResourceWebHandler} uses for
+ * conditional requests.
+ *
+ * <p>Only resources with a {@link #setCompressibleExtensions compressible}
+ * file extension and at least {@link #setMinContentLength minContentLength}
+ * bytes long are compressed.
+ *
+ * <p>Resources are read and compressed on a separate {@link #setScheduler
+ * scheduler}, never on the calling thread, and concurrent requests for the
+ * same resource share a single compression.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ */
+public class CompressingResourceResolver extends AbstractResourceResolver {
+
+	/**
+	 * The default file extensions of resources to compress.
+	 */
+	public static final List<String> DEFAULT_COMPRESSIBLE_EXTENSIONS =
+			Arrays.asList("css", "js", "json", "map", "html", "htm", "svg", "txt", "xml");
+
+	private static final String GZIP_CODING = "gzip";
+
+
+	private final Set<String> compressibleExtensions = new LinkedHashSet<>(DEFAULT_COMPRESSIBLE_EXTENSIONS);
+
+	private int minContentLength = 1024;
+
+	private long maxCacheSize = 10 * 1024 * 1024;
+
+	private final Map<Resource, CompressedContent> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long cacheSize;
+
+	private final Map<Resource, Mono<CompressedContent>> inFlight = new ConcurrentHashMap<>();
+
+	private Scheduler scheduler = Schedulers.parallel();
+
+
+	/**
+	 * Configure the file extensions of resources to compress.
+	 * <p>By default this is set to {@link #DEFAULT_COMPRESSIBLE_EXTENSIONS}.
+	 * @param extensions the file extensions, without a leading dot
+	 */
+	public void setCompressibleExtensions(List<String> extensions) {
+		Assert.notNull(extensions, "Extensions must not be null");
+		this.compressibleExtensions.clear();
+		extensions.forEach(ext -> this.compressibleExtensions.add(ext.toLowerCase()));
+	}
+
+	/**
+	 * Return a read-only set with the file extensions of resources to compress.
+	 */
+	public Set<String> getCompressibleExtensions() {
+		return Collections.unmodifiableSet(this.compressibleExtensions);
+	}
+
+	/**
+	 * Configure the minimum size of resources to compress.
+	 * <p>By default this is set to 1024.
+	 * @param minContentLength the minimum content length in bytes
+	 */
+	public void setMinContentLength(int minContentLength) {
+		this.minContentLength = minContentLength;
+	}
+
+	/**
+	 * Return the configured minimum size of resources to compress.
+	 */
+	public int getMinContentLength() {
+		return this.minContentLength;
+	}
+
+	/**
+	 * Configure the maximum total size of compressed content to keep in memory.
+	 * Once exceeded, least recently used entries are evicted.
+	 * <p>By default this is set to 10M.
+	 * @param maxCacheSize the maximum cache size in bytes
+	 */
+	public void setMaxCacheSize(long maxCacheSize) {
+		Assert.isTrue(maxCacheSize >= 0, "'maxCacheSize' must be >= 0");
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * Return the configured maximum total size of compressed content.
+	 */
+	public long getMaxCacheSize() {
+		return this.maxCacheSize;
+	}
+
+	/**
+	 * Configure the {@link Scheduler} to read and compress resources on.
+	 * <p>By default this is set to {@link Schedulers#parallel()} since
+	 * compression is CPU-bound and resources are read only once per change.
+	 * @param scheduler the scheduler to use
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Return the configured {@link Scheduler} to compress resources on.
+	 */
+	public Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Return the current total size of cached compressed content.
+	 */
+	public long getCacheSize() {
+		synchronized (this.cache) {
+			return this.cacheSize;
+		}
+	}
+
+
+	@Override
+	protected Mono<Resource> resolveResourceInternal(@Nullable ServerWebExchange exchange,
+			String requestPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveResource(exchange, requestPath, locations).flatMap(resource -> {
+			if (exchange == null || !acceptsGzip(exchange) || !isCompressible(resource)) {
+				return Mono.just(resource);
+			}
+			return getCompressedContent(resource)
+					.<Resource>map(content -> new CompressedResource(resource, content))
+					.defaultIfEmpty(resource)
+					.onErrorResume(ex -> {
+						if (logger.isTraceEnabled()) {
+							logger.trace(exchange.getLogPrefix() +
+									"Failed to compress [" + resource.getFilename() + "]", ex);
+						}
+						return Mono.just(resource);
+					});
+		});
+	}
+
+	private boolean acceptsGzip(ServerWebExchange exchange) {
+		String acceptEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+		return ContentCodingUtils.isAccepted(acceptEncoding, GZIP_CODING);
+	}
+
+	private boolean isCompressible(Resource resource) {
+		if (resource instanceof HttpResource &&
+				((HttpResource) resource).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			return false;
+		}
+		// Transformed content differs per transformation: don't use it as a cache key
+		if (resource instanceof ByteArrayResource) {
+			return false;
+		}
+		String extension = StringUtils.getFilenameExtension(resource.getFilename());
+		return (extension != null && this.compressibleExtensions.contains(extension.toLowerCase()));
+	}
+
+	private Mono<CompressedContent> getCompressedContent(Resource resource) {
+		long lastModified;
+		try {
+			lastModified = resource.lastModified();
+		}
+		catch (IOException ex) {
+			return Mono.error(ex);
+		}
+		CompressedContent content;
+		synchronized (this.cache) {
+			content = this.cache.get(resource);
+		}
+		if (content != null && content.lastModified == lastModified) {
+			return (content.isCompressed() ? Mono.just(content) : Mono.empty());
+		}
+		return this.inFlight.computeIfAbsent(resource, key -> Mono.fromCallable(() -> compress(key, lastModified))
+				.subscribeOn(this.scheduler)
+				.doOnNext(compressed -> cache(key, compressed))
+				.doFinally(signal -> this.inFlight.remove(key))
+				.cache())
+				.filter(CompressedContent::isCompressed);
+	}
+
+	private void cache(Resource resource, CompressedContent content) {
+		synchronized (this.cache) {
+			CompressedContent previous = this.cache.put(resource, content);
+			if (previous != null) {
+				this.cacheSize -= previous.size();
+			}
+			this.cacheSize += content.size();
+			evictIfNecessary();
+		}
+	}
+
+	private CompressedContent compress(Resource resource, long lastModified) throws IOException {
+		byte[] original = StreamUtils.copyToByteArray(resource.getInputStream());
+		String eTag = "\"" + DigestUtils.md5DigestAsHex(original) + "-" + GZIP_CODING + "\"";
+		if (original.length < this.minContentLength) {
+			return new CompressedContent(null, eTag, lastModified);
+		}
+		FastByteArrayOutputStream out = new FastByteArrayOutputStream(original.length / 2 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(original);
+		}
+		if (out.size() >= original.length) {
+			return new CompressedContent(null, eTag, lastModified);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(out.size());
+		buffer.put(out.toByteArrayUnsafe());
+		buffer.flip();
+		return new CompressedContent(buffer.asReadOnlyBuffer(), eTag, lastModified);
+	}
+
+	private void evictIfNecessary() {
+		while (this.cacheSize > this.maxCacheSize && !this.cache.isEmpty()) {
+			Map.Entry<Resource, CompressedContent> eldest = this.cache.entrySet().iterator().next();
+			this.cacheSize -= eldest.getValue().size();
+			this.cache.remove(eldest.getKey());
+		}
+	}
+
+	@Override
+	protected Mono<String> resolveUrlPathInternal(String resourceUrlPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveUrlPath(resourceUrlPath, locations);
+	}
+
+
+	/**
+	 * Compressed content held outside of the heap, or a marker for content
+	 * that is not worth compressing, along with its ETag and the last-modified
+	 * date of the resource it was created from.
+	 */
+	private static final class CompressedContent {
+
+		@Nullable
+		private final ByteBuffer buffer;
+
+		private final String eTag;
+
+		private final long lastModified;
+
+		CompressedContent(@Nullable ByteBuffer buffer, String eTag, long lastModified) {
+			this.buffer = buffer;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+
+		boolean isCompressed() {
+			return (this.buffer != null);
+		}
+
+		int size() {
+			return (this.buffer != null ? this.buffer.capacity() : 0);
+		}
+
+		InputStream getInputStream() {
+			Assert.state(this.buffer != null, "No compressed content");
+			ByteBuffer content = this.buffer.duplicate();
+			if (content.hasArray()) {
+				return new ByteArrayInputStream(content.array(), content.arrayOffset(), content.remaining());
+			}
+			return new ByteBufferInputStream(content);
+		}
+	}
+
+
+	/**
+	 * InputStream over a read-only, direct ByteBuffer.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return (this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, this.buffer.remaining());
+			this.buffer.get(bytes, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+	}
+
+
+	/**
+	 * A gzip-compressed {@link HttpResource} backed by cached content.
+	 */
+	private static final class CompressedResource extends AbstractResource implements HttpResource {
+
+		private final Resource original;
+
+		private final CompressedContent content;
+
+		CompressedResource(Resource original, CompressedContent content) {
+			this.original = original;
+			this.content = content;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return this.content.getInputStream();
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public long contentLength() {
+			return this.content.size();
+		}
+
+		@Override
+		public long lastModified() {
+			return this.content.lastModified;
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.original.createRelative(relativePath);
+		}
+
+		@Override
+		@Nullable
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return "Compressed " + this.original.getDescription();
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			HttpHeaders headers;
+			if (this.original instanceof HttpResource) {
+				headers = ((HttpResource) this.original).getResponseHeaders();
+			}
+			else {
+				headers = new HttpHeaders();
+			}
+			headers.add(HttpHeaders.CONTENT_ENCODING, GZIP_CODING);
+			headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			headers.setETag(this.content.eTag);
+			return headers;
+		}
+	}
+
+}
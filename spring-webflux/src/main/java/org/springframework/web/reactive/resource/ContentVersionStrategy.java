@@ -16,14 +16,19 @@
 
 package org.springframework.web.reactive.resource;
 
+import java.io.IOException;
+import java.util.Map;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.StreamUtils;
 
@@ -32,6 +37,9 @@ import org.springframework.util.StreamUtils;
  * of the resource and appends it to the file name, e.g.
  * {@code "styles/main-e36d2e05253c6c7085a91522ce43a0b4.css"}.
  *
+ * <p>As of 5.2, calculated hashes are cached per resource and re-calculated
+ * only when the last-modified date of the resource changes.
+ *
  * @author Rossen Stoyanchev
  * @author Brian Clozel
  * @since 5.0
@@ -42,8 +50,18 @@ public class ContentVersionStrategy extends AbstractFileNameVersionStrategy {
 	private static final DataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
 
 
+	private final Map<Resource, CachedVersion> versionCache = new ConcurrentReferenceHashMap<>(64);
+
+
 	@Override
 	public Mono<String> getResourceVersion(Resource resource) {
+		long lastModified = getLastModified(resource);
+		if (lastModified != -1) {
+			CachedVersion cached = this.versionCache.get(resource);
+			if (cached != null && cached.lastModified == lastModified) {
+				return Mono.just(cached.version);
+			}
+		}
 		Flux<DataBuffer> flux =
 				DataBufferUtils.read(resource, dataBufferFactory, StreamUtils.BUFFER_SIZE);
 		return DataBufferUtils.join(flux)
@@ -51,8 +69,38 @@ public class ContentVersionStrategy extends AbstractFileNameVersionStrategy {
 					byte[] result = new byte[buffer.readableByteCount()];
 					buffer.read(result);
 					DataBufferUtils.release(buffer);
-					return DigestUtils.md5DigestAsHex(result);
+					String version = DigestUtils.md5DigestAsHex(result);
+					if (lastModified != -1) {
+						this.versionCache.put(resource, new CachedVersion(version, lastModified));
+					}
+					return version;
 				});
 	}
 
+	private static long getLastModified(Resource resource) {
+		// In-memory (e.g. transformed) content has no stable identity to cache by
+		if (resource instanceof ByteArrayResource) {
+			return -1;
+		}
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException ex) {
+			return -1;
+		}
+	}
+
+
+	private static final class CachedVersion {
+
+		private final String version;
+
+		private final long lastModified;
+
+		CachedVersion(String version, long lastModified) {
+			this.version = version;
+			this.lastModified = lastModified;
+		}
+	}
+
 }
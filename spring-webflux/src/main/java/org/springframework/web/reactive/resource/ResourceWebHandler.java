@@ -339,7 +339,9 @@ public class ResourceWebHandler implements WebHandler, InitializingBean {
 						}
 
 						// Header phase
-						if (exchange.checkNotModified(Instant.ofEpochMilli(resource.lastModified()))) {
+						String eTag = (resource instanceof HttpResource ?
+								((HttpResource) resource).getResponseHeaders().getETag() : null);
+						if (exchange.checkNotModified(eTag, Instant.ofEpochMilli(resource.lastModified()))) {
 							logger.trace(exchange.getLogPrefix() + "Resource not modified");
 							return Mono.empty();
 						}
@@ -20,11 +20,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import org.springframework.core.CoroutinesUtils;
 import org.springframework.core.DefaultParameterNameDiscoverer;
@@ -66,6 +68,12 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	private ReactiveAdapterRegistry reactiveAdapterRegistry = ReactiveAdapterRegistry.getSharedInstance();
 
+	@Nullable
+	private Scheduler invocationScheduler;
+
+	@Nullable
+	private Duration blockingDetectionThreshold;
+
 
 	/**
 	 * Create an instance from a {@code HandlerMethod}.
@@ -122,6 +130,39 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		this.reactiveAdapterRegistry = registry;
 	}
 
+	/**
+	 * Configure a scheduler to invoke the method on, once its arguments have
+	 * been resolved. This is useful for methods that block, and should not be
+	 * invoked on a thread that handles non-blocking I/O.
+	 * <p>By default this is not set, and the method is invoked on the thread
+	 * that resolved the last argument.
+	 * @since 5.2
+	 */
+	public void setInvocationScheduler(@Nullable Scheduler invocationScheduler) {
+		this.invocationScheduler = invocationScheduler;
+	}
+
+	/**
+	 * Return the configured invocation scheduler, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Scheduler getInvocationScheduler() {
+		return this.invocationScheduler;
+	}
+
+	/**
+	 * Configure a threshold for the time spent in the method itself, beyond
+	 * which a warning is logged. This helps to detect methods that block a
+	 * thread that handles non-blocking I/O. Not applied when an
+	 * {@linkplain #setInvocationScheduler invocation scheduler} is set.
+	 * <p>By default this is not set, and the time is not measured.
+	 * @since 5.2
+	 */
+	public void setBlockingDetectionThreshold(@Nullable Duration threshold) {
+		this.blockingDetectionThreshold = threshold;
+	}
+
 
 	/**
 	 * Invoke the method for the given exchange.
@@ -134,17 +175,26 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	public Mono<HandlerResult> invoke(
 			ServerWebExchange exchange, BindingContext bindingContext, Object... providedArgs) {
 
-		return getMethodArgumentValues(exchange, bindingContext, providedArgs).flatMap(args -> {
+		Mono<Object[]> argValues = getMethodArgumentValues(exchange, bindingContext, providedArgs);
+		if (this.invocationScheduler != null) {
+			argValues = argValues.publishOn(this.invocationScheduler);
+		}
+		return argValues.flatMap(args -> {
 			Object value;
 			try {
 				ReflectionUtils.makeAccessible(getBridgedMethod());
 				Method method = getBridgedMethod();
+				boolean detectBlocking = isBlockingDetectionEnabled();
+				long startTime = (detectBlocking ? System.nanoTime() : 0);
 				if (KotlinDetector.isKotlinReflectPresent() && KotlinDetector.isKotlinType(method.getDeclaringClass())) {
 					value = CoroutinesUtils.invokeHandlerMethod(method, getBean(), args);
 				}
 				else {
 					value = method.invoke(getBean(), args);
 				}
+				if (detectBlocking) {
+					logIfBlocking(exchange, System.nanoTime() - startTime);
+				}
 			}
 			catch (IllegalArgumentException ex) {
 				assertTargetBean(getBridgedMethod(), getBean(), args);
@@ -176,6 +226,20 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		});
 	}
 
+	private boolean isBlockingDetectionEnabled() {
+		return (this.blockingDetectionThreshold != null && this.invocationScheduler == null &&
+				logger.isWarnEnabled());
+	}
+
+	private void logIfBlocking(ServerWebExchange exchange, long elapsedNanos) {
+		Duration threshold = this.blockingDetectionThreshold;
+		if (threshold != null && elapsedNanos > threshold.toNanos()) {
+			logger.warn(exchange.getLogPrefix() + "Handler " + this + " blocked thread \"" +
+					Thread.currentThread().getName() + "\" for " +
+					Duration.ofNanos(elapsedNanos).toMillis() + " ms");
+		}
+	}
+
 	private Mono<Object[]> getMethodArgumentValues(
 			ServerWebExchange exchange, BindingContext bindingContext, Object... providedArgs) {
 
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.result.method.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that indicates that a
+ * {@link org.springframework.web.bind.annotation.RequestMapping @RequestMapping}
+ * method, or all such methods of a controller, perform blocking calls, e.g.
+ * through JDBC. Such methods are invoked on the
+ * {@linkplain RequestMappingHandlerAdapter#setBlockingScheduler blocking scheduler}
+ * of the {@link RequestMappingHandlerAdapter}, rather than on a thread that
+ * handles non-blocking I/O.
+ *
+ * @author Rossen Stoyanchev
+ * @since 5.2
+ * @see RequestMappingHandlerAdapter#setBlockingMethodPredicate
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Blocking {
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,23 +16,32 @@
 
 package org.springframework.web.reactive.result.method.annotation;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.codec.HttpMessageReader;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.VirtualThreadTaskExecutor;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.support.WebBindingInitializer;
@@ -68,6 +77,17 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter, Application
 	@Nullable
 	private ReactiveAdapterRegistry reactiveAdapterRegistry;
 
+	private Scheduler blockingScheduler = initBlockingScheduler();
+
+	private Predicate<HandlerMethod> blockingMethodPredicate = handlerMethod ->
+			(handlerMethod.hasMethodAnnotation(Blocking.class) ||
+					AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), Blocking.class));
+
+	private final Map<Method, Boolean> blockingMethodCache = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private Duration blockingDetectionThreshold;
+
 	@Nullable
 	private ConfigurableApplicationContext applicationContext;
 
@@ -142,6 +162,66 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter, Application
 		return this.reactiveAdapterRegistry;
 	}
 
+	/**
+	 * Configure the scheduler to invoke blocking handler methods on, as
+	 * determined by the {@link #setBlockingMethodPredicate blocking method
+	 * predicate}. The scheduler should be able to absorb blocking calls, e.g.
+	 * by being backed by a bounded pool of dedicated threads.
+	 * <p>By default this is backed by a {@link VirtualThreadTaskExecutor} on a
+	 * JDK that provides virtual threads, and is {@link Schedulers#elastic()}
+	 * otherwise.
+	 * @since 5.2
+	 */
+	public void setBlockingScheduler(Scheduler blockingScheduler) {
+		Assert.notNull(blockingScheduler, "'blockingScheduler' must not be null");
+		this.blockingScheduler = blockingScheduler;
+	}
+
+	/**
+	 * Return the configured scheduler for blocking handler methods.
+	 * @since 5.2
+	 */
+	public Scheduler getBlockingScheduler() {
+		return this.blockingScheduler;
+	}
+
+	/**
+	 * Configure the predicate that determines whether a handler method
+	 * blocks, and should be invoked on the {@link #setBlockingScheduler
+	 * blocking scheduler}.
+	 * <p>By default this matches methods that are annotated, or declared in a
+	 * controller that is annotated, with {@link Blocking @Blocking}.
+	 * <p>The predicate is evaluated once per handler {@link Method}, and its
+	 * result is cached for subsequent requests.
+	 * @since 5.2
+	 */
+	public void setBlockingMethodPredicate(Predicate<HandlerMethod> predicate) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+		this.blockingMethodPredicate = predicate;
+		this.blockingMethodCache.clear();
+	}
+
+	/**
+	 * Configure a threshold for the time spent in a non-blocking handler
+	 * method, beyond which a warning is logged with the handler method and the
+	 * thread it blocked. This helps to find handlers that should be declared
+	 * as blocking.
+	 * <p>By default this is not set, and the time is not measured.
+	 * @since 5.2
+	 */
+	public void setBlockingDetectionThreshold(@Nullable Duration threshold) {
+		this.blockingDetectionThreshold = threshold;
+	}
+
+	/**
+	 * Return the configured blocking detection threshold, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Duration getBlockingDetectionThreshold() {
+		return this.blockingDetectionThreshold;
+	}
+
 	/**
 	 * A {@link ConfigurableApplicationContext} is expected for resolving
 	 * expressions in method argument default values as well as for
@@ -191,6 +271,12 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter, Application
 				getWebBindingInitializer(), this.methodResolver.getInitBinderMethods(handlerMethod));
 
 		InvocableHandlerMethod invocableMethod = this.methodResolver.getRequestMappingMethod(handlerMethod);
+		if (isBlockingMethod(handlerMethod)) {
+			invocableMethod.setInvocationScheduler(this.blockingScheduler);
+		}
+		else {
+			invocableMethod.setBlockingDetectionThreshold(this.blockingDetectionThreshold);
+		}
 
 		Function<Throwable, Mono<HandlerResult>> exceptionHandler =
 				ex -> handleException(ex, handlerMethod, bindingContext, exchange);
@@ -203,6 +289,11 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter, Application
 				.onErrorResume(exceptionHandler);
 	}
 
+	private boolean isBlockingMethod(HandlerMethod handlerMethod) {
+		return this.blockingMethodCache.computeIfAbsent(handlerMethod.getMethod(),
+				method -> this.blockingMethodPredicate.test(handlerMethod));
+	}
+
 	private Mono<HandlerResult> handleException(Throwable exception, HandlerMethod handlerMethod,
 			BindingContext bindingContext, ServerWebExchange exchange) {
 
@@ -238,4 +329,13 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter, Application
 		return Mono.error(exception);
 	}
 
+
+	private static Scheduler initBlockingScheduler() {
+		if (VirtualThreadTaskExecutor.isVirtualThreadsSupported()) {
+			return Schedulers.fromExecutor(new VirtualThreadTaskExecutor("webflux-blocking-"));
+		}
+		// A platform thread per task would be unbounded and costly
+		return Schedulers.elastic();
+	}
+
 }
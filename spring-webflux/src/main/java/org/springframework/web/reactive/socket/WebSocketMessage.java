@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -103,6 +103,27 @@ public class WebSocketMessage {
 		return this;
 	}
 
+	/**
+	 * Return a message of the same type with a payload that shares the
+	 * content of this message's payload, with its own read position, and
+	 * that is {@linkplain #retain() retained}. This is useful for sending the
+	 * same payload, encoded once, to many sessions: each session is given its
+	 * own duplicate, which is released once sent, while the shared content
+	 * is released once all duplicates and this message have been released.
+	 * <pre class="code">
+	 * WebSocketMessage message = session.textMessage(json);
+	 * sessions.forEach(s -&gt; s.send(Mono.just(message.retainedDuplicate())).subscribe());
+	 * message.release();
+	 * </pre>
+	 * @since 5.2
+	 * @see DataBuffer#retainedSlice(int, int)
+	 */
+	public WebSocketMessage retainedDuplicate() {
+		DataBuffer duplicate = this.payload.retainedSlice(
+				this.payload.readPosition(), this.payload.readableByteCount());
+		return new WebSocketMessage(this.type, duplicate);
+	}
+
 	/**
 	 * Release the payload {@code DataBuffer} which is useful on runtimes
 	 * (e.g. Netty) with pooled buffers such as Netty. A shortcut for:
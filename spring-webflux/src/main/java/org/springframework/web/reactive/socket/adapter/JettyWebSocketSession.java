@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,7 +87,7 @@ public class JettyWebSocketSession extends AbstractListenerWebSocketSession<Sess
 		ByteBuffer buffer = message.getPayload().asByteBuffer();
 		if (WebSocketMessage.Type.TEXT.equals(message.getType())) {
 			getSendProcessor().setReadyToSend(false);
-			String text = new String(buffer.array(), StandardCharsets.UTF_8);
+			String text = StandardCharsets.UTF_8.decode(buffer).toString();
 			getDelegate().getRemote().sendString(text, new SendProcessorCallback());
 		}
 		else if (WebSocketMessage.Type.BINARY.equals(message.getType())) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,16 +15,28 @@
  */
 package org.springframework.web.reactive.socket.adapter;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.netty.NettyInbound;
 import reactor.netty.NettyOutbound;
 import reactor.netty.http.websocket.WebsocketInbound;
 import reactor.netty.http.websocket.WebsocketOutbound;
 
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.HandshakeInfo;
 import org.springframework.web.reactive.socket.WebSocketMessage;
@@ -35,14 +47,31 @@ import org.springframework.web.reactive.socket.WebSocketSession;
  * {@link WebSocketSession} implementation for use with the Reactor Netty's
  * {@link NettyInbound} and {@link NettyOutbound}.
  *
+ * <p>By default every sent message is flushed individually. For high-frequency
+ * streams of messages, writes can be coalesced by configuring the
+ * {@linkplain #setMaxFramesPerFlush maximum number of frames per flush}, in
+ * which case written frames are flushed once that number is reached, or once
+ * the {@linkplain #setMaxFlushDelay maximum flush delay} has elapsed.
+ *
  * @author Rossen Stoyanchev
  * @since 5.0
  */
 public class ReactorNettyWebSocketSession
 		extends NettyWebSocketSessionSupport<ReactorNettyWebSocketSession.WebSocketConnection> {
 
+	/**
+	 * The default maximum delay before flushing coalesced frames.
+	 * @since 5.2
+	 */
+	public static final Duration DEFAULT_MAX_FLUSH_DELAY = Duration.ofNanos(100_000);
+
+
 	private final int maxFramePayloadLength;
 
+	private int maxFramesPerFlush = 1;
+
+	private Duration maxFlushDelay = DEFAULT_MAX_FLUSH_DELAY;
+
 
 	/**
 	 * Constructor for the session, using the {@link #DEFAULT_FRAME_MAX_SIZE} value.
@@ -66,6 +95,50 @@ public class ReactorNettyWebSocketSession
 	}
 
 
+	/**
+	 * Configure the maximum number of frames to write before flushing. A value
+	 * greater than 1 enables write coalescing, which saves system calls when
+	 * sending many messages in quick succession, at the expense of delaying
+	 * each message by at most the {@link #setMaxFlushDelay max flush delay}.
+	 * <p>By default set to 1, i.e. every frame is flushed.
+	 * @param maxFramesPerFlush the maximum number of frames per flush
+	 * @since 5.2
+	 */
+	public void setMaxFramesPerFlush(int maxFramesPerFlush) {
+		Assert.isTrue(maxFramesPerFlush > 0, "'maxFramesPerFlush' must be greater than 0");
+		this.maxFramesPerFlush = maxFramesPerFlush;
+	}
+
+	/**
+	 * Return the configured maximum number of frames per flush.
+	 * @since 5.2
+	 */
+	public int getMaxFramesPerFlush() {
+		return this.maxFramesPerFlush;
+	}
+
+	/**
+	 * Configure the maximum time that written frames may wait for a flush,
+	 * when {@link #setMaxFramesPerFlush write coalescing} is enabled.
+	 * <p>By default set to {@link #DEFAULT_MAX_FLUSH_DELAY} (100 microseconds).
+	 * @param maxFlushDelay the maximum flush delay
+	 * @since 5.2
+	 */
+	public void setMaxFlushDelay(Duration maxFlushDelay) {
+		Assert.notNull(maxFlushDelay, "'maxFlushDelay' must not be null");
+		this.maxFlushDelay = maxFlushDelay;
+	}
+
+	/**
+	 * Return the configured maximum flush delay.
+	 * @since 5.2
+	 */
+	public Duration getMaxFlushDelay() {
+		return this.maxFlushDelay;
+	}
+
+
+
 	@Override
 	public Flux<WebSocketMessage> receive() {
 		return getDelegate().getInbound()
@@ -88,6 +161,11 @@ public class ReactorNettyWebSocketSession
 					}
 				})
 				.map(this::toFrame);
+		if (this.maxFramesPerFlush > 1) {
+			return Mono.create(sink -> getDelegate().getOutbound().withConnection(connection ->
+					frames.subscribe(new CoalescingFrameWriter(connection.channel(), this.maxFramesPerFlush,
+							this.maxFlushDelay.toNanos(), sink))));
+		}
 		return getDelegate().getOutbound()
 				.sendObject(frames)
 				.then();
@@ -99,6 +177,168 @@ public class ReactorNettyWebSocketSession
 	}
 
 
+	/**
+	 * Subscriber that writes frames to a channel, and flushes once a given
+	 * number of frames has been written, or once a given delay has elapsed.
+	 * Frames are requested in proportion to the flushed writes that have
+	 * completed, so that at most the maximum number of frames is pending.
+	 */
+	private static class CoalescingFrameWriter implements Subscriber<WebSocketFrame> {
+
+		private final Channel channel;
+
+		private final int maxFrames;
+
+		private final long maxDelayNanos;
+
+		private final MonoSink<Void> sink;
+
+		@Nullable
+		private Subscription subscription;
+
+		private int unflushed;
+
+		@Nullable
+		private ChannelFuture lastWrite;
+
+		@Nullable
+		private ScheduledFuture<?> flushTask;
+
+		private boolean done;
+
+		CoalescingFrameWriter(Channel channel, int maxFrames, long maxDelayNanos, MonoSink<Void> sink) {
+			this.channel = channel;
+			this.maxFrames = maxFrames;
+			this.maxDelayNanos = maxDelayNanos;
+			this.sink = sink;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			this.sink.onCancel(() -> {
+				subscription.cancel();
+				synchronized (this) {
+					this.done = true;
+					cancelFlushTask();
+				}
+			});
+			subscription.request(this.maxFrames);
+		}
+
+		@Override
+		public void onNext(WebSocketFrame frame) {
+			synchronized (this) {
+				if (this.done) {
+					ReferenceCountUtil.release(frame);
+					return;
+				}
+				this.lastWrite = this.channel.write(frame);
+				this.unflushed++;
+				if (this.unflushed >= this.maxFrames) {
+					flush(true);
+				}
+				else if (this.flushTask == null) {
+					this.flushTask = this.channel.eventLoop().schedule(
+							this::onFlushDelayElapsed, this.maxDelayNanos, TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+
+		private void onFlushDelayElapsed() {
+			synchronized (this) {
+				this.flushTask = null;
+				if (!this.done && this.unflushed > 0) {
+					flush(true);
+				}
+			}
+		}
+
+		private void flush(boolean requestMore) {
+			cancelFlushTask();
+			int count = this.unflushed;
+			this.unflushed = 0;
+			// Flush through the event loop, behind writes that other threads may have queued
+			this.channel.eventLoop().execute(this.channel::flush);
+			ChannelFuture lastWrite = this.lastWrite;
+			Subscription subscription = this.subscription;
+			if (requestMore && lastWrite != null && subscription != null) {
+				lastWrite.addListener(future -> {
+					if (future.isSuccess()) {
+						subscription.request(count);
+					}
+					else {
+						onWriteError(future.cause());
+					}
+				});
+			}
+		}
+
+		private void cancelFlushTask() {
+			if (this.flushTask != null) {
+				this.flushTask.cancel(false);
+				this.flushTask = null;
+			}
+		}
+
+		private void onWriteError(Throwable ex) {
+			synchronized (this) {
+				if (this.done) {
+					return;
+				}
+				this.done = true;
+				cancelFlushTask();
+			}
+			if (this.subscription != null) {
+				this.subscription.cancel();
+			}
+			this.sink.error(ex);
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			synchronized (this) {
+				if (this.done) {
+					return;
+				}
+				this.done = true;
+				if (this.unflushed > 0) {
+					flush(false);
+				}
+			}
+			this.sink.error(ex);
+		}
+
+		@Override
+		public void onComplete() {
+			ChannelFuture lastWrite;
+			synchronized (this) {
+				if (this.done) {
+					return;
+				}
+				this.done = true;
+				if (this.unflushed > 0) {
+					flush(false);
+				}
+				lastWrite = this.lastWrite;
+			}
+			if (lastWrite == null) {
+				this.sink.success();
+			}
+			else {
+				lastWrite.addListener(future -> {
+					if (future.isSuccess()) {
+						this.sink.success();
+					}
+					else {
+						this.sink.error(future.cause());
+					}
+				});
+			}
+		}
+	}
+
+
 	/**
 	 * Simple container for {@link NettyInbound} and {@link NettyOutbound}.
 	 */
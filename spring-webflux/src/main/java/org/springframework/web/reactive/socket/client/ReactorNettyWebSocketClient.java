@@ -17,6 +17,7 @@
 package org.springframework.web.reactive.socket.client;
 
 import java.net.URI;
+import java.time.Duration;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,7 +31,6 @@ import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.socket.HandshakeInfo;
 import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.WebSocketSession;
 import org.springframework.web.reactive.socket.adapter.NettyWebSocketSessionSupport;
 import org.springframework.web.reactive.socket.adapter.ReactorNettyWebSocketSession;
 
@@ -46,6 +46,10 @@ public class ReactorNettyWebSocketClient implements WebSocketClient {
 
 	private int maxFramePayloadLength = NettyWebSocketSessionSupport.DEFAULT_FRAME_MAX_SIZE;
 
+	private int maxFramesPerFlush = 1;
+
+	private Duration maxFlushDelay = ReactorNettyWebSocketSession.DEFAULT_MAX_FLUSH_DELAY;
+
 	private final HttpClient httpClient;
 
 
@@ -95,6 +99,45 @@ public class ReactorNettyWebSocketClient implements WebSocketClient {
 		return this.maxFramePayloadLength;
 	}
 
+	/**
+	 * Configure the maximum number of frames that sessions write before
+	 * flushing. A value greater than 1 enables write coalescing.
+	 * <p>By default set to 1, i.e. every frame is flushed.
+	 * @since 5.2
+	 * @see ReactorNettyWebSocketSession#setMaxFramesPerFlush(int)
+	 */
+	public void setMaxFramesPerFlush(int maxFramesPerFlush) {
+		Assert.isTrue(maxFramesPerFlush > 0, "'maxFramesPerFlush' must be greater than 0");
+		this.maxFramesPerFlush = maxFramesPerFlush;
+	}
+
+	/**
+	 * Return the configured maximum number of frames per flush.
+	 * @since 5.2
+	 */
+	public int getMaxFramesPerFlush() {
+		return this.maxFramesPerFlush;
+	}
+
+	/**
+	 * Configure the maximum time that coalesced frames may wait for a flush.
+	 * <p>By default set to 100 microseconds.
+	 * @since 5.2
+	 * @see ReactorNettyWebSocketSession#setMaxFlushDelay(Duration)
+	 */
+	public void setMaxFlushDelay(Duration maxFlushDelay) {
+		Assert.notNull(maxFlushDelay, "'maxFlushDelay' must not be null");
+		this.maxFlushDelay = maxFlushDelay;
+	}
+
+	/**
+	 * Return the configured maximum flush delay.
+	 * @since 5.2
+	 */
+	public Duration getMaxFlushDelay() {
+		return this.maxFlushDelay;
+	}
+
 
 	@Override
 	public Mono<Void> execute(URI url, WebSocketHandler handler) {
@@ -113,8 +156,10 @@ public class ReactorNettyWebSocketClient implements WebSocketClient {
 					String protocol = responseHeaders.getFirst("Sec-WebSocket-Protocol");
 					HandshakeInfo info = new HandshakeInfo(url, responseHeaders, Mono.empty(), protocol);
 					NettyDataBufferFactory factory = new NettyDataBufferFactory(outbound.alloc());
-					WebSocketSession session = new ReactorNettyWebSocketSession(
+					ReactorNettyWebSocketSession session = new ReactorNettyWebSocketSession(
 							inbound, outbound, info, factory, getMaxFramePayloadLength());
+					session.setMaxFramesPerFlush(getMaxFramesPerFlush());
+					session.setMaxFlushDelay(getMaxFlushDelay());
 					if (logger.isDebugEnabled()) {
 						logger.debug("Started session '" + session.getId() + "' for " + url);
 					}
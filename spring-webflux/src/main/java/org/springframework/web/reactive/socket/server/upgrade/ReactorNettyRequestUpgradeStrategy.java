@@ -17,6 +17,7 @@
 package org.springframework.web.reactive.socket.server.upgrade;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.function.Supplier;
 
 import reactor.core.publisher.Mono;
@@ -26,6 +27,7 @@ import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.server.reactive.AbstractServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.web.reactive.socket.HandshakeInfo;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.adapter.NettyWebSocketSessionSupport;
@@ -43,6 +45,10 @@ public class ReactorNettyRequestUpgradeStrategy implements RequestUpgradeStrateg
 
 	private int maxFramePayloadLength = NettyWebSocketSessionSupport.DEFAULT_FRAME_MAX_SIZE;
 
+	private int maxFramesPerFlush = 1;
+
+	private Duration maxFlushDelay = ReactorNettyWebSocketSession.DEFAULT_MAX_FLUSH_DELAY;
+
 
 	/**
 	 * Configure the maximum allowable frame payload length. Setting this value
@@ -67,6 +73,45 @@ public class ReactorNettyRequestUpgradeStrategy implements RequestUpgradeStrateg
 		return this.maxFramePayloadLength;
 	}
 
+	/**
+	 * Configure the maximum number of frames that sessions write before
+	 * flushing. A value greater than 1 enables write coalescing.
+	 * <p>By default set to 1, i.e. every frame is flushed.
+	 * @since 5.2
+	 * @see ReactorNettyWebSocketSession#setMaxFramesPerFlush(int)
+	 */
+	public void setMaxFramesPerFlush(int maxFramesPerFlush) {
+		Assert.isTrue(maxFramesPerFlush > 0, "'maxFramesPerFlush' must be greater than 0");
+		this.maxFramesPerFlush = maxFramesPerFlush;
+	}
+
+	/**
+	 * Return the configured maximum number of frames per flush.
+	 * @since 5.2
+	 */
+	public int getMaxFramesPerFlush() {
+		return this.maxFramesPerFlush;
+	}
+
+	/**
+	 * Configure the maximum time that coalesced frames may wait for a flush.
+	 * <p>By default set to 100 microseconds.
+	 * @since 5.2
+	 * @see ReactorNettyWebSocketSession#setMaxFlushDelay(Duration)
+	 */
+	public void setMaxFlushDelay(Duration maxFlushDelay) {
+		Assert.notNull(maxFlushDelay, "'maxFlushDelay' must not be null");
+		this.maxFlushDelay = maxFlushDelay;
+	}
+
+	/**
+	 * Return the configured maximum flush delay.
+	 * @since 5.2
+	 */
+	public Duration getMaxFlushDelay() {
+		return this.maxFlushDelay;
+	}
+
 
 	@Override
 	public Mono<Void> upgrade(ServerWebExchange exchange, WebSocketHandler handler,
@@ -82,6 +127,8 @@ public class ReactorNettyRequestUpgradeStrategy implements RequestUpgradeStrateg
 					ReactorNettyWebSocketSession session =
 							new ReactorNettyWebSocketSession(
 									in, out, handshakeInfo, bufferFactory, this.maxFramePayloadLength);
+					session.setMaxFramesPerFlush(this.maxFramesPerFlush);
+					session.setMaxFlushDelay(this.maxFlushDelay);
 					URI uri = exchange.getRequest().getURI();
 					return handler.handle(session).checkpoint(uri + " [ReactorNettyRequestUpgradeStrategy]");
 				});
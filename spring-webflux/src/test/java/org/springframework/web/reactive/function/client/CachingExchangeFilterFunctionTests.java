@@ -0,0 +1,293 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachingExchangeFilterFunction}.
+ *
+ * @author Arjen Poutsma
+ */
+public class CachingExchangeFilterFunctionTests {
+
+	private static final URI URL = URI.create("https://example.com/resource");
+
+	private static final Instant NOW = Instant.parse("2019-06-01T12:00:00Z");
+
+
+	private final CachingExchangeFilterFunction filter = new CachingExchangeFilterFunction();
+
+	private final List<ClientRequest> requests = new ArrayList<>();
+
+	private final Queue<Mono<ClientResponse>> responses = new LinkedList<>();
+
+	private final ExchangeFunction exchange = request -> {
+		this.requests.add(request);
+		return this.responses.remove();
+	};
+
+
+	@Before
+	public void setup() {
+		setTime(NOW);
+	}
+
+
+	@Test
+	public void freshResponseServedFromCache() {
+		this.responses.add(response("foo", "max-age=60"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		setTime(NOW.plusSeconds(30));
+		ClientResponse cached = get();
+
+		assertThat(cached.headers().asHttpHeaders().getFirst(HttpHeaders.AGE)).isEqualTo("30");
+		assertThat(bodyOf(cached)).isEqualTo("foo");
+		assertThat(this.requests).hasSize(1);
+	}
+
+	@Test
+	public void staleResponseRevalidated() {
+		this.responses.add(response("foo", "max-age=10", "\"v1\""));
+		this.responses.add(Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+				.build()));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		setTime(NOW.plusSeconds(20));
+		ClientResponse revalidated = get();
+
+		assertThat(revalidated.statusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(revalidated.headers().asHttpHeaders().getCacheControl()).isEqualTo("max-age=60");
+		assertThat(bodyOf(revalidated)).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+		assertThat(this.requests.get(1).headers().getIfNoneMatch()).containsExactly("\"v1\"");
+
+		setTime(NOW.plusSeconds(50));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void staleWhileRevalidate() {
+		this.responses.add(response("foo", "max-age=10, stale-while-revalidate=60"));
+		this.responses.add(response("bar", "max-age=10"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		setTime(NOW.plusSeconds(30));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+		assertThat(bodyOf(get())).isEqualTo("bar");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void requestNoCache() {
+		this.responses.add(response("foo", "max-age=60"));
+		this.responses.add(response("bar", "max-age=60"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		ClientRequest request = ClientRequest.create(HttpMethod.GET, URL)
+				.header(HttpHeaders.CACHE_CONTROL, "no-cache")
+				.build();
+
+		assertThat(bodyOf(this.filter.filter(request, this.exchange).block())).isEqualTo("bar");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void noStore() {
+		this.responses.add(response("foo", "no-store"));
+		this.responses.add(response("bar", "no-store"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(bodyOf(get())).isEqualTo("bar");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void varyMismatch() {
+		this.responses.add(Mono.just(ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE)
+				.body("foo")
+				.build()));
+		this.responses.add(response("bar", "max-age=60"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		ClientRequest request = ClientRequest.create(HttpMethod.GET, URL)
+				.header(HttpHeaders.ACCEPT_LANGUAGE, "nl")
+				.build();
+
+		assertThat(bodyOf(this.filter.filter(request, this.exchange).block())).isEqualTo("bar");
+	}
+
+	@Test
+	public void concurrentRequestsCoalesced() {
+		MonoProcessor<ClientResponse> pending = MonoProcessor.create();
+		this.responses.add(pending);
+
+		Mono<ClientResponse> first = this.filter.filter(ClientRequest.create(HttpMethod.GET, URL).build(), this.exchange);
+		Mono<ClientResponse> second = this.filter.filter(ClientRequest.create(HttpMethod.GET, URL).build(), this.exchange);
+		MonoProcessor<String> firstBody = first.flatMap(response -> response.bodyToMono(String.class)).toProcessor();
+		MonoProcessor<String> secondBody = second.flatMap(response -> response.bodyToMono(String.class)).toProcessor();
+
+		response("foo", "max-age=60").subscribe(pending);
+
+		assertThat(firstBody.peek()).isEqualTo("foo");
+		assertThat(secondBody.peek()).isEqualTo("foo");
+		assertThat(this.requests).hasSize(1);
+	}
+
+	@Test
+	public void unsafeMethodInvalidates() {
+		this.responses.add(response("foo", "max-age=60"));
+		this.responses.add(Mono.just(ClientResponse.create(HttpStatus.NO_CONTENT).build()));
+		this.responses.add(response("bar", "max-age=60"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		this.filter.filter(ClientRequest.create(HttpMethod.DELETE, URL).build(), this.exchange).block();
+
+		assertThat(bodyOf(get())).isEqualTo("bar");
+		assertThat(this.requests).hasSize(3);
+	}
+
+	@Test
+	public void chunkedBodyOverMaxBodySize() {
+		this.filter.setMaxBodySize(4);
+		AtomicInteger emitted = new AtomicInteger();
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		Flux<DataBuffer> body = Flux.just("abc", "def", "ghi")
+				.map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)))
+				.doOnNext(buffer -> emitted.incrementAndGet());
+		this.responses.add(Mono.just(ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+				.body(body)
+				.build()));
+		this.responses.add(response("bar", "max-age=60"));
+
+		ClientResponse response = get();
+		assertThat(emitted.get()).isEqualTo(2);
+		assertThat(bodyOf(response)).isEqualTo("abcdefghi");
+		assertThat(emitted.get()).isEqualTo(3);
+
+		assertThat(bodyOf(get())).isEqualTo("bar");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void privateCacheKeyedByCredentials() {
+		this.responses.add(response("foo", "private, max-age=60"));
+		this.responses.add(response("bar", "private, max-age=60"));
+
+		assertThat(bodyOf(get("Basic Zm9vOmZvbw=="))).isEqualTo("foo");
+		assertThat(bodyOf(get("Basic YmFyOmJhcg=="))).isEqualTo("bar");
+		assertThat(bodyOf(get("Basic Zm9vOmZvbw=="))).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void concurrentRequestsWithDifferentCredentialsNotCoalesced() {
+		MonoProcessor<ClientResponse> pending = MonoProcessor.create();
+		this.responses.add(pending);
+		this.responses.add(response("bar", "max-age=60"));
+
+		ClientRequest fooRequest = ClientRequest.create(HttpMethod.GET, URL).cookie("SESSION", "foo").build();
+		ClientRequest barRequest = ClientRequest.create(HttpMethod.GET, URL).cookie("SESSION", "bar").build();
+		MonoProcessor<String> fooBody = this.filter.filter(fooRequest, this.exchange)
+				.flatMap(response -> response.bodyToMono(String.class)).toProcessor();
+		MonoProcessor<String> barBody = this.filter.filter(barRequest, this.exchange)
+				.flatMap(response -> response.bodyToMono(String.class)).toProcessor();
+
+		response("foo", "max-age=60").subscribe(pending);
+
+		assertThat(fooBody.peek()).isEqualTo("foo");
+		assertThat(barBody.peek()).isEqualTo("bar");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	public void sharedCacheSkipsPrivateResponses() {
+		this.filter.setSharedCache(true);
+		this.responses.add(response("foo", "private, max-age=60"));
+		this.responses.add(response("bar", "private, max-age=60"));
+
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(bodyOf(get())).isEqualTo("bar");
+	}
+
+
+	private ClientResponse get() {
+		return this.filter.filter(ClientRequest.create(HttpMethod.GET, URL).build(), this.exchange)
+				.block(Duration.ofSeconds(5));
+	}
+
+	private ClientResponse get(String authorization) {
+		ClientRequest request = ClientRequest.create(HttpMethod.GET, URL)
+				.header(HttpHeaders.AUTHORIZATION, authorization)
+				.build();
+		return this.filter.filter(request, this.exchange).block(Duration.ofSeconds(5));
+	}
+
+	private void setTime(Instant instant) {
+		this.filter.setClock(Clock.fixed(instant, ZoneId.of("UTC")));
+	}
+
+	private static Mono<ClientResponse> response(String body, String cacheControl) {
+		return response(body, cacheControl, null);
+	}
+
+	private static Mono<ClientResponse> response(String body, String cacheControl, String eTag) {
+		ClientResponse.Builder builder = ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+		if (eTag != null) {
+			builder.header(HttpHeaders.ETAG, eTag);
+		}
+		return Mono.fromSupplier(() -> builder.body(body).build());
+	}
+
+	private static String bodyOf(ClientResponse response) {
+		return response.bodyToMono(String.class).block(Duration.ofSeconds(5));
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CoalescingExchangeFilterFunction}.
+ *
+ * @author Arjen Poutsma
+ */
+public class CoalescingExchangeFilterFunctionTests {
+
+	private static final URI URL = URI.create("https://example.com/resource");
+
+
+	private final CoalescingExchangeFilterFunction filter = new CoalescingExchangeFilterFunction();
+
+	private final MonoProcessor<ClientResponse> pending = MonoProcessor.create();
+
+	private final AtomicInteger exchangeCount = new AtomicInteger();
+
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+
+	private final ExchangeFunction exchange = request -> {
+		this.exchangeCount.incrementAndGet();
+		return this.pending.doOnCancel(() -> this.cancelled.set(true));
+	};
+
+
+	@Test
+	public void identicalRequestsShareExchange() {
+		MonoProcessor<String> first = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+		MonoProcessor<String> second = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+
+		this.pending.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+
+		assertThat(first.peek()).isEqualTo("foo");
+		assertThat(second.peek()).isEqualTo("foo");
+		assertThat(this.exchangeCount.get()).isEqualTo(1);
+		assertThat(this.filter.getRequestCount()).isEqualTo(2);
+		assertThat(this.filter.getCoalescedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void differentHeadersNotCoalesced() {
+		bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+		bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).header("Accept", "text/plain").build()));
+
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+		assertThat(this.filter.getCoalescedCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void unsafeMethodNotCoalesced() {
+		bodyOf(get(ClientRequest.create(HttpMethod.POST, URL).build()));
+		bodyOf(get(ClientRequest.create(HttpMethod.POST, URL).build()));
+
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void largeBodyHandedToSingleRequest() {
+		this.filter.setMaxBodySize(2);
+		MonoProcessor<String> first = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+		MonoProcessor<String> second = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+
+		this.pending.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+
+		assertThat(first.peek()).isEqualTo("foo");
+		assertThat(second.peek()).isEqualTo("foo");
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void emptySharedExchangeFallsBack() {
+		MonoProcessor<String> first = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+		MonoProcessor<String> second = bodyOf(get(ClientRequest.create(HttpMethod.GET, URL).build()));
+
+		this.pending.onComplete();
+
+		assertThat(first.isSuccess()).isTrue();
+		assertThat(second.isSuccess()).isTrue();
+		assertThat(this.exchangeCount.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void cancelledOnceAllRequestsCancelled() {
+		Disposable first = get(ClientRequest.create(HttpMethod.GET, URL).build()).subscribe();
+		Disposable second = get(ClientRequest.create(HttpMethod.GET, URL).build()).subscribe();
+
+		first.dispose();
+		assertThat(this.cancelled.get()).isFalse();
+		second.dispose();
+		assertThat(this.cancelled.get()).isTrue();
+	}
+
+
+	private Mono<ClientResponse> get(ClientRequest request) {
+		return this.filter.filter(request, this.exchange);
+	}
+
+	private static MonoProcessor<String> bodyOf(Mono<ClientResponse> response) {
+		return response.flatMap(r -> r.bodyToMono(String.class)).toProcessor();
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.util.context.Context;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link HedgingExchangeFilterFunction}.
+ *
+ * @author Arjen Poutsma
+ */
+public class HedgingExchangeFilterFunctionTests {
+
+	private static final ClientRequest REQUEST =
+			ClientRequest.create(HttpMethod.GET, URI.create("https://example.com/resource")).build();
+
+
+	private final HedgingExchangeFilterFunction filter = new HedgingExchangeFilterFunction(0.5, 10);
+
+	private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+	private final Queue<Mono<ClientResponse>> responses = new LinkedList<>();
+
+	private final ExchangeFunction exchange = request -> this.responses.remove();
+
+
+	@Before
+	public void setup() {
+		this.filter.setMinSamples(1);
+		this.filter.setMinHedgeDelay(Duration.ofMillis(100));
+		this.filter.setScheduler(this.scheduler);
+
+		this.responses.add(response("warm-up"));
+		this.filter.filter(REQUEST, this.exchange).block(Duration.ofSeconds(5));
+		assertThat(this.filter.getHedgeDelay()).isEqualTo(Duration.ofMillis(100));
+	}
+
+
+	@Test
+	public void hedgeWins() {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		this.responses.add(MonoProcessor.<ClientResponse>create().doOnCancel(() -> cancelled.set(true)));
+		this.responses.add(response("hedge"));
+
+		MonoProcessor<ClientResponse> result = this.filter.filter(REQUEST, this.exchange).toProcessor();
+		assertThat(result.isTerminated()).isFalse();
+
+		this.scheduler.advanceTimeBy(Duration.ofMillis(100));
+		assertThat(bodyOf(result.peek())).isEqualTo("hedge");
+		assertThat(cancelled.get()).isTrue();
+		assertThat(this.filter.getHedgeCount()).isEqualTo(1);
+		assertThat(this.filter.getHedgeWinCount()).isEqualTo(1);
+		assertThat(this.filter.getHedgeRate()).isEqualTo(0.5);
+	}
+
+	@Test
+	public void primaryWins() {
+		this.responses.add(response("primary"));
+
+		ClientResponse result = this.filter.filter(REQUEST, this.exchange).block(Duration.ofSeconds(5));
+		this.scheduler.advanceTimeBy(Duration.ofMillis(100));
+
+		assertThat(bodyOf(result)).isEqualTo("primary");
+		assertThat(this.responses).isEmpty();
+		assertThat(this.filter.getHedgeCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void primaryErrorBeforeHedge() {
+		MonoProcessor<ClientResponse> primary = MonoProcessor.create();
+		this.responses.add(primary);
+		this.responses.add(response("hedge"));
+
+		MonoProcessor<ClientResponse> result = this.filter.filter(REQUEST, this.exchange).toProcessor();
+		this.scheduler.advanceTimeBy(Duration.ofMillis(50));
+		primary.onError(new IllegalStateException());
+
+		assertThat(result.isError()).isTrue();
+		assertThat(this.filter.getHedgeCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void emptyAttemptsCompleteEmpty() {
+		MonoProcessor<ClientResponse> primary = MonoProcessor.create();
+		MonoProcessor<ClientResponse> hedge = MonoProcessor.create();
+		this.responses.add(primary);
+		this.responses.add(hedge);
+
+		MonoProcessor<ClientResponse> result = this.filter.filter(REQUEST, this.exchange).toProcessor();
+		this.scheduler.advanceTimeBy(Duration.ofMillis(100));
+		primary.onComplete();
+		assertThat(result.isTerminated()).isFalse();
+
+		hedge.onComplete();
+		assertThat(result.isSuccess()).isTrue();
+		assertThat(result.peek()).isNull();
+	}
+
+	@Test
+	public void contextPropagated() {
+		this.responses.add(Mono.subscriberContext().flatMap(context -> response(context.get("key"))));
+
+		ClientResponse result = this.filter.filter(REQUEST, this.exchange)
+				.subscriberContext(Context.of("key", "value"))
+				.block(Duration.ofSeconds(5));
+
+		assertThat(bodyOf(result)).isEqualTo("value");
+	}
+
+	@Test
+	public void unsafeMethodNotHedged() {
+		this.responses.add(MonoProcessor.create());
+		ClientRequest request = ClientRequest.from(REQUEST).method(HttpMethod.POST).build();
+
+		this.filter.filter(request, this.exchange).subscribe();
+		this.scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+		assertThat(this.filter.getRequestCount()).isEqualTo(1);
+		assertThat(this.filter.getHedgeCount()).isEqualTo(0);
+	}
+
+
+	private static Mono<ClientResponse> response(String body) {
+		return Mono.fromSupplier(() -> ClientResponse.create(HttpStatus.OK).body(body).build());
+	}
+
+	private static String bodyOf(ClientResponse response) {
+		return response.bodyToMono(String.class).block(Duration.ofSeconds(5));
+	}
+
+}
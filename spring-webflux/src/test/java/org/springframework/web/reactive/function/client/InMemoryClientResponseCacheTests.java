@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.time.Instant;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryClientResponseCache}.
+ *
+ * @author Arjen Poutsma
+ */
+public class InMemoryClientResponseCacheTests {
+
+	@Test
+	public void evictLeastRecentlyUsedEntry() {
+		InMemoryClientResponseCache cache = new InMemoryClientResponseCache(2, 1024);
+		cache.put("a", cachedResponse(10));
+		cache.put("b", cachedResponse(10));
+		cache.get("a");
+		cache.put("c", cachedResponse(10));
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("a")).isNotNull();
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.getTotalSize()).isEqualTo(20);
+	}
+
+	@Test
+	public void evictOnTotalSize() {
+		InMemoryClientResponseCache cache = new InMemoryClientResponseCache(10, 25);
+		cache.put("a", cachedResponse(10));
+		cache.put("b", cachedResponse(10));
+		cache.put("c", cachedResponse(10));
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("a")).isNull();
+
+		cache.put("d", cachedResponse(30));
+		assertThat(cache.get("d")).isNull();
+		assertThat(cache.getTotalSize()).isEqualTo(20);
+	}
+
+	@Test
+	public void replaceEntry() {
+		InMemoryClientResponseCache cache = new InMemoryClientResponseCache();
+		cache.put("a", cachedResponse(10));
+		cache.put("a", cachedResponse(5));
+		assertThat(cache.getTotalSize()).isEqualTo(5);
+
+		cache.evict("a");
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getTotalSize()).isEqualTo(0);
+	}
+
+
+	private static ClientResponseCache.CachedResponse cachedResponse(int size) {
+		return new ClientResponseCache.CachedResponse(HttpStatus.OK, new HttpHeaders(), new byte[size],
+				Instant.now(), Collections.emptyMap());
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.server;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.all;
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+
+/**
+ * Unit tests for {@link IndexedRouterFunction}.
+ *
+ * @author Arjen Poutsma
+ */
+public class IndexedRouterFunctionTests {
+
+	private final List<String> tested = new ArrayList<>();
+
+
+	@Test
+	public void routesByMethodAndPath() {
+		RouterFunction<ServerResponse> router = new IndexedRouterFunction(Arrays.asList(
+				route("getFoo", GET("/foo")),
+				route("postFoo", POST("/foo")),
+				route("getBar", GET("/bar/{id}")),
+				route("getBaz", GET("/baz").or(GET("/qux")))));
+
+		assertThat(handle(router, HttpMethod.GET, "/bar/42")).isEqualTo("getBar");
+		assertThat(this.tested).containsExactly("getBar");
+
+		assertThat(handle(router, HttpMethod.POST, "/foo")).isEqualTo("postFoo");
+		assertThat(handle(router, HttpMethod.GET, "/qux")).isEqualTo("getBaz");
+		assertThat(handle(router, HttpMethod.PUT, "/foo")).isNull();
+	}
+
+	@Test
+	public void preservesOrder() {
+		RouterFunction<ServerResponse> router = new IndexedRouterFunction(Arrays.asList(
+				route("specific", GET("/foo/bar")),
+				route("catchAll", all()),
+				route("foo", GET("/foo/**"))));
+
+		assertThat(handle(router, HttpMethod.GET, "/foo/bar")).isEqualTo("specific");
+		assertThat(handle(router, HttpMethod.GET, "/foo/baz")).isEqualTo("catchAll");
+		assertThat(handle(router, HttpMethod.DELETE, "/other")).isEqualTo("catchAll");
+	}
+
+	@Test
+	public void caseInsensitivePatternsRemainCandidates() {
+		RouterFunction<ServerResponse> router = new IndexedRouterFunction(Arrays.asList(
+				route("foo", GET("/foo")),
+				route("other", request -> request.path().equalsIgnoreCase("/FOO"))));
+
+		assertThat(handle(router, HttpMethod.GET, "/FOO")).isEqualTo("other");
+		assertThat(this.tested).containsExactly("foo", "other");
+	}
+
+	@Test
+	public void nested() {
+		RouterFunction<ServerResponse> router = RouterFunctions.route()
+				.path("/api", builder -> builder
+						.add(route("getUsers", GET("/users")))
+						.add(route("postUsers", POST("/users"))))
+				.add(route("getFoo", GET("/foo")))
+				.build();
+
+		assertThat(handle(router, HttpMethod.POST, "/api/users")).isEqualTo("postUsers");
+		assertThat(this.tested).containsExactly("postUsers");
+		assertThat(handle(router, HttpMethod.GET, "/foo")).isEqualTo("getFoo");
+		assertThat(handle(router, HttpMethod.GET, "/api/foo")).isNull();
+	}
+
+	@Test
+	public void negatedPredicateMatchesAnything() {
+		RouterFunction<ServerResponse> router = new IndexedRouterFunction(Arrays.asList(
+				route("foo", GET("/foo")),
+				route("notFoo", path("/foo").negate())));
+
+		assertThat(handle(router, HttpMethod.POST, "/bar")).isEqualTo("notFoo");
+	}
+
+
+	private RouterFunction<ServerResponse> route(String name, RequestPredicate predicate) {
+		RequestPredicate recording = request -> {
+			this.tested.add(name);
+			return true;
+		};
+		return RouterFunctions.route(recording.and(predicate),
+				request -> ServerResponse.ok().header("Route", name).build());
+	}
+
+	private String handle(RouterFunction<ServerResponse> router, HttpMethod method, String path) {
+		this.tested.clear();
+		MockServerRequest request = MockServerRequest.builder()
+				.method(method)
+				.uri(URI.create("http://localhost" + path))
+				.build();
+		return router.route(request)
+				.flatMap(handler -> handler.handle(request))
+				.map(response -> {
+					assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+					return response.headers().getFirst("Route");
+				})
+				.block();
+	}
+
+}
@@ -18,9 +18,12 @@ package org.springframework.web.reactive.function.server;
 
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import org.springframework.http.HttpHeaders;
@@ -83,6 +86,30 @@ public class RouterFunctionsTests {
 				.verify();
 	}
 
+	@Test
+	public void blocking() {
+		AtomicReference<String> threadName = new AtomicReference<>();
+		HandlerFunction<ServerResponse> handlerFunction = request -> {
+			threadName.set(Thread.currentThread().getName());
+			return ServerResponse.ok().build();
+		};
+		Scheduler scheduler = Schedulers.newSingle("blocking");
+		try {
+			HandlerFunction<ServerResponse> result = RouterFunctions.blocking(handlerFunction, scheduler);
+			Mono<ServerResponse> responseMono = result.handle(MockServerRequest.builder().build());
+			assertThat(threadName.get()).isNull();
+
+			StepVerifier.create(responseMono)
+					.consumeNextWith(response -> assertThat(response.statusCode()).isEqualTo(HttpStatus.OK))
+					.expectComplete()
+					.verify();
+			assertThat(threadName.get()).startsWith("blocking-");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
 	@Test
 	public void nestMatch() {
 		HandlerFunction<ServerResponse> handlerFunction = request -> ServerResponse.ok().build();
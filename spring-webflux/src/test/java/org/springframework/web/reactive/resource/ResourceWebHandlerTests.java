@@ -171,6 +171,21 @@ public class ResourceWebHandlerTests {
 		assertThat(exchange.getResponse().getHeaders().get("Accept-Ranges").size()).isEqualTo(1);
 	}
 
+	@Test
+	public void getVersionedResourceNotModifiedByETag() throws Exception {
+		VersionResourceResolver versionResolver = new VersionResourceResolver();
+		versionResolver.addFixedVersionStrategy("versionString", "/**");
+		this.handler.setResourceResolvers(Arrays.asList(versionResolver, new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("").ifNoneMatch("\"versionString\""));
+		setPathWithinHandlerMapping(exchange, "versionString/foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
 	@Test
 	public void getResourceWithHtmlMediaType() throws Exception {
 		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
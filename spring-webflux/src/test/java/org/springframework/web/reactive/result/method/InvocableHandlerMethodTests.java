@@ -26,6 +26,8 @@ import java.util.List;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.io.buffer.DataBuffer;
@@ -214,6 +216,23 @@ public class InvocableHandlerMethodTests {
 		assertThat(result).as("Expected no result (i.e. fully handled)").isNull();
 	}
 
+	@Test
+	public void invocationScheduler() {
+		Scheduler scheduler = Schedulers.newSingle("blocking");
+		try {
+			Method method = ResolvableMethod.on(TestController.class).mockCall(TestController::threadName).method();
+			InvocableHandlerMethod invocable = new InvocableHandlerMethod(new TestController(), method);
+			invocable.setInvocationScheduler(scheduler);
+			HandlerResult result = invocable.invoke(this.exchange, new BindingContext()).block(TIMEOUT);
+
+			assertThat(result).isNotNull();
+			assertThat((String) result.getReturnValue()).startsWith("blocking-");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
 
 	@Nullable
 	private HandlerResult invokeForResult(Object handler, Method method, Object... providedArgs) {
@@ -256,6 +275,10 @@ public class InvocableHandlerMethodTests {
 			return "success";
 		}
 
+		String threadName() {
+			return Thread.currentThread().getName();
+		}
+
 		void exceptionMethod() {
 			throw new IllegalStateException("boo");
 		}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.result.method.annotation;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.mock.web.test.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the blocking support in {@link RequestMappingHandlerAdapter}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class RequestMappingHandlerAdapterTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+
+	private final Scheduler blockingScheduler = Schedulers.newSingle("blocking");
+
+	private final RequestMappingHandlerAdapter adapter = new RequestMappingHandlerAdapter();
+
+
+	@Before
+	public void setup() {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.refresh();
+		this.adapter.setApplicationContext(context);
+		this.adapter.setBlockingScheduler(this.blockingScheduler);
+		this.adapter.afterPropertiesSet();
+	}
+
+	@After
+	public void shutdown() {
+		this.blockingScheduler.dispose();
+	}
+
+
+	@Test
+	public void blockingMethod() throws Exception {
+		assertThat(handle(new MixedController(), "blocking")).startsWith("blocking-");
+	}
+
+	@Test
+	public void nonBlockingMethod() throws Exception {
+		assertThat(handle(new MixedController(), "nonBlocking")).isEqualTo(Thread.currentThread().getName());
+	}
+
+	@Test
+	public void blockingController() throws Exception {
+		assertThat(handle(new BlockingController(), "handle")).startsWith("blocking-");
+	}
+
+	@Test
+	public void blockingMethodPredicate() throws Exception {
+		this.adapter.setBlockingMethodPredicate(handlerMethod -> false);
+		assertThat(handle(new BlockingController(), "handle")).isEqualTo(Thread.currentThread().getName());
+	}
+
+	@Test
+	public void blockingMethodPredicateEvaluatedOncePerMethod() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		this.adapter.setBlockingMethodPredicate(handlerMethod -> count.incrementAndGet() < 0);
+		handle(new MixedController(), "nonBlocking");
+		handle(new MixedController(), "nonBlocking");
+		handle(new MixedController(), "blocking");
+
+		assertThat(count.get()).isEqualTo(2);
+	}
+
+
+	private Object handle(Object controller, String methodName) throws Exception {
+		Method method = controller.getClass().getMethod(methodName);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		HandlerResult result = this.adapter.handle(exchange, new HandlerMethod(controller, method)).block(TIMEOUT);
+		assertThat(result).isNotNull();
+		return result.getReturnValue();
+	}
+
+
+	static class MixedController {
+
+		@GetMapping
+		@ResponseBody
+		@Blocking
+		public String blocking() {
+			return Thread.currentThread().getName();
+		}
+
+		@GetMapping
+		@ResponseBody
+		public String nonBlocking() {
+			return Thread.currentThread().getName();
+		}
+	}
+
+	@Blocking
+	static class BlockingController {
+
+		@GetMapping
+		@ResponseBody
+		public String handle() {
+			return Thread.currentThread().getName();
+		}
+	}
+
+}
@@ -36,6 +36,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -73,6 +74,28 @@ public class WebSocketIntegrationTests extends AbstractWebSocketIntegrationTests
 		assertThat(output.collectList().block(TIMEOUT)).isEqualTo(input.collectList().block(TIMEOUT));
 	}
 
+	@Test
+	public void echoWithWriteCoalescing() throws Exception {
+		int count = 100;
+		Flux<String> input = Flux.range(1, count).map(index -> "msg-" + index);
+		ReplayProcessor<Object> output = ReplayProcessor.create(count + 1);
+
+		ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+		client.setMaxFramesPerFlush(16);
+		client.execute(getUrl("/echo"), session -> {
+			WebSocketMessage shared = session.textMessage("shared");
+			return session
+					.send(input.map(session::textMessage).concatWith(Mono.fromSupplier(shared::retainedDuplicate)))
+					.thenMany(session.receive().take(count + 1).map(WebSocketMessage::getPayloadAsText))
+					.subscribeWith(output)
+					.doFinally(signalType -> shared.release())
+					.then();
+		}).block(TIMEOUT);
+
+		assertThat(output.collectList().block(TIMEOUT))
+				.isEqualTo(input.concatWith(Mono.just("shared")).collectList().block(TIMEOUT));
+	}
+
 	@Test
 	public void subProtocol() throws Exception {
 		String protocol = "echo-v1";
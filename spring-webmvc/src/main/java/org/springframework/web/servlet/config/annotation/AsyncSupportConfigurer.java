@@ -40,6 +40,9 @@ public class AsyncSupportConfigurer {
 	@Nullable
 	private AsyncTaskExecutor taskExecutor;
 
+	@Nullable
+	private AsyncTaskExecutor handlerTaskExecutor;
+
 	@Nullable
 	private Long timeout;
 
@@ -47,6 +50,8 @@ public class AsyncSupportConfigurer {
 
 	private final List<DeferredResultProcessingInterceptor> deferredResultInterceptors = new ArrayList<>();
 
+	private boolean nonBlockingWrite = false;
+
 
 	/**
 	 * The provided task executor is used to:
@@ -65,6 +70,22 @@ public class AsyncSupportConfigurer {
 		return this;
 	}
 
+	/**
+	 * Configure an executor on which to invoke all controller methods, in
+	 * place of the Servlet container thread, with the return value handled
+	 * in an async dispatch. This is intended for use with
+	 * {@link org.springframework.scheduling.concurrent.VirtualThreadTaskExecutor},
+	 * so that blocking controller methods can serve a large number of
+	 * concurrent requests.
+	 * <p>By default this is not set.
+	 * @param handlerTaskExecutor the executor for controller method invocations
+	 * @since 5.2
+	 */
+	public AsyncSupportConfigurer setHandlerTaskExecutor(AsyncTaskExecutor handlerTaskExecutor) {
+		this.handlerTaskExecutor = handlerTaskExecutor;
+		return this;
+	}
+
 	/**
 	 * Specify the amount of time, in milliseconds, before asynchronous request
 	 * handling times out. In Servlet 3, the timeout begins after the main request
@@ -103,11 +124,31 @@ public class AsyncSupportConfigurer {
 	}
 
 
+	/**
+	 * Whether to write {@code @ResponseBody} and {@code ResponseEntity} bodies
+	 * for asynchronously produced values (e.g. {@link DeferredResult} or
+	 * {@code CompletableFuture}) with Servlet 3.1 non-blocking I/O, so that
+	 * slow clients do not hold on to container threads.
+	 * <p>By default this is set to {@code false}.
+	 * @param nonBlockingWrite whether to use non-blocking writes
+	 * @since 5.2
+	 */
+	public AsyncSupportConfigurer setNonBlockingWrite(boolean nonBlockingWrite) {
+		this.nonBlockingWrite = nonBlockingWrite;
+		return this;
+	}
+
+
 	@Nullable
 	protected AsyncTaskExecutor getTaskExecutor() {
 		return this.taskExecutor;
 	}
 
+	@Nullable
+	protected AsyncTaskExecutor getHandlerTaskExecutor() {
+		return this.handlerTaskExecutor;
+	}
+
 	@Nullable
 	protected Long getTimeout() {
 		return this.timeout;
@@ -121,4 +162,8 @@ public class AsyncSupportConfigurer {
 		return this.deferredResultInterceptors;
 	}
 
+	protected boolean isNonBlockingWrite() {
+		return this.nonBlockingWrite;
+	}
+
 }
@@ -615,11 +615,15 @@ public class WebMvcConfigurationSupport implements ApplicationContextAware, Serv
 		if (configurer.getTaskExecutor() != null) {
 			adapter.setTaskExecutor(configurer.getTaskExecutor());
 		}
+		if (configurer.getHandlerTaskExecutor() != null) {
+			adapter.setHandlerTaskExecutor(configurer.getHandlerTaskExecutor());
+		}
 		if (configurer.getTimeout() != null) {
 			adapter.setAsyncRequestTimeout(configurer.getTimeout());
 		}
 		adapter.setCallableInterceptors(configurer.getCallableInterceptors());
 		adapter.setDeferredResultInterceptors(configurer.getDeferredResultInterceptors());
+		adapter.setNonBlockingAsyncWrite(configurer.isNonBlockingWrite());
 
 		return adapter;
 	}
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -45,6 +46,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.converter.GenericHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.server.NonBlockingServletServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
@@ -105,6 +107,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
 	private final Set<String> safeExtensions = new HashSet<>();
 
+	private boolean nonBlockingAsyncWrite = false;
+
 
 	/**
 	 * Constructor with list of converters only.
@@ -144,6 +148,29 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	}
 
 
+	/**
+	 * Whether to write the response body for the result of an async dispatch,
+	 * e.g. from a {@code DeferredResult} or {@code CompletableFuture}, with
+	 * Servlet 3.1 non-blocking I/O. When enabled, the body is serialized into
+	 * a buffer and then sent via a {@link javax.servlet.WriteListener}, so a
+	 * slow client does not hold on to a container thread.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2
+	 * @see NonBlockingServletServerHttpResponse
+	 */
+	public void setNonBlockingAsyncWrite(boolean nonBlockingAsyncWrite) {
+		this.nonBlockingAsyncWrite = nonBlockingAsyncWrite;
+	}
+
+	/**
+	 * Whether non-blocking writing of async results is enabled.
+	 * @since 5.2
+	 */
+	public boolean isNonBlockingAsyncWrite() {
+		return this.nonBlockingAsyncWrite;
+	}
+
+
 	/**
 	 * Creates a new {@link HttpOutputMessage} from the given {@link NativeWebRequest}.
 	 * @param webRequest the web request to create an output message from
@@ -152,6 +179,13 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	protected ServletServerHttpResponse createOutputMessage(NativeWebRequest webRequest) {
 		HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
 		Assert.state(response != null, "No HttpServletResponse");
+		if (this.nonBlockingAsyncWrite) {
+			HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+			if (request != null && request.getDispatcherType() == DispatcherType.ASYNC &&
+					NonBlockingServletServerHttpResponse.isSupported(request, response)) {
+				return new NonBlockingServletServerHttpResponse(request, response);
+			}
+		}
 		return new ServletServerHttpResponse(response);
 	}
 
@@ -296,6 +330,9 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 						else {
 							((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
 						}
+						if (outputMessage instanceof NonBlockingServletServerHttpResponse) {
+							((NonBlockingServletServerHttpResponse) outputMessage).writeBody();
+						}
 					}
 					else {
 						if (logger.isDebugEnabled()) {
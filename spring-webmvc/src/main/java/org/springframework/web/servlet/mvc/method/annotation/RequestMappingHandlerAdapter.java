@@ -47,6 +47,7 @@ import org.springframework.http.converter.support.AllEncompassingFormHttpMessage
 import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.ui.ModelMap;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -127,6 +128,11 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 			(!AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class) &&
 					AnnotatedElementUtils.hasAnnotation(method, ModelAttribute.class));
 
+	/**
+	 * Marks the concurrent result of a controller method invoked on the handler task executor.
+	 */
+	private static final Object OFFLOADED_HANDLER_MARKER = new Object();
+
 
 	@Nullable
 	private List<HandlerMethodArgumentResolver> customArgumentResolvers;
@@ -157,6 +163,9 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 	private AsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("MvcAsync");
 
+	@Nullable
+	private AsyncTaskExecutor handlerTaskExecutor;
+
 	@Nullable
 	private Long asyncRequestTimeout;
 
@@ -166,6 +175,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 	private ReactiveAdapterRegistry reactiveAdapterRegistry = ReactiveAdapterRegistry.getSharedInstance();
 
+	private boolean nonBlockingAsyncWrite = false;
+
 	private boolean ignoreDefaultModelOnRedirect = false;
 
 	private int cacheSecondsForSessionAttributeHandlers = 0;
@@ -407,6 +418,36 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		this.taskExecutor = taskExecutor;
 	}
 
+	/**
+	 * Set an {@link AsyncTaskExecutor} to invoke controller methods on, in
+	 * place of the Servlet container thread. When set, each request is put in
+	 * async mode, the controller method is invoked on the given executor, and
+	 * the return value is then handled in an async dispatch, just like the
+	 * result of a {@link Callable}.
+	 * <p>This is primarily intended for use with
+	 * {@link org.springframework.scheduling.concurrent.VirtualThreadTaskExecutor},
+	 * allowing blocking controller methods to scale to a large number of
+	 * concurrent requests without a correspondingly large container pool.
+	 * <p>By default this is not set and controller methods are invoked on the
+	 * Servlet container thread.
+	 * @since 5.2
+	 */
+	public void setHandlerTaskExecutor(@Nullable AsyncTaskExecutor handlerTaskExecutor) {
+		this.handlerTaskExecutor = handlerTaskExecutor;
+	}
+
+	/**
+	 * Whether to write {@code @ResponseBody} and {@code HttpEntity} return
+	 * values produced asynchronously (e.g. via {@code DeferredResult} or
+	 * {@code CompletableFuture}) with Servlet 3.1 non-blocking I/O.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2
+	 * @see AbstractMessageConverterMethodProcessor#setNonBlockingAsyncWrite
+	 */
+	public void setNonBlockingAsyncWrite(boolean nonBlockingAsyncWrite) {
+		this.nonBlockingAsyncWrite = nonBlockingAsyncWrite;
+	}
+
 	/**
 	 * Specify the amount of time, in milliseconds, before concurrent handling
 	 * should time out. In Servlet 3, the timeout begins after the main request
@@ -720,8 +761,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		handlers.add(new ResponseBodyEmitterReturnValueHandler(getMessageConverters(),
 				this.reactiveAdapterRegistry, this.taskExecutor, this.contentNegotiationManager));
 		handlers.add(new StreamingResponseBodyReturnValueHandler());
-		handlers.add(new HttpEntityMethodProcessor(getMessageConverters(),
-				this.contentNegotiationManager, this.requestResponseBodyAdvice));
+		HttpEntityMethodProcessor httpEntityProcessor = new HttpEntityMethodProcessor(getMessageConverters(),
+				this.contentNegotiationManager, this.requestResponseBodyAdvice);
+		httpEntityProcessor.setNonBlockingAsyncWrite(this.nonBlockingAsyncWrite);
+		handlers.add(httpEntityProcessor);
 		handlers.add(new HttpHeadersReturnValueHandler());
 		handlers.add(new CallableMethodReturnValueHandler());
 		handlers.add(new DeferredResultMethodReturnValueHandler());
@@ -729,8 +772,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 		// Annotation-based return value types
 		handlers.add(new ModelAttributeMethodProcessor(false));
-		handlers.add(new RequestResponseBodyMethodProcessor(getMessageConverters(),
-				this.contentNegotiationManager, this.requestResponseBodyAdvice));
+		RequestResponseBodyMethodProcessor responseBodyProcessor = new RequestResponseBodyMethodProcessor(
+				getMessageConverters(), this.contentNegotiationManager, this.requestResponseBodyAdvice);
+		responseBodyProcessor.setNonBlockingAsyncWrite(this.nonBlockingAsyncWrite);
+		handlers.add(responseBodyProcessor);
 
 		// Multi-purpose return value types
 		handlers.add(new ViewNameMethodReturnValueHandler());
@@ -845,6 +890,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 			HttpServletResponse response, HandlerMethod handlerMethod) throws Exception {
 
 		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		boolean offloaded = false;
 		try {
 			WebDataBinderFactory binderFactory = getDataBinderFactory(handlerMethod);
 			ModelFactory modelFactory = getModelFactory(handlerMethod, binderFactory);
@@ -875,13 +921,25 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 			if (asyncManager.hasConcurrentResult()) {
 				Object result = asyncManager.getConcurrentResult();
-				mavContainer = (ModelAndViewContainer) asyncManager.getConcurrentResultContext()[0];
+				Object[] resultContext = asyncManager.getConcurrentResultContext();
+				mavContainer = (ModelAndViewContainer) resultContext[0];
 				asyncManager.clearConcurrentResult();
 				LogFormatUtils.traceDebug(logger, traceOn -> {
 					String formatted = LogFormatUtils.formatValue(result, !traceOn);
 					return "Resume with async result [" + formatted + "]";
 				});
-				invocableMethod = invocableMethod.wrapConcurrentResult(result);
+				if (resultContext.length > 2 && resultContext[1] == OFFLOADED_HANDLER_MARKER) {
+					boolean notModified = ((ServletWebRequest) resultContext[2]).isNotModified();
+					invocableMethod = invocableMethod.wrapOffloadedResult(result, notModified);
+				}
+				else {
+					invocableMethod = invocableMethod.wrapConcurrentResult(result);
+				}
+			}
+			else if (this.handlerTaskExecutor != null && request.isAsyncSupported()) {
+				startHandlerOffloading(invocableMethod, mavContainer, asyncManager, webRequest);
+				offloaded = true;
+				return null;
 			}
 
 			invocableMethod.invokeAndHandle(webRequest, mavContainer);
@@ -892,10 +950,39 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 			return getModelAndView(mavContainer, modelFactory, webRequest);
 		}
 		finally {
-			webRequest.requestCompleted();
+			if (!offloaded) {
+				webRequest.requestCompleted();
+			}
 		}
 	}
 
+	/**
+	 * Invoke the controller method on the configured handler task executor,
+	 * resuming with its return value (or exception) in an async dispatch.
+	 * <p>The controller method is invoked with the same {@code webRequest}, which
+	 * is completed afterwards, and passed on to the async dispatch, so that it
+	 * can tell whether the controller method found the request "not modified".
+	 * Request attributes and locale context are bound on the executor thread by
+	 * the registered {@code CallableProcessingInterceptor}s, as for any other
+	 * {@code Callable}, e.g. by {@code FrameworkServlet}.
+	 */
+	private void startHandlerOffloading(ServletInvocableHandlerMethod invocableMethod,
+			ModelAndViewContainer mavContainer, WebAsyncManager asyncManager,
+			ServletWebRequest webRequest) throws Exception {
+
+		Assert.state(this.handlerTaskExecutor != null, "No handler TaskExecutor");
+		Callable<Object> callable = () -> {
+			try {
+				return invocableMethod.invokeForRequest(webRequest, mavContainer);
+			}
+			finally {
+				webRequest.requestCompleted();
+			}
+		};
+		WebAsyncTask<Object> task = new WebAsyncTask<>(this.asyncRequestTimeout, this.handlerTaskExecutor, callable);
+		asyncManager.startCallableProcessing(task, mavContainer, OFFLOADED_HANDLER_MARKER, webRequest);
+	}
+
 	/**
 	 * Create a {@link ServletInvocableHandlerMethod} from the given {@link HandlerMethod} definition.
 	 * @param handlerMethod the {@link HandlerMethod} definition
@@ -160,7 +160,7 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 	 * @see ServletWebRequest#checkNotModified(long)
 	 * @see ServletWebRequest#checkNotModified(String)
 	 */
-	private boolean isRequestNotModified(ServletWebRequest webRequest) {
+	boolean isRequestNotModified(ServletWebRequest webRequest) {
 		return webRequest.isNotModified();
 	}
 
@@ -189,7 +189,21 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 	 * async return values (e.g. Callable, DeferredResult, ListenableFuture).
 	 */
 	ServletInvocableHandlerMethod wrapConcurrentResult(Object result) {
-		return new ConcurrentResultHandlerMethod(result, new ConcurrentResultMethodParameter(result));
+		return new ConcurrentResultHandlerMethod(result, new ConcurrentResultMethodParameter(result), false, false);
+	}
+
+	/**
+	 * Variant of {@link #wrapConcurrentResult(Object)} for a value returned by
+	 * invoking this controller method on another thread, as opposed to a value
+	 * produced by an async return value. The result is therefore handled with
+	 * the controller method's own return type and response status.
+	 * @param result the value returned by the controller method
+	 * @param notModified whether the controller method found the request to
+	 * be "not modified" on the other thread
+	 * @since 5.2
+	 */
+	ServletInvocableHandlerMethod wrapOffloadedResult(@Nullable Object result, boolean notModified) {
+		return new ConcurrentResultHandlerMethod(result, getReturnValueType(result), true, notModified);
 	}
 
 
@@ -203,7 +217,13 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 
 		private final MethodParameter returnType;
 
-		public ConcurrentResultHandlerMethod(final Object result, ConcurrentResultMethodParameter returnType) {
+		private final boolean bridgeResponseStatus;
+
+		private final boolean notModified;
+
+		public ConcurrentResultHandlerMethod(@Nullable final Object result, MethodParameter returnType,
+				boolean bridgeResponseStatus, boolean notModified) {
+
 			super((Callable<Object>) () -> {
 				if (result instanceof Exception) {
 					throw (Exception) result;
@@ -218,6 +238,31 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 				setHandlerMethodReturnValueHandlers(ServletInvocableHandlerMethod.this.returnValueHandlers);
 			}
 			this.returnType = returnType;
+			this.bridgeResponseStatus = bridgeResponseStatus;
+			this.notModified = notModified;
+		}
+
+		@Override
+		boolean isRequestNotModified(ServletWebRequest webRequest) {
+			return (this.notModified || super.isRequestNotModified(webRequest));
+		}
+
+		/**
+		 * Bridge to the controller method's {@code @ResponseStatus}, if the
+		 * status was not already applied when the controller method returned.
+		 */
+		@Override
+		@Nullable
+		protected HttpStatus getResponseStatus() {
+			return (this.bridgeResponseStatus ?
+					ServletInvocableHandlerMethod.this.getResponseStatus() : super.getResponseStatus());
+		}
+
+		@Override
+		@Nullable
+		protected String getResponseStatusReason() {
+			return (this.bridgeResponseStatus ?
+					ServletInvocableHandlerMethod.this.getResponseStatusReason() : super.getResponseStatusReason());
 		}
 
 		/**
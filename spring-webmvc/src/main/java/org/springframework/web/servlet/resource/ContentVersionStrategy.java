@@ -17,8 +17,11 @@
 package org.springframework.web.servlet.resource;
 
 import java.io.IOException;
+import java.util.Map;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.FileCopyUtils;
 
@@ -27,6 +30,9 @@ import org.springframework.util.FileCopyUtils;
  * of the resource and appends it to the file name, e.g.
  * {@code "styles/main-e36d2e05253c6c7085a91522ce43a0b4.css"}.
  *
+ * <p>As of 5.2, calculated hashes are cached per resource and re-calculated
+ * only when the last-modified date of the resource changes.
+ *
  * @author Brian Clozel
  * @author Rossen Stoyanchev
  * @since 4.1
@@ -34,19 +40,60 @@ import org.springframework.util.FileCopyUtils;
  */
 public class ContentVersionStrategy extends AbstractVersionStrategy {
 
+	private final Map<Resource, CachedVersion> versionCache = new ConcurrentReferenceHashMap<>(64);
+
+
 	public ContentVersionStrategy() {
 		super(new FileNameVersionPathStrategy());
 	}
 
 	@Override
 	public String getResourceVersion(Resource resource) {
+		long lastModified = getLastModified(resource);
+		if (lastModified != -1) {
+			CachedVersion cached = this.versionCache.get(resource);
+			if (cached != null && cached.lastModified == lastModified) {
+				return cached.version;
+			}
+		}
+		String version;
 		try {
 			byte[] content = FileCopyUtils.copyToByteArray(resource.getInputStream());
-			return DigestUtils.md5DigestAsHex(content);
+			version = DigestUtils.md5DigestAsHex(content);
 		}
 		catch (IOException ex) {
 			throw new IllegalStateException("Failed to calculate hash for " + resource, ex);
 		}
+		if (lastModified != -1) {
+			this.versionCache.put(resource, new CachedVersion(version, lastModified));
+		}
+		return version;
+	}
+
+	private static long getLastModified(Resource resource) {
+		// In-memory (e.g. transformed) content has no stable identity to cache by
+		if (resource instanceof ByteArrayResource) {
+			return -1;
+		}
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException ex) {
+			return -1;
+		}
+	}
+
+
+	private static final class CachedVersion {
+
+		private final String version;
+
+		private final long lastModified;
+
+		CachedVersion(String version, long lastModified) {
+			this.version = version;
+			this.lastModified = lastModified;
+		}
 	}
 
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -27,6 +28,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -102,6 +105,14 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 
 	private static final String URL_RESOURCE_CHARSET_PREFIX = "[charset=";
 
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
 
 	private final List<String> locationValues = new ArrayList<>(4);
 
@@ -140,6 +151,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 	@Nullable
 	private StringValueResolver embeddedValueResolver;
 
+	private long sendfileThreshold = 48 * 1024;
+
 
 	public ResourceHttpRequestHandler() {
 		super(HttpMethod.GET.name(), HttpMethod.HEAD.name());
@@ -311,6 +324,28 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		return this.urlPathHelper;
 	}
 
+	/**
+	 * Set the minimum content length for a file-based resource to be written
+	 * with the Servlet container's sendfile support, i.e. copied by the
+	 * container from the file to the socket without passing through the JVM
+	 * heap. This applies only where the container advertises sendfile support
+	 * for the current request (e.g. Tomcat with an NIO connector), and only
+	 * for full content responses, not for range requests.
+	 * <p>By default this is set to 48K. Use -1 to not use sendfile.
+	 * @since 5.2
+	 */
+	public void setSendfileThreshold(long sendfileThreshold) {
+		this.sendfileThreshold = sendfileThreshold;
+	}
+
+	/**
+	 * Return the configured sendfile threshold.
+	 * @since 5.2
+	 */
+	public long getSendfileThreshold() {
+		return this.sendfileThreshold;
+	}
+
 	@Override
 	public void setEmbeddedValueResolver(StringValueResolver resolver) {
 		this.embeddedValueResolver = resolver;
@@ -464,7 +499,9 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		checkRequest(request);
 
 		// Header phase
-		if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		String eTag = (resource instanceof HttpResource ?
+				((HttpResource) resource).getResponseHeaders().getETag() : null);
+		if (new ServletWebRequest(request, response).checkNotModified(eTag, resource.lastModified())) {
 			logger.trace("Resource not modified");
 			return;
 		}
@@ -485,6 +522,10 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
 			setHeaders(response, resource, mediaType);
+			if (isSendfileApplicable(request, response, resource)) {
+				setSendfileAttributes(request, resource);
+				return;
+			}
 			this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
 		}
 		else {
@@ -708,6 +749,31 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 	}
 
+	/**
+	 * Whether the given resource can be written with container sendfile
+	 * support, which is the case for file-based resources above the
+	 * {@link #setSendfileThreshold threshold}, if the container supports it
+	 * and the request and response are not wrapped.
+	 */
+	private boolean isSendfileApplicable(HttpServletRequest request, HttpServletResponse response,
+			Resource resource) throws IOException {
+
+		return (this.sendfileThreshold >= 0 &&
+				Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)) &&
+				!(request instanceof ServletRequestWrapper) && !(response instanceof ServletResponseWrapper) &&
+				resource.isFile() && resource.contentLength() >= this.sendfileThreshold);
+	}
+
+	private void setSendfileAttributes(HttpServletRequest request, Resource resource) throws IOException {
+		File file = resource.getFile();
+		request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getAbsolutePath());
+		request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+		request.setAttribute(SENDFILE_END_ATTRIBUTE, resource.contentLength());
+		if (logger.isTraceEnabled()) {
+			logger.trace("Using container sendfile for " + file);
+		}
+	}
+
 
 	@Override
 	public String toString() {
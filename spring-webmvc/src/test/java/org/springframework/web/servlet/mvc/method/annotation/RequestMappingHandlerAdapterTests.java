@@ -23,13 +23,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -47,7 +51,15 @@ import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.RequestScope;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.annotation.ModelMethodProcessor;
@@ -259,6 +271,94 @@ public class RequestMappingHandlerAdapterTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("{\"status\":400,\"message\":\"body\"}");
 	}
 
+	@Test
+	public void handlerTaskExecutor() throws Exception {
+		this.request.setAsyncSupported(true);
+		this.handlerAdapter.setHandlerTaskExecutor(new TaskExecutorAdapter(Runnable::run));
+		this.handlerAdapter.afterPropertiesSet();
+
+		HandlerMethod handlerMethod = handlerMethod(new SimpleController(), "handleBadRequest");
+		ModelAndView mav = this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(mav).isNull();
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(this.response.getContentAsString()).isEmpty();
+
+		// Async dispatch with the controller method's return value
+		this.request.setAsyncStarted(false);
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(this.response.getStatus()).isEqualTo(400);
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	public void handlerTaskExecutorWithNotModified() throws Exception {
+		this.request.setMethod("GET");
+		this.request.addHeader("If-None-Match", "\"etag\"");
+		this.request.setAsyncSupported(true);
+		this.handlerAdapter.setHandlerTaskExecutor(threadPerTaskExecutor());
+		this.handlerAdapter.afterPropertiesSet();
+
+		HandlerMethod handlerMethod = handlerMethod(new SimpleController(), "handleNotModified", WebRequest.class);
+		assertThat(this.handlerAdapter.handle(this.request, this.response, handlerMethod)).isNull();
+		assertThat(this.request.isAsyncStarted()).isTrue();
+
+		// Async dispatch with the controller method's return value
+		this.request.setAsyncStarted(false);
+		ModelAndView mav = this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(mav).isNull();
+		assertThat(this.response.getStatus()).isEqualTo(304);
+	}
+
+	@Test
+	public void handlerTaskExecutorWithRequestScope() throws Exception {
+		this.request.setAsyncSupported(true);
+		this.handlerAdapter.setHandlerTaskExecutor(threadPerTaskExecutor());
+		this.handlerAdapter.afterPropertiesSet();
+
+		// Binds context holders on the executor thread, like FrameworkServlet does
+		WebAsyncUtils.getAsyncManager(this.request).registerCallableInterceptor("binding",
+				new CallableProcessingInterceptor() {
+					@Override
+					public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
+						RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+						LocaleContextHolder.setLocale(Locale.FRENCH);
+					}
+					@Override
+					public <T> void postProcess(NativeWebRequest webRequest, Callable<T> task, Object result) {
+						LocaleContextHolder.resetLocaleContext();
+						RequestContextHolder.resetRequestAttributes();
+					}
+				});
+
+		HandlerMethod handlerMethod = handlerMethod(new SimpleController(), "handleRequestScope");
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(RequestContextHolder.getRequestAttributes()).isNull();
+
+		// Async dispatch with the controller method's return value
+		this.request.setAsyncStarted(false);
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(this.response.getContentAsString()).isEqualTo("scoped-fr");
+		assertThat(this.request.getAttribute("scopedBean")).isEqualTo("scoped");
+	}
+
+	private static TaskExecutorAdapter threadPerTaskExecutor() {
+		return new TaskExecutorAdapter(task -> {
+			Thread thread = new Thread(task);
+			thread.start();
+			try {
+				thread.join();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+	}
+
 	private HandlerMethod handlerMethod(Object handler, String methodName, Class<?>... paramTypes) throws Exception {
 		Method method = handler.getClass().getDeclaredMethod(methodName, paramTypes);
 		return new InvocableHandlerMethod(handler, method);
@@ -292,6 +392,16 @@ public class RequestMappingHandlerAdapterTests {
 			return new ResponseEntity<>("body", HttpStatus.BAD_REQUEST);
 		}
 
+		public void handleNotModified(WebRequest request) {
+			request.checkNotModified("etag");
+		}
+
+		@ResponseBody
+		public String handleRequestScope() {
+			Object bean = new RequestScope().get("scopedBean", () -> "scoped");
+			return bean + "-" + LocaleContextHolder.getLocale();
+		}
+
 	}
 
 
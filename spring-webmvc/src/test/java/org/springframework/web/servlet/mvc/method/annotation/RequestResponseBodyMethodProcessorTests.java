@@ -25,6 +25,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
@@ -64,6 +67,9 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.support.ModelAndViewContainer;
 import org.springframework.web.servlet.ModelAndView;
@@ -309,6 +315,33 @@ public class RequestResponseBodyMethodProcessorTests {
 		assertThat(servletResponse.getContentAsString()).isEqualTo("Foo");
 	}
 
+	@Test
+	public void handleReturnValueNonBlockingAsyncWrite() throws Exception {
+		WriteListenerServletResponse response = new WriteListenerServletResponse();
+		this.servletRequest.setDispatcherType(DispatcherType.ASYNC);
+		this.servletRequest.setAsyncSupported(true);
+		NativeWebRequest webRequest = new ServletWebRequest(this.servletRequest, response);
+		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(this.servletRequest);
+		asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(this.servletRequest, response));
+
+		List<HttpMessageConverter<?>> converters = Collections.singletonList(new StringHttpMessageConverter());
+		RequestResponseBodyMethodProcessor processor = new RequestResponseBodyMethodProcessor(converters);
+		processor.setNonBlockingAsyncWrite(true);
+		processor.handleReturnValue("Foo", returnTypeString, container, webRequest);
+
+		assertThat(response.writeListener).isNotNull();
+		assertThat(response.content.size()).isEqualTo(0);
+		assertThat(asyncManager.isConcurrentHandlingStarted()).isTrue();
+
+		response.ready = true;
+		response.writeListener.onWritePossible();
+
+		assertThat(response.content.toString("ISO-8859-1")).isEqualTo("Foo");
+		assertThat(response.getContentLength()).isEqualTo(3);
+		assertThat(asyncManager.isConcurrentHandlingStarted()).isFalse();
+		assertThat(this.servletRequest.isAsyncStarted()).isFalse();
+	}
+
 	@Test  // SPR-13423
 	public void handleReturnValueCharSequence() throws Exception {
 		List<HttpMessageConverter<?>>converters = new ArrayList<>();
@@ -734,6 +767,39 @@ public class RequestResponseBodyMethodProcessorTests {
 	}
 
 
+	private static class WriteListenerServletResponse extends MockHttpServletResponse {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private boolean ready;
+
+		private WriteListener writeListener;
+
+		private final ServletOutputStream outputStream = new ServletOutputStream() {
+
+			@Override
+			public boolean isReady() {
+				return ready;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+				writeListener = listener;
+			}
+
+			@Override
+			public void write(int b) {
+				content.write(b);
+			}
+		};
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+	}
+
+
 	private static abstract class MyParameterizedController<DTO extends Identifiable> {
 
 		@SuppressWarnings("unused")
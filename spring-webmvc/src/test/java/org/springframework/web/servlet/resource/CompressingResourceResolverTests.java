@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CompressingResourceResolver}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class CompressingResourceResolverTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private CompressingResourceResolver compressingResolver;
+
+	private ResourceResolverChain resolver;
+
+	private List<Resource> locations;
+
+	private byte[] content;
+
+
+	@Before
+	public void setup() throws IOException {
+		this.content = StringUtils.collectionToDelimitedString(
+				Collections.nCopies(200, "h1 { color: red; }"), "\n").getBytes("UTF-8");
+		FileCopyUtils.copy(this.content, this.folder.newFile("main.css"));
+		FileCopyUtils.copy(this.content, this.folder.newFile("main.png"));
+		FileCopyUtils.copy("h1 { }".getBytes("UTF-8"), this.folder.newFile("small.css"));
+
+		this.compressingResolver = new CompressingResourceResolver();
+
+		List<ResourceResolver> resolvers = new ArrayList<>();
+		resolvers.add(this.compressingResolver);
+		resolvers.add(new PathResourceResolver());
+		this.resolver = new DefaultResourceResolverChain(resolvers);
+
+		this.locations = Collections.singletonList(new FileSystemResource(this.folder.getRoot().getPath() + "/"));
+	}
+
+
+	@Test
+	public void resolveCompressed() throws IOException {
+		Resource actual = this.resolver.resolveResource(gzipRequest(), "main.css", this.locations);
+
+		assertThat(actual).isInstanceOf(HttpResource.class);
+		assertThat(actual.getFilename()).isEqualTo("main.css");
+		assertThat(actual.contentLength()).isLessThan(this.content.length);
+		assertThat(actual.lastModified()).isEqualTo(new File(this.folder.getRoot(), "main.css").lastModified());
+		assertThat(FileCopyUtils.copyToByteArray(new GZIPInputStream(actual.getInputStream()))).isEqualTo(this.content);
+
+		HttpHeaders headers = ((HttpResource) actual).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(headers.getETag()).startsWith("\"").endsWith("-gzip\"");
+		assertThat(this.compressingResolver.getCacheSize()).isEqualTo(actual.contentLength());
+	}
+
+	@Test
+	public void resolveCompressedFromCache() throws IOException {
+		Resource first = this.resolver.resolveResource(gzipRequest(), "main.css", this.locations);
+		Resource second = this.resolver.resolveResource(gzipRequest(), "main.css", this.locations);
+
+		assertThat(second.contentLength()).isEqualTo(first.contentLength());
+		assertThat(FileCopyUtils.copyToByteArray(second.getInputStream()))
+				.isEqualTo(FileCopyUtils.copyToByteArray(first.getInputStream()));
+		assertThat(this.compressingResolver.getCacheSize()).isEqualTo(first.contentLength());
+	}
+
+	@Test
+	public void resolveWithoutAcceptEncoding() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		Resource actual = this.resolver.resolveResource(request, "main.css", this.locations);
+
+		assertThat(actual).isInstanceOf(FileSystemResource.class);
+		assertThat(this.compressingResolver.getCacheSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void resolveWithGzipRejected() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Accept-Encoding", "gzip;q=0, deflate");
+		Resource actual = this.resolver.resolveResource(request, "main.css", this.locations);
+		assertThat(actual).isInstanceOf(FileSystemResource.class);
+		assertThat(this.compressingResolver.getCacheSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void resolveNotCompressible() {
+		Resource actual = this.resolver.resolveResource(gzipRequest(), "main.png", this.locations);
+		assertThat(actual).isInstanceOf(FileSystemResource.class);
+
+		actual = this.resolver.resolveResource(gzipRequest(), "small.css", this.locations);
+		assertThat(actual).isInstanceOf(FileSystemResource.class);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws IOException {
+		FileCopyUtils.copy(this.content, this.folder.newFile("other.css"));
+		long size = this.resolver.resolveResource(gzipRequest(), "main.css", this.locations).contentLength();
+		this.compressingResolver.setMaxCacheSize(size);
+
+		this.resolver.resolveResource(gzipRequest(), "other.css", this.locations);
+
+		assertThat(this.compressingResolver.getCacheSize()).isEqualTo(size);
+	}
+
+	@Test
+	public void compressibleExtensions() {
+		this.compressingResolver.setCompressibleExtensions(Collections.singletonList("PNG"));
+		Resource actual = this.resolver.resolveResource(gzipRequest(), "main.png", this.locations);
+		assertThat(actual).isInstanceOf(HttpResource.class);
+
+		actual = this.resolver.resolveResource(gzipRequest(), "main.css", this.locations);
+		assertThat(actual).isInstanceOf(FileSystemResource.class);
+	}
+
+
+	private static MockHttpServletRequest gzipRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+		return request;
+	}
+
+}
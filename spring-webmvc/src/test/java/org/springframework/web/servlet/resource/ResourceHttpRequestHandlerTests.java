@@ -99,6 +99,32 @@ public class ResourceHttpRequestHandlerTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("h1 { color:red; }");
 	}
 
+	@Test
+	public void getResourceWithSendfile() throws Exception {
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		this.handler.setSendfileThreshold(0);
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getContentType()).isEqualTo("text/css");
+		assertThat(this.response.getContentLength()).isEqualTo(17);
+		assertThat(this.response.getContentAsByteArray().length).isEqualTo(0);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename"))
+				.isEqualTo(new ClassPathResource("test/foo.css", getClass()).getFile().getAbsolutePath());
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(0L);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(17L);
+	}
+
+	@Test
+	public void getResourceBelowSendfileThreshold() throws Exception {
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+		assertThat(this.response.getContentAsString()).isEqualTo("h1 { color:red; }");
+	}
+
 	@Test
 	public void getResourceHttpHeader() throws Exception {
 		this.request.setMethod("HEAD");
@@ -154,6 +180,21 @@ public class ResourceHttpRequestHandlerTests {
 		assertThat(this.response.getHeaders("Accept-Ranges").size()).isEqualTo(1);
 	}
 
+	@Test
+	public void getVersionedResourceNotModifiedByETag() throws Exception {
+		VersionResourceResolver versionResolver = new VersionResourceResolver()
+				.addFixedVersionStrategy("versionString", "/**");
+		this.handler.setResourceResolvers(Arrays.asList(versionResolver, new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "versionString/foo.css");
+		this.request.addHeader("If-None-Match", "\"versionString\"");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+		assertThat(this.response.getHeader("ETag")).isEqualTo("\"versionString\"");
+	}
+
 	@Test
 	@SuppressWarnings("deprecation")
 	public void getResourceHttp10BehaviorCache() throws Exception {
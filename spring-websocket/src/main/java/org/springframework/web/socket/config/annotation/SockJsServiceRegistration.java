@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 import org.springframework.web.socket.sockjs.SockJsService;
 import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
@@ -62,6 +63,9 @@ public class SockJsServiceRegistration {
 	@Nullable
 	private Integer httpMessageCacheSize;
 
+	@Nullable
+	private OverflowStrategy httpMessageCacheOverflowStrategy;
+
 	@Nullable
 	private Boolean webSocketEnabled;
 
@@ -186,6 +190,18 @@ public class SockJsServiceRegistration {
 		return this;
 	}
 
+	/**
+	 * How to handle a server-to-client message when the HTTP message cache of a
+	 * session is full, i.e. whether to terminate the session or to drop the
+	 * oldest cached message.
+	 * <p>The default is {@link OverflowStrategy#TERMINATE}.
+	 * @since 5.2
+	 */
+	public SockJsServiceRegistration setHttpMessageCacheOverflowStrategy(OverflowStrategy overflowStrategy) {
+		this.httpMessageCacheOverflowStrategy = overflowStrategy;
+		return this;
+	}
+
 	/**
 	 * Some load balancers don't support WebSocket. This option can be used to
 	 * disable the WebSocket transport on the server side.
@@ -277,6 +293,9 @@ public class SockJsServiceRegistration {
 		if (this.httpMessageCacheSize != null) {
 			service.setHttpMessageCacheSize(this.httpMessageCacheSize);
 		}
+		if (this.httpMessageCacheOverflowStrategy != null) {
+			service.setHttpMessageCacheOverflowStrategy(this.httpMessageCacheOverflowStrategy);
+		}
 		if (this.webSocketEnabled != null) {
 			service.setWebSocketEnabled(this.webSocketEnabled);
 		}
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.security.Principal;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +39,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.SimpAttributes;
 import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.messaging.simp.SimpBroadcast;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.stomp.BufferingStompDecoder;
@@ -50,6 +53,7 @@ import org.springframework.messaging.support.ImmutableMessageChannelInterceptor;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderInitializer;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.BinaryMessage;
@@ -456,13 +460,21 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 				payload = errorMessage.getPayload();
 			}
 		}
-		sendToClient(session, accessor, payload);
+		SimpBroadcast broadcast = (StompCommand.MESSAGE.equals(command) ? SimpBroadcast.from(message) : null);
+		sendToClient(session, accessor, payload, broadcast);
 	}
 
 	private void sendToClient(WebSocketSession session, StompHeaderAccessor stompAccessor, byte[] payload) {
+		sendToClient(session, stompAccessor, payload, null);
+	}
+
+	private void sendToClient(WebSocketSession session, StompHeaderAccessor stompAccessor, byte[] payload,
+			@Nullable SimpBroadcast broadcast) {
+
 		StompCommand command = stompAccessor.getCommand();
 		try {
-			byte[] bytes = this.stompEncoder.encode(stompAccessor.getMessageHeaders(), payload);
+			byte[] bytes = (broadcast != null ? encodeBroadcast(broadcast, stompAccessor, payload) :
+					this.stompEncoder.encode(stompAccessor.getMessageHeaders(), payload));
 			boolean useBinary = (payload.length > 0 && !(session instanceof SockJsSession) &&
 					MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(stompAccessor.getContentType()));
 			if (useBinary) {
@@ -495,6 +507,35 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 		}
 	}
 
+	/**
+	 * Encode a MESSAGE frame that is part of a broadcast. The frame without the
+	 * headers that vary per subscriber is encoded once for the broadcast, and
+	 * only those headers are added for each subscriber.
+	 */
+	private byte[] encodeBroadcast(SimpBroadcast broadcast, StompHeaderAccessor accessor, byte[] payload) {
+		String subscriptionId = accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+		String messageId = accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+		if (subscriptionId == null || messageId == null) {
+			return this.stompEncoder.encode(accessor.getMessageHeaders(), payload);
+		}
+		Map<String, List<String>> nativeHeaders = accessor.toNativeHeaderMap();
+		nativeHeaders.remove(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+		nativeHeaders.remove(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+		EncodedBroadcast encoded = broadcast.computeAttributeIfAbsent(this.stompEncoder, encoder -> {
+			Map<String, Object> headers = new HashMap<>(accessor.toMap());
+			headers.put(NativeMessageHeaderAccessor.NATIVE_HEADERS, nativeHeaders);
+			return new EncodedBroadcast(nativeHeaders, payload, encoder.encode(headers, payload));
+		});
+		if (!encoded.matches(nativeHeaders, payload)) {
+			// Headers were changed for this subscriber, e.g. by a channel interceptor
+			return this.stompEncoder.encode(accessor.getMessageHeaders(), payload);
+		}
+		Map<String, String> headers = new LinkedHashMap<>(4);
+		headers.put(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, subscriptionId);
+		headers.put(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, messageId);
+		return this.stompEncoder.addHeaders(encoded.frame, headers);
+	}
+
 	private StompHeaderAccessor getStompHeaderAccessor(Message<?> message) {
 		MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
 		if (accessor instanceof StompHeaderAccessor) {
@@ -680,6 +721,30 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 	}
 
 
+	/**
+	 * A MESSAGE frame encoded once for a broadcast, along with the input
+	 * it was encoded from.
+	 */
+	private static class EncodedBroadcast {
+
+		private final Map<String, List<String>> nativeHeaders;
+
+		private final byte[] payload;
+
+		private final byte[] frame;
+
+		EncodedBroadcast(Map<String, List<String>> nativeHeaders, byte[] payload, byte[] frame) {
+			this.nativeHeaders = nativeHeaders;
+			this.payload = payload;
+			this.frame = frame;
+		}
+
+		public boolean matches(Map<String, List<String>> nativeHeaders, byte[] payload) {
+			return (this.payload == payload && this.nativeHeaders.equals(nativeHeaders));
+		}
+	}
+
+
 	private static class DefaultStats implements Stats {
 
 		private final AtomicInteger connect = new AtomicInteger();
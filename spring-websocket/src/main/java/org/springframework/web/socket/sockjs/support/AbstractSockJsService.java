@@ -50,6 +50,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.sockjs.SockJsException;
 import org.springframework.web.socket.sockjs.SockJsService;
 import org.springframework.web.util.WebUtils;
@@ -93,6 +94,8 @@ public abstract class AbstractSockJsService implements SockJsService, CorsConfig
 
 	private int httpMessageCacheSize = 100;
 
+	private OverflowStrategy httpMessageCacheOverflowStrategy = OverflowStrategy.TERMINATE;
+
 	private boolean webSocketEnabled = true;
 
 	private boolean suppressCors = false;
@@ -263,6 +266,29 @@ public abstract class AbstractSockJsService implements SockJsService, CorsConfig
 		return this.httpMessageCacheSize;
 	}
 
+	/**
+	 * How to handle a server-to-client message when the HTTP message cache of
+	 * a session is full: {@link OverflowStrategy#TERMINATE} raises a
+	 * {@link org.springframework.web.socket.handler.SessionLimitExceededException
+	 * SessionLimitExceededException}, while {@link OverflowStrategy#DROP} drops
+	 * the oldest cached message.
+	 * <p>The default is {@link OverflowStrategy#TERMINATE}.
+	 * @since 5.2
+	 * @see #setHttpMessageCacheSize(int)
+	 */
+	public void setHttpMessageCacheOverflowStrategy(OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "OverflowStrategy must not be null");
+		this.httpMessageCacheOverflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the strategy for a full HTTP message cache.
+	 * @since 5.2
+	 */
+	public OverflowStrategy getHttpMessageCacheOverflowStrategy() {
+		return this.httpMessageCacheOverflowStrategy;
+	}
+
 	/**
 	 * Some load balancers do not support WebSocket. This option can be used to
 	 * disable the WebSocket transport on the server side.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.sockjs.transport;
 
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.sockjs.SockJsService;
 import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
 
@@ -66,6 +67,16 @@ public interface SockJsServiceConfig {
 	 */
 	int getHttpMessageCacheSize();
 
+	/**
+	 * How to handle a server-to-client message when the cache of a session
+	 * is full, i.e. {@link #getHttpMessageCacheSize()} is reached.
+	 * <p>By default this is {@link OverflowStrategy#TERMINATE}.
+	 * @since 5.2
+	 */
+	default OverflowStrategy getHttpMessageCacheOverflowStrategy() {
+		return OverflowStrategy.TERMINATE;
+	}
+
 	/**
 	 * The codec to use for encoding and decoding SockJS messages.
 	 * @throws IllegalStateException if no {@link SockJsMessageCodec} is available
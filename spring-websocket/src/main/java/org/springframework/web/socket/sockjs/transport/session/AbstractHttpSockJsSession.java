@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,8 @@ import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.sockjs.SockJsException;
 import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
 import org.springframework.web.socket.sockjs.frame.SockJsFrame;
@@ -54,6 +56,12 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 
 	private final Queue<String> messageCache;
 
+	private final int messageCacheLimit;
+
+	private final OverflowStrategy overflowStrategy;
+
+	private volatile long droppedMessageCount;
+
 	@Nullable
 	private volatile URI uri;
 
@@ -88,7 +96,9 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 			WebSocketHandler wsHandler, Map<String, Object> attributes) {
 
 		super(id, config, wsHandler, attributes);
-		this.messageCache = new LinkedBlockingQueue<>(config.getHttpMessageCacheSize());
+		this.messageCacheLimit = config.getHttpMessageCacheSize();
+		this.messageCache = new LinkedBlockingQueue<>(this.messageCacheLimit);
+		this.overflowStrategy = config.getHttpMessageCacheOverflowStrategy();
 	}
 
 
@@ -152,6 +162,25 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 		return this.messageCache;
 	}
 
+	/**
+	 * Return the number of messages in the SockJS buffer, i.e. not yet sent
+	 * to the client.
+	 * @since 5.2
+	 */
+	public int getMessageCacheSize() {
+		return this.messageCache.size();
+	}
+
+	/**
+	 * Return the number of messages dropped so far because the SockJS buffer
+	 * was full, with {@link OverflowStrategy#DROP}.
+	 * @since 5.2
+	 * @see SockJsServiceConfig#getHttpMessageCacheOverflowStrategy()
+	 */
+	public long getDroppedMessageCount() {
+		return this.droppedMessageCount;
+	}
+
 
 	@Override
 	public boolean isActive() {
@@ -293,7 +322,20 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 	@Override
 	protected final void sendMessageInternal(String message) throws SockJsTransportFailureException {
 		synchronized (this.responseLock) {
-			this.messageCache.add(message);
+			while (!this.messageCache.offer(message)) {
+				if (this.overflowStrategy == OverflowStrategy.DROP) {
+					this.messageCache.poll();
+					this.droppedMessageCount++;
+					if (logger.isDebugEnabled()) {
+						logger.debug("Dropped oldest message, message cache limit " +
+								this.messageCacheLimit + " reached in session " + getId());
+					}
+				}
+				else {
+					throw new SessionLimitExceededException("Message cache limit " + this.messageCacheLimit +
+							" reached in session " + getId(), CloseStatus.SESSION_NOT_RELIABLE);
+				}
+			}
 			if (logger.isTraceEnabled()) {
 				logger.trace(this.messageCache.size() + " message(s) to flush in session " + getId());
 			}
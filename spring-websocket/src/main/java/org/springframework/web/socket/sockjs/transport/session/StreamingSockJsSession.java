@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Queue;
 
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -66,24 +67,30 @@ public abstract class StreamingSockJsSession extends AbstractHttpSockJsSession {
 		flushCache();
 	}
 
+	/**
+	 * Write all cached messages in a single message frame, and recycle the
+	 * current request if the stream bytes limit is reached.
+	 */
 	@Override
 	protected void flushCache() throws SockJsTransportFailureException {
-		while (!getMessageCache().isEmpty()) {
-			String message = getMessageCache().poll();
+		Queue<String> messageCache = getMessageCache();
+		if (!messageCache.isEmpty()) {
+			String[] messages = new String[messageCache.size()];
+			for (int i = 0; i < messages.length; i++) {
+				messages[i] = messageCache.poll();
+			}
 			SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
-			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, message);
+			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, messages);
 			writeFrame(frame);
 
 			this.byteCount += (frame.getContentBytes().length + 1);
 			if (logger.isTraceEnabled()) {
-				logger.trace(this.byteCount + " bytes written so far, " +
-						getMessageCache().size() + " more messages not flushed");
+				logger.trace(this.byteCount + " bytes written so far, " + messages.length + " message(s) flushed");
 			}
 			if (this.byteCount >= getSockJsServiceConfig().getStreamBytesLimit()) {
 				logger.trace("Streamed bytes limit reached, recycling current request");
 				resetRequest();
 				this.byteCount = 0;
-				break;
 			}
 		}
 		scheduleHeartbeat();
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.messaging;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -39,6 +40,7 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.SimpAttributes;
 import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.messaging.simp.SimpBroadcast;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.TestPrincipal;
@@ -213,6 +215,31 @@ public class StompSubProtocolHandlerTests {
 		assertThat(actual.getPayload()).isEqualTo("\n");
 	}
 
+	@Test
+	public void handleMessageToClientWithBroadcast() {
+
+		SimpBroadcast broadcast = new SimpBroadcast();
+		byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+
+		for (String subscriptionId : Arrays.asList("sub1", "sub2")) {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			accessor.setSessionId("s1");
+			accessor.setSubscriptionId(subscriptionId);
+			accessor.setDestination("/topic/foo");
+			accessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_HEADER, broadcast);
+			Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+			this.protocolHandler.handleMessageToClient(this.session, message);
+		}
+
+		assertThat(this.session.getSentMessages().size()).isEqualTo(2);
+		String first = ((TextMessage) this.session.getSentMessages().get(0)).getPayload();
+		String second = ((TextMessage) this.session.getSentMessages().get(1)).getPayload();
+		assertThat(first).startsWith("MESSAGE\nsubscription:sub1\nmessage-id:").contains("destination:/topic/foo\n");
+		assertThat(second).startsWith("MESSAGE\nsubscription:sub2\nmessage-id:").contains("destination:/topic/foo\n");
+		assertThat(first).endsWith("\n\npayload\u0000");
+		assertThat(second).endsWith("\n\npayload\u0000");
+	}
+
 	@Test
 	public void handleMessageToClientWithHeartbeatSuppressingSockJsHeartbeat() throws IOException {
 
@@ -28,7 +28,10 @@ import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.sockjs.frame.DefaultSockJsFrameFormat;
 import org.springframework.web.socket.sockjs.frame.SockJsFrame;
 import org.springframework.web.socket.sockjs.frame.SockJsFrameFormat;
@@ -36,6 +39,7 @@ import org.springframework.web.socket.sockjs.transport.SockJsServiceConfig;
 import org.springframework.web.socket.sockjs.transport.session.HttpSockJsSessionTests.TestAbstractHttpSockJsSession;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -102,6 +106,52 @@ public class HttpSockJsSessionTests extends AbstractSockJsSessionTests<TestAbstr
 		verifyNoMoreInteractions(this.webSocketHandler);
 	}
 
+	@Test
+	public void flushCacheInSingleFrame() throws Exception {
+
+		WebSocketHandler handler = this.webSocketHandler;
+		StreamingSockJsSession session = new StreamingSockJsSession("1", this.sockJsConfig, handler, null) {
+			@Override
+			protected byte[] getPrelude(ServerHttpRequest request) {
+				return "hhh\n".getBytes();
+			}
+		};
+		session.getMessageCache().add("x");
+		session.getMessageCache().add("y");
+		session.handleSuccessiveRequest(this.request, this.response, this.frameFormat);
+
+		assertThat(this.servletResponse.getContentAsString()).isEqualTo("hhh\na[\"x\",\"y\"]");
+		assertThat(session.getMessageCacheSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void messageCacheOverflowTerminate() throws Exception {
+
+		this.sockJsConfig.setHttpMessageCacheSize(2);
+		this.session = initSockJsSession();
+		this.session.sendMessage(new TextMessage("a"));
+		this.session.sendMessage(new TextMessage("b"));
+
+		assertThatExceptionOfType(SessionLimitExceededException.class).isThrownBy(() ->
+				this.session.sendMessage(new TextMessage("c")));
+		assertThat(this.session.getMessageCache()).containsExactly("a", "b");
+	}
+
+	@Test
+	public void messageCacheOverflowDrop() throws Exception {
+
+		this.sockJsConfig.setHttpMessageCacheSize(2);
+		this.sockJsConfig.setHttpMessageCacheOverflowStrategy(OverflowStrategy.DROP);
+		this.session = initSockJsSession();
+		this.session.sendMessage(new TextMessage("a"));
+		this.session.sendMessage(new TextMessage("b"));
+		this.session.sendMessage(new TextMessage("c"));
+
+		assertThat(this.session.getMessageCache()).containsExactly("b", "c");
+		assertThat(this.session.getMessageCacheSize()).isEqualTo(2);
+		assertThat(this.session.getDroppedMessageCount()).isEqualTo(1);
+	}
+
 
 	static class TestAbstractHttpSockJsSession extends StreamingSockJsSession {
 